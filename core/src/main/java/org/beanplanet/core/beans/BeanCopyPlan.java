@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.beans;
+
+import org.beanplanet.core.lang.conversion.TypeConverter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A precomputed plan for copying the values of all <i>readable</i> properties of one bean class to the corresponding
+ * <i>writable</i> properties of another. The properties common to both classes are matched once, when the plan is
+ * built, so that copying simply reads and writes each property through its bound accessors, converting only values
+ * which are not already of the type accepted by the destination property.
+ *
+ * @author Gary Watson
+ * @see JavabeanMetadataCache#getCopyPlan(Class, Class)
+ */
+final class BeanCopyPlan {
+    /** The readers of the source properties, in property name order. */
+    private final BeanPropertyAccessor[] readers;
+
+    /** The writers of the destination properties, corresponding to each of the readers. */
+    private final BeanPropertyAccessor[] writers;
+
+    /**
+     * Builds a new plan for copying properties between beans of the given classes.
+     *
+     * @param sourceMetadata the metadata of the source bean class, whose readable properties will be read.
+     * @param destinationMetadata the metadata of the destination bean class, whose writable properties will be written.
+     */
+    BeanCopyPlan(JavabeanMetadata sourceMetadata, JavabeanMetadata destinationMetadata) {
+        List<BeanPropertyAccessor> readers = new ArrayList<>();
+        List<BeanPropertyAccessor> writers = new ArrayList<>();
+        for (String propertyName : sourceMetadata.getPropertyNames()) {
+            BeanPropertyAccessor reader = sourceMetadata.getPropertyAccessor(propertyName).filter(BeanPropertyAccessor::isReadable).orElse(null);
+            BeanPropertyAccessor writer = destinationMetadata.getPropertyAccessor(propertyName).filter(BeanPropertyAccessor::isWritable).orElse(null);
+            if (reader != null && writer != null) {
+                readers.add(reader);
+                writers.add(writer);
+            }
+        }
+        this.readers = readers.toArray(new BeanPropertyAccessor[0]);
+        this.writers = writers.toArray(new BeanPropertyAccessor[0]);
+    }
+
+    /**
+     * Returns the number of properties copied by this plan.
+     *
+     * @return the number of properties both readable on the source and writable on the destination.
+     */
+    int getNumberOfProperties() {
+        return readers.length;
+    }
+
+    /**
+     * Copies the values of the planned properties from source to destination.
+     *
+     * @param typeConverter the type converter used to convert values not already of the destination property type,
+     *        which may be null if no conversion is to take place.
+     * @param source the source bean, an instance of the source class of this plan.
+     * @param destination the destination bean, an instance of the destination class of this plan.
+     * @return the destination bean for convenience.
+     */
+    <T> T copy(TypeConverter typeConverter, Object source, T destination) {
+        for (int n = 0; n < readers.length; n++) {
+            writers[n].set(typeConverter, destination, readers[n].get(source));
+        }
+        return destination;
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.beans;
+
+import org.beanplanet.core.UncheckedException;
+import org.beanplanet.core.lang.MethodBinder;
+import org.beanplanet.core.lang.TypeUtil;
+import org.beanplanet.core.lang.conversion.TypeConverter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Reads and writes a single property of a bean class through functions bound, once, to its accessor methods by the
+ * {@link MethodBinder}.
+ * <p>
+ * Runtime exceptions and errors thrown by an accessor method propagate unchanged, while checked exceptions are wrapped
+ * in an {@link UncheckedException}, as when accessor methods are invoked through {@link TypeUtil#invokeMethod}.
+ * </p>
+ *
+ * @author Gary Watson
+ */
+final class BeanPropertyAccessor {
+    private static final MethodType READER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType WRITER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /** The name of the property. */
+    private final String name;
+
+    /** The type of the property, as returned by its read method or accepted by its write method. */
+    private final Class<?> type;
+
+    /** The read method of the property, or null if the property is not readable. */
+    private final Method readMethod;
+
+    /** The write method of the property, or null if the property is not writable. */
+    private final Method writeMethod;
+
+    /** The non-primitive type accepted by the write method, or null if the property is not writable. */
+    private final Class<?> writeType;
+
+    private final Function<Object, Object> reader;
+
+    private final BiConsumer<Object, Object> writer;
+
+    /**
+     * Constructs a new <code>BeanPropertyAccessor</code>, binding functions to the accessor methods given.
+     *
+     * @param name the name of the property.
+     * @param readMethod the no-arg method returning the value of the property, or null if it is not readable.
+     * @param writeMethod the single-arg instance method setting the value of the property, or null if it is not writable.
+     */
+    BeanPropertyAccessor(String name, Method readMethod, Method writeMethod) {
+        this.name = name;
+        this.readMethod = readMethod;
+        this.writeMethod = writeMethod;
+        this.type = readMethod != null ? readMethod.getReturnType() : writeMethod.getParameterTypes()[0];
+        this.writeType = writeMethod == null ? null : TypeUtil.ensureNonPrimitiveType(writeMethod.getParameterTypes()[0]);
+        this.reader = readMethod == null ? null : bindReader(readMethod);
+        this.writer = writeMethod == null ? null : bindWriter(writeMethod);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public Method getReadMethod() {
+        return readMethod;
+    }
+
+    public Method getWriteMethod() {
+        return writeMethod;
+    }
+
+    public boolean isReadable() {
+        return reader != null;
+    }
+
+    public boolean isWritable() {
+        return writer != null;
+    }
+
+    /**
+     * Returns the value of the property on a bean.
+     *
+     * @param bean the bean whose property value is to be returned, which must be an instance of the class declaring
+     *        the read method.
+     * @return the value of the property, which may be null.
+     */
+    public Object get(Object bean) {
+        try {
+            return reader.apply(bean);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable th) {
+            // Thrown by a generated function, which does not declare the checked exceptions of the method
+            throw MethodBinder.rethrow(readMethod, th);
+        }
+    }
+
+    /**
+     * Sets the value of the property on a bean.
+     *
+     * @param bean the bean whose property value is to be set, which must be an instance of the class declaring the
+     *        write method.
+     * @param value the value to set, which must be assignable to the type accepted by the write method.
+     */
+    public void set(Object bean, Object value) {
+        try {
+            writer.accept(bean, value);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable th) {
+            throw MethodBinder.rethrow(writeMethod, th);
+        }
+    }
+
+    /**
+     * Sets the value of the property on a bean, first converting the value to the type accepted by the write method if
+     * it is not already an instance of that type.
+     *
+     * @param typeConverter the type converter used to convert the value, which may be null if no conversion is to take
+     *        place.
+     * @param bean the bean whose property value is to be set.
+     * @param value the value to set, which may be null.
+     */
+    public void set(TypeConverter typeConverter, Object bean, Object value) {
+        set(bean, convertForWrite(typeConverter, value));
+    }
+
+    /**
+     * Converts a value to the type accepted by the write method of the property, if it is not already an instance of
+     * that type.
+     *
+     * @param typeConverter the type converter used to convert the value, which may be null if no conversion is to take
+     *        place.
+     * @param value the value to be converted, which may be null.
+     * @return the value, converted if necessary.
+     */
+    Object convertForWrite(TypeConverter typeConverter, Object value) {
+        if (value == null || typeConverter == null || writeType.isInstance(value)) return value;
+
+        return typeConverter.convert(value, writeMethod.getParameterTypes()[0]);
+    }
+
+    private static Function<Object, Object> bindReader(Method method) {
+        MethodHandle handle = unreflect(method);
+        if (Modifier.isStatic(method.getModifiers())) {
+            // A static method read by name, which ignores the bean
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        } else {
+            Function<Object, Object> generated = generate(Function.class, "apply", READER_TYPE, method, handle);
+            if (generated != null) return generated;
+        }
+
+        MethodHandle adaptedHandle = handle.asType(READER_TYPE);
+        return bean -> {
+            try {
+                return adaptedHandle.invokeExact(bean);
+            } catch (Throwable th) {
+                throw MethodBinder.rethrow(method, th);
+            }
+        };
+    }
+
+    private static BiConsumer<Object, Object> bindWriter(Method method) {
+        MethodHandle handle = unreflect(method);
+        BiConsumer<Object, Object> generated = generate(BiConsumer.class, "accept", WRITER_TYPE, method, handle);
+        if (generated != null) return generated;
+
+        // Any value returned by a fluent setter is discarded
+        MethodHandle adaptedHandle = handle.asType(handle.type().changeReturnType(void.class)).asType(WRITER_TYPE);
+        return (bean, value) -> {
+            try {
+                adaptedHandle.invokeExact(bean, value);
+            } catch (Throwable th) {
+                throw MethodBinder.rethrow(method, th);
+            }
+        };
+    }
+
+    private static MethodHandle unreflect(Method method) {
+        try {
+            return MethodBinder.unreflect(method);
+        } catch (IllegalAccessException | RuntimeException accessEx) {
+            throw new BeanException("Unable to bind bean property accessor method [" + method + "] - the method is not accessible: ", accessEx);
+        }
+    }
+
+    /**
+     * Generates a function calling an accessor method directly, with the bean as its first argument, if the method is
+     * directly callable.
+     *
+     * @return the function generated, or null if the method is not directly callable or the function could not be
+     *         generated.
+     */
+    private static <F> F generate(Class<? super F> functionType, String functionMethodName, MethodType functionMethodType, Method method, MethodHandle handle) {
+        MethodType instantiatedMethodType = handle.type().wrap();
+        if (functionMethodType.returnType() == void.class) {
+            instantiatedMethodType = instantiatedMethodType.changeReturnType(void.class);
+        }
+        return MethodBinder.generate(MethodHandles.lookup(), functionType, functionMethodName, functionMethodType, method, handle, instantiatedMethodType, null);
+    }
+}
@@ -25,6 +25,7 @@ import java.util.Optional;
 import java.util.function.Function;
 
 import static java.util.Arrays.asList;
+import static org.beanplanet.core.lang.conversion.SystemTypeConverter.systemTypeConverter;
 
 /**
  * A static utility class, containing convenient methods that deal will access to <a
@@ -100,22 +101,7 @@ public class BeanUtil {
      * @return true, if the bean has the specified readable property or method that returns a value.
      */
     public static boolean isReadableProperty(JavabeanMetadataCache metaDataCache, Class<?> beanClass, String name) {
-        // if (bean instanceof JavaBean) {
-        // bean = ((JavaBean) bean).getBeanObject();
-        // }
-        JavabeanMetadata JavabeanMetadata = metaDataCache.getBeanMetaData(beanClass);
-        boolean isReadable = JavabeanMetadata.isReadableProperty(name);
-
-        if (!isReadable) {
-            Method publicMethods[] = JavabeanMetadata.getPublicMethods();
-            for (int n = 0; n < publicMethods.length && !isReadable; n++) {
-                Method method = publicMethods[n];
-                isReadable = method.getName().equals(name) && method.getParameterTypes().length == 0
-                    && method.getReturnType() != void.class;
-            }
-        }
-
-        return isReadable;
+        return metaDataCache.getBeanMetaData(beanClass).getValueReader(name).isPresent();
     }
 
     /**
@@ -145,7 +131,9 @@ public class BeanUtil {
      * @see #getPropertyValue(JavabeanMetadataCache, Object, String)
      */
     public static Object getPropertyValue(JavabeanMetadataCache metaDataCache, Object bean, String name) throws PropertyNotFoundException, BeanException {
-        if (!isReadableProperty(metaDataCache, bean, name)) {
+        JavabeanMetadata JavabeanMetadata = metaDataCache.getBeanMetaData(bean.getClass());
+        Optional<BeanPropertyAccessor> reader = JavabeanMetadata.getValueReader(name);
+        if (!reader.isPresent()) {
             throw new PropertyNotFoundException("The name specified ["
                 + name
                 + "] is not readable on the bean ["
@@ -155,49 +143,18 @@ public class BeanUtil {
                 + "method with that name, with zero parameters and a return value type.");
         }
 
-        Object value = null;
         try {
-            JavabeanMetadata JavabeanMetadata = metaDataCache.getBeanMetaData(bean.getClass());
             Optional<PropertyDescriptor> property = JavabeanMetadata.getPropertyDescriptor(name);
-            boolean readProperty = false;
-            if (property.isPresent()) {
-                if (property.get() instanceof IndexedPropertyDescriptor) {
-                    IndexedPropertyDescriptor idxProperty = (IndexedPropertyDescriptor) property.get();
-                    Method method = idxProperty.getIndexedReadMethod();
-                    if (method != null) {
-                        value = TypeUtil.invokeMethod(bean, method, new Object[] { new Integer(0) });
-                        // value = method.invoke(Modifier.isStatic(method.getModifiers()) ? null : bean,
-                        // new Object[] { new Integer(0) });
-                        readProperty = true;
-                    }
-                }
-                else {
-                    Method method = property.get().getReadMethod();
-                    if (method != null) {
-                        value = TypeUtil.invokeMethod(bean, method, new Object[] {});
-                        // value = method.invoke(Modifier.isStatic(method.getModifiers()) ? null : bean, new Object[] {});
-                        readProperty = true;
-                    }
+            if (property.isPresent() && property.get() instanceof IndexedPropertyDescriptor) {
+                IndexedPropertyDescriptor idxProperty = (IndexedPropertyDescriptor) property.get();
+                Method method = idxProperty.getIndexedReadMethod();
+                if (method != null) {
+                    return TypeUtil.invokeMethod(bean, method, new Object[] { 0 });
                 }
             }
 
-            // If it wasn't a readable property then it must be a method with the
-            // same name that returns a value
-            if (!readProperty) {
-                Method publicMethods[] = JavabeanMetadata.getPublicMethods();
-                for (int n = 0; n < publicMethods.length && !readProperty; n++) {
-                    Method method = publicMethods[n];
-                    if (method.getName().equals(name) && method.getParameterTypes().length == 0
-                        && method.getReturnType() != void.class) {
-                        value = TypeUtil.invokeMethod(bean, method, new Object[] {});
-                        // value = method.invoke(Modifier.isStatic(method.getModifiers()) ? null : bean, new Object[] {});
-                        readProperty = true;
-                    }
-                }
-            }
-
-            return value;
-
+            // A readable property or else a method with the same name that returns a value
+            return reader.get().get(bean);
         }
         catch (Throwable th) {
             // Bean method called threw an exception
@@ -233,7 +190,9 @@ public class BeanUtil {
      * @see #getPropertyValue(JavabeanMetadataCache, Object, String)
      */
     public static Class<?> getPropertyType(JavabeanMetadataCache metaDataCache, Class<?> beanClass, String name) throws PropertyNotFoundException, BeanException {
-        if (!isReadableProperty(metaDataCache, beanClass, name)) {
+        JavabeanMetadata JavabeanMetadata = metaDataCache.getBeanMetaData(beanClass);
+        Optional<BeanPropertyAccessor> reader = JavabeanMetadata.getValueReader(name);
+        if (!reader.isPresent()) {
             throw new PropertyNotFoundException("The name specified ["
                 + name
                 + "] is not readable on the bean class ["
@@ -243,51 +202,16 @@ public class BeanUtil {
                 + "method with that name, with zero parameters and a return value type.");
         }
 
-        Class<?> propertyType = null;
-        try {
-            JavabeanMetadata JavabeanMetadata = metaDataCache.getBeanMetaData(beanClass);
-            Optional<PropertyDescriptor> property = JavabeanMetadata.getPropertyDescriptor(name);
-            boolean readProperty = false;
-            if (property.isPresent()) {
-                if (property.get() instanceof IndexedPropertyDescriptor) {
-                    IndexedPropertyDescriptor idxProperty = (IndexedPropertyDescriptor) property.get();
-                    Method method = idxProperty.getIndexedReadMethod();
-                    if (method != null) {
-                        propertyType = method.getReturnType();
-                        readProperty = true;
-                    }
-                }
-                else {
-                    Method method = property.get().getReadMethod();
-                    if (method != null) {
-                        propertyType = method.getReturnType();
-                        readProperty = true;
-                    }
-                }
-            }
-
-            // If it wasn't a readable property then it must be a method with the
-            // same name that returns a value
-            if (!readProperty) {
-                Method publicMethods[] = JavabeanMetadata.getPublicMethods();
-                for (int n = 0; n < publicMethods.length && !readProperty; n++) {
-                    Method method = publicMethods[n];
-                    if (method.getName().equals(name) && method.getParameterTypes().length == 0
-                        && method.getReturnType() != void.class) {
-                        propertyType = method.getReturnType();
-                        readProperty = true;
-                    }
-                }
+        Optional<PropertyDescriptor> property = JavabeanMetadata.getPropertyDescriptor(name);
+        if (property.isPresent() && property.get() instanceof IndexedPropertyDescriptor) {
+            Method method = ((IndexedPropertyDescriptor) property.get()).getIndexedReadMethod();
+            if (method != null) {
+                return method.getReturnType();
             }
-
-            return propertyType;
-
-        }
-        catch (Throwable th) {
-            // Bean method called threw an exception
-            throw new BeanException("Unexpected error reading bean property [" + name + "] on bean class ["
-                + beanClass.getName() + "]: ", th);
         }
+
+        // A readable property or else a method with the same name that returns a value
+        return reader.get().getType();
     }
 
     /**
@@ -428,13 +352,17 @@ public class BeanUtil {
 
     /**
      * Copies the values of all <i>readable</i> properties from source to corresponding <i>writable</i> properties of destination.
+     * The properties copied between beans of the same classes are determined once, then copied through a plan cached
+     * for those classes.
      *
      * @param source the source bean, whose readable properties will be read.
      * @param destination the destination bean whose writable properties will be written to.
      * @return the destination bean for convenience.
      */
     public static <T> T copyProperties(Object source, T destination) {
-        return copyProperties(new JavaBean<>(source), new JavaBean<>(destination), allProperties());
+        return JavabeanMetadataCache.getSystemCache()
+                                    .getCopyPlan(source.getClass(), destination.getClass())
+                                    .copy(systemTypeConverter(), source, destination);
     }
 
     /**
@@ -95,25 +95,25 @@ public class JavaBean<T> implements Bean {
                                                                                name, TypeUtil.getDisplayNameForType(bean.getClass()))));
     }
 
-    private PropertyDescriptor assertAndGetReadablePropertyDescriptor(String name) throws PropertyNotFoundException {
-        return getPropertyDescriptor(name)
-                .filter(JavaBean::isReadableProperty)
+    private BeanPropertyAccessor assertAndGetReadableProperty(String name) throws PropertyNotFoundException {
+        return getBeanMetaData().getPropertyAccessor(name)
+                .filter(BeanPropertyAccessor::isReadable)
                 .orElseThrow(() -> new PropertyNotFoundException(String.format("The property [%s] on bean [%s] is no readable. Does it have a no-arg accessor/getter?",
                                                                                name, TypeUtil.getDisplayNameForType(bean.getClass()))));
     }
 
-    private PropertyDescriptor assertAndGetWritablePropertyDescriptor(String name) throws PropertyNotFoundException {
-        return getPropertyDescriptor(name)
-                .filter(JavaBean::isWritableProperty)
+    private BeanPropertyAccessor assertAndGetWritableProperty(String name) throws PropertyNotFoundException {
+        return getBeanMetaData().getPropertyAccessor(name)
+                .filter(BeanPropertyAccessor::isWritable)
                 .orElseThrow(() -> new PropertyNotFoundException(String.format("The property [%s] on bean [%s] is no writable. Does it have a single-arg accessor/setter?",
                                                                                name, TypeUtil.getDisplayNameForType(bean.getClass()))));
     }
 
     @Override
     public Value get(String name) throws PropertyNotFoundException {
-        PropertyDescriptor pd = assertAndGetReadablePropertyDescriptor(name);
+        BeanPropertyAccessor accessor = assertAndGetReadableProperty(name);
 
-        return new TypeConvertingValue(typeConverter, TypeUtil.invokeMethod(bean, pd.getReadMethod()));
+        return new TypeConvertingValue(typeConverter, accessor.get(bean));
     }
 
     @Override
@@ -127,9 +127,9 @@ public class JavaBean<T> implements Bean {
 
     @Override
     public void set(String name, Object value) throws BeanException {
-        PropertyDescriptor pd = assertAndGetWritablePropertyDescriptor(name);
+        BeanPropertyAccessor accessor = assertAndGetWritableProperty(name);
 
-        TypeUtil.invokeMethod(typeConverter, bean, pd.getWriteMethod(), value);
+        accessor.set(typeConverter, bean, value);
     }
 
     public JavaBean<T> with(String name, Object value) throws BeanException {
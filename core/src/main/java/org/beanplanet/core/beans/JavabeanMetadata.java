@@ -22,6 +22,7 @@ import java.beans.*;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Holds meta data for a <code>JavaBean</code> bean instance. Lazily loaded where possible.
@@ -43,8 +44,8 @@ class JavabeanMetadata {
     /** A list of the properties of the bean. */
     protected PropertyDescriptor properties[];
 
-    /** A list of the property names, cached for speed of access. */
-    protected String propertyNames[];
+    /** A list of the property names, cached for speed of access. Published after the name-->descriptor map. */
+    protected volatile String propertyNames[];
 
     /** A mapping of the name-->descriptor for each property of the bean. */
     protected Map<String, PropertyDescriptor> propertyNamesToDescriptorMap = Collections.emptyMap();
@@ -88,6 +89,15 @@ class JavabeanMetadata {
     /** A list of the private method names */
     protected String privateMethodNames[];
 
+    /** A mapping of the name-->accessor for each readable or writable property of the bean, bound on first use. */
+    private final Map<String, BeanPropertyAccessor> propertyAccessors = new ConcurrentHashMap<>();
+
+    /** A mapping of the name-->reader for each readable property or value returning public method of the bean. */
+    private final Map<String, BeanPropertyAccessor> valueReaders = new ConcurrentHashMap<>();
+
+    /** A mapping of the name-->method for each public no-arg method returning a value. */
+    private volatile Map<String, Method> publicValueMethods;
+
     /**
      * Constructs a new <code>JavabeanMetadata</code> with no initial design patterns.
      */
@@ -160,8 +170,8 @@ class JavabeanMetadata {
                 propNames[n] = properties[n].getName();
                 propMap.put(propNames[n], properties[n]);
             }
-            propertyNames = propNames;
             propertyNamesToDescriptorMap = propMap;
+            propertyNames = propNames;
         }
         return propertyNames;
     }
@@ -170,6 +180,65 @@ class JavabeanMetadata {
         return Optional.ofNullable(getPropertyNamesToDescriptorMap().get(propertyName));
     }
 
+    /**
+     * Returns the accessor of a named property, whose read method takes no parameters or whose write method takes a
+     * single parameter of the property type. The accessor is bound on first request and is reused thereafter.
+     *
+     * @param propertyName the name of the property whose accessor is to be returned.
+     * @return the accessor of the property, or empty if the bean has no such readable or writable property.
+     */
+    public Optional<BeanPropertyAccessor> getPropertyAccessor(String propertyName) {
+        BeanPropertyAccessor accessor = propertyAccessors.get(propertyName);
+        if (accessor != null) return Optional.of(accessor);
+
+        PropertyDescriptor property = getPropertyNamesToDescriptorMap().get(propertyName);
+        if (property == null) return Optional.empty();
+
+        Method readMethod = JavaBean.isReadableProperty(property) ? property.getReadMethod() : null;
+        Method writeMethod = JavaBean.isWritableProperty(property) ? property.getWriteMethod() : null;
+        if (readMethod == null && writeMethod == null) return Optional.empty();
+
+        return Optional.of(propertyAccessors.computeIfAbsent(propertyName, name -> new BeanPropertyAccessor(name, readMethod, writeMethod)));
+    }
+
+    /**
+     * Returns the reader of a named value of the bean: the accessor of a readable, non-indexed, property with the name
+     * or else of a public method with the name, zero parameters and a return value type.
+     *
+     * @param name the name of the property or method whose reader is to be returned.
+     * @return the reader of the named value, or empty if the bean has no such readable property or method.
+     */
+    public Optional<BeanPropertyAccessor> getValueReader(String name) {
+        BeanPropertyAccessor reader = valueReaders.get(name);
+        if (reader != null) return Optional.of(reader);
+
+        if (isReadableProperty(name)) {
+            reader = getPropertyAccessor(name).filter(BeanPropertyAccessor::isReadable).orElse(null);
+        }
+        if (reader == null) {
+            Method method = getPublicValueMethods().get(name);
+            if (method == null) return Optional.empty();
+
+            reader = new BeanPropertyAccessor(name, method, null);
+        }
+
+        BeanPropertyAccessor existingReader = valueReaders.putIfAbsent(name, reader);
+        return Optional.of(existingReader != null ? existingReader : reader);
+    }
+
+    private Map<String, Method> getPublicValueMethods() {
+        if (publicValueMethods == null) {
+            Map<String, Method> methods = new HashMap<>();
+            for (Method method : getPublicMethods()) {
+                if (method.getParameterCount() == 0 && method.getReturnType() != void.class) {
+                    methods.putIfAbsent(method.getName(), method);
+                }
+            }
+            publicValueMethods = methods;
+        }
+        return publicValueMethods;
+    }
+
     private Map<String, PropertyDescriptor> getPropertyNamesToDescriptorMap() {
         if (propertyNames == null) {
             getPropertyNames(); // Cache property name
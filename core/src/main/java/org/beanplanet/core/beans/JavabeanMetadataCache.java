@@ -16,17 +16,46 @@
 
 package org.beanplanet.core.beans;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A cache of JavaBean related meta data, used by <code>JavaBean</code>.
+ * <p>
+ * Metadata is held against each bean class in a {@link ClassValue}, rather than in a map keyed by class name, so that
+ * lookups neither contend on a shared lock nor confuse like-named classes of different class loaders.
+ * </p>
  *
  * @author Gary Watson
  */
 class JavabeanMetadataCache {
-    protected Map<String, JavabeanMetadata> metaDataCache = Collections.synchronizedMap(new HashMap<String, JavabeanMetadata>());
+    /** Stands in for a null stop class, which concurrent maps do not accept as a key. */
+    private static final Class<?> NO_STOP_CLASS = void.class;
+
+    /** The metadata of each start class, by stop class. */
+    private final ClassValue<Map<Class<?>, JavabeanMetadata>> metaDataCache = new ClassValue<Map<Class<?>, JavabeanMetadata>>() {
+        @Override
+        protected Map<Class<?>, JavabeanMetadata> computeValue(Class<?> startClass) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * The plans for copying properties from each source class, by destination class. The plans are held in a nested
+     * class value, so each is held by its destination class rather than in a map which would keep every destination
+     * class, and so its class loader, alive for as long as the source class.
+     */
+    private final ClassValue<ClassValue<BeanCopyPlan>> copyPlanCache = new ClassValue<ClassValue<BeanCopyPlan>>() {
+        @Override
+        protected ClassValue<BeanCopyPlan> computeValue(Class<?> sourceClass) {
+            return new ClassValue<BeanCopyPlan>() {
+                @Override
+                protected BeanCopyPlan computeValue(Class<?> destinationClass) {
+                    return new BeanCopyPlan(getBeanMetaData(sourceClass, Object.class), getBeanMetaData(destinationClass, Object.class));
+                }
+            };
+        }
+    };
 
     private static JavabeanMetadataCache systemCache = new JavabeanMetadataCache();
 
@@ -44,14 +73,6 @@ class JavabeanMetadataCache {
         JavabeanMetadataCache.systemCache = systemCache;
     }
 
-    public Map<String, JavabeanMetadata> getMetaDataCache() {
-        return metaDataCache;
-    }
-
-    public void setMetaDataCache(Map<String, JavabeanMetadata> metaDataCache) {
-        this.metaDataCache = metaDataCache;
-    }
-
     /**
      * Returns bean property information, including <code>PropertyDescriptor</code> objects, and method information.
      * <p>
@@ -85,27 +106,21 @@ class JavabeanMetadataCache {
      * @exception BeanException thrown if an error occurs inspecting the design patterns of the bean.
      */
     public JavabeanMetadata getBeanMetaData(Class<?> startClass, Class<?> stopClass) throws BeanException {
-        String metaDataKey = getBeanMetaDataKey(startClass, stopClass);
-        JavabeanMetadata metaData = metaDataCache.computeIfAbsent(metaDataKey, k -> new JavabeanMetadata(startClass, stopClass));
-
-        return metaData;
+        return metaDataCache.get(startClass).computeIfAbsent(stopClass == null ? NO_STOP_CLASS : stopClass,
+                                                             k -> new JavabeanMetadata(startClass, stopClass));
     }
 
     /**
-     * Computes a hash key for a <code>BeanMetaData</code> object, based on specified design start and stop classes.
+     * Returns a plan for copying the values of all <i>readable</i> properties of a source bean class to the
+     * corresponding <i>writable</i> properties of a destination bean class, as discovered up to but not including
+     * <code>Object</code>. The plan is built on first request and is reused thereafter.
      *
-     * @param startClass the class whose property design patterns are to be discovered
-     * @param stopClass the base class upto which, but not including, the design patterns on the bean will be discovered
-     *        and modelled. Can be null to indicate no stop class; in which case all properties upto and including
-     *        <code>Object</code> will be inspected.
-     * @return a hash key for the specified start/stop classes.
+     * @param sourceClass the class of the bean whose readable properties will be read.
+     * @param destinationClass the class of the bean whose writable properties will be written to.
+     * @return the plan for copying properties from a source to a destination bean of the given classes.
+     * @exception BeanException thrown if an error occurs inspecting the design patterns of either bean class.
      */
-    public String getBeanMetaDataKey(Class<?> startClass, Class<?> stopClass) {
-        StringBuilder s = new StringBuilder();
-        s.append(startClass.getName());
-        if (stopClass != null) {
-            s.append("_").append(stopClass.getName());
-        }
-        return s.toString();
+    public BeanCopyPlan getCopyPlan(Class<?> sourceClass, Class<?> destinationClass) throws BeanException {
+        return copyPlanCache.get(sourceClass).get(destinationClass);
     }
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * A bounded, lossy and striped buffer of cache accesses, used by caching policies to record cache hits without taking
+ * a lock on every read.
+ * <p>
+ * Each reading thread is hashed to one of a number of stripes, each a fixed-size ring buffer. Recording an access is a
+ * single CAS on the stripe's write counter. When a stripe fills the access is simply dropped: recency and frequency
+ * information is a heuristic, so losing the odd access under heavy contention is preferable to blocking readers.
+ * Recorded accesses are drained in batches, by whichever thread holds the owning policy's lock, via
+ * {@link #drainTo(Consumer)}.
+ */
+class AccessBuffer<K> {
+    /** The number of accesses each stripe can hold before further accesses are dropped. Must be a power of two. */
+    static final int STRIPE_CAPACITY = 128;
+    private static final int STRIPE_MASK = STRIPE_CAPACITY - 1;
+    /** The number of pending accesses in a stripe at which the recording thread should try to drain the buffer. */
+    static final int DRAIN_THRESHOLD = STRIPE_CAPACITY / 2;
+
+    private final Stripe<K>[] stripes;
+    private final int stripesMask;
+
+    @SuppressWarnings("unchecked")
+    AccessBuffer() {
+        int numberOfStripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        stripes = (Stripe<K>[]) new Stripe<?>[numberOfStripes];
+        for (int n=0; n < numberOfStripes; n++) {
+            stripes[n] = new Stripe<>();
+        }
+        stripesMask = numberOfStripes - 1;
+    }
+
+    /**
+     * Records an access of the given key.
+     *
+     * @param key the key accessed, which may not be null.
+     * @return true if the stripe to which the access was recorded has reached its drain threshold and the caller should
+     * attempt to drain the buffer, false otherwise.
+     */
+    boolean record(K key) {
+        return stripes[stripeIndex()].offer(key);
+    }
+
+    /**
+     * Drains all recorded accesses, in the order recorded within each stripe, to the given consumer. Callers must
+     * ensure only one thread drains the buffer at a time.
+     *
+     * @param consumer the consumer of recorded accesses.
+     */
+    void drainTo(Consumer<K> consumer) {
+        for (Stripe<K> stripe : stripes) {
+            stripe.drainTo(consumer);
+        }
+    }
+
+    private int stripeIndex() {
+        long threadId = Thread.currentThread().getId();
+        int hash = (int)(threadId ^ (threadId >>> 32)) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & stripesMask;
+    }
+
+    private static final class Stripe<K> {
+        private final AtomicReferenceArray<K> buffer = new AtomicReferenceArray<>(STRIPE_CAPACITY);
+        private final AtomicLong writeCounter = new AtomicLong();
+        private volatile long readCounter;
+
+        boolean offer(K key) {
+            long head = readCounter;
+            long tail = writeCounter.get();
+            long pending = tail - head;
+            if (pending >= STRIPE_CAPACITY) return true;
+
+            if (writeCounter.compareAndSet(tail, tail + 1)) {
+                buffer.lazySet((int)(tail & STRIPE_MASK), key);
+            }
+            return pending + 1 >= DRAIN_THRESHOLD;
+        }
+
+        void drainTo(Consumer<K> consumer) {
+            long head = readCounter;
+            long tail = writeCounter.get();
+            for (; head < tail; head++) {
+                int index = (int)(head & STRIPE_MASK);
+                K key = buffer.get(index);
+                if (key == null) break; // Slot claimed but not yet published - pick it up on the next drain
+
+                buffer.lazySet(index, null);
+                consumer.accept(key);
+            }
+            readCounter = head;
+        }
+    }
+}
@@ -42,4 +42,15 @@ public interface Cache<K, V> extends Map<K, V>, CacheEventSource {
      * @return true if the policy was removed, false otherwise.
      */
     boolean removeCachePolicy(CachePolicy<K, V> policy);
+
+    /**
+     * Evicts an item from the cache on behalf of a caching policy. Unlike {@link #remove(Object)}, an evicted item may
+     * be retained by a lower tier of the cache, if it has one.
+     *
+     * @param key the key of the item to be evicted.
+     * @return the value evicted, or null if there was no such item.
+     */
+    default V evict(Object key) {
+        return remove(key);
+    }
 }
@@ -23,6 +23,10 @@ public class CacheClearedEvent<K, V> extends CacheEvent<K, V> {
     private List<Cache.Entry<? extends K, ? extends V>> enriesEvicted;
 
     public CacheClearedEvent() {
-        super(Collections.emptyList());
+        this(null);
+    }
+
+    public CacheClearedEvent(Cache<K, V> cache) {
+        super(cache, Collections.emptyList());
     }
 }
@@ -25,9 +25,24 @@ public abstract class CacheEvent<K, V> extends BaseEvent {
 
     @SuppressWarnings("unchecked")
     public CacheEvent(List<Cache.Entry<? extends K, ? extends V>> entriesAffected) {
+        this(null, entriesAffected);
+    }
+
+    public CacheEvent(Cache<K, V> cache, List<Cache.Entry<? extends K, ? extends V>> entriesAffected) {
+        super(cache);
         this.entriesAffected = entriesAffected;
     }
 
+    /**
+     * Gets the cache which was the source of this event.
+     *
+     * @return the cache from which this event originated, which may be null if the event was not raised by a cache.
+     */
+    @SuppressWarnings("unchecked")
+    public Cache<K, V> getCache() {
+        return (Cache<K, V>)getSource();
+    }
+
     public List<Cache.Entry<? extends K, ? extends V>> getEntriesAffected() {
         return entriesAffected;
     }
@@ -20,7 +20,27 @@ import java.util.Collections;
 
 public class CacheHitEvent<K, V> extends CacheEvent<K, V> {
     public CacheHitEvent(K key, V value) {
-        super(Collections.singletonList(new ManagedCache.ManagedCacheEntry<>(key, value)));
+        this(null, key, value);
+    }
+
+    private final CacheTier tier;
+
+    public CacheHitEvent(Cache<K, V> cache, K key, V value) {
+        this(cache, key, value, CacheTier.HEAP);
+    }
+
+    public CacheHitEvent(Cache<K, V> cache, K key, V value, CacheTier tier) {
+        super(cache, Collections.singletonList(new ManagedCache.ManagedCacheEntry<>(key, value)));
+        this.tier = tier;
+    }
+
+    /**
+     * Returns the tier of the cache which served the hit.
+     *
+     * @return the tier holding the value found.
+     */
+    public CacheTier getTier() {
+        return tier;
     }
 
     public K getKey() {
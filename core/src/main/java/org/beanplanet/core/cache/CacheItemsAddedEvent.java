@@ -20,11 +20,26 @@ import java.util.List;
 
 public class CacheItemsAddedEvent<K, V> extends CacheEvent<K, V> {
     private List<Cache.Entry<? extends K, ? extends V>> enriesEvicted;
+    private final boolean promotion;
 
     public CacheItemsAddedEvent(List<Cache.Entry<? extends K, ? extends V>> entriesEvicted,
                                 List<Cache.Entry<? extends K, ? extends V>> entriesAdded) {
-        super(entriesAdded);
+        this(null, entriesEvicted, entriesAdded);
+    }
+
+    public CacheItemsAddedEvent(Cache<K, V> cache,
+                                List<Cache.Entry<? extends K, ? extends V>> entriesEvicted,
+                                List<Cache.Entry<? extends K, ? extends V>> entriesAdded) {
+        this(cache, entriesEvicted, entriesAdded, false);
+    }
+
+    public CacheItemsAddedEvent(Cache<K, V> cache,
+                                List<Cache.Entry<? extends K, ? extends V>> entriesEvicted,
+                                List<Cache.Entry<? extends K, ? extends V>> entriesAdded,
+                                boolean promotion) {
+        super(cache, entriesAdded);
         this.enriesEvicted = entriesEvicted;
+        this.promotion = promotion;
     }
 
     public List<Cache.Entry<? extends K, ? extends V>> getEntriesEvicted() {
@@ -34,4 +49,14 @@ public class CacheItemsAddedEvent<K, V> extends CacheEvent<K, V> {
     public List<Cache.Entry<? extends K, ? extends V>> getEntriesAdded() {
        return getEntriesAffected();
     }
+
+    /**
+     * Determines whether the items were promoted back to the heap from the second tier of the cache, rather than put
+     * in the cache. Promoted items were already in the cache, only evicted from the heap.
+     *
+     * @return true if the items were promoted from the second tier, false if they were put in the cache.
+     */
+    public boolean isPromotion() {
+        return promotion;
+    }
 }
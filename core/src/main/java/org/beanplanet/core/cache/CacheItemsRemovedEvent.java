@@ -20,8 +20,13 @@ import java.util.List;
 
 public class CacheItemsRemovedEvent<K, V> extends CacheEvent<K, V> {
     public CacheItemsRemovedEvent(List<Cache.Entry<? extends K, ? extends V>> ietmsRemoved) {
-        super(ietmsRemoved);
+        this(null, ietmsRemoved);
     }
+
+    public CacheItemsRemovedEvent(Cache<K, V> cache, List<Cache.Entry<? extends K, ? extends V>> ietmsRemoved) {
+        super(cache, ietmsRemoved);
+    }
+
     public List<Cache.Entry<? extends K, ? extends V>> getEntriesRemoved() {
        return getEntriesAffected();
     }
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.cache;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A single, shared daemon scheduler on which all caches and caching policies run their periodic maintenance, such as
+ * the expiry of timed-out items. Maintenance tasks are expected to be short and incremental, so sharing one thread
+ * across all caches avoids a thread per cache.
+ */
+final class CacheMaintenanceScheduler {
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "beanplanet-cache-maintenance-" + THREAD_NUMBER.incrementAndGet());
+        thread.setDaemon(true); // Allow for unexpected DIRECT shutdown of the VM
+        return thread;
+    });
+
+    private CacheMaintenanceScheduler() {}
+
+    /**
+     * Schedules a maintenance task to run periodically on the shared scheduler.
+     *
+     * @param task the maintenance task.
+     * @param periodMillis the period between successive runs, in milliseconds.
+     * @return a future which may be used to cancel the task.
+     */
+    static ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long periodMillis) {
+        return SCHEDULER.scheduleAtFixedRate(task, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -21,7 +21,27 @@ import java.util.List;
 
 public class CacheMissEvent<K, V> extends CacheEvent<K, V> {
     public CacheMissEvent(K key) {
-        super(Collections.singletonList(new ManagedCache.ManagedCacheEntry<>(key, null)));
+        this(null, key);
+    }
+
+    private final CacheTier tier;
+
+    public CacheMissEvent(Cache<K, V> cache, K key) {
+        this(cache, key, CacheTier.HEAP);
+    }
+
+    public CacheMissEvent(Cache<K, V> cache, K key, CacheTier tier) {
+        super(cache, Collections.singletonList(new ManagedCache.ManagedCacheEntry<>(key, null)));
+        this.tier = tier;
+    }
+
+    /**
+     * Returns the lowest tier of the cache searched before the miss was declared.
+     *
+     * @return the last tier searched for the value.
+     */
+    public CacheTier getTier() {
+        return tier;
     }
 
     public K getKey() {
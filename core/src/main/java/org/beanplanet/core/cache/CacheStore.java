@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.cache;
+
+/**
+ * A secondary store of cache values, to which a {@link ManagedCache} demotes values evicted from its heap tier and
+ * from which it promotes them again on lookup. A store is free to drop any value, under its own eviction policy.
+ *
+ * @param <K> the type of the keys of the store.
+ * @param <V> the type of the values of the store.
+ */
+public interface CacheStore<K, V> {
+    /**
+     * Returns the value stored under the given key.
+     *
+     * @param key the key of the value to be returned.
+     * @return the value stored under the key, or null if there is none.
+     */
+    V get(K key);
+
+    /**
+     * Stores a value under the given key, replacing any value already stored.
+     *
+     * @param key the key of the value to be stored.
+     * @param value the value to be stored, which may not be null.
+     * @return true if the value was stored, false if the store was unable to accommodate it.
+     */
+    boolean put(K key, V value);
+
+    /**
+     * Removes and returns the value stored under the given key.
+     *
+     * @param key the key of the value to be removed.
+     * @return the value removed, or null if there was none.
+     */
+    V remove(K key);
+
+    /**
+     * Removes the value stored under the given key, only if it is equal to the given value.
+     * <p>
+     * The default implementation is not atomic: it reads the value stored and then deletes it.
+     *
+     * @param key the key of the value to be removed.
+     * @param value the value expected to be stored under the key.
+     * @return true if the value was removed, false otherwise.
+     */
+    default boolean remove(K key, Object value) {
+        V stored = get(key);
+        return stored != null && stored.equals(value) && delete(key);
+    }
+
+    /**
+     * Removes the value stored under the given key, without returning it.
+     *
+     * @param key the key of the value to be removed.
+     * @return true if a value was removed, false otherwise.
+     */
+    boolean delete(K key);
+
+    /**
+     * Determines whether a value is stored under the given key.
+     *
+     * @param key the key to be checked.
+     * @return true if a value is stored under the key, false otherwise.
+     */
+    boolean containsKey(K key);
+
+    /**
+     * Returns the number of values stored.
+     *
+     * @return the number of values in the store.
+     */
+    int size();
+
+    /**
+     * Removes all values from the store.
+     */
+    void clear();
+}
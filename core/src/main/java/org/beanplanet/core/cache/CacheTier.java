@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.cache;
+
+/**
+ * The tiers in which a cache may hold its values.
+ */
+public enum CacheTier {
+    /** Values held as objects on the Java heap, in the cache's backing map. */
+    HEAP,
+    /** Values held in encoded form outside of the Java heap, in a {@link CacheStore}. */
+    OFF_HEAP
+}
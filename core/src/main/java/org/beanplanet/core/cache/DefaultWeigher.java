@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.cache;
+
+import org.beanplanet.core.io.resource.ByteArrayResource;
+
+import static org.beanplanet.core.util.SizeUtil.*;
+
+/**
+ * A weigher of cache entries by the estimated heap size of their values, in bytes. Sizes are estimated, via
+ * {@link org.beanplanet.core.util.SizeUtil}, for the following value types:
+ * <ul>
+ * <li><code>byte[]</code> - the array length plus array header;</li>
+ * <li>{@link CharSequence} - two bytes per character plus the sequence and array headers;</li>
+ * <li>{@link ByteArrayResource} - the whole backing array plus the resource header.</li>
+ * </ul>
+ * Values of any other type weigh a fixed {@link #getDefaultWeight() default weight}. Keys are not weighed.
+ */
+public class DefaultWeigher<K, V> implements Weigher<K, V> {
+    /** The weight of values whose size cannot be estimated. */
+    private final long defaultWeight;
+
+    /**
+     * Constructs a weigher whose values of unknown type weigh the size of an empty object.
+     */
+    public DefaultWeigher() {
+        this(alignedSizeInBytes(OBJECT_HEADER_BYTES));
+    }
+
+    /**
+     * Constructs a weigher with the given weight for values of unknown type.
+     *
+     * @param defaultWeight the weight of values whose size cannot be estimated.
+     */
+    public DefaultWeigher(long defaultWeight) {
+        this.defaultWeight = defaultWeight;
+    }
+
+    public long getDefaultWeight() {
+        return defaultWeight;
+    }
+
+    @Override
+    public long weigh(K key, V value) {
+        if (value instanceof byte[]) {
+            return estimateByteArraySizeInBytes(((byte[])value).length);
+        } else if (value instanceof CharSequence) {
+            return estimateCharSequenceSizeInBytes((CharSequence)value);
+        } else if (value instanceof ByteArrayResource) {
+            byte[] byteArray = ((ByteArrayResource)value).getByteArray();
+            return alignedSizeInBytes(OBJECT_HEADER_BYTES + 3L * REFERENCE_BYTES + 2L * Integer.BYTES)
+                   + (byteArray == null ? 0 : estimateByteArraySizeInBytes(byteArray.length));
+        }
+
+        return defaultWeight;
+    }
+}
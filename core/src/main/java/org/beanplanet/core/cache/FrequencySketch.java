@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.cache;
+
+import java.util.Arrays;
+
+/**
+ * A compact, probabilistic estimate of how often keys have been accessed: a count-min sketch of 4-bit counters with
+ * periodic aging.
+ * <p>
+ * Each key is hashed to four counters, one in each of four 16-counter groups packed into a single <code>long</code>.
+ * The estimated frequency of a key is the minimum of its four counters, so hash collisions can only ever overestimate.
+ * The table holds one <code>long</code> per cache entry, regardless of the number of distinct keys seen, so the memory
+ * overhead is a fixed 8 bytes per entry even for millions of keys.
+ * <p>
+ * When the number of increments reaches ten times the table size, all counters are halved. This ages the history so
+ * that keys which were once popular, but are no longer, do not retain their advantage forever.
+ * <p>
+ * This class is not thread-safe: callers must guard access with their own lock.
+ */
+class FrequencySketch<K> {
+    /** The maximum value of a 4-bit counter. */
+    static final int MAXIMUM_FREQUENCY = 15;
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+
+    private long[] table;
+    private int tableMask;
+    private int sampleSize;
+    private int size;
+
+    /**
+     * Creates a sketch without a table, which must be sized through {@link #ensureCapacity(int)} before use, so that the
+     * table is allocated only once the size of the cache is known.
+     */
+    FrequencySketch() {
+    }
+
+    /**
+     * Resizes the sketch to accurately estimate the frequencies of the given number of keys. Any frequencies
+     * previously recorded are discarded.
+     *
+     * @param maximumSize the maximum number of keys in the cache.
+     */
+    void ensureCapacity(int maximumSize) {
+        int maximum = Math.max(1, Math.min(maximumSize, 1 << 30));
+        table = new long[maximum == 1 ? 1 : Integer.highestOneBit(maximum - 1) << 1];
+        tableMask = table.length - 1;
+        sampleSize = 10 * maximum;
+        size = 0;
+    }
+
+    /**
+     * Returns the estimated number of times the key has been accessed, up to {@link #MAXIMUM_FREQUENCY}.
+     *
+     * @param key the key whose frequency is to be estimated.
+     * @return the estimated access frequency of the key.
+     */
+    int frequency(K key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = MAXIMUM_FREQUENCY;
+        for (int n=0; n < 4; n++) {
+            int index = indexOf(hash, n);
+            int count = (int)((table[index] >>> ((start + n) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Increments the estimated number of times the key has been accessed, aging all frequencies once the sample size
+     * has been reached.
+     *
+     * @param key the key accessed.
+     */
+    void increment(K key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int n=0; n < 4; n++) {
+            added |= incrementAt(indexOf(hash, n), start + n);
+        }
+
+        if (added && ++size == sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * Discards all recorded frequencies.
+     */
+    void clear() {
+        Arrays.fill(table, 0L);
+        size = 0;
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = 0xfL << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    private void reset() {
+        int oddCounters = 0;
+        for (int n=0; n < table.length; n++) {
+            oddCounters += Long.bitCount(table[n] & ONE_MASK);
+            table[n] = (table[n] >>> 1) & RESET_MASK;
+        }
+        size = (size >>> 1) - (oddCounters >>> 2);
+    }
+
+    private int indexOf(int hash, int counter) {
+        long index = (hash + SEEDS[counter]) * SEEDS[counter];
+        index += index >>> 32;
+        return ((int)index) & tableMask;
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
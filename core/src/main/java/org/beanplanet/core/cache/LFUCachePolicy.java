@@ -15,295 +15,447 @@
  */
 package org.beanplanet.core.cache;
 
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
 /**
  * Implementation of a Least-Frequently-Used caching policy.
  * <p>
  * Items that have been least often used are ejected before items used more often.
  * <p>
- * This caching policy maintains list of cached items, sorted according to the number of times each item has been hit.
- * The size of the least-frequent list maintained is determined by the <u>LFUBufferSize</u> property.
+ * This caching policy follows the W-TinyLFU design. Access frequencies are not counted per cached item but estimated,
+ * for every key seen, by a compact {@link FrequencySketch} whose counters are periodically halved so that stale
+ * popularity ages out. Cached items are tracked in three segments, bounded in total by the <u>LFUBufferSize</u>
+ * property:
+ * <ul>
+ * <li><b>window</b> - a small LRU segment, 1% of the buffer, which admits every new arrival so that bursts of new items
+ * are not rejected before they have had a chance to build up a frequency;</li>
+ * <li><b>probation</b> - items that have left the window but have not been hit since;</li>
+ * <li><b>protected</b> - items hit while on probation, up to 80% of the main segment.</li>
+ * </ul>
+ * When an item leaves the window and the buffer is full, it competes with the least recently used item on probation:
+ * the item with the lower estimated frequency is ejected from the cache. This makes the policy resistant to scans of
+ * many one-off keys, which would otherwise flush frequently used items from an LRU cache.
  * <p>
- * When a cache hit occurs on an item, the hit count for the item is incremented. When a new item is added to the cache
- * and the least-frequently-used buffer has reached <u>LFUBufferSize</u>, the least frequently used item is ejected from
- * the cache to make room for the new arrival.
+ * Cache hits and misses are recorded in a striped, lossy {@link AccessBuffer} without taking the policy lock and are
+ * applied to the sketch and segments in batches. The cache may also be bounded by the total weight of its items, such
+ * as their size in bytes, by configuring a {@link Weigher} and maximum weight. The policy keeps hit, miss and eviction
+ * counts which can be read at any time via {@link #getHitCount()}, {@link #getMissCount()}, {@link #getEvictionCount()}
+ * and {@link #getHitRatio()}.
  * 
  * @author Gary Watson
  */
 public class LFUCachePolicy<K, V> implements CachePolicy<K, V> {
+   private static final Long NO_WEIGHT = 0L;
+
    /** The LFU buffer size. */
    private int lfuBufferSize;
 
+   /** The maximum total weight of items allowed in the cache, if a weigher is configured. */
+   private volatile long maximumWeight = Long.MAX_VALUE;
+
+   /** The weigher of cache items, or null if items are not weighed. */
+   private volatile Weigher<? super K, ? super V> weigher;
+
+   /** The total weight of items tracked. Guarded by the policy lock. */
+   private long totalWeight;
+
+   /** The maximum number of items in the admission window. */
+   private int maximumWindowSize;
+
+   /** The maximum number of items in the protected segment. */
+   private int maximumProtectedSize;
+
+   /** The estimated access frequency of keys, sized with the LFU buffer. Guarded by the policy lock. */
+   private final FrequencySketch<K> sketch = new FrequencySketch<>();
+
+   /** The admission window keys to their weights, in LRU order. Guarded by the policy lock. */
+   private final LinkedHashMap<K, Long> window = new LinkedHashMap<>(16, 0.75f, true);
+
+   /** The probationary segment keys of the main space to their weights, in LRU order. Guarded by the policy lock. */
+   private final LinkedHashMap<K, Long> probation = new LinkedHashMap<>(16, 0.75f, true);
+
+   /** The protected segment keys of the main space to their weights, in LRU order. Guarded by the policy lock. */
+   private final LinkedHashMap<K, Long> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+   /** Cache hits and misses recorded, but not yet applied to the sketch and segments. */
+   private final AccessBuffer<K> accessBuffer = new AccessBuffer<>();
+
+   /** The policy lock. */
+   private final ReentrantLock lock = new ReentrantLock();
+
+   private final LongAdder hitCount = new LongAdder();
+   private final LongAdder missCount = new LongAdder();
+   private final LongAdder evictionCount = new LongAdder();
+
+   /**
+    * Constructs an LFU Caching Policy with a default LFU buffer size. Useful, when configuring the policy as a bean.
+    *
+    * @see #LFUCachePolicy(int)
+    */
+   public LFUCachePolicy() {
+      this(500);
+   }
+
+   /**
+    * Constructs an LFU Caching Policy with the specified LFU buffer size.
+    *
+    * @param lfuBufferSize the maximum number of items allowed in the cache before the LFU caching policy is applied to
+    *        maintain that level.
+    */
+   public LFUCachePolicy(int lfuBufferSize) {
+      setLfuBufferSize(lfuBufferSize);
+   }
+
+   /**
+    * Gets the LFU buffer size which determines the maximum number of items allowed in the cache before the LFU caching
+    * policy is applied to maintain that level.
+    *
+    * @return the LFU buffer size.
+    */
    public int getLfuBufferSize() {
       return lfuBufferSize;
    }
 
+   /**
+    * Sets the LFU buffer size which determines the maximum number of items allowed in the cache before the LFU caching
+    * policy is applied to maintain that level. Any access frequencies already recorded are discarded.
+    *
+    * @param lfuBufferSize the LFU buffer size.
+    */
    public void setLfuBufferSize(int lfuBufferSize) {
-      this.lfuBufferSize = lfuBufferSize;
+      lock.lock();
+      try {
+         this.lfuBufferSize = lfuBufferSize;
+         this.maximumWindowSize = Math.max(1, lfuBufferSize / 100);
+         this.maximumProtectedSize = (int)((lfuBufferSize - maximumWindowSize) * 0.8d);
+         sketch.ensureCapacity(lfuBufferSize);
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   /**
+    * Gets the maximum total weight of items allowed in the cache before the LFU caching policy is applied to maintain
+    * that level. Only applies if a weigher is configured.
+    *
+    * @return the maximum total weight.
+    */
+   public long getMaximumWeight() {
+      return maximumWeight;
+   }
+
+   /**
+    * Sets the maximum total weight of items allowed in the cache before the LFU caching policy is applied to maintain
+    * that level. Only applies if a weigher is configured.
+    *
+    * @param maximumWeight the maximum total weight.
+    */
+   public void setMaximumWeight(long maximumWeight) {
+      this.maximumWeight = maximumWeight;
+   }
+
+   public Weigher<? super K, ? super V> getWeigher() {
+      return weigher;
+   }
+
+   /**
+    * Sets the weigher of cache items, bounding the cache by the total weight of items as well as their number. Items
+    * are weighed as they are added, so this should be set before the policy is added to a cache.
+    *
+    * @param weigher the weigher of cache items, or null if items are not to be weighed.
+    */
+   public void setWeigher(Weigher<? super K, ? super V> weigher) {
+      this.weigher = weigher;
+   }
+
+   /**
+    * Returns the total weight of items currently tracked by this policy.
+    *
+    * @return the total weight of cache items, or zero if items are not weighed.
+    */
+   public long getTotalWeight() {
+      lock.lock();
+      try {
+         return totalWeight;
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   /**
+    * Returns the number of cache hits observed by this policy.
+    *
+    * @return the number of cache hits.
+    */
+   public long getHitCount() {
+      return hitCount.sum();
+   }
+
+   /**
+    * Returns the number of cache misses observed by this policy.
+    *
+    * @return the number of cache misses.
+    */
+   public long getMissCount() {
+      return missCount.sum();
+   }
+
+   /**
+    * Returns the number of items ejected from the cache by this policy.
+    *
+    * @return the number of evictions.
+    */
+   public long getEvictionCount() {
+      return evictionCount.sum();
+   }
+
+   /**
+    * Returns the ratio of cache hits to total cache lookups observed by this policy.
+    *
+    * @return the hit ratio, between 0 and 1, or 1 if no lookups have been observed.
+    */
+   public double getHitRatio() {
+      long hits = getHitCount();
+      long lookups = hits + getMissCount();
+      return lookups == 0 ? 1.0d : (double)hits / lookups;
+   }
+
+   /**
+    * Returns the number of items currently tracked by this policy.
+    *
+    * @return the number of cache keys in the window, probation and protected segments.
+    */
+   public int size() {
+      lock.lock();
+      try {
+         return trackedSize();
+      } finally {
+         lock.unlock();
+      }
    }
 
    @Override
    public String getName() {
-      return null;
+      return "LFU Cache Policy";
    }
 
    @Override
    public void onCacheCleared(CacheClearedEvent<K, V> event) {
-
+      lock.lock();
+      try {
+         accessBuffer.drainTo(key -> {});
+         window.clear();
+         probation.clear();
+         protectedSegment.clear();
+         totalWeight = 0;
+      } finally {
+         lock.unlock();
+      }
    }
 
    @Override
    public void onCacheItemsAdded(CacheItemsAddedEvent<K, V> event) {
+      List<K> evictedKeys = new ArrayList<>();
+      lock.lock();
+      try {
+         drainAccessBuffer();
+         Weigher<? super K, ? super V> weigher = this.weigher;
+         for (Cache.Entry<? extends K, ? extends V> entry : event.getEntriesAdded()) {
+            K key = entry.getKey();
+            // Ignore an addition already undone by an eviction outside the lock, whose removal event came first
+            if (event.getCache() != null && !event.getCache().containsKey(key)) continue;
 
+            Long weight = weigher == null ? NO_WEIGHT : weigher.weigh(key, entry.getValue());
+            sketch.increment(key);
+            if (weight > maximumWeight) {
+               // Rather than ejecting everything else to make room, eject the item which can never fit
+               Long previousWeight = removeFromSegments(key);
+               if (previousWeight != null) totalWeight -= previousWeight;
+               evictedKeys.add(key);
+               continue;
+            }
+
+            Long previousWeight = updateWeight(key, weight);
+            if (previousWeight == null) {
+               window.put(key, weight);
+               totalWeight += weight;
+            } else {
+               totalWeight += weight - previousWeight;
+               onAccess(key);
+            }
+         }
+         selectForEviction(evictedKeys);
+      } finally {
+         lock.unlock();
+      }
+
+      // Evicted outside the policy lock, as the removal events re-enter this and other policies, which take their own
+      // locks: holding this lock meanwhile would order the locks of policies differently on different threads
+      evict(event.getCache(), evictedKeys);
    }
 
    @Override
    public void onCacheItemsRemoved(CacheItemsRemovedEvent<K, V> event) {
+      lock.lock();
+      try {
+         drainAccessBuffer();
+         for (Cache.Entry<? extends K, ? extends V> entry : event.getEntriesRemoved()) {
+            // Ignore a removal already undone by an addition, whose event came first
+            if (event.getCache() != null && event.getCache().containsKey(entry.getKey())) continue;
 
+            Long weight = removeFromSegments(entry.getKey());
+            if (weight != null) {
+               totalWeight -= weight;
+            }
+         }
+      } finally {
+         lock.unlock();
+      }
    }
 
    @Override
    public void onCacheMiss(CacheMissEvent<K, V> event) {
-
+      missCount.increment();
+      recordAccess(event.getKey());
    }
 
    @Override
    public void onCacheHit(CacheHitEvent<K, V> event) {
+      hitCount.increment();
+      recordAccess(event.getKey());
+   }
+
+   private void recordAccess(K key) {
+      if (key == null) return;
+
+      if (accessBuffer.record(key) && lock.tryLock()) {
+         try {
+            drainAccessBuffer();
+         } finally {
+            lock.unlock();
+         }
+      }
+   }
+
+   /**
+    * Replays recorded cache accesses against the sketch and segments. Must be called with the policy lock held.
+    */
+   private void drainAccessBuffer() {
+      accessBuffer.drainTo(key -> {
+         sketch.increment(key);
+         onAccess(key);
+      });
+   }
+
+   /**
+    * Reorders a tracked key on access: within the window or protected segments, or promoting it from probation to the
+    * protected segment. Must be called with the policy lock held.
+    *
+    * @param key the key accessed.
+    * @return true if the key is tracked by this policy, false otherwise.
+    */
+   private boolean onAccess(K key) {
+      if (window.get(key) != null || protectedSegment.get(key) != null) return true;
+      Long weight = probation.remove(key);
+      if (weight == null) return false;
+
+      protectedSegment.put(key, weight);
+      while (protectedSegment.size() > maximumProtectedSize) {
+         Map.Entry<K, Long> demoted = pollFirst(protectedSegment);
+         probation.put(demoted.getKey(), demoted.getValue());
+      }
+      return true;
+   }
 
+   /**
+    * Moves items leaving the window into the main space, admitting each only if it is estimated to be used more
+    * frequently than the item on probation it would displace, then selects items for ejection, untracking them, until
+    * the number and total weight of items tracked are within the LFU buffer size and maximum weight. Must be called
+    * with the policy lock held.
+    *
+    * @param evictedKeys the keys of the items selected for ejection, to which further keys are added.
+    */
+   private void selectForEviction(List<K> evictedKeys) {
+      List<Map.Entry<K, Long>> candidates = new ArrayList<>();
+      while (window.size() > maximumWindowSize) {
+         candidates.add(pollFirst(window));
+      }
+
+      for (Map.Entry<K, Long> candidate : candidates) {
+         // The weight of candidates remains in the total weight until they are admitted or ejected
+         if (trackedSize() < lfuBufferSize && totalWeight <= maximumWeight) {
+            probation.put(candidate.getKey(), candidate.getValue());
+            continue;
+         }
+
+         LinkedHashMap<K, Long> victimSegment = !probation.isEmpty() ? probation : protectedSegment;
+         Map.Entry<K, Long> victim = victimSegment.isEmpty() ? null : victimSegment.entrySet().iterator().next();
+         if (victim != null && sketch.frequency(candidate.getKey()) > sketch.frequency(victim.getKey())) {
+            K victimKey = victim.getKey();
+            totalWeight -= victimSegment.remove(victimKey);
+            probation.put(candidate.getKey(), candidate.getValue());
+            evictedKeys.add(victimKey);
+         } else {
+            totalWeight -= candidate.getValue();
+            evictedKeys.add(candidate.getKey());
+         }
+      }
+
+      while (trackedSize() > 0 && (trackedSize() > lfuBufferSize || totalWeight > maximumWeight)) {
+         LinkedHashMap<K, Long> victimSegment = !probation.isEmpty() ? probation
+                                                : !protectedSegment.isEmpty() ? protectedSegment : window;
+         Map.Entry<K, Long> victim = pollFirst(victimSegment);
+         totalWeight -= victim.getValue();
+         evictedKeys.add(victim.getKey());
+      }
    }
 
-//   /** The maximum number of LFU count lists. */
-//   private int maxLFUCountList;
-//
-//   /** The LFU buffer in head-tail preference order. */
-//   private List<DoublyLinkedList<LFUCacheItemInfo<K>>> lfuList = new ArrayList<DoublyLinkedList<LFUCacheItemInfo<K>>>();
-//
-//   /** A mapping of cache key->LFU count list entry. * */
-//   private Map<K, DoublyLinkedListNode<LFUCacheItemInfo<K>>> cacheKeyToLFUEntry = new HashMap<K, DoublyLinkedListNode<LFUCacheItemInfo<K>>>();
-//
-//   protected SeverityLogger logger;
-//
-//   private static class LFUCacheItemInfo<E> {
-//      public int numberofUses;
-//
-//      public E item;
-//
-//      public LFUCacheItemInfo() {
-//      }
-//
-//      public LFUCacheItemInfo(E item) {
-//         this.item = item;
-//      }
-//   }
-//
-//   /**
-//    * Constructs an LFU Caching Policy with a default LFU buffer size. Useful, when configuring the policy as a bean.
-//    *
-//    * @see #LFUCachePolicy(int)
-//    */
-//   public LFUCachePolicy() {
-//      this(500);
-//   }
-//
-//   /**
-//    * Constructs an LFU Caching Policy with the specified LFU buffer size.
-//    *
-//    * @param lfuBufferSize the size of the LFU buffer that tracks cached items.
-//    */
-//   public LFUCachePolicy(int lfuBufferSize) {
-//      this(lfuBufferSize, Integer.MAX_VALUE);
-//   }
-//
-//   /**
-//    * Constructs an LFU Caching Policy with the specified LFU buffer size and maximum number of LFU count lists.
-//    *
-//    * @param lfuBufferSize the size of the LFU buffer that tracks cached items.
-//    * @param maxNumberOfLFUCountLists the maximum number of LFU lists maintained that keep count of each cached objects
-//    *        hits.
-//    */
-//   public LFUCachePolicy(int lfuBufferSize, int maxNumberOfLFUCountLists) {
-//      super("LRUCachePolicy", "Least-Frequently-Used Caching Policy",
-//            "A Least-Frequently-Used caching policy. This caching policy maintains list of cached items, "
-//                  + "sorted according to the number of times each item has been hit. The size of the least-frequent "
-//                  + "list maintained is determined by the LFUBufferSize property." + "\n"
-//                  + "When a cache hit occurs on an item, the hit count for the item is incremented. When a "
-//                  + "new item is added to the cache and the least-frequently-used buffer has reached LFUBufferSize, "
-//                  + "the least frequently used item is ejected from the cache to make room for the new arrival.");
-//      logger = BeanPlanetLogFactory.getSeverityLogger(this);
-//      setLFUBufferSize(lfuBufferSize);
-//      setMaximumNumberOfLFUCountLists(maxNumberOfLFUCountLists);
-//   }
-//
-//   public int getLFUBufferSize() {
-//      return lfuBufferSize;
-//   }
-//
-//   public void setLFUBufferSize(int lfuBufferSize) {
-//      this.lfuBufferSize = lfuBufferSize;
-//   }
-//
-//   public int getMaximumNumberOfLFUCountLists() {
-//      return maxLFUCountList;
-//   }
-//
-//   public void setMaximumNumberOfLFUCountLists(int maxLFUCountList) {
-//      this.maxLFUCountList = maxLFUCountList;
-//   }
-//
-//   /**
-//    * Called when items are added to the cache.
-//    *
-//    * @param ev the event that relates to the cached items
-//    */
-//   @Override
-//   public final void itemsAdded(CacheEvent<K, V> ev) {
-//      K keys[] = ev.getAffectedItemKeys();
-//      Cache<K, V> cache = ev.getCache();
-//
-//      DoublyLinkedList<LFUCacheItemInfo<K>> zeroHitsListImpl = getOrCreateLFUCountList(0);
-//      for (int n = 0; n < keys.length; n++) {
-//         while (cacheKeyToLFUEntry.size() >= lfuBufferSize) {
-//            removeLFUEntry(cache);
-//         }
-//
-//         LFUCacheItemInfo<K> itemInfo = new LFUCacheItemInfo<K>(keys[n]);
-//         DoublyLinkedListNode<LFUCacheItemInfo<K>> newNode = zeroHitsListImpl.addToHead(itemInfo);
-//         cacheKeyToLFUEntry.put(keys[n], newNode);
-//         if ( logger.isDebugEnabled() ) {
-//            logger.debug("Added LFU cache item,  key=" + keys[n] + " cache size=" + cache.size());
-//         }
-//      }
-//   }
-//
-//   /**
-//    * Called when items are removed from the cache.
-//    *
-//    * @param ev the event that relates to the cached items
-//    */
-//   @Override
-//   public final void itemsRemoved(CacheEvent<K, V> ev) {
-//      K keys[] = ev.getAffectedItemKeys();
-//      Cache<K, V> cache = ev.getCache();
-//
-//      for (int n = 0; n < keys.length; n++) {
-//         DoublyLinkedListNode<LFUCacheItemInfo<K>> itemNode = cacheKeyToLFUEntry.get(keys[n]);
-//         if (itemNode == null) {
-//            logger
-//                  .error("Cache internal error: cache item removed from cache without prior knowledge of it by this cache policy!");
-//            continue;
-//         }
-//
-//         LFUCacheItemInfo<K> itemInfo = itemNode.getValue();
-//         DoublyLinkedList<LFUCacheItemInfo<K>> currentUsageListImpl = getOrCreateLFUCountList(itemInfo.numberofUses);
-//
-//         cacheKeyToLFUEntry.remove(keys[n]);
-//         currentUsageListImpl.remove(itemNode);
-//
-//         if ( logger.isDebugEnabled() ) {
-//            logger.debug("Removed LFU cache item, key=" + keys[n] + " hit count=" + itemInfo.numberofUses + " cache size="
-//                         + cache.size());
-//         }
-//      }
-//   }
-//
-//   /**
-//    * Called when all items are removed from the cache.
-//    *
-//    * @param ev the event that relates to the cached items
-//    */
-//   @Override
-//   public final void cacheCleared(CacheEvent<K, V> ev) {
-//      cacheKeyToLFUEntry.clear();
-//      lfuList.clear();
-//      if ( logger.isDebugEnabled() ) {
-//         logger.debug("Cleared LFU buffer=" + this);
-//      }
-//   }
-//
-//   /**
-//    * Called when a cache 'hit' occurs of an item in the cache.
-//    *
-//    * @param ev the event that relates to the cached item
-//    */
-//   @Override
-//   public final void cacheItemHit(CacheEvent<K, V> ev) {
-//      K keys[] = ev.getAffectedItemKeys();
-//      Cache<K, V> cache = ev.getCache();
-//
-//      for (int n = 0; n < keys.length; n++) {
-//         DoublyLinkedListNode<LFUCacheItemInfo<K>> itemNode = cacheKeyToLFUEntry.get(keys[n]);
-//         if (itemNode == null) {
-//            logger
-//                  .error("Cache internal error: cache item hit from cache without prior knowledge of the item by this cache policy, key="
-//                         + keys[n]);
-//            continue;
-//         }
-//
-//         LFUCacheItemInfo<K> itemInfo = itemNode.getValue();
-//         DoublyLinkedList<LFUCacheItemInfo<K>> currentUsageListImpl = getOrCreateLFUCountList(itemInfo.numberofUses);
-//         DoublyLinkedList<LFUCacheItemInfo<K>> nextUsageListImpl = getOrCreateLFUCountList(++itemInfo.numberofUses);
-//
-//         currentUsageListImpl.remove(itemNode);
-//         nextUsageListImpl.add(itemInfo);
-//
-//         if ( logger.isDebugEnabled() ) {
-//            logger.debug("LFU cache hit, key=" + keys[n] + ", hit count=" + itemInfo.numberofUses + " cache size="
-//                         + cache.size());
-//         }
-//      }
-//   }
-//
-//   private DoublyLinkedList<LFUCacheItemInfo<K>> getOrCreateLFUCountList(int count) {
-//      DoublyLinkedList<LFUCacheItemInfo<K>> lfuCountListImpl = null;
-//      int lfuCountListIndex = Math.min(count, maxLFUCountList);
-//
-//      if (lfuCountListIndex >= lfuList.size()) {
-//         lfuCountListImpl = new DoublyLinkedListImpl<LFUCacheItemInfo<K>>();
-//         lfuList.add(lfuCountListIndex, lfuCountListImpl);
-//      }
-//      else {
-//         lfuCountListImpl = lfuList.get(lfuCountListIndex);
-//      }
-//
-//      return lfuCountListImpl;
-//   }
-//
-//   private void removeLFUEntry(Cache<K, V> cache) {
-//      DoublyLinkedList<LFUCacheItemInfo<K>> lfuListWithItemsImpl = null;
-//      for (int n = 0; n < lfuList.size() && lfuListWithItemsImpl == null; n++) {
-//         DoublyLinkedList<LFUCacheItemInfo<K>> lfuListFoundImpl = lfuList.get(n);
-//         if (lfuListFoundImpl.size() > 0) {
-//            lfuListWithItemsImpl = lfuListFoundImpl;
-//         }
-//      }
-//
-//      if (lfuListWithItemsImpl != null) {
-//         LFUCacheItemInfo<K> itemInfo = lfuListWithItemsImpl.peekLast();
-//         cache.remove(itemInfo.item);
-//      }
-//   }
-//
-//   public int getUsageCount(Object cacheKey) {
-//      DoublyLinkedListNode<LFUCacheItemInfo<K>> lfuListNode = cacheKeyToLFUEntry.get(cacheKey);
-//      if (lfuListNode == null) {
-//         return -1;
-//      }
-//
-//      LFUCacheItemInfo<K> itemInfo = lfuListNode.getValue();
-//      return itemInfo.numberofUses;
-//   }
-//
-//   /**
-//    * Returns a string report about the cache policy.
-//    *
-//    * @return a string that represents the internal state of the cache policy.
-//    */
-//   @Override
-//   public String toString() {
-//      StringBuilder s = new StringBuilder();
-//      s.append(ClassUtil.getClassBaseName(getClass())).append("[name=").append(getName())
-//      .append(", lfuBufferSize=")
-//      .append(lfuBufferSize).append(", maxLFUCountList=").append(maxLFUCountList)
-//      .append("]");
-//      return s.toString();
-//   }
+   /**
+    * Ejects items selected for ejection from the cache. Must be called without the policy lock held.
+    *
+    * @param cache the cache from which items are to be ejected, which may be null if unknown.
+    * @param evictedKeys the keys of the items to be ejected.
+    */
+   private void evict(Cache<K, V> cache, List<K> evictedKeys) {
+      evictionCount.add(evictedKeys.size());
+      if (cache == null) return;
+
+      for (K evictedKey : evictedKeys) {
+         cache.evict(evictedKey);
+      }
+   }
+
+   private int trackedSize() {
+      return window.size() + probation.size() + protectedSegment.size();
+   }
+
+   private Long updateWeight(K key, Long weight) {
+      if (window.containsKey(key)) return window.put(key, weight);
+      if (probation.containsKey(key)) return probation.put(key, weight);
+      if (protectedSegment.containsKey(key)) return protectedSegment.put(key, weight);
+      return null;
+   }
+
+   private Long removeFromSegments(K key) {
+      Long weight = window.remove(key);
+      if (weight == null) weight = probation.remove(key);
+      if (weight == null) weight = protectedSegment.remove(key);
+      return weight;
+   }
+
+   private static <K> Map.Entry<K, Long> pollFirst(LinkedHashMap<K, Long> segment) {
+      Iterator<Map.Entry<K, Long>> iterator = segment.entrySet().iterator();
+      Map.Entry<K, Long> first = iterator.next();
+      iterator.remove();
+      return new AbstractMap.SimpleImmutableEntry<>(first);
+   }
+
+   @Override
+   public String toString() {
+      return getClass().getSimpleName() + "[name=" + getName() + ", lfuBufferSize=" + lfuBufferSize + ", size=" + size()
+             + ", maximumWeight=" + maximumWeight + ", totalWeight=" + getTotalWeight() + ", hitRatio=" + getHitRatio()
+             + ", evictionCount=" + getEvictionCount() + "]";
+   }
 }
@@ -0,0 +1,395 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.cache;
+
+import org.beanplanet.core.UncheckedException;
+import org.beanplanet.core.lang.Assert;
+import org.beanplanet.core.logging.Logger;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * A managed cache which loads missing values on demand, through a loader function.
+ * <p>
+ * Concurrent misses for the same key are coalesced into a single load: the first thread to miss calls the loader and
+ * all other threads missing on the key meanwhile wait for, and share, its result. This prevents a stampede of
+ * expensive recomputations when a popular value is missing. Bulk lookups, via {@link #getAll(Iterable)}, load all
+ * missing keys with a single call to a bulk loader, if one is configured.
+ * <p>
+ * Values may optionally be refreshed a period after they were written. The first read of a value due for refresh
+ * schedules an asynchronous reload on the refresh executor and returns the current value; readers continue to be
+ * served the stale value, without blocking, until the reload completes and replaces it. If the reload fails, the stale
+ * value is retained and the refresh is retried on a subsequent read. A value promoted back to the heap from the second
+ * tier of the cache is treated as written when promoted, as its write time is not kept in the second tier.
+ * <p>
+ * Values loaded as null are not cached.
+ */
+public class LoadingCache<K, V> extends ManagedCache<K, V> implements Logger {
+    /** The loader of a single value. */
+    private final Function<? super K, ? extends V> loader;
+
+    /** The optional loader of multiple values at once. */
+    private volatile Function<? super Set<K>, ? extends Map<? extends K, ? extends V>> bulkLoader;
+
+    /** The period after a value was written at which it is refreshed, or zero for no refresh. */
+    private volatile long refreshAfterWriteMillis;
+
+    /** The executor on which values are refreshed. */
+    private volatile Executor refreshExecutor = ForkJoinPool.commonPool();
+
+    /** The source of the current time, in nanoseconds. */
+    private final LongSupplier nanoTimeSource;
+
+    /** Loads currently in progress, by key. */
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loadsInProgress = new ConcurrentHashMap<>();
+
+    /** Refreshes currently in progress, by key. */
+    private final ConcurrentHashMap<K, CompletableFuture<V>> refreshesInProgress = new ConcurrentHashMap<>();
+
+    /** The time, in nanoseconds, at which each value was written, maintained only while refresh is enabled. */
+    private final ConcurrentHashMap<K, Long> writeNanos = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a loading cache.
+     *
+     * @param loader the loader of a value, given its key, which may not be null.
+     */
+    public LoadingCache(Function<? super K, ? extends V> loader) {
+        this(new ConcurrentHashMap<>(), loader);
+    }
+
+    /**
+     * Constructs a loading cache, backed by the given map.
+     *
+     * @param backingMap the map backing the cache.
+     * @param loader the loader of a value, given its key, which may not be null.
+     */
+    public LoadingCache(ConcurrentHashMap<K, V> backingMap, Function<? super K, ? extends V> loader) {
+        this(backingMap, loader, System::nanoTime);
+    }
+
+    LoadingCache(ConcurrentHashMap<K, V> backingMap, Function<? super K, ? extends V> loader, LongSupplier nanoTimeSource) {
+        super(backingMap);
+        Assert.notNull(loader, "The loader may not be null");
+        this.loader = loader;
+        this.nanoTimeSource = nanoTimeSource;
+    }
+
+    public Function<? super Set<K>, ? extends Map<? extends K, ? extends V>> getBulkLoader() {
+        return bulkLoader;
+    }
+
+    /**
+     * Sets the loader of multiple values at once, used by {@link #getAll(Iterable)}. The bulk loader is passed the set of
+     * keys missing from the cache and may return values for some, all or none of them. If no bulk loader is set, missing
+     * keys are loaded one at a time.
+     *
+     * @param bulkLoader the bulk loader, which may be null.
+     */
+    public void setBulkLoader(Function<? super Set<K>, ? extends Map<? extends K, ? extends V>> bulkLoader) {
+        this.bulkLoader = bulkLoader;
+    }
+
+    public long getRefreshAfterWriteMillis() {
+        return refreshAfterWriteMillis;
+    }
+
+    /**
+     * Sets the period after a value was written at which it is refreshed, asynchronously, on its next read. Applies to
+     * values subsequently written to the cache, or promoted back to the heap from its second tier.
+     *
+     * @param refreshAfterWriteMillis the refresh period in milliseconds, or zero to disable refresh.
+     */
+    public void setRefreshAfterWriteMillis(long refreshAfterWriteMillis) {
+        this.refreshAfterWriteMillis = refreshAfterWriteMillis;
+        if (refreshAfterWriteMillis <= 0) {
+            writeNanos.clear();
+        }
+    }
+
+    public Executor getRefreshExecutor() {
+        return refreshExecutor;
+    }
+
+    /**
+     * Sets the executor on which values are refreshed. Defaults to the common fork-join pool.
+     *
+     * @param refreshExecutor the refresh executor, which may not be null.
+     */
+    public void setRefreshExecutor(Executor refreshExecutor) {
+        Assert.notNull(refreshExecutor, "The refresh executor may not be null");
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    /**
+     * Returns the value cached under the given key, loading it if missing. Concurrent misses for the same key share a
+     * single load.
+     *
+     * @param key the key of the value to be returned.
+     * @return the value cached or loaded, or null if the loader returned null.
+     * @throws RuntimeException any exception thrown by the loader.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(Object key) {
+        V value = super.get(key);
+        if (value != null) {
+            refreshIfDue((K)key, value);
+            return value;
+        }
+
+        return load((K)key);
+    }
+
+    /**
+     * Returns the value cached under the given key, without loading it if missing.
+     *
+     * @param key the key of the value to be returned.
+     * @return the value cached, or null if there is none.
+     */
+    public V getIfPresent(Object key) {
+        return super.get(key);
+    }
+
+    /**
+     * Returns the values cached under the given keys, loading any missing. Missing keys are loaded with a single call to
+     * the bulk loader, if one is configured, except those already being loaded by other threads whose loads are shared.
+     *
+     * @param keys the keys of the values to be returned.
+     * @return a map of the keys to their values, in key iteration order, omitting any keys for which no value was loaded.
+     * @throws RuntimeException any exception thrown by the loader.
+     */
+    public Map<K, V> getAll(Iterable<? extends K> keys) {
+        Map<K, V> values = new HashMap<>();
+        Map<K, CompletableFuture<V>> ourLoads = new LinkedHashMap<>();
+        Map<K, CompletableFuture<V>> otherLoads = new LinkedHashMap<>();
+        for (K key : keys) {
+            if (values.containsKey(key) || ourLoads.containsKey(key) || otherLoads.containsKey(key)) continue;
+
+            V value = super.get(key);
+            if (value != null) {
+                refreshIfDue(key, value);
+                values.put(key, value);
+                continue;
+            }
+
+            CompletableFuture<V> ourLoad = new CompletableFuture<>();
+            CompletableFuture<V> otherLoad = loadsInProgress.putIfAbsent(key, ourLoad);
+            if (otherLoad == null) {
+                ourLoads.put(key, ourLoad);
+            } else {
+                otherLoads.put(key, otherLoad);
+            }
+        }
+
+        if (!ourLoads.isEmpty()) {
+            try {
+                Map<K, V> loaded = loadAll(ourLoads.keySet());
+                values.putAll(loaded);
+                ourLoads.forEach((key, load) -> load.complete(loaded.get(key)));
+            } catch (RuntimeException | Error ex) {
+                ourLoads.values().forEach(load -> load.completeExceptionally(ex));
+                throw ex;
+            } finally {
+                ourLoads.forEach(loadsInProgress::remove);
+            }
+        }
+
+        otherLoads.forEach((key, load) -> values.put(key, join(load)));
+
+        Map<K, V> result = new LinkedHashMap<>();
+        for (K key : keys) {
+            V value = values.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        V previousValue = super.put(key, value);
+        recordWrite(key);
+        return previousValue;
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        super.putAll(m);
+        if (m != null) {
+            m.keySet().forEach(this::recordWrite);
+        }
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        boolean replaced = super.replace(key, oldValue, newValue);
+        if (replaced) {
+            recordWrite(key);
+        }
+        return replaced;
+    }
+
+    @Override
+    public V remove(Object key) {
+        V valueRemoved = super.remove(key);
+        writeNanos.remove(key);
+        return valueRemoved;
+    }
+
+    @Override
+    public V evict(Object key) {
+        V valueEvicted = super.evict(key);
+        writeNanos.remove(key);
+        return valueEvicted;
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        boolean removed = super.remove(key, value);
+        if (removed) {
+            writeNanos.remove(key);
+        }
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        writeNanos.clear();
+    }
+
+    @Override
+    protected void itemPromoted(K key, V value) {
+        recordWrite(key);
+    }
+
+    private V load(K key) {
+        CompletableFuture<V> ourLoad = new CompletableFuture<>();
+        CompletableFuture<V> otherLoad = loadsInProgress.putIfAbsent(key, ourLoad);
+        if (otherLoad != null) {
+            return join(otherLoad);
+        }
+
+        try {
+            // The value may have been loaded by another thread between our miss and claiming the load
+            V value = getBackingMap().get(key);
+            if (value == null) {
+                value = loader.apply(key);
+                if (value != null) {
+                    put(key, value);
+                }
+            }
+            ourLoad.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            ourLoad.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            loadsInProgress.remove(key, ourLoad);
+        }
+    }
+
+    private Map<K, V> loadAll(Set<K> keys) {
+        Map<K, V> values = new HashMap<>();
+        Set<K> missingKeys = new LinkedHashSet<>();
+        for (K key : keys) {
+            V value = getBackingMap().get(key);
+            if (value != null) {
+                values.put(key, value);
+            } else {
+                missingKeys.add(key);
+            }
+        }
+        if (missingKeys.isEmpty()) return values;
+
+        Map<K, V> loaded = new LinkedHashMap<>();
+        Function<? super Set<K>, ? extends Map<? extends K, ? extends V>> bulkLoader = this.bulkLoader;
+        if (bulkLoader != null) {
+            Map<? extends K, ? extends V> bulkLoaded = bulkLoader.apply(Collections.unmodifiableSet(missingKeys));
+            if (bulkLoaded != null) {
+                for (K key : missingKeys) {
+                    V value = bulkLoaded.get(key);
+                    if (value != null) loaded.put(key, value);
+                }
+            }
+        } else {
+            for (K key : missingKeys) {
+                V value = loader.apply(key);
+                if (value != null) loaded.put(key, value);
+            }
+        }
+
+        putAll(loaded);
+        values.putAll(loaded);
+        return values;
+    }
+
+    private void refreshIfDue(K key, V value) {
+        long refreshAfterWriteMillis = this.refreshAfterWriteMillis;
+        if (refreshAfterWriteMillis <= 0) return;
+
+        Long writtenNanos = writeNanos.get(key);
+        if (writtenNanos == null
+            || nanoTimeSource.getAsLong() - writtenNanos < TimeUnit.MILLISECONDS.toNanos(refreshAfterWriteMillis)) return;
+
+        CompletableFuture<V> ourRefresh = new CompletableFuture<>();
+        if (refreshesInProgress.putIfAbsent(key, ourRefresh) != null) return;
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    V refreshedValue = loader.apply(key);
+                    // Only replace the value refreshed, in case it has since been replaced or removed
+                    if (refreshedValue != null) {
+                        replace(key, value, refreshedValue);
+                    }
+                    ourRefresh.complete(refreshedValue);
+                } catch (RuntimeException | Error ex) {
+                    warning("Unable to refresh cached value [key={0}]: {1}", key, ex);
+                    ourRefresh.completeExceptionally(ex);
+                } finally {
+                    refreshesInProgress.remove(key, ourRefresh);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            refreshesInProgress.remove(key, ourRefresh);
+            warning("Unable to schedule refresh of cached value [key={0}]: {1}", key, ex);
+        }
+    }
+
+    private void recordWrite(K key) {
+        if (refreshAfterWriteMillis > 0) {
+            writeNanos.put(key, nanoTimeSource.getAsLong());
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> load) {
+        try {
+            return load.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+            if (cause instanceof Error) throw (Error)cause;
+            throw new UncheckedException(cause);
+        }
+    }
+}
@@ -15,6 +15,9 @@
  */
 package org.beanplanet.core.cache;
 
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
 /**
  * Implementation of a Least-Recently-Used (LRU) caching policy.
  * <p>
@@ -22,10 +25,40 @@ package org.beanplanet.core.cache;
  * <p>
  * When a 'cache hit' occurs on an item, the item is put to the 'back of the queue' and will then be the last of the
  * items to be expelled from the cache, at that moment in time.
+ * <p>
+ * Recency is maintained in an access-ordered hash-linked list, so reordering on a hit and ejection of the least
+ * recently used item are both O(1). Cache hits do not take the policy lock: they are recorded in a striped, lossy
+ * {@link AccessBuffer} and replayed against the recency list in batches, either when a buffer stripe fills or before
+ * the next write to the cache. Additions and removals are applied under the policy lock, while the items selected for
+ * ejection are evicted from the cache only once the lock has been released.
+ * <p>
+ * The cache may also be bounded by the total weight of its items, such as their size in bytes, by configuring a
+ * {@link Weigher} and maximum weight. Least recently used items are then ejected until both the number and the total
+ * weight of items are within bounds.
  */
-public class LruCachePolicy<K, V> implements CachePolicy<K, V> {
-    /** Maximum number of items allowed in the cache before the LRY caching is applied. */
-    private int lruCacheSize = 500;
+public class LruCachePolicy<K, V> implements CachePolicy<K, V>, SelectiveCacheListener<K, V> {
+    private static final Long NO_WEIGHT = 0L;
+
+    /** Maximum number of items allowed in the cache before the LRU caching is applied. */
+    private volatile int lruCacheSize = 500;
+
+    /** The maximum total weight of items allowed in the cache, if a weigher is configured. */
+    private volatile long maximumWeight = Long.MAX_VALUE;
+
+    /** The weigher of cache items, or null if items are not weighed. */
+    private volatile Weigher<? super K, ? super V> weigher;
+
+    /** Cache keys to their weights, from least to most recently used. Guarded by the policy lock. */
+    private final LinkedHashMap<K, Long> recencyList = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** The total weight of items tracked. Guarded by the policy lock. */
+    private long totalWeight;
+
+    /** Cache hits recorded, but not yet applied to the recency list. */
+    private final AccessBuffer<K> accessBuffer = new AccessBuffer<>();
+
+    /** The policy lock, guarding the recency list. */
+    private final ReentrantLock lock = new ReentrantLock();
 
     public LruCachePolicy() {}
 
@@ -34,7 +67,7 @@ public class LruCachePolicy<K, V> implements CachePolicy<K, V> {
     }
 
     /**
-     * Gets the LRU cache size which determines the maximum number of items allowed in the cache before the LRY caching
+     * Gets the LRU cache size which determines the maximum number of items allowed in the cache before the LRU caching
      * policy is applied to maintain that level.
      *
      * @return the LRU cache size.
@@ -44,36 +77,166 @@ public class LruCachePolicy<K, V> implements CachePolicy<K, V> {
     }
 
     /**
-     * Sets the LRU cache size which determines the maximum number of items allowed in the cache before the LRY caching
+     * Sets the LRU cache size which determines the maximum number of items allowed in the cache before the LRU caching
      * policy is applied to maintain that level.
      */
     public void setLruCacheSize(int lruCacheSize) {
         this.lruCacheSize = lruCacheSize;
     }
 
+    /**
+     * Gets the maximum total weight of items allowed in the cache before the LRU caching policy is applied to maintain
+     * that level. Only applies if a weigher is configured.
+     *
+     * @return the maximum total weight.
+     */
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * Sets the maximum total weight of items allowed in the cache before the LRU caching policy is applied to maintain
+     * that level. Only applies if a weigher is configured.
+     *
+     * @param maximumWeight the maximum total weight.
+     */
+    public void setMaximumWeight(long maximumWeight) {
+        this.maximumWeight = maximumWeight;
+    }
+
+    public Weigher<? super K, ? super V> getWeigher() {
+        return weigher;
+    }
+
+    /**
+     * Sets the weigher of cache items, bounding the cache by the total weight of items as well as their number. Items
+     * are weighed as they are added, so this should be set before the policy is added to a cache.
+     *
+     * @param weigher the weigher of cache items, or null if items are not to be weighed.
+     */
+    public void setWeigher(Weigher<? super K, ? super V> weigher) {
+        this.weigher = weigher;
+    }
+
     @Override
     public void onCacheCleared(CacheClearedEvent<K, V> event) {
-
+        lock.lock();
+        try {
+            accessBuffer.drainTo(key -> {});
+            recencyList.clear();
+            totalWeight = 0;
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
     public void onCacheItemsAdded(CacheItemsAddedEvent<K, V> event) {
+        List<K> evictedKeys = new ArrayList<>();
+        lock.lock();
+        try {
+            drainAccessBuffer();
+            Weigher<? super K, ? super V> weigher = this.weigher;
+            List<K> overweightKeys = null;
+            for (Cache.Entry<? extends K, ? extends V> entry : event.getEntriesAdded()) {
+                // Ignore an addition already undone by an eviction outside the lock, whose removal event came first
+                if (event.getCache() != null && !event.getCache().containsKey(entry.getKey())) continue;
 
+                Long weight = weigher == null ? NO_WEIGHT : weigher.weigh(entry.getKey(), entry.getValue());
+                Long previousWeight = recencyList.put(entry.getKey(), weight);
+                totalWeight += weight - (previousWeight == null ? 0 : previousWeight);
+                if (weight > maximumWeight) {
+                    // Rather than ejecting everything else to make room, eject the item which can never fit
+                    if (overweightKeys == null) overweightKeys = new ArrayList<>();
+                    overweightKeys.add(entry.getKey());
+                }
+            }
+            if (overweightKeys != null) {
+                for (K overweightKey : overweightKeys) {
+                    selectForEviction(overweightKey, evictedKeys);
+                }
+            }
+            selectForEviction(evictedKeys);
+        } finally {
+            lock.unlock();
+        }
+
+        // Evicted outside the policy lock, as the removal events re-enter this and other policies, which take their own
+        // locks: holding this lock meanwhile would order the locks of policies differently on different threads
+        evict(event.getCache(), evictedKeys);
     }
 
     @Override
     public void onCacheItemsRemoved(CacheItemsRemovedEvent<K, V> event) {
+        lock.lock();
+        try {
+            drainAccessBuffer();
+            for (Cache.Entry<? extends K, ? extends V> entry : event.getEntriesRemoved()) {
+                // Ignore a removal already undone by an addition, whose event came first
+                if (event.getCache() != null && event.getCache().containsKey(entry.getKey())) continue;
 
+                Long weight = recencyList.remove(entry.getKey());
+                if (weight != null) {
+                    totalWeight -= weight;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
     public void onCacheMiss(CacheMissEvent<K, V> event) {
+    }
 
+    /**
+     * Cache misses have no bearing on recency, so are not of interest to this policy.
+     */
+    @Override
+    public boolean isSubscribedTo(Class<?> eventType) {
+        return eventType != CacheMissEvent.class;
     }
 
     @Override
     public void onCacheHit(CacheHitEvent<K, V> event) {
+        K key = event.getKey();
+        if (key == null) return;
+
+        if (accessBuffer.record(key) && lock.tryLock()) {
+            try {
+                drainAccessBuffer();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the total weight of items currently tracked by this policy.
+     *
+     * @return the total weight of cache items, or zero if items are not weighed.
+     */
+    public long getTotalWeight() {
+        lock.lock();
+        try {
+            return totalWeight;
+        } finally {
+            lock.unlock();
+        }
+    }
 
+    /**
+     * Returns the number of items currently tracked by this policy.
+     *
+     * @return the number of cache keys in the recency list.
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return recencyList.size();
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
@@ -81,173 +244,55 @@ public class LruCachePolicy<K, V> implements CachePolicy<K, V> {
         return "LRU Cache Policy";
     }
 
-//   /** The LRU buffer size. */
-//   protected int lruBufferSize = 500;
-//
-//   /** The LRU buffer in head-tail preference order. */
-//   private DoublyLinkedList<K> lruBuffer = new DoublyLinkedListImpl<K>();
-//
-//   /** A mapping of cache keys to cached item nodes, in the LRU buffer. */
-//   private Map<K, DoublyLinkedListNode<K>> keyToItemMap;
-//
-//   protected SeverityLogger logger;
-//
-//   /**
-//    * Constructs a LRU Caching Policy with a default cache LRU buffer lruBufferSize. Useful, when configuring the policy
-//    * as a bean.
-//    *
-//    * @see #setLRUBufferSize(int)
-//    */
-//   public LRUCachePolicy() {
-//      this(500, new HashMap<K, DoublyLinkedListNode<K>>(500));
-//   }
-//
-//   public LRUCachePolicy(int lruBufferSize) {
-//      this(lruBufferSize, new HashMap<K, DoublyLinkedListNode<K>>(lruBufferSize));
-//   }
-//
-//   public LRUCachePolicy(int lruBufferSize, Map<K, DoublyLinkedListNode<K>> keyToItemMap) {
-//      super("LRUCachePolicy", "Least-Recently-Used Caching Policy",
-//            "A Least-Recently-Used caching policy. Items that have been used "
-//                  + "most recently are chosen to stay in the cache over items that have not been "
-//                  + "used recently. When a 'cache hit' occurs on an item, the "
-//                  + "item is put to the 'back of the queue' and will then be the "
-//                  + "last of the items to be expelled from the cache, at that moment in time.");
-//      logger = BeanPlanetLogFactory.getSeverityLogger(this);
-//      setLRUBufferSize(lruBufferSize);
-//      this.keyToItemMap = keyToItemMap;
-//   }
-//
-//   public int getLRUBufferSize() {
-//      return lruBufferSize;
-//   }
-//
-//   public void setLRUBufferSize(int lruBufferSize) {
-//      this.lruBufferSize = lruBufferSize;
-//   }
-//
-//   /**
-//    * Called when items are added to the cache.
-//    *
-//    * @param ev the event that relates to the cached items
-//    */
-//   @Override
-//   public final void itemsAdded(CacheEvent<K, V> ev) {
-//      K keys[] = ev.getAffectedItemKeys();
-//      Cache<K, V> cache = ev.getCache();
-//
-//      // ------------------------------------------------------------------------
-//      // Add each key to the list of those recorded in our LRU buffer.
-//      // If the key is not already present we need to eject the least recently
-//      // used one.
-//      // ------------------------------------------------------------------------
-//      for (int n = 0; n < keys.length; n++) {
-//         K key = keys[n];
-//         DoublyLinkedListNode<K> itemNode = keyToItemMap.remove(key);
-//         if (itemNode != null) {
-//            lruBuffer.remove(itemNode);
-//         }
-//         else {
-//            // item is not already in the cache. Create a new node for it to add
-//            // later.
-//            itemNode = new DoublyLinkedListNode<K>(key);
-//
-//            // If the LRU buffer has reached its limit eject the LRU item to
-//            // make
-//            // room for this new one.
-//            if (lruBuffer.size() >= lruBufferSize) {
-//               K removedKey = lruBuffer.removeFirst();
-//               keyToItemMap.remove(removedKey);
-//               cache.remove(removedKey); // remove LRU item from cache
-//            }
-//         }
-//
-//         lruBuffer.addLast(itemNode);
-//         keyToItemMap.put(key, itemNode); // Add to tail
-////
-////         if ( logger.isDebugEnabled() ) {
-////            logger.debug("Added LRU cache item [key="+key+"]");
-////         }
-//      }
-//   }
-//
-//   /**
-//    * Called when items are removed from the cache.
-//    *
-//    * @param ev the event that relates to the cached items
-//    */
-//   @Override
-//   public final void itemsRemoved(CacheEvent<K, V> ev) {
-//      K keys[] = ev.getAffectedItemKeys();
-//
-//      for (int n = 0; n < keys.length; n++) {
-//         K key = keys[n];
-//         DoublyLinkedListNode<K> itemNode = keyToItemMap.remove(key);
-//         if (itemNode != null) {
-//            lruBuffer.remove(itemNode);
-//         }
-//      }
-//   }
-//
-//   /**
-//    * Called when all items are removed from the cache.
-//    *
-//    * @param ev the event that relates to the cached items
-//    */
-//   @Override
-//   public final void cacheCleared(CacheEvent<K, V> ev) {
-//      keyToItemMap.clear();
-//      lruBuffer.clear();
-//   }
-//
-//   /**
-//    * Called when a cache 'hit' occurs of an item in the cache.
-//    *
-//    * @param ev the event that relates to the cached item
-//    */
-//   @Override
-//   public final void cacheItemHit(CacheEvent<K, V> ev) {
-//      K keys[] = ev.getAffectedItemKeys();
-//      Cache<K, V> cache = ev.getCache();
-//
-//      for (int n = 0; n < keys.length; n++) {
-//         K key = keys[n];
-//         // logger.debug("LRU cache hit [key="+key+"]");
-//         DoublyLinkedListNode<K> itemNode = keyToItemMap.remove(key);
-//         if (itemNode != null) {
-//            lruBuffer.remove(itemNode);
-//         }
-//         else {
-//            // item is not already in the cache. Create a new node for it to add
-//            // later.
-//            itemNode = new DoublyLinkedListNode<K>(key);
-//
-//            // If the LRU buffer has reached its limit eject the LRU item to
-//            // make
-//            // room for this new one.
-//            if (lruBuffer.size() >= lruBufferSize) {
-//               K removedKey = lruBuffer.removeFirst();
-//               keyToItemMap.remove(removedKey);
-//               cache.remove(removedKey); // remove LRU item from cache
-//            }
-//         }
-//
-//         lruBuffer.addLast(itemNode);
-//         keyToItemMap.put(key, itemNode); // Add to tail
-//      }
-//   }
-//
-//   /**
-//    * Returns a string report about the cache policy.
-//    *
-//    * @return a string that represents the internal state of the cache policy.
-//    */
-//   @Override
-//   public String toString() {
-//      StringBuilder s = new StringBuilder();
-//      s.append(ClassUtil.getClassBaseName(getClass())).append("[name=").append(getName())
-//      .append(", lruBufferSize=").append(lruBufferSize)
-//      .append("]");
-//      return s.toString();
-//   }
+    /**
+     * Replays recorded cache hits against the recency list. Hits on keys no longer tracked are ignored, so a late hit
+     * can never resurrect a removed item. Must be called with the policy lock held.
+     */
+    private void drainAccessBuffer() {
+        accessBuffer.drainTo(recencyList::get);
+    }
+
+    /**
+     * Selects least recently used items for ejection, untracking them, until the number and total weight of items
+     * tracked are within the LRU cache size and maximum weight. Must be called with the policy lock held.
+     *
+     * @param evictedKeys the keys of the items selected for ejection, to which further keys are added.
+     */
+    private void selectForEviction(List<K> evictedKeys) {
+        Iterator<Map.Entry<K, Long>> lruIterator = recencyList.entrySet().iterator();
+        while (lruIterator.hasNext() && (recencyList.size() > lruCacheSize || totalWeight > maximumWeight)) {
+            Map.Entry<K, Long> lruEntry = lruIterator.next();
+            totalWeight -= lruEntry.getValue();
+            evictedKeys.add(lruEntry.getKey());
+            lruIterator.remove();
+        }
+    }
+
+    private void selectForEviction(K key, List<K> evictedKeys) {
+        Long weight = recencyList.remove(key);
+        if (weight == null) return;
+
+        totalWeight -= weight;
+        evictedKeys.add(key);
+    }
+
+    /**
+     * Ejects items selected for ejection from the cache. Must be called without the policy lock held.
+     *
+     * @param cache the cache from which items are to be ejected, which may be null if unknown.
+     * @param evictedKeys the keys of the items to be ejected.
+     */
+    private static <K> void evict(Cache<K, ?> cache, List<K> evictedKeys) {
+        if (cache == null) return;
+
+        for (K evictedKey : evictedKeys) {
+            cache.evict(evictedKey);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[name=" + getName() + ", lruCacheSize=" + lruCacheSize + ", size=" + size()
+               + ", maximumWeight=" + maximumWeight + ", totalWeight=" + getTotalWeight() + "]";
+    }
 }
@@ -26,11 +26,36 @@ import java.util.stream.Collectors;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 
+/**
+ * A cache backed by a concurrent map, which raises {@link CacheEvent}s to its listeners and policies on lookups and
+ * updates.
+ * <p>
+ * Events are only constructed and dispatched for the event types at least one registered listener is subscribed to
+ * (see {@link SelectiveCacheListener}), so a cache with no interested listeners performs lookups without allocating.
+ * <p>
+ * A cache may optionally be given a second tier, such as an {@link OffHeapValueStore}, to which items evicted by its
+ * policies are demoted and from which they are promoted back to the heap when next looked up. Lookups, removals and
+ * {@link #clear()} span both tiers, while {@link #size()} and the map views reflect the heap tier only. Every write
+ * and removal deletes the key from the second tier, so a value superseded or removed is never promoted back.
+ */
 public class ManagedCache<K, V> implements Cache<K, V> {
+    static final int CACHE_HIT = 1;
+    static final int CACHE_MISS = 1 << 1;
+    static final int CACHE_ITEMS_ADDED = 1 << 2;
+    static final int CACHE_ITEMS_REMOVED = 1 << 3;
+    static final int CACHE_CLEARED = 1 << 4;
+    static final int ALL_CACHE_EVENTS = CACHE_HIT | CACHE_MISS | CACHE_ITEMS_ADDED | CACHE_ITEMS_REMOVED | CACHE_CLEARED;
+
     private ConcurrentHashMap<K, V> backingMap;
 
     private EventSupport eventSupport = new EventSupport();
 
+    /** The types of cache event to which at least one listener is subscribed. */
+    private volatile int subscriptionMask;
+
+    /** The optional tier to which evicted items are demoted. */
+    private volatile CacheStore<K, V> secondTier;
+
     public ManagedCache() {
         this(new ConcurrentHashMap<>());
     }
@@ -39,6 +64,33 @@ public class ManagedCache<K, V> implements Cache<K, V> {
         this.backingMap = backingMap;
     }
 
+    /**
+     * Gets the map backing this cache. Lookups and updates made directly on the backing map raise no cache events.
+     *
+     * @return the backing map of this cache.
+     */
+    protected ConcurrentHashMap<K, V> getBackingMap() {
+        return backingMap;
+    }
+
+    /**
+     * Gets the second tier of this cache, to which items evicted from the heap are demoted.
+     *
+     * @return the second tier of the cache, or null if it has none.
+     */
+    public CacheStore<K, V> getSecondTier() {
+        return secondTier;
+    }
+
+    /**
+     * Sets the second tier of this cache, to which items evicted from the heap are demoted.
+     *
+     * @param secondTier the second tier of the cache, or null for none.
+     */
+    public void setSecondTier(CacheStore<K, V> secondTier) {
+        this.secondTier = secondTier;
+    }
+
     @Override
     public int size() {
         return backingMap.size();
@@ -49,9 +101,13 @@ public class ManagedCache<K, V> implements Cache<K, V> {
         return backingMap.isEmpty();
     }
 
+    @SuppressWarnings("unchecked")
     @Override
     public boolean containsKey(Object key) {
-        return backingMap.containsKey(key);
+        if (backingMap.containsKey(key)) return true;
+
+        CacheStore<K, V> secondTier = this.secondTier;
+        return secondTier != null && secondTier.containsKey((K)key);
     }
 
     @Override
@@ -63,36 +119,189 @@ public class ManagedCache<K, V> implements Cache<K, V> {
     @Override
     public V get(Object key) {
         V found = backingMap.get(key);
-        eventSupport.dispatchEvent(found == null ? new CacheMissEvent<>((K)key) :  new CacheHitEvent<>((K)key, found));
+        if (found == null) {
+            CacheStore<K, V> secondTier = this.secondTier;
+            if (secondTier != null) return getFromSecondTier(secondTier, (K)key);
+
+            if ((subscriptionMask & CACHE_MISS) != 0) {
+                eventSupport.dispatchEvent(new CacheMissEvent<>(this, (K)key));
+            }
+        } else if ((subscriptionMask & CACHE_HIT) != 0) {
+            eventSupport.dispatchEvent(new CacheHitEvent<>(this, (K)key, found));
+        }
+        return found;
+    }
+
+    /**
+     * Called when an item is promoted from the second tier of this cache back to the heap, before any events are
+     * dispatched for it. Does nothing by default.
+     *
+     * @param key the key of the item promoted.
+     * @param value the value promoted.
+     */
+    protected void itemPromoted(K key, V value) {
+    }
+
+    /**
+     * Looks up an item missing from the heap in the second tier, promoting it back to the heap if found.
+     */
+    private V getFromSecondTier(CacheStore<K, V> secondTier, K key) {
+        V found = secondTier.remove(key);
+        if (found == null) {
+            if ((subscriptionMask & CACHE_MISS) != 0) {
+                eventSupport.dispatchEvent(new CacheMissEvent<>(this, key, CacheTier.OFF_HEAP));
+            }
+            return null;
+        }
+
+        // Never overwrite a value put on the heap since our miss, which is newer than the one demoted
+        V heapValue = backingMap.putIfAbsent(key, found);
+        if (heapValue != null) return heapValue;
+
+        itemPromoted(key, found);
+        if ((subscriptionMask & CACHE_ITEMS_ADDED) != 0) {
+            eventSupport.dispatchEvent(new CacheItemsAddedEvent<>(this, emptyList(), singletonList(new ManagedCacheEntry<>(key, found)), true));
+        }
+        if ((subscriptionMask & CACHE_HIT) != 0) {
+            eventSupport.dispatchEvent(new CacheHitEvent<>(this, key, found, CacheTier.OFF_HEAP));
+        }
         return found;
     }
 
     @Override
     public V put(K key, V value) {
         V previousValue = backingMap.put(key, value);
-        eventSupport.dispatchEvent(
-                new CacheItemsAddedEvent<>(previousValue == null ? emptyList() : singletonList(new ManagedCacheEntry<>(key, previousValue)),
-                                           singletonList(new ManagedCacheEntry<>(key, value)))
-        );
-
+        deleteFromSecondTier(key);
+        itemAdded(key, previousValue, value);
         return previousValue;
     }
 
+    private void itemAdded(K key, V previousValue, V value) {
+        if ((subscriptionMask & CACHE_ITEMS_ADDED) != 0) {
+            eventSupport.dispatchEvent(
+                    new CacheItemsAddedEvent<>(this, previousValue == null ? emptyList() : singletonList(new ManagedCacheEntry<>(key, previousValue)),
+                                               singletonList(new ManagedCacheEntry<>(key, value)))
+            );
+        }
+    }
+
+    @SuppressWarnings("unchecked")
     @Override
     public V remove(Object key) {
         V valueRemoved = backingMap.remove(key);
-        if (valueRemoved != null) {
-            eventSupport.dispatchEvent(new CacheItemsRemovedEvent<>(Collections.singletonList(
+        CacheStore<K, V> secondTier = this.secondTier;
+        if (secondTier != null) {
+            if (valueRemoved == null) {
+                valueRemoved = secondTier.remove((K)key);
+            } else {
+                secondTier.delete((K)key);
+            }
+        }
+
+        itemRemoved((K)key, valueRemoved);
+        return valueRemoved;
+    }
+
+    /**
+     * Deletes any value held under the given key by the second tier, which a write to the heap has superseded.
+     */
+    private void deleteFromSecondTier(K key) {
+        CacheStore<K, V> secondTier = this.secondTier;
+        if (secondTier != null) {
+            secondTier.delete(key);
+        }
+    }
+
+    /**
+     * Evicts an item from the heap on behalf of a caching policy, demoting it to the second tier of this cache if it
+     * has one.
+     *
+     * @param key the key of the item to be evicted.
+     * @return the value evicted, or null if there was no such item on the heap.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public V evict(Object key) {
+        CacheStore<K, V> secondTier = this.secondTier;
+        if (secondTier == null) {
+            V valueRemoved = backingMap.remove(key);
+            itemRemoved((K)key, valueRemoved);
+            return valueRemoved;
+        }
+
+        V value = backingMap.get(key);
+        if (value == null) return null;
+
+        // Demote before removing from the heap, so concurrent lookups always find the item in one tier or the other
+        secondTier.put((K)key, value);
+        if (!backingMap.remove(key, value)) {
+            secondTier.delete((K)key);
+            return null;
+        }
+
+        itemRemoved((K)key, value);
+        return value;
+    }
+
+    private void itemRemoved(K key, V valueRemoved) {
+        if (valueRemoved != null && (subscriptionMask & CACHE_ITEMS_REMOVED) != 0) {
+            eventSupport.dispatchEvent(new CacheItemsRemovedEvent<>(this, Collections.singletonList(
                     new ManagedCacheEntry<>(key, valueRemoved)
             )));
         }
+    }
 
-        return valueRemoved;
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean remove(Object key, Object value) {
+        boolean removed = backingMap.remove(key, value);
+        CacheStore<K, V> secondTier = this.secondTier;
+        if (secondTier != null) {
+            if (removed) {
+                secondTier.delete((K)key);
+            } else {
+                removed = secondTier.remove((K)key, value);
+            }
+        }
+        if (removed && (subscriptionMask & CACHE_ITEMS_REMOVED) != 0) {
+            eventSupport.dispatchEvent(new CacheItemsRemovedEvent<>(this, Collections.singletonList(
+                    new ManagedCacheEntry<>((K)key, (V)value)
+            )));
+        }
+
+        return removed;
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        boolean replaced = backingMap.replace(key, oldValue, newValue);
+        CacheStore<K, V> secondTier = this.secondTier;
+        if (secondTier != null) {
+            if (replaced) {
+                secondTier.delete(key);
+            } else if (secondTier.remove(key, oldValue)) {
+                // The old value was demoted: replace it on the heap, unless a newer value has been put there meanwhile
+                replaced = backingMap.putIfAbsent(key, newValue) == null;
+            }
+        }
+        if (replaced && (subscriptionMask & CACHE_ITEMS_ADDED) != 0) {
+            eventSupport.dispatchEvent(new CacheItemsAddedEvent<>(this, singletonList(new ManagedCacheEntry<>(key, oldValue)),
+                                                                  singletonList(new ManagedCacheEntry<>(key, newValue))));
+        }
+
+        return replaced;
     }
 
     @Override
     public void putAll(Map<? extends K, ? extends V> m) {
         if (m == null) return;
+        if ((subscriptionMask & CACHE_ITEMS_ADDED) == 0) {
+            backingMap.putAll(m);
+            if (secondTier != null) {
+                m.keySet().forEach(this::deleteFromSecondTier);
+            }
+            return;
+        }
 
         List<Cache.Entry<? extends K, ? extends V>> entriesEvicted = new ArrayList<>();
         List<Cache.Entry<? extends K, ? extends V>> entriesAdded = m.entrySet()
@@ -100,18 +309,25 @@ public class ManagedCache<K, V> implements Cache<K, V> {
                                 .collect(Collectors.toList());
         for (Map.Entry<? extends K, ? extends V> entry : m.entrySet()) {
             V previousValue = backingMap.put(entry.getKey(), entry.getValue());
+            deleteFromSecondTier(entry.getKey());
             if (previousValue != null) {
                 entriesEvicted.add(new ManagedCacheEntry<>(entry.getKey(), previousValue));
             }
         }
 
-        eventSupport.dispatchEvent(new CacheItemsAddedEvent<>(entriesEvicted, entriesAdded));
+        eventSupport.dispatchEvent(new CacheItemsAddedEvent<>(this, entriesEvicted, entriesAdded));
     }
 
     @Override
     public void clear() {
         backingMap.clear();
-        eventSupport.dispatchEvent(new CacheClearedEvent<>());
+        CacheStore<K, V> secondTier = this.secondTier;
+        if (secondTier != null) {
+            secondTier.clear();
+        }
+        if ((subscriptionMask & CACHE_CLEARED) != 0) {
+            eventSupport.dispatchEvent(new CacheClearedEvent<>(this));
+        }
     }
 
     @Override
@@ -130,13 +346,40 @@ public class ManagedCache<K, V> implements Cache<K, V> {
     }
 
     @Override
-    public boolean addCacheListener(CacheListener listener) {
-        return eventSupport.addListener(CacheEvent.class, listener);
+    public synchronized boolean addCacheListener(CacheListener listener) {
+        boolean added = eventSupport.addListener(CacheEvent.class, listener);
+        updateSubscriptionMask();
+        return added;
     }
 
     @Override
-    public boolean removeCacheListener(CacheListener listener) {
-        return eventSupport.removeListener(CacheEvent.class, listener);
+    public synchronized boolean removeCacheListener(CacheListener listener) {
+        boolean removed = eventSupport.removeListener(CacheEvent.class, listener);
+        updateSubscriptionMask();
+        return removed;
+    }
+
+    /**
+     * Recalculates the types of cache event to which at least one listener is subscribed.
+     */
+    private void updateSubscriptionMask() {
+        int mask = 0;
+        for (CacheListener<?, ?> listener : eventSupport.getListeners(CacheEvent.class, CacheListener.class)) {
+            mask |= subscriptionMaskOf(listener);
+        }
+        subscriptionMask = mask;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int subscriptionMaskOf(CacheListener<?, ?> listener) {
+        if (!(listener instanceof SelectiveCacheListener)) return ALL_CACHE_EVENTS;
+
+        SelectiveCacheListener<?, ?> selectiveListener = (SelectiveCacheListener<?, ?>)listener;
+        return (selectiveListener.isSubscribedTo(CacheHitEvent.class) ? CACHE_HIT : 0)
+               | (selectiveListener.isSubscribedTo(CacheMissEvent.class) ? CACHE_MISS : 0)
+               | (selectiveListener.isSubscribedTo(CacheItemsAddedEvent.class) ? CACHE_ITEMS_ADDED : 0)
+               | (selectiveListener.isSubscribedTo(CacheItemsRemovedEvent.class) ? CACHE_ITEMS_REMOVED : 0)
+               | (selectiveListener.isSubscribedTo(CacheClearedEvent.class) ? CACHE_CLEARED : 0);
     }
 
     /**
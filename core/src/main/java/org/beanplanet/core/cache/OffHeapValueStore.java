@@ -0,0 +1,540 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.cache;
+
+import org.beanplanet.core.io.IoException;
+import org.beanplanet.core.io.resource.FileResource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * A cache store which holds encoded values outside of the Java heap, in an arena of fixed size slabs which are either
+ * direct byte buffers or regions of a memory-mapped file.
+ * <p>
+ * Values are encoded by a pluggable {@link ValueCodec} and each is placed in a chunk of the smallest power-of-two size
+ * class that fits it. Slabs are allocated lazily, up to the maximum capacity of the store, and each is assigned to a
+ * single size class while it holds any values. A slab whose last value is released returns to a pool shared by all size
+ * classes, so the slabs follow the sizes of the values stored as they change. Once no free chunk or slab remains, the
+ * least recently used value of the same size class is evicted to make room for a new value or, if the size class holds
+ * no values, the least occupied slab of another size class is emptied and reassigned. The store therefore never grows
+ * beyond its capacity and never compacts. Values larger than a slab are rejected.
+ * <p>
+ * The index of keys to chunks is held on the heap, so values stored in a memory-mapped file do not survive the store.
+ * The store is thread-safe.
+ *
+ * @param <K> the type of the keys of the store.
+ * @param <V> the type of the values of the store.
+ */
+public class OffHeapValueStore<K, V> implements CacheStore<K, V>, Closeable {
+    /** The default size of each slab of the arena, in bytes. */
+    public static final int DEFAULT_SLAB_SIZE = 1 << 20;
+    /** The size of the smallest chunk allocated, in bytes. */
+    static final int MINIMUM_CHUNK_SIZE = 64;
+
+    private static final int MINIMUM_CHUNK_SHIFT = Integer.numberOfTrailingZeros(MINIMUM_CHUNK_SIZE);
+
+    private final ValueCodec<V> codec;
+    private final int slabSize;
+    private final int maximumSlabs;
+    private final FileChannel channel;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Slab> slabs = new ArrayList<>();
+    private final Map<K, Chunk> index = new HashMap<>();
+    /** Per size class, the chunks in use in access order. */
+    private final List<LinkedHashMap<K, Chunk>> sizeClassEntries;
+    /** Per size class, the slabs assigned to the class which have free chunks. */
+    private final List<Set<Slab>> partialSlabs;
+    /** The slabs allocated but assigned to no size class. */
+    private final Deque<Slab> freeSlabs = new ArrayDeque<>();
+    private long usedBytes;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder rejectionCount = new LongAdder();
+
+    /**
+     * Creates an off-heap store of direct byte buffers, with slabs of the default size.
+     *
+     * @param codec the codec used to encode and decode values of the store.
+     * @param maximumCapacityBytes the maximum number of bytes of memory allocated by the store.
+     */
+    public OffHeapValueStore(ValueCodec<V> codec, long maximumCapacityBytes) {
+        this(codec, maximumCapacityBytes, DEFAULT_SLAB_SIZE);
+    }
+
+    /**
+     * Creates an off-heap store of direct byte buffers.
+     *
+     * @param codec the codec used to encode and decode values of the store.
+     * @param maximumCapacityBytes the maximum number of bytes of memory allocated by the store, rounded down to a whole
+     * number of slabs but always at least one.
+     * @param slabSize the size of each slab of the store, which must be a power of two no less than 64 bytes.
+     */
+    public OffHeapValueStore(ValueCodec<V> codec, long maximumCapacityBytes, int slabSize) {
+        this(codec, maximumCapacityBytes, slabSize, null);
+    }
+
+    /**
+     * Creates an off-heap store whose slabs are regions of a memory-mapped file. Any existing content of the file is
+     * discarded.
+     *
+     * @param codec the codec used to encode and decode values of the store.
+     * @param maximumCapacityBytes the maximum number of bytes of the file mapped by the store, rounded down to a whole
+     * number of slabs but always at least one.
+     * @param slabSize the size of each slab of the store, which must be a power of two no less than 64 bytes.
+     * @param file the file to be mapped, or null to allocate direct byte buffers instead.
+     * @throws IoException if the file could not be opened.
+     */
+    public OffHeapValueStore(ValueCodec<V> codec, long maximumCapacityBytes, int slabSize, FileResource file) {
+        if (slabSize < MINIMUM_CHUNK_SIZE || Integer.bitCount(slabSize) != 1) {
+            throw new IllegalArgumentException("The slab size must be a power of two no less than " + MINIMUM_CHUNK_SIZE + " bytes [" + slabSize + "]");
+        }
+
+        this.codec = codec;
+        this.slabSize = slabSize;
+        this.maximumSlabs = (int)Math.max(1, Math.min(Integer.MAX_VALUE, maximumCapacityBytes / slabSize));
+
+        int sizeClasses = Integer.numberOfTrailingZeros(slabSize) - MINIMUM_CHUNK_SHIFT + 1;
+        this.sizeClassEntries = new ArrayList<>(sizeClasses);
+        this.partialSlabs = new ArrayList<>(sizeClasses);
+        for (int n=0; n < sizeClasses; n++) {
+            sizeClassEntries.add(new LinkedHashMap<>(16, 0.75f, true));
+            partialSlabs.add(new LinkedHashSet<>());
+        }
+
+        try {
+            this.channel = file == null ? null : FileChannel.open(file.getFile().toPath(), CREATE, READ, WRITE, TRUNCATE_EXISTING);
+        } catch (IOException ioEx) {
+            throw new IoException("Unable to open off-heap store file [" + file + "]", ioEx);
+        }
+    }
+
+    public ValueCodec<V> getCodec() {
+        return codec;
+    }
+
+    public int getSlabSize() {
+        return slabSize;
+    }
+
+    /**
+     * Returns the maximum number of bytes of memory the store will allocate.
+     *
+     * @return the maximum capacity of the store, a whole number of slabs.
+     */
+    public long getMaximumCapacityBytes() {
+        return (long)maximumSlabs * slabSize;
+    }
+
+    /**
+     * Returns the number of bytes of memory allocated by the store so far.
+     *
+     * @return the number of bytes of slabs allocated.
+     */
+    public long getAllocatedBytes() {
+        lock.lock();
+        try {
+            return (long)slabs.size() * slabSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of bytes of encoded values currently held by the store, excluding the unused tail of each
+     * chunk.
+     *
+     * @return the number of bytes of values stored.
+     */
+    public long getUsedBytes() {
+        lock.lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Returns the number of values evicted to make room for others.
+     *
+     * @return the number of evictions since the store was created.
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * Returns the number of values the store was unable to accommodate because they were larger than a slab.
+     *
+     * @return the number of rejected values since the store was created.
+     */
+    public long getRejectionCount() {
+        return rejectionCount.sum();
+    }
+
+    @Override
+    public V get(K key) {
+        byte[] bytes;
+        lock.lock();
+        try {
+            Chunk chunk = index.get(key);
+            if (chunk == null) {
+                missCount.increment();
+                return null;
+            }
+
+            sizeClassEntries.get(chunk.sizeClass).get(key);
+            bytes = read(chunk);
+        } finally {
+            lock.unlock();
+        }
+
+        hitCount.increment();
+        return codec.decode(ByteBuffer.wrap(bytes));
+    }
+
+    @Override
+    public boolean put(K key, V value) {
+        byte[] bytes = codec.encode(value);
+        if (bytes.length > slabSize) {
+            rejectionCount.increment();
+            delete(key);
+            return false;
+        }
+
+        int sizeClass = sizeClassOf(bytes.length);
+        lock.lock();
+        try {
+            release(index.remove(key));
+
+            Chunk chunk = allocate(key, bytes.length, sizeClass);
+            chunk.slab.buffer.put(chunk.offset, bytes);
+            index.put(key, chunk);
+            sizeClassEntries.get(sizeClass).put(key, chunk);
+            usedBytes += chunk.length;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public V remove(K key) {
+        byte[] bytes;
+        lock.lock();
+        try {
+            Chunk chunk = index.remove(key);
+            if (chunk == null) return null;
+
+            bytes = read(chunk);
+            release(chunk);
+        } finally {
+            lock.unlock();
+        }
+
+        return codec.decode(ByteBuffer.wrap(bytes));
+    }
+
+    @Override
+    public boolean remove(K key, Object value) {
+        lock.lock();
+        try {
+            Chunk chunk = index.get(key);
+            if (chunk == null || !codec.decode(ByteBuffer.wrap(read(chunk))).equals(value)) return false;
+
+            index.remove(key);
+            release(chunk);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean delete(K key) {
+        lock.lock();
+        try {
+            Chunk chunk = index.remove(key);
+            release(chunk);
+            return chunk != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        lock.lock();
+        try {
+            return index.containsKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return index.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all values from the store and releases its slabs, which are reallocated as needed.
+     */
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            index.clear();
+            for (int n=0; n < sizeClassEntries.size(); n++) {
+                sizeClassEntries.get(n).clear();
+                partialSlabs.get(n).clear();
+            }
+            freeSlabs.clear();
+            slabs.clear();
+            usedBytes = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Clears the store and closes its memory-mapped file, if any. The store may not be used afterwards.
+     *
+     * @throws IOException if an error occurs closing the file.
+     */
+    @Override
+    public void close() throws IOException {
+        clear();
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Allocates a chunk of the given size class, making room by eviction if no free chunk or slab exists and no further
+     * slab may be allocated. Must be called with the store lock held.
+     *
+     * @param key the key of the value to be held in the chunk.
+     * @param length the length of the value to be held in the chunk, in bytes.
+     * @param sizeClass the size class of the chunk to be allocated.
+     * @return the chunk allocated, never null.
+     */
+    private Chunk allocate(K key, int length, int sizeClass) {
+        Slab slab;
+        while ((slab = slabWithFreeChunk(sizeClass)) == null) {
+            Iterator<Chunk> lruIterator = sizeClassEntries.get(sizeClass).values().iterator();
+            if (lruIterator.hasNext()) {
+                evict(lruIterator.next());
+            } else {
+                reclaimSlab();
+            }
+        }
+
+        Chunk chunk = new Chunk(key, slab, slab.takeChunk() * chunkSizeOf(sizeClass), length, sizeClass);
+        slab.chunks[chunk.offset >>> (sizeClass + MINIMUM_CHUNK_SHIFT)] = chunk;
+        if (slab.isFull()) {
+            partialSlabs.get(sizeClass).remove(slab);
+        }
+        return chunk;
+    }
+
+    /**
+     * Finds a slab of the given size class with a free chunk, assigning a free slab or allocating a new one to the class
+     * if necessary.
+     *
+     * @return a slab of the size class with a free chunk, or null if there is none and none may be assigned.
+     */
+    private Slab slabWithFreeChunk(int sizeClass) {
+        Set<Slab> partial = partialSlabs.get(sizeClass);
+        if (!partial.isEmpty()) return partial.iterator().next();
+
+        Slab slab = freeSlabs.poll();
+        if (slab == null) {
+            if (slabs.size() >= maximumSlabs) return null;
+
+            slab = new Slab(newSlab(slabs.size()));
+            slabs.add(slab);
+        }
+        slab.assign(sizeClass, slabSize >>> (sizeClass + MINIMUM_CHUNK_SHIFT));
+        partial.add(slab);
+        return slab;
+    }
+
+    /**
+     * Empties the slab holding the fewest values, returning it to the pool of free slabs. Only called when the size
+     * class to be allocated holds no values, so every slab belongs to another size class.
+     */
+    private void reclaimSlab() {
+        Slab victim = null;
+        for (Slab slab : slabs) {
+            if (slab.sizeClass >= 0 && (victim == null || slab.used < victim.used)) {
+                victim = slab;
+            }
+        }
+
+        for (Chunk chunk : victim.chunks) {
+            if (chunk != null) {
+                evict(chunk);
+            }
+        }
+    }
+
+    private void evict(Chunk chunk) {
+        index.remove(chunk.key);
+        release(chunk);
+        evictionCount.increment();
+    }
+
+    /**
+     * Releases a chunk back to its slab, returning the slab to the pool of free slabs if it holds no further values.
+     */
+    private void release(Chunk chunk) {
+        if (chunk == null) return;
+
+        Slab slab = chunk.slab;
+        sizeClassEntries.get(chunk.sizeClass).remove(chunk.key);
+        usedBytes -= chunk.length;
+
+        boolean wasFull = slab.isFull();
+        slab.releaseChunk(chunk.offset >>> (chunk.sizeClass + MINIMUM_CHUNK_SHIFT));
+        if (slab.used == 0) {
+            partialSlabs.get(chunk.sizeClass).remove(slab);
+            slab.unassign();
+            freeSlabs.push(slab);
+        } else if (wasFull) {
+            partialSlabs.get(chunk.sizeClass).add(slab);
+        }
+    }
+
+    private byte[] read(Chunk chunk) {
+        byte[] bytes = new byte[chunk.length];
+        chunk.slab.buffer.get(chunk.offset, bytes);
+        return bytes;
+    }
+
+    private ByteBuffer newSlab(int slab) {
+        if (channel == null) return ByteBuffer.allocateDirect(slabSize);
+
+        try {
+            return channel.map(FileChannel.MapMode.READ_WRITE, (long)slab * slabSize, slabSize);
+        } catch (IOException ioEx) {
+            throw new IoException("Unable to map slab " + slab + " of off-heap store file", ioEx);
+        }
+    }
+
+    static int sizeClassOf(int length) {
+        int chunkSize = length <= MINIMUM_CHUNK_SIZE ? MINIMUM_CHUNK_SIZE : Integer.highestOneBit(length - 1) << 1;
+        return Integer.numberOfTrailingZeros(chunkSize) - MINIMUM_CHUNK_SHIFT;
+    }
+
+    static int chunkSizeOf(int sizeClass) {
+        return MINIMUM_CHUNK_SIZE << sizeClass;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[size=" + size() + ", usedBytes=" + getUsedBytes()
+               + ", allocatedBytes=" + getAllocatedBytes() + ", maximumCapacityBytes=" + getMaximumCapacityBytes()
+               + ", mapped=" + (channel != null) + "]";
+    }
+
+    private static final class Chunk {
+        private final Object key;
+        private final Slab slab;
+        private final int offset;
+        private final int length;
+        private final int sizeClass;
+
+        private Chunk(Object key, Slab slab, int offset, int length, int sizeClass) {
+            this.key = key;
+            this.slab = slab;
+            this.offset = offset;
+            this.length = length;
+            this.sizeClass = sizeClass;
+        }
+    }
+
+    /** A slab of the arena and, while assigned to a size class, its chunks in use and a stack of its free chunks. */
+    private static final class Slab {
+        private final ByteBuffer buffer;
+        private int sizeClass = -1;
+        private Chunk[] chunks;
+        private int[] freeChunks;
+        private int freeCount;
+        private int used;
+
+        private Slab(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private void assign(int sizeClass, int numberOfChunks) {
+            this.sizeClass = sizeClass;
+            chunks = new Chunk[numberOfChunks];
+            freeChunks = new int[numberOfChunks];
+            for (int n=0; n < numberOfChunks; n++) {
+                freeChunks[n] = numberOfChunks - 1 - n;
+            }
+            freeCount = numberOfChunks;
+        }
+
+        private void unassign() {
+            sizeClass = -1;
+            chunks = null;
+            freeChunks = null;
+            freeCount = 0;
+        }
+
+        private boolean isFull() {
+            return freeCount == 0;
+        }
+
+        private int takeChunk() {
+            used++;
+            return freeChunks[--freeCount];
+        }
+
+        private void releaseChunk(int chunkNumber) {
+            chunks[chunkNumber] = null;
+            freeChunks[freeCount++] = chunkNumber;
+            used--;
+        }
+    }
+}
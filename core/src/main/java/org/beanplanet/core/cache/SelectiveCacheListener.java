@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.cache;
+
+/**
+ * A listener of cache events which declares the types of cache event it is interested in. Caches need not construct or
+ * dispatch events of a type to which none of their listeners are subscribed, keeping lookups and updates free of
+ * allocation when nobody is listening.
+ * <p>
+ * Listeners which do not implement this interface are considered subscribed to all cache events.
+ */
+public interface SelectiveCacheListener<K, V> extends CacheListener<K, V> {
+    /**
+     * Determines whether this listener is interested in cache events of the given type. The answer is taken when the
+     * listener is added to a cache and must not change while it remains registered.
+     *
+     * @param eventType the type of cache event, one of {@link CacheHitEvent}, {@link CacheMissEvent},
+     *        {@link CacheItemsAddedEvent}, {@link CacheItemsRemovedEvent} or {@link CacheClearedEvent}.
+     * @return true if this listener should receive events of the given type, false otherwise.
+     */
+    boolean isSubscribedTo(Class<?> eventType);
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.cache;
+
+import org.beanplanet.core.io.IoException;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * A value codec for any serializable value, using standard Java object serialization.
+ *
+ * @param <V> the type of value encoded and decoded by the codec.
+ */
+public class SerializableValueCodec<V extends Serializable> implements ValueCodec<V> {
+    @Override
+    public byte[] encode(V value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutput = new ObjectOutputStream(bytes)) {
+            objectOutput.writeObject(value);
+        } catch (IOException ioEx) {
+            throw new IoException("Unable to serialize cache value", ioEx);
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V decode(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        try (ObjectInputStream objectInput = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (V)objectInput.readObject();
+        } catch (IOException ioEx) {
+            throw new IoException("Unable to deserialize cache value", ioEx);
+        } catch (ClassNotFoundException cnfEx) {
+            throw new IoException("Unable to deserialize cache value", cnfEx);
+        }
+    }
+}
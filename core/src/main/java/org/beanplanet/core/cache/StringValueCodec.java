@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A value codec for strings, which are stored in a given character set, UTF-8 by default.
+ */
+public class StringValueCodec implements ValueCodec<String> {
+    private final Charset charset;
+
+    public StringValueCodec() {
+        this(StandardCharsets.UTF_8);
+    }
+
+    public StringValueCodec(Charset charset) {
+        this.charset = charset;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    @Override
+    public byte[] encode(String value) {
+        return value.getBytes(charset);
+    }
+
+    @Override
+    public String decode(ByteBuffer buffer) {
+        return charset.decode(buffer).toString();
+    }
+}
@@ -15,315 +15,414 @@
  */
 package org.beanplanet.core.cache;
 
+import org.beanplanet.core.logging.Logger;
+import org.beanplanet.core.util.SizeUtil;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
 /**
  * Implementation of cache item time-to-live caching policy.
  * <p>
  * Items placed in a cache have a configured amount of time cached. Once a cached item's time has expired, it is
- * forcibly removed from the cache.
+ * forcibly removed from the cache. Two expiry periods are supported, either or both of which may be configured:
+ * <ul>
+ * <li><b>time-to-live</b> - the maximum time an item may remain in the cache after it was last written;</li>
+ * <li><b>time-to-idle</b> - the maximum time an item may remain in the cache after it was last read or written.</li>
+ * </ul>
+ * Expiry times are kept on a hierarchical {@link TimerWheel}, so scheduling an item on insert and rescheduling it on
+ * access are O(1). Expired items are removed incrementally, by a periodic task on a scheduler shared by all caches and
+ * on the first write to the cache in each finest bucket span: each pass visits only the wheel buckets whose time has
+ * passed, never the whole cache. Expired items are removed from the cache outside the policy lock. Items evicted to the
+ * second tier of a {@link ManagedCache} remain tracked by key alone, so the policy does not keep their values on the
+ * heap, are expired from the second tier and keep their expiry times when promoted back to the heap.
+ * Expiry is therefore approximate to the wheel's finest bucket span (about 67ms) plus the check interval, and an
+ * expired item may still be returned by the cache until the next pass removes it.
  * 
  * @author Gary Watson
  */
-public class TimeToLiveCachePolicy<K, V>  { //extends AbstractCachePolicy<K, V> {
-//   /** The time-to-live for cached items in milliseconds. */
-//   private long timeToLiveMillis = 60 * SizeUtil.SECONDS_IN_MS;
-//
-//   private static class TTLCachedItemInfo {
-//      public long lastAccessed;
-//      public Object key;
-//      public Object item;
-//   }
-//
-//   private Map<K, DoublyLinkedListNode<TTLCachedItemInfo>> cachedItemToTTLInfoMap = new HashMap<K, DoublyLinkedListNode<TTLCachedItemInfo>>();
-//   private DoublyLinkedList<TTLCachedItemInfo> ttlInfoList = new DoublyLinkedListImpl<TTLCachedItemInfo>();
-//
-//   private Thread cacheEvictionThread;
-//   private boolean evictionThreadRunning = false;
-//   private boolean runningEvictionCheck = false;
-//
-//   /**
-//    * Whether this policy is configured to use a reaper thread to periodically check for and evict items whose ttl has
-//    * expired.
-//    */
-//   protected boolean useEvictionThread = true;
-//   /** Whether the evictionThread is paused in its processing. It may still be active and running. */
-//   protected boolean pauseEvictionThread = false;
-//
-//   protected Long expiredItemCheckIntervalMillis;
-//
-//   protected SeverityLogger logger;
-//
-//   /**
-//    * Constructs a Time-To-Live Caching Policy.
-//    */
-//   public TimeToLiveCachePolicy() {
-//      super("TimeToLiveCachePolicy", "Time-To-Live Caching Policy",
-//            "A Time-To-Live caching policy. " + "Items placed in a cache have a configured amount of time cached. "
-//                  + "Once a cached item's time has expired, it is forcibly removed from the cache.");
-//      logger = BeanPlanetLogFactory.getSeverityLogger(this);
-//   }
-//
-//   public TimeToLiveCachePolicy(int timeToLiveMillis) {
-//      this();
-//      setItemTimeToLiveMillis(timeToLiveMillis);
-//   }
-//
-//   public long getItemTimeToLiveMillis() {
-//      return timeToLiveMillis;
-//   }
-//
-//   public void setItemTimeToLiveMillis(long timeToLiveMillis) {
-//      this.timeToLiveMillis = timeToLiveMillis;
-//   }
-//
-//   public void setItemTimeToLiveSeconds(int timeToLiveSeconds) {
-//      setItemTimeToLiveMillis(timeToLiveSeconds * 1000);
-//   }
-//
-//   public void setItemTimeToLiveMinutes(int timeToLiveMinutes) {
-//      setItemTimeToLiveSeconds(timeToLiveMinutes * 60);
-//   }
-//
-//   public void setItemTimeToLiveHours(int timeToLiveHours) {
-//      setItemTimeToLiveMinutes(timeToLiveHours * 60);
-//   }
-//
-//   public void setItemTimeToLiveDays(int timeToLiveDays) {
-//      setItemTimeToLiveHours(timeToLiveDays * 24);
-//   }
-//
-//   public void setItemTimeToLiveWeeks(int timeToLiveWeeks) {
-//      setItemTimeToLiveDays(timeToLiveWeeks * 7);
-//   }
-//
-//   public int getNumberOfTimeToLiveItems() {
-//      return cachedItemToTTLInfoMap.size();
-//   }
-//
-//   /**
-//    * @return the useEvictionThread
-//    */
-//   public boolean getUseEvictionThread() {
-//      return useEvictionThread;
-//   }
-//
-//   /**
-//    * @param useEvictionThread the useEvictionThread to set
-//    */
-//   public void setUseEvictionThread(boolean useEvictionThread) {
-//      this.useEvictionThread = useEvictionThread;
-//   }
-//
-//   /**
-//    * @return the pauseEvictionThread
-//    */
-//   public boolean getPauseEvictionThread() {
-//      return pauseEvictionThread;
-//   }
-//
-//   /**
-//    * @param pauseEvictionThread the pauseEvictionThread to set
-//    */
-//   public void setPauseEvictionThread(boolean pauseEvictionThread) {
-//      this.pauseEvictionThread = pauseEvictionThread;
-//   }
-//
-//   /**
-//    * Called when the listener is first added to the cache.
-//    *
-//    * @param ev the cache event, containing the cache this listener has been registered with
-//    */
-//   @Override
-//   public void registeredWithCache(CacheEvent<K, V> ev) {
-//      startEvictionThread(ev.getCache());
-//   }
-//
-//   /**
-//    * Called when the listener is removed from the cache.
-//    *
-//    * @param ev the cache event, containing the cache this listener has been unregistered with
-//    */
-//   @Override
-//   public void unregisteredFromCache(CacheEvent<K, V> ev) {
-//      stopEvictionThread(ev.getCache());
-//   }
-//
-//   private void stopEvictionThread(Cache<K, V> cache) {
-//      if (!evictionThreadRunning || cacheEvictionThread == null) {
-//         return;
-//      }
-//      evictionThreadRunning = false;
-//      logger.debug("Stopping cache eviction thread ...");
-//      try {
-//         if (cacheEvictionThread.isAlive()) {
-//            cacheEvictionThread.join(getItemTimeToLiveMillis());
-//         }
-//         if (cacheEvictionThread.isAlive()) {
-//            // Still working so attempt an interrupt and hope that does the trick
-//            cacheEvictionThread.interrupt();
-//         }
-//      } catch (Throwable th) {
-//         // Ignored as we are shutting down
-//      }
-//   }
-//
-//   private void startEvictionThread(final Cache<K, V> cache) {
-//      if (evictionThreadRunning) {
-//         // Halt any existing eviction thread
-//         stopEvictionThread(cache);
-//      }
-//      if (!useEvictionThread) {
-//         return;
-//      }
-//
-//      evictionThreadRunning = true;
-//      logger.debug("Starting cache eviction thread ...");
-//      cacheEvictionThread = new Thread(new Runnable() {
-//         public void run() {
-//            while (useEvictionThread && evictionThreadRunning) {
-//               try {
-//                  Thread.sleep(getExpiredItemCheckIntervalMillis());
-//                  if (useEvictionThread && pauseEvictionThread) {
-//                     logger.debug("Eviction thread currently paused");
-//                  }
-//                  else {
-//                     logger.debug("Eviction thread performing check for expired items ...");
-//                     checkAndEvictExpiredItems(cache);
-//                  }
-//               } catch (InterruptedException interrupEx) {
-//
-//               }
-//            }
-//         }
-//      }, ClassUtil.getClassBaseName(getClass()));
-//      cacheEvictionThread.setDaemon(true); // Allow for unexpected DIRECT shutdown of the VM
-//      cacheEvictionThread.start();
-//   }
-//
-//   /**
-//    * Called when items are added to the cache.
-//    *
-//    * @param ev the event that relates to the cached items
-//    */
-//   @Override
-//   public final void itemsAdded(CacheEvent<K, V> ev) {
-//      long addTime = System.currentTimeMillis();
-//      for (K key : ev.getAffectedItemKeys()) {
-//         TTLCachedItemInfo info = new TTLCachedItemInfo();
-//         info.item = ev.getCache().get(key);
-//         info.key = key;
-//         info.lastAccessed = addTime;
-//         DoublyLinkedListNode<TTLCachedItemInfo> ttlNode = new DoublyLinkedListNode<TTLCachedItemInfo>(info);
-//         ttlInfoList.add(ttlNode);
-//         cachedItemToTTLInfoMap.put(key, ttlNode);
-//      }
-//      checkAndEvictExpiredItems(ev.getCache());
-//   }
-//
-//   /**
-//    * Called when items are removed from the cache.
-//    *
-//    * @param ev the event that relates to the cached items
-//    */
-//   @Override
-//   public final void itemsRemoved(CacheEvent<K, V> ev) {
-//      for (K key : ev.getAffectedItemKeys()) {
-//         DoublyLinkedListNode<TTLCachedItemInfo> ttlNode = cachedItemToTTLInfoMap.remove(key);
-//         if (ttlNode != null) {
-//            ttlInfoList.remove(ttlNode);
-//         }
-//      }
-//      checkAndEvictExpiredItems(ev.getCache());
-//   }
-//
-//   /**
-//    * Called when all items are removed from the cache.
-//    *
-//    * @param ev the event that relates to the cached items
-//    */
-//   @Override
-//   public final void cacheCleared(CacheEvent<K, V> ev) {
-//      cachedItemToTTLInfoMap.clear();
-//      ttlInfoList.clear();
-//   }
-//
-//   @SuppressWarnings("unchecked")
-//   protected void checkAndEvictExpiredItems(Cache<K, V> cache) {
-//      synchronized (cache) {
-//         if ( runningEvictionCheck ) {
-//            return;
-//         }
-//         try{
-//            runningEvictionCheck = true;
-//
-//            long now = System.currentTimeMillis();
-//            long itemValidityPeriodLowerBound = now - getItemTimeToLiveMillis();
-//            int itemsEvicted = 0;
-//            if (logger.isDebugEnabled()) {
-//               logger.debug("Starting ttl item eviction check [cache size=" + cache.size() + ", ttl cache size="
-//                     + cachedItemToTTLInfoMap.size()+"/"+ttlInfoList.size()+"] ...");
-//            }
-//
-//            boolean keepChecking = true;
-//
-//            while (!ttlInfoList.isEmpty() && keepChecking) {
-//               DoublyLinkedListNode<TTLCachedItemInfo> infoNode = ttlInfoList.getNode(0);
-//               if (infoNode.getValue().lastAccessed < itemValidityPeriodLowerBound) {
-//                  cache.remove((K) infoNode.getValue().key);
-//                  itemsEvicted++;
-//               }
-//               else {
-//                  keepChecking = false;
-//               }
-//            }
-//            if (logger.isDebugEnabled()) {
-//               logger.debug("Completed ttl item eviction check [cache size=" + cache.size() + ", ttl cache size="
-//                            + cachedItemToTTLInfoMap.size()+"/"+ttlInfoList.size()+", items evicted =" + itemsEvicted + "] ...");
-//            }
-//         }
-//         finally {
-//            runningEvictionCheck = false;
-//         }
-//      }
-//   }
-//
-//   /**
-//    * Returns a string report about the cache policy.
-//    *
-//    * @return a string that represents the internal state of the cache policy.
-//    */
-//   @Override
-//   public String toString() {
-//      StringBuilder sBuf = new StringBuilder();
-//      sBuf.append(getClass().getName()).append("[").append("name=")
-//      .append(", ttl millis=").append(getItemTimeToLiveMillis())
-//      .append("]");
-//
-//      return sBuf.toString();
-//   }
-//
-//   /**
-//    * Called to process an item whose time-to-live has expired.
-//    * <p>
-//    * In this implementation, the item is simply removed from the cache.
-//    *
-//    * @param key the key of the item whose time-to-live has now expired.
-//    */
-//   protected void expireTimeToLiveItem(Cache<K, V> cache, K key) {
-//      cache.remove(key); // We'll me messaged about the removal in
-//      // itemsRemoved()
-//   }
-//
-//   /**
-//    * @return the expiredItemCheckIntervalMillis
-//    */
-//   public long getExpiredItemCheckIntervalMillis() {
-//      return expiredItemCheckIntervalMillis != null ?  expiredItemCheckIntervalMillis.longValue() : getItemTimeToLiveMillis()/2;
-//   }
-//
-//   /**
-//    * @param expiredItemCheckIntervalMillis the expiredItemCheckIntervalMillis to set
-//    */
-//   public void setExpiredItemCheckIntervalMillis(long expiredItemCheckIntervalMillis) {
-//      this.expiredItemCheckIntervalMillis = expiredItemCheckIntervalMillis;
-//   }
+public class TimeToLiveCachePolicy<K, V> implements CachePolicy<K, V>, SelectiveCacheListener<K, V>, Logger {
+   /** The time-to-live for cached items in milliseconds, or zero if items do not expire after writing. */
+   private volatile long itemTimeToLiveMillis = 60 * SizeUtil.SECONDS_IN_MS;
+
+   /** The time-to-idle for cached items in milliseconds, or zero if items do not expire after access. */
+   private volatile long itemTimeToIdleMillis;
+
+   /** The interval between periodic checks for expired items, or zero if only checked on writes to the cache. */
+   private volatile long expiredItemCheckIntervalMillis = SizeUtil.SECONDS_IN_MS;
+
+   /** The source of the current time, in nanoseconds. */
+   private final LongSupplier nanoTimeSource;
+
+   /** Cached item keys to their expiry information. Guarded by the policy lock. */
+   private final HashMap<K, TimerWheel.Node<K, V>> nodes = new HashMap<>();
+
+   /** Cached item expiry times. Guarded by the policy lock. */
+   private final TimerWheel<K, V> timerWheel;
+
+   /** Cache hits recorded, but not yet applied to item time-to-idle expiry times. */
+   private final AccessBuffer<K> accessBuffer = new AccessBuffer<>();
+
+   /** The policy lock. */
+   private final ReentrantLock lock = new ReentrantLock();
+
+   /** The cache whose items this policy expires, known after the first event received from it. */
+   private volatile Cache<K, V> cache;
+
+   /** The periodic check for expired items, if scheduled. */
+   private ScheduledFuture<?> expiryTask;
+
+   /**
+    * Constructs a Time-To-Live Caching Policy, with a default time-to-live of 60 seconds.
+    */
+   public TimeToLiveCachePolicy() {
+      this(60 * SizeUtil.SECONDS_IN_MS);
+   }
+
+   /**
+    * Constructs a Time-To-Live Caching Policy.
+    *
+    * @param itemTimeToLiveMillis the time-to-live for cached items in milliseconds.
+    */
+   public TimeToLiveCachePolicy(long itemTimeToLiveMillis) {
+      this(itemTimeToLiveMillis, 0);
+   }
+
+   /**
+    * Constructs a Time-To-Live Caching Policy with time-to-live and time-to-idle expiry.
+    *
+    * @param itemTimeToLiveMillis the time-to-live for cached items in milliseconds, or zero for none.
+    * @param itemTimeToIdleMillis the time-to-idle for cached items in milliseconds, or zero for none.
+    */
+   public TimeToLiveCachePolicy(long itemTimeToLiveMillis, long itemTimeToIdleMillis) {
+      this(itemTimeToLiveMillis, itemTimeToIdleMillis, System::nanoTime);
+   }
+
+   TimeToLiveCachePolicy(long itemTimeToLiveMillis, long itemTimeToIdleMillis, LongSupplier nanoTimeSource) {
+      this.itemTimeToLiveMillis = itemTimeToLiveMillis;
+      this.itemTimeToIdleMillis = itemTimeToIdleMillis;
+      this.nanoTimeSource = nanoTimeSource;
+      this.timerWheel = new TimerWheel<>(nanoTimeSource.getAsLong());
+   }
+
+   public long getItemTimeToLiveMillis() {
+      return itemTimeToLiveMillis;
+   }
+
+   /**
+    * Sets the time-to-live for cached items. The new period applies to items subsequently written to the cache.
+    *
+    * @param itemTimeToLiveMillis the time-to-live for cached items in milliseconds, or zero for none.
+    */
+   public void setItemTimeToLiveMillis(long itemTimeToLiveMillis) {
+      this.itemTimeToLiveMillis = itemTimeToLiveMillis;
+   }
+
+   public long getItemTimeToIdleMillis() {
+      return itemTimeToIdleMillis;
+   }
+
+   /**
+    * Sets the time-to-idle for cached items. The new period applies to items subsequently accessed.
+    *
+    * @param itemTimeToIdleMillis the time-to-idle for cached items in milliseconds, or zero for none.
+    */
+   public void setItemTimeToIdleMillis(long itemTimeToIdleMillis) {
+      this.itemTimeToIdleMillis = itemTimeToIdleMillis;
+   }
+
+   public long getExpiredItemCheckIntervalMillis() {
+      return expiredItemCheckIntervalMillis;
+   }
+
+   /**
+    * Sets the interval between periodic checks for expired items, on the scheduler shared by all caches. Takes effect
+    * the next time this policy is bound to a cache.
+    *
+    * @param expiredItemCheckIntervalMillis the check interval in milliseconds, or zero to check only on writes to the
+    *        cache and on calls to {@link #expireItems()}.
+    */
+   public void setExpiredItemCheckIntervalMillis(long expiredItemCheckIntervalMillis) {
+      this.expiredItemCheckIntervalMillis = expiredItemCheckIntervalMillis;
+   }
+
+   /**
+    * Returns the number of items currently tracked by this policy.
+    *
+    * @return the number of cache items with expiry information.
+    */
+   public int getNumberOfTimeToLiveItems() {
+      lock.lock();
+      try {
+         return nodes.size();
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   @Override
+   public String getName() {
+      return "Time-To-Live Cache Policy";
+   }
+
+   @Override
+   public void onCacheCleared(CacheClearedEvent<K, V> event) {
+      lock.lock();
+      try {
+         accessBuffer.drainTo(key -> {});
+         timerWheel.clear();
+         nodes.clear();
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   @Override
+   public void onCacheItemsAdded(CacheItemsAddedEvent<K, V> event) {
+      bindTo(event.getCache());
+
+      List<TimerWheel.Node<K, V>> expired;
+      lock.lock();
+      try {
+         long now = nanoTimeSource.getAsLong();
+         drainAccessBuffer(now);
+         for (Cache.Entry<? extends K, ? extends V> entry : event.getEntriesAdded()) {
+            // An item promoted from the second tier of the cache keeps the expiry it was written with
+            TimerWheel.Node<K, V> promoted = event.isPromotion() ? nodes.get(entry.getKey()) : null;
+            if (promoted != null) {
+               promoted.value = entry.getValue();
+               continue;
+            }
+
+            TimerWheel.Node<K, V> node = nodes.computeIfAbsent(entry.getKey(), key -> new TimerWheel.Node<>(key, null));
+            node.value = entry.getValue();
+            node.writeExpiration = now + TimeUnit.MILLISECONDS.toNanos(itemTimeToLiveMillis);
+            scheduleExpiry(node, now);
+         }
+         // Most writes fall within the wheel tick of the previous one, when there can be nothing new to expire
+         expired = timerWheel.isAdvanceDue(now) ? advance(now) : Collections.emptyList();
+      } finally {
+         lock.unlock();
+      }
+
+      removeExpired(expired);
+   }
+
+   @Override
+   public void onCacheItemsRemoved(CacheItemsRemovedEvent<K, V> event) {
+      lock.lock();
+      try {
+         for (Cache.Entry<? extends K, ? extends V> entry : event.getEntriesRemoved()) {
+            // Ignore a removal already undone by an addition, whose event came first, or a demotion to the second tier
+            if (event.getCache() != null && event.getCache().containsKey(entry.getKey())) {
+               TimerWheel.Node<K, V> node = nodes.get(entry.getKey());
+               if (node != null && node.value == entry.getValue()) {
+                  // Still the value demoted: release it, the item is expired by key until promoted
+                  node.value = null;
+               }
+               continue;
+            }
+
+            TimerWheel.Node<K, V> node = nodes.remove(entry.getKey());
+            if (node != null) {
+               timerWheel.deschedule(node);
+            }
+         }
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   @Override
+   public void onCacheMiss(CacheMissEvent<K, V> event) {
+   }
+
+   /**
+    * Cache misses are never of interest to this policy. Cache hits are always subscribed to, though only of interest
+    * when items expire after a time-to-idle, as the time-to-idle may be set after the policy is added to a cache.
+    */
+   @Override
+   public boolean isSubscribedTo(Class<?> eventType) {
+      return eventType != CacheMissEvent.class;
+   }
+
+   @Override
+   public void onCacheHit(CacheHitEvent<K, V> event) {
+      K key = event.getKey();
+      if (key == null || itemTimeToIdleMillis <= 0) return;
+
+      if (accessBuffer.record(key) && lock.tryLock()) {
+         try {
+            drainAccessBuffer(nanoTimeSource.getAsLong());
+         } finally {
+            lock.unlock();
+         }
+      }
+   }
+
+   /**
+    * Removes all items whose time has expired from the cache. Only the timer wheel buckets whose time has passed since
+    * the last check are visited.
+    *
+    * @return the number of items expired.
+    */
+   public int expireItems() {
+      List<TimerWheel.Node<K, V>> expired;
+      lock.lock();
+      try {
+         long now = nanoTimeSource.getAsLong();
+         drainAccessBuffer(now);
+         expired = advance(now);
+      } finally {
+         lock.unlock();
+      }
+
+      return removeExpired(expired);
+   }
+
+   /**
+    * Advances the timer wheel to the given time, untracking the items expired. Must be called with the policy lock
+    * held.
+    *
+    * @return the nodes of the items expired, to be removed from the cache once the policy lock is released.
+    */
+   private List<TimerWheel.Node<K, V>> advance(long now) {
+      List<TimerWheel.Node<K, V>> expired = new ArrayList<>();
+      timerWheel.advance(now, node -> {
+         nodes.remove(node.key);
+         expired.add(node);
+      });
+      return expired;
+   }
+
+   /**
+    * Removes expired items from the cache. Must be called without the policy lock held: the removal events re-enter
+    * other policies, which take their own locks, and holding this lock meanwhile would order the locks of policies
+    * differently on different threads.
+    *
+    * @return the number of items expired.
+    */
+   private int removeExpired(List<TimerWheel.Node<K, V>> expired) {
+      if (expired.isEmpty()) return 0;
+
+      Cache<K, V> cache = this.cache;
+      if (cache != null) {
+         for (TimerWheel.Node<K, V> node : expired) {
+            if (node.value == null) {
+               // A value decoded by the second tier need not equal the value demoted, so it is expired by key. A
+               // write racing with the expiry may be dropped with it, as a cache may drop any item.
+               cache.remove(node.key);
+            } else {
+               // Only remove the value expired, in case the item has since been replaced
+               cache.remove(node.key, node.value);
+            }
+         }
+      }
+
+      if (isDebugEnabled()) {
+         debug("Expired {0} cache items [cache size={1}]", expired.size(), cache == null ? 0 : cache.size());
+      }
+      return expired.size();
+   }
+
+   /**
+    * Replays recorded cache hits, extending the time-to-idle expiry of the items accessed. Must be called with the
+    * policy lock held.
+    */
+   private void drainAccessBuffer(long now) {
+      accessBuffer.drainTo(key -> {
+         TimerWheel.Node<K, V> node = nodes.get(key);
+         if (node != null) {
+            scheduleExpiry(node, now);
+         }
+      });
+   }
+
+   /**
+    * Reschedules expiry of a node, scheduled or not, at the earliest of its time-to-live and time-to-idle expiry times,
+    * or deschedules it if neither applies. Must be called with the policy lock held.
+    */
+   private void scheduleExpiry(TimerWheel.Node<K, V> node, long now) {
+      long timeToLiveMillis = itemTimeToLiveMillis;
+      long timeToIdleMillis = itemTimeToIdleMillis;
+      if (timeToLiveMillis <= 0 && timeToIdleMillis <= 0) {
+         timerWheel.deschedule(node);
+         return;
+      }
+
+      long idleExpiration = now + TimeUnit.MILLISECONDS.toNanos(timeToIdleMillis);
+      if (timeToLiveMillis <= 0) {
+         timerWheel.reschedule(node, idleExpiration);
+      } else if (timeToIdleMillis <= 0 || node.writeExpiration - idleExpiration < 0) {
+         timerWheel.reschedule(node, node.writeExpiration);
+      } else {
+         timerWheel.reschedule(node, idleExpiration);
+      }
+   }
+
+   /**
+    * Binds this policy to the cache whose items it expires, scheduling the periodic check for expired items on the
+    * shared cache maintenance scheduler the first time.
+    */
+   private void bindTo(Cache<K, V> cache) {
+      if (cache == null || this.cache == cache) return;
+
+      lock.lock();
+      try {
+         this.cache = cache;
+         if (expiryTask != null) {
+            expiryTask.cancel(false);
+            expiryTask = null;
+         }
+         long checkIntervalMillis = expiredItemCheckIntervalMillis;
+         if (checkIntervalMillis > 0) {
+            ExpiryTask task = new ExpiryTask(this);
+            expiryTask = task.future = CacheMaintenanceScheduler.scheduleAtFixedRate(task, checkIntervalMillis);
+         }
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   @Override
+   public String toString() {
+      return getClass().getSimpleName() + "[name=" + getName() + ", ttl millis=" + itemTimeToLiveMillis
+             + ", tti millis=" + itemTimeToIdleMillis + "]";
+   }
+
+   /**
+    * The periodic check for expired items. Only weakly references its policy, so that caches no longer in use are not
+    * kept alive by the shared scheduler: the task cancels itself once its policy has been collected.
+    */
+   private static final class ExpiryTask implements Runnable {
+      private final WeakReference<TimeToLiveCachePolicy<?, ?>> policyRef;
+      private volatile ScheduledFuture<?> future;
+
+      ExpiryTask(TimeToLiveCachePolicy<?, ?> policy) {
+         this.policyRef = new WeakReference<>(policy);
+      }
+
+      @Override
+      public void run() {
+         TimeToLiveCachePolicy<?, ?> policy = policyRef.get();
+         if (policy == null) {
+            ScheduledFuture<?> future = this.future;
+            if (future != null) future.cancel(false);
+            return;
+         }
+
+         try {
+            policy.expireItems();
+         } catch (RuntimeException ex) {
+            policy.error(ex, "Unable to expire cache items");
+         }
+      }
+   }
 }
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel of cache entry expiry times, giving O(1) scheduling, rescheduling and cancellation and
+ * incremental expiry proportional only to the number of entries due.
+ * <p>
+ * The wheel has five levels of 64 buckets. Each bucket on the first level spans 2<sup>26</sup>ns (about 67ms) and each
+ * subsequent level's buckets span 64 times those of the level below, giving bucket spans of roughly 67ms, 4.3s,
+ * 4.6 minutes, 4.9 hours and 13 days. An entry is placed in the lowest level whose 64 buckets together cover its delay.
+ * As time advances, the buckets passed on each level are emptied: entries which have expired are handed to the
+ * caller and the remainder are rescheduled, cascading down to the finer-grained levels below.
+ * <p>
+ * This class is not thread-safe: callers must guard access with their own lock.
+ */
+class TimerWheel<K, V> {
+    static final int BUCKETS_PER_LEVEL = 64;
+    private static final int BUCKET_MASK = BUCKETS_PER_LEVEL - 1;
+    private static final int[] SHIFT = {26, 32, 38, 44, 50};
+
+    /** The sentinels of the buckets of each level, heading each bucket's circular list of nodes. */
+    private final List<List<Node<K, V>>> wheel;
+
+    /** The time, in nanoseconds, to which the wheel was last advanced. */
+    private long nanos;
+
+    TimerWheel(long nanos) {
+        this.nanos = nanos;
+        wheel = new ArrayList<>(SHIFT.length);
+        for (int level=0; level < SHIFT.length; level++) {
+            List<Node<K, V>> buckets = new ArrayList<>(BUCKETS_PER_LEVEL);
+            for (int bucket=0; bucket < BUCKETS_PER_LEVEL; bucket++) {
+                buckets.add(Node.sentinel());
+            }
+            wheel.add(buckets);
+        }
+    }
+
+    /**
+     * Schedules a node for expiry at its current expiration time.
+     *
+     * @param node the node to be scheduled, which must not already be scheduled.
+     */
+    void schedule(Node<K, V> node) {
+        Node<K, V> sentinel = findBucket(node.expiration);
+        node.prev = sentinel.prev;
+        node.next = sentinel;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+    }
+
+    /**
+     * Cancels the scheduled expiry of a node, if scheduled.
+     *
+     * @param node the node to be descheduled.
+     */
+    void deschedule(Node<K, V> node) {
+        if (node.next == null) return;
+
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = node.next = null;
+    }
+
+    /**
+     * Reschedules a node for expiry at a new expiration time.
+     *
+     * @param node the node to be rescheduled.
+     * @param expiration the new expiration time, in nanoseconds.
+     */
+    void reschedule(Node<K, V> node, long expiration) {
+        deschedule(node);
+        node.expiration = expiration;
+        schedule(node);
+    }
+
+    /**
+     * Advances the wheel to the given time, handing each node which has expired to the consumer. The nodes handed over
+     * are no longer scheduled.
+     *
+     * @param now the current time, in nanoseconds.
+     * @param expiredConsumer the consumer of expired nodes.
+     */
+    void advance(long now, Consumer<Node<K, V>> expiredConsumer) {
+        long previous = nanos;
+        if (now - previous <= 0) return;
+
+        nanos = now;
+        for (int level=0; level < SHIFT.length; level++) {
+            long previousTicks = previous >>> SHIFT[level];
+            long delta = (now >>> SHIFT[level]) - previousTicks;
+            if (delta <= 0) break;
+
+            expire(level, previousTicks, delta, expiredConsumer);
+        }
+    }
+
+    /**
+     * Determines whether advancing the wheel to the given time would visit any bucket: whether the time has passed into
+     * a new tick of the finest level since the wheel was last advanced.
+     *
+     * @param now the current time, in nanoseconds.
+     * @return true if a bucket of the finest level is due, false if advancing the wheel would do nothing.
+     */
+    boolean isAdvanceDue(long now) {
+        return (now >>> SHIFT[0]) - (nanos >>> SHIFT[0]) > 0;
+    }
+
+    /**
+     * Removes all scheduled nodes from the wheel.
+     */
+    void clear() {
+        for (List<Node<K, V>> buckets : wheel) {
+            for (Node<K, V> sentinel : buckets) {
+                Node<K, V> node = sentinel.next;
+                while (node != sentinel) {
+                    Node<K, V> next = node.next;
+                    node.prev = node.next = null;
+                    node = next;
+                }
+                sentinel.prev = sentinel.next = sentinel;
+            }
+        }
+    }
+
+    private void expire(int level, long previousTicks, long delta, Consumer<Node<K, V>> expiredConsumer) {
+        int start, end;
+        if (delta >= BUCKETS_PER_LEVEL) {
+            start = 0;
+            end = BUCKETS_PER_LEVEL;
+        } else {
+            start = (int)(previousTicks & BUCKET_MASK);
+            end = start + (int)delta + 1;
+        }
+
+        for (int n=start; n < end; n++) {
+            Node<K, V> sentinel = wheel.get(level).get(n & BUCKET_MASK);
+            Node<K, V> node = sentinel.next;
+            sentinel.prev = sentinel.next = sentinel;
+
+            while (node != sentinel) {
+                Node<K, V> next = node.next;
+                node.prev = node.next = null;
+                if (node.expiration - nanos <= 0) {
+                    expiredConsumer.accept(node);
+                } else {
+                    schedule(node);
+                }
+                node = next;
+            }
+        }
+    }
+
+    private Node<K, V> findBucket(long expiration) {
+        long delay = Math.max(0L, expiration - nanos);
+        int level = 0;
+        while (level < SHIFT.length - 1 && delay >= 1L << SHIFT[level + 1]) {
+            level++;
+        }
+        return wheel.get(level).get((int)((expiration >>> SHIFT[level]) & BUCKET_MASK));
+    }
+
+    /**
+     * A cache entry scheduled on the wheel, linked into its bucket's circular list.
+     */
+    static final class Node<K, V> {
+        final K key;
+        /** The value of the entry, or null if it is not held on the heap. */
+        V value;
+        /** The time, in nanoseconds, at which the entry expires. */
+        long expiration;
+        /** The time, in nanoseconds, at which the entry expires irrespective of access, if a time-to-live applies. */
+        long writeExpiration;
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        static <K, V> Node<K, V> sentinel() {
+            Node<K, V> sentinel = new Node<>(null, null);
+            sentinel.prev = sentinel.next = sentinel;
+            return sentinel;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.cache;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts cache values to and from their binary form, for storage outside of the Java heap.
+ *
+ * @param <V> the type of value encoded and decoded by the codec.
+ */
+public interface ValueCodec<V> {
+    /**
+     * Encodes the given value to bytes.
+     *
+     * @param value the value to be encoded, which will not be null.
+     * @return the encoded bytes of the value.
+     */
+    byte[] encode(V value);
+
+    /**
+     * Decodes a value from the remaining bytes of the given buffer.
+     *
+     * @param buffer a buffer whose remaining bytes are those previously returned by {@link #encode(Object)}.
+     * @return the value decoded.
+     */
+    V decode(ByteBuffer buffer);
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.cache;
+
+/**
+ * Determines the weight of cache entries, for caching policies which bound a cache by the total weight of its entries
+ * rather than their number. The units of weight are arbitrary, but typically bytes, so that a cache can be kept within
+ * a heap budget.
+ *
+ * @see DefaultWeigher
+ */
+@FunctionalInterface
+public interface Weigher<K, V> {
+    /**
+     * Returns the weight of a cache entry. The weight of an entry is determined when it is added to the cache and must
+     * not change while the entry remains cached.
+     *
+     * @param key the key of the cache entry.
+     * @param value the value of the cache entry.
+     * @return the weight of the entry, which must not be negative.
+     */
+    long weigh(K key, V value);
+}
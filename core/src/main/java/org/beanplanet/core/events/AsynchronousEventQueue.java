@@ -0,0 +1,447 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.events;
+
+import org.beanplanet.core.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import static org.beanplanet.core.logging.Severity.WARNING;
+
+/**
+ * A bounded queue through which events are delivered asynchronously, off the publishing thread. Attach a queue to an
+ * {@link EventSupport}, to deliver all of its events asynchronously, or to a single listener when it is added.
+ * <p>
+ * Events are held in a lock-free ring buffer and drained, in batches of up to the maximum batch size, by a task run on
+ * the configured executor. By default, the executor runs each drain on a virtual thread where the runtime supports
+ * them, or on a shared pool of daemon threads otherwise. At most one drain runs at a time, so events are delivered in
+ * the order they were queued. What happens to events published while the queue is full is decided by its
+ * {@link BackpressurePolicy}.
+ * </p>
+ *
+ * @param <E> the type of event queued.
+ */
+public class AsynchronousEventQueue<E extends Event> implements Logger {
+    /** The default capacity of a queue. */
+    public static final int DEFAULT_CAPACITY = 8192;
+    /** The default maximum number of events delivered in a batch. */
+    public static final int DEFAULT_MAXIMUM_BATCH_SIZE = 256;
+    /** The default proportion of events queued under the {@link BackpressurePolicy#SAMPLE} policy: one in ten. */
+    public static final int DEFAULT_SAMPLE_RATE = 10;
+
+    private static final long BLOCKED_PARK_NANOS = 50_000;
+
+    private final RingBuffer<E> buffer;
+    private final BackpressurePolicy backpressurePolicy;
+    private Executor executor;
+    private int maximumBatchSize = DEFAULT_MAXIMUM_BATCH_SIZE;
+    private int sampleRate = DEFAULT_SAMPLE_RATE;
+
+    /** Receives each batch drained, once the queue is attached. */
+    private volatile Consumer<List<E>> consumer;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private volatile Thread drainingThread;
+
+    private final LongAdder publishedCount = new LongAdder();
+    private final LongAdder deliveredCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder blockedCount = new LongAdder();
+    private final LongAdder batchCount = new LongAdder();
+    private final AtomicLong sampleCounter = new AtomicLong();
+    private final AtomicInteger highWaterMark = new AtomicInteger();
+
+    /**
+     * Creates a queue of the default capacity, which blocks publishers when full.
+     */
+    public AsynchronousEventQueue() {
+        this(DEFAULT_CAPACITY, BackpressurePolicy.BLOCK);
+    }
+
+    /**
+     * Creates a queue.
+     *
+     * @param capacity the maximum number of events queued, rounded up to a power of two.
+     * @param backpressurePolicy what happens to events published while the queue is full.
+     */
+    public AsynchronousEventQueue(int capacity, BackpressurePolicy backpressurePolicy) {
+        if (capacity < 1) throw new IllegalArgumentException("The capacity of an event queue must be positive [" + capacity + "]");
+
+        this.buffer = new RingBuffer<>(capacity);
+        this.backpressurePolicy = backpressurePolicy;
+    }
+
+    public int getCapacity() {
+        return buffer.capacity();
+    }
+
+    public BackpressurePolicy getBackpressurePolicy() {
+        return backpressurePolicy;
+    }
+
+    /**
+     * Returns the executor on which the queue is drained.
+     *
+     * @return the executor of the queue, or the default executor if none has been set.
+     */
+    public Executor getExecutor() {
+        return executor != null ? executor : DefaultExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * Sets the executor on which the queue is drained.
+     *
+     * @param executor the executor of the queue, or null for the default executor.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    public int getMaximumBatchSize() {
+        return maximumBatchSize;
+    }
+
+    public void setMaximumBatchSize(int maximumBatchSize) {
+        this.maximumBatchSize = Math.max(1, maximumBatchSize);
+    }
+
+    /**
+     * Returns the proportion of events queued once the queue is half full, under the {@link BackpressurePolicy#SAMPLE}
+     * policy.
+     *
+     * @return n, where one in every n events published is queued.
+     */
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    /**
+     * Returns the number of events currently queued.
+     *
+     * @return the depth of the queue.
+     */
+    public int getQueueDepth() {
+        return buffer.size();
+    }
+
+    /**
+     * Returns the greatest number of events queued at once since the queue was created.
+     *
+     * @return the high water mark of the queue depth.
+     */
+    public int getHighWaterMark() {
+        return highWaterMark.get();
+    }
+
+    /**
+     * Returns the number of events queued for delivery.
+     *
+     * @return the count of events queued since the queue was created, excluding those discarded.
+     */
+    public long getPublishedCount() {
+        return publishedCount.sum();
+    }
+
+    /**
+     * Returns the number of events drained from the queue and delivered.
+     *
+     * @return the count of events delivered since the queue was created.
+     */
+    public long getDeliveredCount() {
+        return deliveredCount.sum();
+    }
+
+    /**
+     * Returns the number of events discarded under the backpressure policy of the queue.
+     *
+     * @return the count of events discarded since the queue was created.
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * Returns the number of times a publisher had to wait for room in the queue, under the
+     * {@link BackpressurePolicy#BLOCK} policy.
+     *
+     * @return the count of blocked publications since the queue was created.
+     */
+    public long getBlockedCount() {
+        return blockedCount.sum();
+    }
+
+    /**
+     * Returns the number of batches delivered.
+     *
+     * @return the count of batches delivered since the queue was created.
+     */
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    /**
+     * Attaches the queue to the consumer of the batches drained from it.
+     *
+     * @param consumer the consumer to which batches are delivered.
+     * @throws IllegalStateException if the queue is already attached.
+     */
+    synchronized void attach(Consumer<List<E>> consumer) {
+        if (this.consumer != null) throw new IllegalStateException("The event queue is already attached to an event source or listener");
+
+        this.consumer = consumer;
+        if (!buffer.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * Queues an event for asynchronous delivery, subject to the backpressure policy of the queue.
+     *
+     * @param event the event to be queued.
+     * @throws IllegalStateException if the queue is full, under the {@link BackpressurePolicy#BLOCK} policy, and not yet
+     *         attached, so that nothing would ever drain it.
+     */
+    public void publish(E event) {
+        switch (backpressurePolicy) {
+            case SAMPLE:
+                if ((buffer.size() >= buffer.capacity() >> 1 && sampleCounter.incrementAndGet() % sampleRate != 0)
+                    || !buffer.offer(event)) {
+                    droppedCount.increment();
+                    return;
+                }
+                break;
+            case DROP_OLDEST:
+                while (!buffer.offer(event)) {
+                    if (buffer.poll() != null) {
+                        droppedCount.increment();
+                    }
+                }
+                break;
+            default:
+                if (!buffer.offer(event) && !publishBlocked(event)) return;
+        }
+
+        publishedCount.increment();
+        int depth = buffer.size();
+        if (depth > highWaterMark.get()) {
+            highWaterMark.accumulateAndGet(depth, Math::max);
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * Waits for room in the full queue to queue an event. A listener publishing from the draining thread itself cannot
+     * wait for the drain, so has its event delivered immediately instead.
+     *
+     * @return true if the event was queued, false if it was delivered immediately.
+     * @throws IllegalStateException if the queue is not attached, so would never be drained.
+     */
+    private boolean publishBlocked(E event) {
+        Consumer<List<E>> consumer = this.consumer;
+        if (consumer == null) {
+            throw new IllegalStateException("Unable to publish event [" + event + "]: the event queue is full and not attached to an event source or listener");
+        }
+        if (Thread.currentThread() == drainingThread) {
+            deliver(consumer, Collections.singletonList(event));
+            return false;
+        }
+
+        blockedCount.increment();
+        do {
+            scheduleDrain();
+            LockSupport.parkNanos(BLOCKED_PARK_NANOS);
+        } while (!buffer.offer(event));
+        return true;
+    }
+
+    private void scheduleDrain() {
+        if (consumer == null || drainScheduled.get() || !drainScheduled.compareAndSet(false, true)) return;
+
+        try {
+            getExecutor().execute(this::drain);
+        } catch (RejectedExecutionException rejectedEx) {
+            drainScheduled.set(false);
+            throw rejectedEx;
+        }
+    }
+
+    private void drain() {
+        Consumer<List<E>> consumer = this.consumer;
+        drainingThread = Thread.currentThread();
+        try {
+            while (true) {
+                List<E> batch = new ArrayList<>(Math.min(maximumBatchSize, buffer.size()));
+                E event;
+                while (batch.size() < maximumBatchSize && (event = buffer.poll()) != null) {
+                    batch.add(event);
+                }
+                if (batch.isEmpty()) break;
+
+                deliver(consumer, batch);
+            }
+        } finally {
+            drainingThread = null;
+            drainScheduled.set(false);
+        }
+
+        // Events queued after the last poll, but before the drain was unscheduled, would otherwise wait for the next event
+        if (!buffer.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+
+    private void deliver(Consumer<List<E>> consumer, List<E> batch) {
+        try {
+            consumer.accept(batch);
+        } catch (RuntimeException ex) {
+            // Listener failures are ignored, as for synchronous dispatch
+            log(WARNING, ex, "Caught and ignored exception delivering a batch of {0} events from the queue", batch.size());
+        }
+        deliveredCount.add(batch.size());
+        batchCount.increment();
+    }
+
+    /**
+     * Waits until all events queued have been delivered.
+     *
+     * @param timeoutMillis the maximum time to wait, in milliseconds.
+     * @return true if the queue was drained, false if the wait timed out.
+     */
+    public boolean awaitDrained(long timeoutMillis) {
+        long deadlineNanos = System.nanoTime() + timeoutMillis * 1_000_000;
+        while (!buffer.isEmpty() || drainScheduled.get()) {
+            if (System.nanoTime() - deadlineNanos >= 0) return false;
+            LockSupport.parkNanos(BLOCKED_PARK_NANOS);
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[capacity=" + getCapacity() + ", backpressurePolicy=" + backpressurePolicy
+               + ", depth=" + getQueueDepth() + ", highWaterMark=" + getHighWaterMark() + ", published=" + getPublishedCount()
+               + ", delivered=" + getDeliveredCount() + ", dropped=" + getDroppedCount() + "]";
+    }
+
+    /**
+     * A bounded, lock-free, multi-producer multi-consumer ring buffer, in which each slot carries a sequence number
+     * telling producers and consumers whether it is free for the lap they are on. Several consumers are needed only so
+     * publishers may discard the oldest event under {@link BackpressurePolicy#DROP_OLDEST}.
+     */
+    static final class RingBuffer<E> {
+        private final int mask;
+        private final AtomicReferenceArray<E> elements;
+        private final AtomicLongArray sequences;
+        private final AtomicLong head = new AtomicLong();
+        private final AtomicLong tail = new AtomicLong();
+
+        RingBuffer(int capacity) {
+            int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+            this.mask = size - 1;
+            this.elements = new AtomicReferenceArray<>(size);
+            this.sequences = new AtomicLongArray(size);
+            for (int n=0; n < size; n++) {
+                sequences.set(n, n);
+            }
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+
+        boolean offer(E element) {
+            long position = tail.get();
+            while (true) {
+                int index = (int)position & mask;
+                long difference = sequences.get(index) - position;
+                if (difference == 0) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        elements.set(index, element);
+                        sequences.set(index, position + 1);
+                        return true;
+                    }
+                    position = tail.get();
+                } else if (difference < 0) {
+                    return false;
+                } else {
+                    position = tail.get();
+                }
+            }
+        }
+
+        E poll() {
+            long position = head.get();
+            while (true) {
+                int index = (int)position & mask;
+                long difference = sequences.get(index) - (position + 1);
+                if (difference == 0) {
+                    if (head.compareAndSet(position, position + 1)) {
+                        E element = elements.get(index);
+                        elements.set(index, null);
+                        sequences.set(index, position + mask + 1);
+                        return element;
+                    }
+                    position = head.get();
+                } else if (difference < 0) {
+                    return null;
+                } else {
+                    position = head.get();
+                }
+            }
+        }
+
+        int size() {
+            return (int)Math.max(0, Math.min(capacity(), tail.get() - head.get()));
+        }
+
+        boolean isEmpty() {
+            return tail.get() == head.get();
+        }
+    }
+
+    /**
+     * Holds the default executor, created on first use: a virtual thread per task where the runtime supports virtual
+     * threads, or a shared cached pool of daemon threads otherwise.
+     */
+    private static final class DefaultExecutorHolder {
+        private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+        private static final Executor EXECUTOR = createDefaultExecutor();
+
+        private static Executor createDefaultExecutor() {
+            try {
+                return (Executor)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException | RuntimeException notSupportedEx) {
+                return Executors.newCachedThreadPool(runnable -> {
+                    Thread thread = new Thread(runnable, "beanplanet-event-delivery-" + THREAD_NUMBER.incrementAndGet());
+                    thread.setDaemon(true); // Allow for unexpected DIRECT shutdown of the VM
+                    return thread;
+                });
+            }
+        }
+    }
+}
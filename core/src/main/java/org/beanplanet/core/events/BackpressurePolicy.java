@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.events;
+
+/**
+ * What an {@link AsynchronousEventQueue} does with an event published when it is full.
+ */
+public enum BackpressurePolicy {
+    /**
+     * The publisher waits until there is room for the event. No events are lost. Publishing to a full queue which is
+     * not yet attached fails immediately, rather than waiting for a drain which would never come.
+     */
+    BLOCK,
+    /** The oldest queued event is discarded to make room for the event. The publisher never waits. */
+    DROP_OLDEST,
+    /**
+     * Once the queue is half full, only one in every {@link AsynchronousEventQueue#getSampleRate() sample rate} events
+     * published is queued and the rest discarded, and events published while the queue is full are discarded. The
+     * publisher never waits.
+     */
+    SAMPLE
+}
@@ -46,7 +46,7 @@ public class BaseEvent implements Event {
 
     @Override
     public Object getSource() {
-        return null;
+        return source;
     }
 
     @Override
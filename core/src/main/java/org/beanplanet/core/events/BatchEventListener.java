@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.events;
+
+import java.util.List;
+
+/**
+ * A listener which accepts events in batches. Events delivered asynchronously, through an
+ * {@link AsynchronousEventQueue}, are passed to a batch listener as a list of all events for the listener drained from
+ * the queue together; events dispatched synchronously are passed as a list of one.
+ *
+ * @param <E> the type of event received by the listener.
+ */
+public interface BatchEventListener<E extends Event> extends EventListener {
+    /**
+     * Called with a batch of events, in the order they were published.
+     *
+     * @param events the events dispatched to the listener, which the listener may retain.
+     * @throws Exception if an error occurs processing the events.
+     */
+    void onEvents(List<E> events) throws Exception;
+}
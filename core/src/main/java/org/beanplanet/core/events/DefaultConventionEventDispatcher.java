@@ -17,15 +17,75 @@
 package org.beanplanet.core.events;
 
 
+import org.beanplanet.core.lang.MethodBinder;
 import org.beanplanet.core.lang.TypeUtil;
 import org.beanplanet.core.logging.Logger;
 
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A dispatcher of registration events to interested parties.
+ * <p>
+ * The listener method of each pair of listener and event class is resolved once and cached globally. By default the
+ * method is then called reflectively. Dispatchers created to generate invokers instead bind it to an invoker calling it
+ * directly, through the {@link MethodBinder}, where the listener method is directly callable. Otherwise they fall back
+ * to calling it reflectively.
+ * </p>
  */
 public class DefaultConventionEventDispatcher<E extends Event, L extends EventListener> implements EventDispatcher<E, L>, Logger {
+    /** Invokers calling listener methods reflectively, by listener class and then event class. */
+    private static final ClassValue<ConcurrentHashMap<Class<?>, ListenerInvoker>> REFLECTIVE_INVOKERS = new InvokerCache();
+    /** Invokers calling listener methods through generated classes, by listener class and then event class. */
+    private static final ClassValue<ConcurrentHashMap<Class<?>, ListenerInvoker>> GENERATED_INVOKERS = new InvokerCache();
+
+    /** The invoker cached for an unrecognised class of event, to dispatch nothing. */
+    private static final ListenerInvoker NO_INVOKER = (listener, event) -> {};
+
+    /** Whether listener methods are called through generated invokers. */
+    private final boolean generateInvokers;
+
+    /**
+     * Calls a listener method with an event.
+     */
+    @FunctionalInterface
+    interface ListenerInvoker {
+        void invoke(Object listener, Object event) throws Throwable;
+    }
+
+    private static final class InvokerCache extends ClassValue<ConcurrentHashMap<Class<?>, ListenerInvoker>> {
+        @Override
+        protected ConcurrentHashMap<Class<?>, ListenerInvoker> computeValue(Class<?> listenerClass) {
+            return new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Creates a dispatcher which calls listener methods reflectively.
+     */
+    public DefaultConventionEventDispatcher() {
+        this(false);
+    }
+
+    /**
+     * Creates a dispatcher.
+     *
+     * @param generateInvokers true to call listener methods through invokers generated by {@link LambdaMetafactory},
+     *                         false to call them reflectively.
+     */
+    public DefaultConventionEventDispatcher(boolean generateInvokers) {
+        this.generateInvokers = generateInvokers;
+    }
+
+    public boolean isGenerateInvokers() {
+        return generateInvokers;
+    }
+
     /**
      * Dynamically dispatches an event through a listener via on<i>Eventname</i>(<i>event</i>) method of the listener. For example, a <code>RegistrationEvent</code> is dispatched
      * to the <code>onRegistration(RegistrationEvent)</code> method.
@@ -35,21 +95,85 @@ public class DefaultConventionEventDispatcher<E extends Event, L extends EventLi
      * @throws Exception if an error occurs dispatching the event.
      */
     public void dispatchEvent(E event, L listener) throws Exception {
-        // Dynamically invoke the listener method
-        String fqEventName = TypeUtil.getBaseName(event.getClass());
+        ClassValue<ConcurrentHashMap<Class<?>, ListenerInvoker>> invokers = generateInvokers ? GENERATED_INVOKERS : REFLECTIVE_INVOKERS;
+        ListenerInvoker invoker = invokers.get(listener.getClass()).computeIfAbsent(event.getClass(), eventClass -> resolveInvoker(listener.getClass(), eventClass));
+        try {
+            invoker.invoke(listener, event);
+        } catch (Exception | Error ex) {
+            throw ex;
+        } catch (Throwable th) {
+            throw new IllegalStateException(th);
+        }
+    }
+
+    private ListenerInvoker resolveInvoker(Class<?> listenerClass, Class<?> eventClass) {
+        String fqEventName = TypeUtil.getBaseName(eventClass);
         if ( !fqEventName.endsWith("Event") ) {
-            error(String.format("Unrecognised event %s ... ignored", event.getClass()));
-            return;
+            error(String.format("Unrecognised event %s ... ignored", eventClass));
+            return NO_INVOKER;
         }
 
         String eventName = fqEventName.substring(0, fqEventName.lastIndexOf("Event"));
-        Method dispatchMethod = listener.getClass().getMethod("on"+eventName, event.getClass());
-        if ( dispatchMethod == null ) {
-            error(String.format("Unable to dispatch event [class=%s] to listener [class=%s]: no event dispatch method [on%s] found", event.getClass(), listener.getClass(), eventName));
-            return;
+        Method dispatchMethod;
+        try {
+            dispatchMethod = listenerClass.getMethod("on"+eventName, eventClass);
+        } catch (NoSuchMethodException noMethodEx) {
+            // Thrown on every dispatch, as when the method was looked up on every dispatch
+            String message = noMethodEx.getMessage();
+            return (listener, event) -> { throw new NoSuchMethodException(message); };
+        }
+
+        if (generateInvokers) {
+            ListenerInvoker generatedInvoker = generateInvoker(accessibleDeclaration(dispatchMethod));
+            if (generatedInvoker != null) return generatedInvoker;
         }
 
         dispatchMethod.setAccessible(true);
-        dispatchMethod.invoke(listener, event);
+        return dispatchMethod::invoke;
+    }
+
+    /**
+     * Returns the declaration of a public method in a public class or interface, if any, through which it may be
+     * called. Methods of lambda and anonymous listener classes are otherwise inaccessible.
+     */
+    private static Method accessibleDeclaration(Method method) {
+        if (Modifier.isPublic(method.getDeclaringClass().getModifiers())) return method;
+
+        for (Class<?> type = method.getDeclaringClass(); type != null; type = type.getSuperclass()) {
+            for (Class<?> superinterface : type.getInterfaces()) {
+                if (!Modifier.isPublic(superinterface.getModifiers())) continue;
+                try {
+                    return superinterface.getMethod(method.getName(), method.getParameterTypes());
+                } catch (NoSuchMethodException ignoreEx) {}
+            }
+        }
+        return method;
+    }
+
+    /**
+     * Generates an invoker for a listener method, provided the method is directly callable.
+     *
+     * @return an invoker calling the method directly, or null if an invoker could not be generated.
+     */
+    private ListenerInvoker generateInvoker(Method method) {
+        if (!MethodBinder.isDirectlyCallable(MethodHandles.lookup(), method)) return null;
+
+        MethodHandle listenerMethod;
+        try {
+            listenerMethod = MethodHandles.publicLookup().unreflect(method);
+        } catch (IllegalAccessException accessEx) {
+            return null;
+        }
+        ListenerInvoker invoker = MethodBinder.generate(MethodHandles.lookup(), ListenerInvoker.class,
+                                                        "invoke",
+                                                        MethodType.methodType(void.class, Object.class, Object.class),
+                                                        method,
+                                                        listenerMethod,
+                                                        MethodType.methodType(void.class, method.getDeclaringClass(), method.getParameterTypes()[0]),
+                                                        null);
+        if (invoker == null) {
+            warning(String.format("Unable to generate an invoker for listener method %s ... calling it reflectively", method));
+        }
+        return invoker;
     }
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.events;
+
+import org.beanplanet.core.lang.TypeUtil;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
+
+/**
+ * Resolves, and caches globally, the event types and dispatchers associated by naming convention with listener and
+ * event classes: a <code>&lt;event&gt;Listener</code> receives <code>&lt;event&gt;Event</code> events, dispatched by an
+ * <code>&lt;event&gt;EventDispatcher</code>.
+ * <p>
+ * Each class is resolved once, when first seen, and classes for which nothing is found are remembered as such, so that
+ * the class loader is never asked twice for a class which does not exist. Results are held in {@link ClassValue}s, so do
+ * not prevent classes being unloaded.
+ * </p>
+ */
+final class EventConventions {
+    /** The dispatchers of event classes, shared by all listeners of the class, or empty if none exists. */
+    private static final ClassValue<Optional<EventDispatcher<?, ?>>> DISPATCHERS = new ClassValue<Optional<EventDispatcher<?, ?>>>() {
+        @Override
+        protected Optional<EventDispatcher<?, ?>> computeValue(Class<?> eventClass) {
+            String eventClassName = eventClass.getName();
+            if ( !eventClassName.endsWith("Event") ) return Optional.empty();
+
+            Class<?> dispatcherClass = TypeUtil.loadClassOrNull(eventClassName + "Dispatcher");
+            if ( dispatcherClass == null || !EventDispatcher.class.isAssignableFrom(dispatcherClass) ) return Optional.empty();
+
+            return Optional.of((EventDispatcher<?, ?>)TypeUtil.instantiateClass(dispatcherClass));
+        }
+    };
+
+    /** The event types received by listener classes, or empty if none could be found. */
+    private static final ClassValue<Optional<Class<?>>> EVENT_TYPES = new ClassValue<Optional<Class<?>>>() {
+        @Override
+        protected Optional<Class<?>> computeValue(Class<?> listenerClass) {
+            Optional<Class<?>> eventType = eventTypeNamedFor(listenerClass);
+            if (eventType.isPresent() || listenerClass.getName().endsWith("Listener")) return eventType;
+
+            //----------------------------------------------------------------------------------------------------------
+            // Lambda and anonymous listeners are named for nothing, so try the listener interfaces they implement.
+            //----------------------------------------------------------------------------------------------------------
+            Deque<Class<?>> types = new ArrayDeque<>();
+            for (Class<?> type = listenerClass; type != null; type = type.getSuperclass()) {
+                types.add(type);
+            }
+            while (!types.isEmpty()) {
+                for (Class<?> superinterface : types.remove().getInterfaces()) {
+                    if (superinterface == EventListener.class) continue;
+
+                    eventType = superinterface.getName().endsWith("Listener") ? eventTypeNamedFor(superinterface) : Optional.empty();
+                    if (eventType.isPresent()) return eventType;
+                    types.add(superinterface);
+                }
+            }
+            return Optional.empty();
+        }
+    };
+
+    private EventConventions() {}
+
+    private static Optional<Class<?>> eventTypeNamedFor(Class<?> listenerClass) {
+        String listenerClassName = listenerClass.getName();
+        if ( !listenerClassName.endsWith("Listener") ) return Optional.empty();
+
+        return Optional.ofNullable(TypeUtil.loadClassOrNull(listenerClassName.substring(0, listenerClassName.length()-8)+"Event"));
+    }
+
+    /**
+     * Returns the dispatcher declared by convention for a class of event.
+     *
+     * @param eventClass the class of event whose dispatcher is to be returned.
+     * @return the shared instance of the <code>&lt;event&gt;EventDispatcher</code> class, or null if the event class
+     *         is not named <code>&lt;event&gt;Event</code> or no such dispatcher class exists.
+     */
+    static EventDispatcher<?, ?> dispatcherFor(Class<?> eventClass) {
+        return DISPATCHERS.get(eventClass).orElse(null);
+    }
+
+    /**
+     * Returns the type of event received, by convention, by a class of listener.
+     *
+     * @param listenerClass the class of listener whose event type is to be returned.
+     * @return the <code>&lt;event&gt;Event</code> class of a listener named, or implementing an interface named,
+     *         <code>&lt;event&gt;Listener</code>, or null if there is no such class.
+     */
+    static Class<?> eventTypeFor(Class<?> listenerClass) {
+        return EVENT_TYPES.get(listenerClass).orElse(null);
+    }
+}
@@ -17,29 +17,113 @@
 package org.beanplanet.core.events;
 
 import org.beanplanet.core.lang.Assert;
-import org.beanplanet.core.lang.TypeNotFoundException;
-import org.beanplanet.core.lang.TypeUtil;
 import org.beanplanet.core.events.Event;
 import org.beanplanet.core.events.EventDispatcher;
 import org.beanplanet.core.events.EventListener;
+import org.beanplanet.core.logging.Logger;
 
-import java.util.Collections;
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import static org.beanplanet.core.logging.Severity.WARNING;
 
 /**
  * Provides generic support for any event type. The concurrent addition and
  * removal of listeners is supported through this implementation.
+ * <p>
+ * Dispatch takes no locks. Listeners are held in copy-on-write sets and each concrete class of event dispatched is
+ * resolved, once, to a snapshot of the dispatcher and listeners registered for it or its nearest registered supertype.
+ * Resolved snapshots are cached until the listeners next change, so publishers never contend with one another, and a
+ * slow listener delays only the publisher calling it.
+ * </p>
+ * <p>
+ * Delivery may instead be made asynchronous, so that slow listeners delay no publisher at all: for all events of the
+ * support, by setting an {@link AsynchronousEventQueue} on it, or for just one listener, by adding the listener with a
+ * queue of its own. Listeners implementing {@link BatchEventListener} are passed events in batches, as drained from a
+ * queue.
+ * </p>
+ * <p>
+ * Exceptions thrown by listeners are logged and ignored, so that one failing listener does not prevent delivery to the
+ * others.
+ * </p>
  * 
  * @author Gary Watson.
  */
 @SuppressWarnings("unchecked")
-public class EventSupport {
+public class EventSupport implements Logger {
    /** A mapping from event class to list of event listeners. */
    private ConcurrentHashMap<Class<?>, EventInfo<?, ?>> eventListenerMap = new ConcurrentHashMap<>();
 
+   /**
+    * The resolved dispatch plans, by concrete event class, replaced whenever listeners change. Plans computed from stale
+    * listeners are only ever put in a map that has already been replaced.
+    */
+   private volatile ConcurrentHashMap<Class<?>, DispatchPlan> dispatchPlans = new ConcurrentHashMap<>();
+
+   /** The queue through which all events are delivered asynchronously, or null if delivered synchronously. */
+   private volatile AsynchronousEventQueue<Event> asynchronousQueue;
+
+   /** The plan of events for which no listeners are registered. */
+   private static final DispatchPlan NO_LISTENERS = new DispatchPlan(null, new EventListener[0]);
+
+   /**
+    * The dispatcher and a snapshot of the listeners to which events of a concrete class are dispatched.
+    */
+   private static final class DispatchPlan {
+      private final EventDispatcher<Event, EventListener> dispatcher;
+      private final EventListener[] listeners;
+
+      private DispatchPlan(EventDispatcher<Event, EventListener> dispatcher, EventListener[] listeners) {
+         this.dispatcher = dispatcher;
+         this.listeners = listeners;
+      }
+   }
+
+   /**
+    * A listener to which events are delivered asynchronously, through a queue of its own.
+    */
+   private static final class QueuedListener implements EventListener {
+      private final EventListener listener;
+      private final AsynchronousEventQueue<Event> queue;
+
+      private QueuedListener(EventSupport support, EventListener listener, EventDispatcher<Event, EventListener> dispatcher, AsynchronousEventQueue<Event> queue) {
+         this.listener = listener;
+         this.queue = queue;
+         queue.attach(batch -> {
+            if (listener instanceof BatchEventListener) {
+               try {
+                  ((BatchEventListener<Event>)listener).onEvents(batch);
+               } catch (Exception ex) {
+                  support.listenerFailed(ex, batch, listener);
+               }
+            } else {
+               for (Event event : batch) {
+                  try {
+                     dispatcher.dispatchEvent(event, listener);
+                  } catch (Exception ex) {
+                     support.listenerFailed(ex, event, listener);
+                  }
+               }
+            }
+         });
+      }
+
+      /**
+       * Queued listeners are equal to one another when they wrap the same listener, so that a listener may be added
+       * only once for a class of event.
+       */
+      @Override
+      public boolean equals(Object other) {
+         return other instanceof QueuedListener && ((QueuedListener)other).listener.equals(listener);
+      }
+
+      @Override
+      public int hashCode() {
+         return listener.hashCode();
+      }
+   }
+
    class EventInfo<E extends Event, L extends EventListener> {
       /** A disspatcher for the event and listener types. */
       private EventDispatcher<E, L> dispatcher;
@@ -80,11 +164,49 @@ public class EventSupport {
     * @return true if the listener was added, false otherwise.
     */
    public <E extends Event, L extends EventListener> boolean addListener(Class<E> eventClass, L listener, EventDispatcher<E, L> dispatcher) {
-      return getOrCreateEventInfo(eventClass, dispatcher).getListeners().add(listener);
+      boolean added = getOrCreateEventInfo(eventClass, dispatcher).getListeners().add(listener);
+      if (added) {
+         listenersChanged();
+      }
+      return added;
+   }
+
+   /**
+    * Adds a listener to the set of listeners for the given class of event, to which events are delivered asynchronously
+    * through the given queue. The queue may be used by only one listener.
+    *
+    * @param eventClass the class of event for which the listener is to be added.
+    * @param listener the listener to add.
+    * @param dispatcher the dispatcher for the given event and listener types.
+    * @param queue the queue through which events are delivered to the listener.
+    * @return true if the listener was added, false otherwise.
+    * @throws IllegalStateException if the queue is already in use.
+    */
+   public <E extends Event, L extends EventListener> boolean addListener(Class<E> eventClass, L listener, EventDispatcher<E, L> dispatcher, AsynchronousEventQueue<E> queue) {
+      QueuedListener queuedListener = new QueuedListener(this, listener, (EventDispatcher<Event, EventListener>)dispatcher, (AsynchronousEventQueue<Event>)queue);
+      boolean added = getOrCreateEventInfo(eventClass, dispatcher).getListeners().add((L)queuedListener);
+      if (added) {
+         listenersChanged();
+      }
+      return added;
+   }
+
+   /**
+    * Adds a listener to the set of listeners for the given class of event, to which events are delivered asynchronously
+    * through the given queue. The dispatcher is found as for {@link #addListener(Class, EventListener)}.
+    *
+    * @param eventClass the class of event for which the listener is to be added.
+    * @param listener the listener to add.
+    * @param queue the queue through which events are delivered to the listener.
+    * @return true if the listener was added, false otherwise.
+    * @throws IllegalStateException if the queue is already in use.
+    */
+   public <E extends Event, L extends EventListener> boolean addListener(Class<E> eventClass, L listener, AsynchronousEventQueue<E> queue) {
+      return addListener(eventClass, listener, (EventDispatcher<E, L>)lookupDispatcher(eventClass), queue);
    }
 
    public <E extends Event, L extends EventListener> EventInfo<E, L> getOrCreateEventInfo(Class<E> eventClass, EventDispatcher<E, L> dispatcher) {
-      EventInfo<E, L> newEventInfo = new EventInfo<E, L>(dispatcher, Collections.synchronizedSet(new LinkedHashSet<L>()));
+      EventInfo<E, L> newEventInfo = new EventInfo<E, L>(dispatcher, new CopyOnWriteArraySet<L>());
       EventInfo<E, L> eventInfo = (EventInfo<E, L>) eventListenerMap.putIfAbsent(eventClass, newEventInfo);
       if (eventInfo == null) {
          eventInfo = newEventInfo;
@@ -99,7 +221,8 @@ public class EventSupport {
    /**
     * Adds a listener to the set of listeners for the given class of event. The same package is automatically searched for
     * associated event type and dispatcher classes called <code>&lt;event&gt;Event</code> and <code>&lt;event&gt;Dispatcher</code> given a
-    * listener whose class name is <code>&lt;event&gt;Listener</code>. The dispatcher found must have a no-arg constructor.
+    * listener whose class name is <code>&lt;event&gt;Listener</code>. The dispatcher found must have a no-arg constructor,
+    * and is instantiated once and shared by all listeners of the event class.
     * 
     * @param eventClass the class of event for which the listener is to be removed.
     * @param listener the listener to add.
@@ -116,11 +239,8 @@ public class EventSupport {
       //----------------------------------------------------------------------------------------------------------------
       // Check if there is a dispatcher class explicitly declared in the same package.
       //----------------------------------------------------------------------------------------------------------------
-      if ( eventClassName.endsWith("Event") ) {
-         try {
-            return (EventDispatcher) TypeUtil.instantiateClass(eventClassName + "Dispatcher");
-         } catch (TypeNotFoundException ignoreEx) {}
-      }
+      EventDispatcher<?, ?> conventionDispatcher = EventConventions.dispatcherFor(eventClass);
+      if (conventionDispatcher != null) return conventionDispatcher;
 
       //----------------------------------------------------------------------------------------------------------------
       // Check superclass hierarchy for registered dispatcher.
@@ -148,12 +268,12 @@ public class EventSupport {
    }
 
    private Class<?> lookupEventClass(Object listener) {
-      String listenerClassName = listener.getClass().getName();
-      if ( !listenerClassName.endsWith("Listener") ) {
-         throw new IllegalArgumentException("No associated event type could be found on the classpath because the event listener ["+listenerClassName+"] was not named <event>Listener");
+      Class<?> eventClass = EventConventions.eventTypeFor(listener.getClass());
+      if (eventClass == null) {
+         throw new IllegalArgumentException("No associated event type could be found on the classpath because the event listener ["+listener.getClass().getName()+"] was not named, and implements no interface named, <event>Listener for an existing <event>Event");
       }
 
-      return TypeUtil.loadClass(listenerClassName.substring(0, listenerClassName.length()-8)+"Event");
+      return eventClass;
    }
 
    /**
@@ -168,7 +288,12 @@ public class EventSupport {
    public <E, L> boolean removeListener(Class<E> eventClass, L listener) {
       EventInfo<?, ?> eventInfo = eventListenerMap.get(eventClass);
 
-      return (eventInfo != null && eventInfo.getListeners().remove(listener));
+      boolean removed = eventInfo != null && eventInfo.getListeners().removeIf(existing -> existing.equals(listener)
+                                                                               || existing instanceof QueuedListener && ((QueuedListener)existing).listener.equals(listener));
+      if (removed) {
+         listenersChanged();
+      }
+      return removed;
    }
 
    /**
@@ -189,6 +314,7 @@ public class EventSupport {
    public boolean removeAllListeners() {
       boolean wasEmpty = eventListenerMap.isEmpty();
       eventListenerMap.clear();
+      listenersChanged();
       return !wasEmpty;
    }
 
@@ -201,14 +327,23 @@ public class EventSupport {
     * @return true if the listeners were added, false otherwise.
     */
    public <E extends Event, L extends EventListener> boolean setListeners(Class<E> eventClass, List<L> listeners, EventDispatcher<E, L> dispatcher) {
-      EventInfo<E, L> newEventInfo = new EventInfo<>(dispatcher, Collections.synchronizedSet(new LinkedHashSet<L>()));
+      EventInfo<E, L> newEventInfo = new EventInfo<>(dispatcher, new CopyOnWriteArraySet<L>());
       EventInfo<E, L> eventInfo = (EventInfo<E, L>) eventListenerMap.putIfAbsent(eventClass, newEventInfo);
       if (eventInfo == null) {
          eventInfo = newEventInfo;
       }
 
       eventInfo.getListeners().clear();
-      return eventInfo.getListeners().addAll(listeners);
+      boolean added = eventInfo.getListeners().addAll(listeners);
+      listenersChanged();
+      return added;
+   }
+
+   /**
+    * Discards all resolved dispatch plans, once listeners have changed.
+    */
+   private void listenersChanged() {
+      dispatchPlans = new ConcurrentHashMap<>();
    }
 
    /**
@@ -218,12 +353,44 @@ public class EventSupport {
     *           the class of event for which the listeners are to be returned.
     * @param listenerClass
     *           the class of listeners to be returned.
-    * @return the set of listeners for the given eventClass, guaranteed to be non-null.
+    * @return an unmodifiable view of the set of listeners for the given eventClass, guaranteed to be non-null, which may
+    *         be iterated without locking. Listeners added with a queue of their own are returned in a snapshot instead.
     */
    public <E, L> Set<L> getListeners(Class<E> eventClass, Class<L> listenerClass) {
       EventInfo<?, ?> eventInfo = eventListenerMap.get(eventClass);
+      if (eventInfo == null) return Collections.emptySet();
+
+      Set<L> listeners = (Set<L>)eventInfo.getListeners();
+      if (listeners.stream().noneMatch(QueuedListener.class::isInstance)) return Collections.unmodifiableSet(listeners);
+
+      Set<L> unwrappedListeners = new LinkedHashSet<>();
+      for (Object listener : listeners) {
+         unwrappedListeners.add((L)(listener instanceof QueuedListener ? ((QueuedListener)listener).listener : listener));
+      }
+      return Collections.unmodifiableSet(unwrappedListeners);
+   }
+
+   /**
+    * Returns the queue through which all events are delivered asynchronously.
+    *
+    * @return the queue of the event support, or null if events are delivered synchronously.
+    */
+   public AsynchronousEventQueue<Event> getAsynchronousQueue() {
+      return asynchronousQueue;
+   }
 
-      return (Set<L>)(eventInfo == null ?  Collections.emptySet() : eventInfo.getListeners());
+   /**
+    * Sets a queue through which all events are to be delivered asynchronously, on the executor of the queue rather than
+    * the thread dispatching them. The queue may be used by only one event support.
+    *
+    * @param asynchronousQueue the queue of the event support, or null to deliver events synchronously.
+    * @throws IllegalStateException if the queue is already in use.
+    */
+   public void setAsynchronousQueue(AsynchronousEventQueue<Event> asynchronousQueue) {
+      if (asynchronousQueue != null) {
+         asynchronousQueue.attach(this::deliver);
+      }
+      this.asynchronousQueue = asynchronousQueue;
    }
 
    @SuppressWarnings("unchecked")
@@ -262,26 +429,101 @@ public class EventSupport {
    }
 
    /**
-    * Dispatches an event through the configured event dispatcher and listeners.
+    * Dispatches an event through the configured event dispatcher and listeners, or queues it for delivery if the event
+    * support is asynchronous.
     * 
     * @param event the event to be dispatched.
     */
    public <E extends Event, L extends EventListener> void dispatchEvent(E event) {
       Assert.notNull(event, "The event may not be nul");
-      EventInfo<E, L> eventInfo = (EventInfo<E, L>)lookupEventInfo(event.getClass());
-      if (eventInfo == null) {
+      DispatchPlan plan = lookupDispatchPlan(event.getClass());
+      if (plan.listeners.length == 0) return;
+
+      AsynchronousEventQueue<Event> queue = asynchronousQueue;
+      if (queue != null) {
+         queue.publish(event);
          return;
       }
-      
-      Set<?> listeners = eventInfo.getListeners();
-      synchronized (listeners) {
-         for (EventListener listener : eventInfo.getListeners()) {
-            try {
-               eventInfo.getDispatcher().dispatchEvent(event, (L)listener);
-            } catch (Exception ex) {
-// TODO:              LOG.warn("Caught and ignored exception in event dispatch loop [event="+event+", listener="+listener+"]: ", ex);
+
+      for (EventListener listener : plan.listeners) {
+         dispatch(plan.dispatcher, event, listener);
+      }
+   }
+
+   /**
+    * Delivers a batch of events drained from the queue of the event support to the listeners registered when they are
+    * delivered. Each batch listener is passed all events of the batch for it together, once the other listeners have
+    * been called.
+    *
+    * @param events the events to be delivered, in the order they were dispatched.
+    */
+   private void deliver(List<Event> events) {
+      Map<BatchEventListener<Event>, List<Event>> batches = null;
+      for (Event event : events) {
+         DispatchPlan plan = lookupDispatchPlan(event.getClass());
+         for (EventListener listener : plan.listeners) {
+            if (listener instanceof BatchEventListener) {
+               if (batches == null) batches = new LinkedHashMap<>();
+               batches.computeIfAbsent((BatchEventListener<Event>)listener, k -> new ArrayList<>()).add(event);
+            } else {
+               dispatch(plan.dispatcher, event, listener);
             }
          }
       }
+
+      if (batches == null) return;
+      for (Map.Entry<BatchEventListener<Event>, List<Event>> batch : batches.entrySet()) {
+         try {
+            batch.getKey().onEvents(batch.getValue());
+         } catch (Exception ex) {
+            listenerFailed(ex, batch.getValue(), batch.getKey());
+         }
+      }
+   }
+
+   private void dispatch(EventDispatcher<Event, EventListener> dispatcher, Event event, EventListener listener) {
+      try {
+         if (listener instanceof QueuedListener) {
+            ((QueuedListener)listener).queue.publish(event);
+         } else if (listener instanceof BatchEventListener) {
+            ((BatchEventListener<Event>)listener).onEvents(Collections.singletonList(event));
+         } else {
+            dispatcher.dispatchEvent(event, listener);
+         }
+      } catch (Exception ex) {
+         listenerFailed(ex, event, listener);
+      }
+   }
+
+   /**
+    * Logs an exception thrown by a listener, which is otherwise ignored.
+    *
+    * @param failure the exception thrown by the listener.
+    * @param events the event, or batch of events, being delivered to the listener.
+    * @param listener the listener which threw the exception.
+    */
+   private void listenerFailed(Exception failure, Object events, EventListener listener) {
+      log(WARNING, failure, "Caught and ignored exception in event dispatch loop [event={0}, listener={1}]", events, listener);
+   }
+
+   /**
+    * Returns the dispatch plan of the given concrete class of event, resolving and caching it if not already resolved
+    * since the listeners last changed.
+    *
+    * @param eventClass the concrete class of event to be dispatched.
+    * @return the dispatch plan of the event class, which has no listeners if none are registered for the class or its
+    *         supertypes.
+    */
+   private DispatchPlan lookupDispatchPlan(Class<? extends Event> eventClass) {
+      ConcurrentHashMap<Class<?>, DispatchPlan> plans = dispatchPlans;
+      DispatchPlan plan = plans.get(eventClass);
+      if (plan != null) return plan;
+
+      EventInfo<Event, EventListener> eventInfo = lookupEventInfo((Class<Event>)eventClass);
+      plan = eventInfo == null || eventInfo.getListeners().isEmpty()
+             ? NO_LISTENERS
+             : new DispatchPlan(eventInfo.getDispatcher(), eventInfo.getListeners().toArray(new EventListener[0]));
+      DispatchPlan existingPlan = plans.putIfAbsent(eventClass, plan);
+      return existingPlan != null ? existingPlan : plan;
    }
 }
@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.lang;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Modifier;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * A summary of a class, read from its class file without loading the class: its name, modifiers, direct supertypes and
+ * the runtime-visible annotations on the class itself. Summaries allow classes to be filtered, during classpath
+ * scanning, before paying for them to be loaded.
+ *
+ * @see FilteringPackageClassScanner#setClassFileFilter(Predicate)
+ */
+public final class ClassFileSummary {
+   private static final int CLASS_FILE_MAGIC = 0xCAFEBABE;
+   private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+
+   private final String className;
+   private final int accessFlags;
+   private final String superclassName;
+   private final List<String> interfaceNames;
+   private final Set<String> annotationNames;
+
+   private ClassFileSummary(String className, int accessFlags, String superclassName, List<String> interfaceNames, Set<String> annotationNames) {
+      this.className = className;
+      this.accessFlags = accessFlags;
+      this.superclassName = superclassName;
+      this.interfaceNames = interfaceNames;
+      this.annotationNames = annotationNames;
+   }
+
+   /**
+    * Reads the summary of a class from its class file.
+    *
+    * @param classFileStream the stream of the class file, which is read to the end but not closed.
+    * @return the summary of the class.
+    * @throws IOException if the class file could not be read or is malformed.
+    */
+   public static ClassFileSummary read(InputStream classFileStream) throws IOException {
+      return read(classFileStream.readAllBytes());
+   }
+
+   /**
+    * Reads the summary of a class from its class file.
+    *
+    * @param classFile the bytes of the class file.
+    * @return the summary of the class.
+    * @throws IOException if the class file is malformed.
+    */
+   public static ClassFileSummary read(byte[] classFile) throws IOException {
+      try {
+         return new Reader(classFile).read();
+      } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException ex) {
+         throw new IOException("Malformed class file: the class file is truncated or its constant pool is invalid", ex);
+      }
+   }
+
+   /**
+    * @return the binary name of the class, such as <code>java.util.Map$Entry</code>.
+    */
+   public String getClassName() {
+      return className;
+   }
+
+   /**
+    * @return the access flags of the class, as defined by {@link Modifier}.
+    */
+   public int getAccessFlags() {
+      return accessFlags;
+   }
+
+   public boolean isInterface() {
+      return Modifier.isInterface(accessFlags);
+   }
+
+   public boolean isAbstract() {
+      return Modifier.isAbstract(accessFlags);
+   }
+
+   /**
+    * @return the binary name of the superclass, or null if the class is <code>java.lang.Object</code> or a module.
+    */
+   public String getSuperclassName() {
+      return superclassName;
+   }
+
+   /**
+    * @return the binary names of the interfaces the class directly implements, in declaration order.
+    */
+   public List<String> getInterfaceNames() {
+      return interfaceNames;
+   }
+
+   /**
+    * @return the binary names of the runtime-visible annotations present on the class itself.
+    */
+   public Set<String> getAnnotationNames() {
+      return annotationNames;
+   }
+
+   /**
+    * Determines whether the class is directly annotated with the given annotation, as does
+    * {@link Class#isAnnotationPresent(Class)} for annotations which are not {@link java.lang.annotation.Inherited}.
+    *
+    * @param annotationType the type of the annotation.
+    * @return true if the annotation is present on the class itself.
+    */
+   public boolean isAnnotatedWith(Class<? extends Annotation> annotationType) {
+      return annotationNames.contains(annotationType.getName());
+   }
+
+   /**
+    * Determines whether the class may be assignable to the given type. Only the direct supertypes of the class are
+    * known, so this is certain to be false only where no supertype could itself be assignable to the type: where the
+    * class neither is nor directly extends the type and its other supertypes are, at most, classes of the JDK which
+    * cannot implement a type from outside of it.
+    *
+    * @param type the type to which the class may be assignable.
+    * @return false if the class is certainly not assignable to the type, true otherwise.
+    */
+   public boolean mayBeAssignableTo(Class<?> type) {
+      String typeName = type.getName();
+      if (type == Object.class || typeName.equals(className)) return true;
+
+      boolean jdkType = isJdkClass(typeName);
+      if (superclassName != null && (superclassName.equals(typeName) || (!superclassName.equals(Object.class.getName()) && (jdkType || !isJdkClass(superclassName))))) {
+         return true;
+      }
+      for (String interfaceName : interfaceNames) {
+         if (interfaceName.equals(typeName) || jdkType || !isJdkClass(interfaceName)) return true;
+      }
+      return false;
+   }
+
+   /**
+    * Returns a predicate accepting the summaries of classes directly annotated with the given annotation.
+    *
+    * @param annotationType the type of the annotation.
+    * @return a predicate accepting the class file summaries of annotated classes.
+    */
+   public static Predicate<ClassFileSummary> withAnnotation(Class<? extends Annotation> annotationType) {
+      return summary -> summary.isAnnotatedWith(annotationType);
+   }
+
+   /**
+    * Returns a predicate accepting the summaries of classes which may be assignable to the given type.
+    *
+    * @param type the type to which classes may be assignable.
+    * @return a predicate accepting the class file summaries of classes which may be assignable to the type.
+    * @see #mayBeAssignableTo(Class)
+    */
+   public static Predicate<ClassFileSummary> possiblyAssignableTo(Class<?> type) {
+      return summary -> summary.mayBeAssignableTo(type);
+   }
+
+   private static boolean isJdkClass(String className) {
+      return className.startsWith("java.");
+   }
+
+   @Override
+   public String toString() {
+      return "ClassFileSummary[className=" + className + ", superclassName=" + superclassName + ", interfaceNames="
+             + interfaceNames + ", annotationNames=" + annotationNames + "]";
+   }
+
+   /**
+    * Reads the constant pool, class declaration and class attributes of a class file, skipping the fields and methods.
+    * Only the constant pool strings needed are decoded.
+    */
+   private static final class Reader {
+      private final byte[] classFile;
+      private final ByteBuffer buffer;
+      private int[] constantOffsets;
+      private byte[] constantTags;
+
+      private Reader(byte[] classFile) {
+         this.classFile = classFile;
+         this.buffer = ByteBuffer.wrap(classFile);
+      }
+
+      private ClassFileSummary read() throws IOException {
+         if (buffer.getInt() != CLASS_FILE_MAGIC) {
+            throw new IOException("Malformed class file: the class file magic number is missing");
+         }
+         buffer.getInt(); // minor and major versions
+         readConstantPool();
+
+         int accessFlags = u2();
+         String className = className(u2());
+         int superclassIndex = u2();
+         String superclassName = superclassIndex == 0 ? null : className(superclassIndex);
+         int interfaceCount = u2();
+         List<String> interfaceNames = new ArrayList<>(interfaceCount);
+         for (int n=0; n < interfaceCount; n++) {
+            interfaceNames.add(className(u2()));
+         }
+
+         skipMembers(); // Fields
+         skipMembers(); // Methods
+
+         Set<String> annotationNames = Collections.emptySet();
+         for (int attributeCount = u2(); attributeCount > 0; attributeCount--) {
+            String attributeName = utf8(u2());
+            int attributeLength = buffer.getInt();
+            if (RUNTIME_VISIBLE_ANNOTATIONS.equals(attributeName)) {
+               annotationNames = readAnnotationNames();
+            } else {
+               skip(attributeLength);
+            }
+         }
+
+         return new ClassFileSummary(className,
+                                     accessFlags,
+                                     superclassName,
+                                     Collections.unmodifiableList(interfaceNames),
+                                     Collections.unmodifiableSet(annotationNames));
+      }
+
+      private void readConstantPool() throws IOException {
+         int constantPoolCount = u2();
+         constantOffsets = new int[constantPoolCount];
+         constantTags = new byte[constantPoolCount];
+         for (int n=1; n < constantPoolCount; n++) {
+            byte tag = buffer.get();
+            constantTags[n] = tag;
+            constantOffsets[n] = buffer.position();
+            switch (tag) {
+               case 1:  skip(u2()); break;                     // Utf8
+               case 7: case 8: case 16: case 19: case 20:      // Class, String, MethodType, Module, Package
+                  skip(2); break;
+               case 15: skip(3); break;                        // MethodHandle
+               case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+                  skip(4); break;                              // Integer, Float, references, NameAndType, Dynamic, InvokeDynamic
+               case 5: case 6: skip(8); n++; break;            // Long and Double, which take two entries
+               default:
+                  throw new IOException("Malformed class file: unknown constant pool tag " + tag + " at entry " + n);
+            }
+         }
+      }
+
+      private Set<String> readAnnotationNames() throws IOException {
+         int annotationCount = u2();
+         Set<String> annotationNames = new LinkedHashSet<>(annotationCount * 2);
+         for (int n=0; n < annotationCount; n++) {
+            annotationNames.add(descriptorClassName(utf8(u2())));
+            skipElementValuePairs();
+         }
+         return annotationNames;
+      }
+
+      private void skipMembers() {
+         for (int memberCount = u2(); memberCount > 0; memberCount--) {
+            skip(6); // Access flags, name and descriptor
+            for (int attributeCount = u2(); attributeCount > 0; attributeCount--) {
+               skip(2);
+               skip(buffer.getInt());
+            }
+         }
+      }
+
+      private void skipElementValuePairs() throws IOException {
+         for (int pairCount = u2(); pairCount > 0; pairCount--) {
+            skip(2);
+            skipElementValue();
+         }
+      }
+
+      private void skipElementValue() throws IOException {
+         char tag = (char)buffer.get();
+         switch (tag) {
+            case 'B': case 'C': case 'D': case 'F': case 'I': case 'J': case 'S': case 'Z': case 's': case 'c':
+               skip(2); break;
+            case 'e': skip(4); break;
+            case '@': skip(2); skipElementValuePairs(); break;
+            case '[':
+               for (int valueCount = u2(); valueCount > 0; valueCount--) {
+                  skipElementValue();
+               }
+               break;
+            default:
+               throw new IOException("Malformed class file: unknown annotation element value tag '" + tag + "'");
+         }
+      }
+
+      private String className(int classIndex) throws IOException {
+         checkTag(classIndex, 7);
+         return utf8(ByteBuffer.wrap(classFile, constantOffsets[classIndex], 2).getShort() & 0xFFFF).replace('/', '.');
+      }
+
+      private String utf8(int utf8Index) throws IOException {
+         checkTag(utf8Index, 1);
+         int offset = constantOffsets[utf8Index];
+         int length = ((classFile[offset] & 0xFF) << 8) | (classFile[offset + 1] & 0xFF);
+         return new DataInputStream(new ByteArrayInputStream(classFile, offset, length + 2)).readUTF();
+      }
+
+      private void checkTag(int index, int expectedTag) throws IOException {
+         if (index <= 0 || index >= constantTags.length || constantTags[index] != expectedTag) {
+            throw new IOException("Malformed class file: constant pool entry " + index + " is not of the expected type");
+         }
+      }
+
+      private static String descriptorClassName(String descriptor) {
+         // Field descriptor of the form Lpackage/Name;
+         return descriptor.substring(1, descriptor.length() - 1).replace('/', '.');
+      }
+
+      private int u2() {
+         return buffer.getShort() & 0xFFFF;
+      }
+
+      private void skip(int length) {
+         buffer.position(buffer.position() + length);
+      }
+   }
+}
@@ -21,13 +21,27 @@ import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 import java.util.function.Predicate;
 import java.util.jar.JarEntry;
 import java.util.jar.JarInputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.lang.ClassNotFoundException;
 
 import org.beanplanet.core.io.FileUtil;
@@ -37,11 +51,29 @@ import org.beanplanet.core.util.StringUtil;
 
 import static org.beanplanet.core.Predicates.truePredicate;
 
-
+/**
+ * Scans packages for classes accepted by a filter.
+ *
+ * <p>
+ * Package directories are traversed, and the class files of archives read, in parallel on the common
+ * {@link ForkJoinPool}. Archives on the local file system are read randomly, through a {@link ZipFile}, and the classes
+ * found in each of their packages are remembered until the archive is modified. Where a
+ * {@link #setClassFileFilter(Predicate) class file filter} is configured, it is applied to the
+ * {@link ClassFileSummary summary} of each class file, so that only classes it accepts are loaded and offered to the
+ * filter.
+ * </p>
+ */
 public class FilteringPackageClassScanner implements PackageResourceScanner<Class<?>>, Logger {
+   /** The class files found in the packages of archives, by archive, until the archive is modified. */
+   private static final ConcurrentHashMap<File, ArchiveClassFiles> ARCHIVE_CLASS_FILES = new ConcurrentHashMap<>();
+
    protected Predicate<Class<?>> filter = truePredicate();
+   /** Filters classes by their class files, before they are loaded, or null to load every class found. */
+   protected Predicate<ClassFileSummary> classFileFilter;
    /** The class loaders to be used to scan the packages. */
    protected Set<ClassLoader> classLoaders;
+   /** Whether packages are scanned and classes loaded in parallel. */
+   protected boolean parallel = true;
    
    
    public FilteringPackageClassScanner() {
@@ -52,6 +84,11 @@ public class FilteringPackageClassScanner implements PackageResourceScanner<Clas
       this.filter = filter;
    }
 
+   public FilteringPackageClassScanner(Predicate<Class<?>> filter, Predicate<ClassFileSummary> classFileFilter) {
+      this(filter);
+      this.classFileFilter = classFileFilter;
+   }
+
    /**
     * Returns the filter that will accept resources.
     * 
@@ -70,6 +107,39 @@ public class FilteringPackageClassScanner implements PackageResourceScanner<Clas
       this.filter = filter;
    }
 
+   /**
+    * Returns the filter applied to class files before their classes are loaded.
+    *
+    * @return the class file filter, or null if every class found is loaded.
+    */
+   public Predicate<ClassFileSummary> getClassFileFilter() {
+      return classFileFilter;
+   }
+
+   /**
+    * Sets the filter applied to class files before their classes are loaded. Classes it rejects are never loaded, so it
+    * should accept any class the {@link #getFilter() filter} may accept.
+    *
+    * @param classFileFilter the class file filter, or null to load every class found.
+    */
+   public void setClassFileFilter(Predicate<ClassFileSummary> classFileFilter) {
+      this.classFileFilter = classFileFilter;
+   }
+
+   /**
+    * @return whether packages are scanned and classes loaded in parallel.
+    */
+   public boolean isParallel() {
+      return parallel;
+   }
+
+   /**
+    * @param parallel whether packages are scanned and classes loaded in parallel.
+    */
+   public void setParallel(boolean parallel) {
+      this.parallel = parallel;
+   }
+
    /**
     * @return the classLoaders
     */
@@ -187,7 +257,13 @@ public class FilteringPackageClassScanner implements PackageResourceScanner<Clas
                   debug("Looking for classes in archive [archive="+resourcePath+"] recursively ...");
                }
                URL archiveURL = new URL(resourcePath);
-               loadResourcesInArchive(resources, filter, packageName, classLoader, archiveURL.openStream());
+               File archiveFile = "file".equals(archiveURL.getProtocol()) ? toFile(archiveURL) : null;
+               if ( archiveFile != null && archiveFile.isFile() ) {
+                  loadResourcesInArchive(resources, filter, packageName, classLoader, archiveFile);
+               }
+               else {
+                  loadResourcesInArchive(resources, filter, packageName, classLoader, archiveURL.openStream());
+               }
             }
          }
       } catch (IOException ioEx) {
@@ -202,30 +278,53 @@ public class FilteringPackageClassScanner implements PackageResourceScanner<Clas
       return classLoader.getResources(packageName);
    }
    
+   private static File toFile(URL fileURL) {
+      try {
+         return new File(fileURL.toURI());
+      }
+      catch (URISyntaxException | IllegalArgumentException ex) {
+         return null;
+      }
+   }
+
    protected void loadResourcesInDirectory(Set<Class<?>> resources, Predicate<Class<?>> filter, String packageName, ClassLoader classLoader, File packageDirectory) {
-      StringBuilder s = new StringBuilder();
-      File files[] = packageDirectory.listFiles();
-      
-      for (File file : files) {
-         s.setLength(0);
-         String filename = file.getName();
-         if ( filename != null ) {
-            filename = filename.trim();
-            s.append(packageName).append("/").append(filename);
-            String packageOrClass = (packageName == null ? filename : s.toString());
-            
-            if ( file.isDirectory()) {
-               loadResourcesInDirectory(resources, filter, packageOrClass, classLoader, file);
-            }
-            else if ( "class".equalsIgnoreCase(FileUtil.getFilenameSuffix(file)) ) {
-               addIfResourceMatches(resources, filter, packageOrClass, classLoader);
-            }
+      DirectoryScan scan = new DirectoryScan(packageName, packageDirectory.toPath(), classFileFilter != null);
+      List<ClassFile> classFiles = parallel ? ForkJoinPool.commonPool().invoke(scan) : scan.compute();
+      addMatchingResources(resources, filter, classFiles, classLoader);
+   }
+
+   /**
+    * Loads the classes in a package of an archive on the local file system, which are remembered until the archive is
+    * modified.
+    */
+   protected void loadResourcesInArchive(Set<Class<?>> resources, Predicate<Class<?>> filter, String packageName, ClassLoader classLoader, File archive) throws IOException {
+      File archiveKey = archive.getAbsoluteFile();
+      ArchiveClassFiles archiveClassFiles = ARCHIVE_CLASS_FILES.get(archiveKey);
+      if ( archiveClassFiles == null || !archiveClassFiles.isCurrent(archive) ) {
+         archiveClassFiles = new ArchiveClassFiles(archive);
+         ARCHIVE_CLASS_FILES.put(archiveKey, archiveClassFiles);
+      }
+
+      String packagePrefix = StringUtil.ensureHasSuffix(packageName, "/");
+      List<ClassFile> classFiles = archiveClassFiles.packageClassFiles.get(packagePrefix);
+      if ( classFiles == null ) {
+         try (ZipFile zipFile = new ZipFile(archive)) {
+            List<? extends ZipEntry> entries = zipFile.stream()
+                                                      .filter(entry -> !entry.isDirectory() && entry.getName().startsWith(packagePrefix) && isClassFileName(entry.getName()))
+                                                      .collect(Collectors.toList());
+            classFiles = (parallel ? entries.parallelStream() : entries.stream())
+                  .map(entry -> ClassFile.read(entry.getName(), () -> zipFile.getInputStream(entry), true))
+                  .collect(Collectors.toList());
          }
+         archiveClassFiles.packageClassFiles.putIfAbsent(packagePrefix, classFiles);
       }
+      addMatchingResources(resources, filter, classFiles, classLoader);
    }
-   
+
    protected void loadResourcesInArchive(Set<Class<?>> resources, Predicate<Class<?>> filter, String packageName, ClassLoader classLoader, InputStream archiveIS) throws IOException {
       JarInputStream jis = null;
+      String packagePrefix = StringUtil.ensureHasSuffix(packageName, "/");
+      List<ClassFile> classFiles = new ArrayList<>();
       
       try {
          jis = new JarInputStream(archiveIS);
@@ -234,8 +333,9 @@ public class FilteringPackageClassScanner implements PackageResourceScanner<Clas
             String filename = entry.getName();
             if ( filename != null ) {
                filename = filename.trim();
-               if ( !entry.isDirectory() && filename.startsWith(packageName) && "class".equalsIgnoreCase(FileUtil.getFilenameSuffix(filename)) ) {
-                  addIfResourceMatches(resources, filter, filename, classLoader);
+               if ( !entry.isDirectory() && filename.startsWith(packagePrefix) && isClassFileName(filename) ) {
+                  JarInputStream entryStream = jis;
+                  classFiles.add(ClassFile.read(filename, () -> entryStream, classFileFilter != null));
                }
             }
          }
@@ -243,20 +343,48 @@ public class FilteringPackageClassScanner implements PackageResourceScanner<Clas
       finally {
          IoUtil.closeIgnoringErrors(jis);
       }
+      addMatchingResources(resources, filter, classFiles, classLoader);
    }
-   
+
+   /**
+    * Loads the classes of the class files given, whose class files are accepted by any class file filter configured,
+    * and adds those accepted by the filter to the resources, in the order of the class files.
+    */
+   protected void addMatchingResources(Set<Class<?>> resources, Predicate<Class<?>> filter, List<ClassFile> classFiles, ClassLoader classLoader) {
+      Predicate<ClassFileSummary> classFileFilter = this.classFileFilter;
+      Stream<ClassFile> candidates = (parallel ? classFiles.parallelStream() : classFiles.stream())
+            .filter(classFile -> classFileFilter == null || classFile.summary == null || classFileFilter.test(classFile.summary));
+      List<Class<?>> matchingClasses = candidates.map(classFile -> loadClass(classFile.resourceName, classLoader))
+                                                 .filter(clazz -> clazz != null && filter.test(clazz))
+                                                 .collect(Collectors.toList());
+
+      for (Class<?> clazz : matchingClasses) {
+         if ( resources.add(clazz) && isDebugEnabled() ) {
+            debug("Found and added class [class="+clazz.getName()+", classLoader="+classLoader.getClass().getName()+"] matching filter");
+         }
+      }
+   }
+
+   private static boolean isClassFileName(String filename) {
+      // Excludes the package-info and module-info descriptors
+      return "class".equalsIgnoreCase(FileUtil.getFilenameSuffix(filename)) && filename.indexOf('-') < 0;
+   }
+
    protected void addIfResourceMatches(Set<Class<?>> resources, Predicate<Class<?>> filter, String packageAndClassName, ClassLoader classLoader) {
+      Class<?> clazz = loadClass(packageAndClassName, classLoader);
+      if ( clazz != null && filter.test(clazz) && !resources.contains(clazz) ) {
+         resources.add(clazz);
+         if ( isDebugEnabled() ) {
+            debug("Found and added class [class="+clazz.getName()+", classLoader="+classLoader.getClass().getName()+"] matching filter");
+         }
+      }
+   }
+
+   private Class<?> loadClass(String packageAndClassName, ClassLoader classLoader) {
       packageAndClassName = StringUtil.rTrim(packageAndClassName, ".class");
       packageAndClassName = StringUtil.replaceAllRegex(packageAndClassName, "/", ".");
       try {
-         Class<?> clazz = classLoader.loadClass(packageAndClassName);
-         
-         if ( filter.test(clazz) && !resources.contains(clazz) ) {
-            resources.add(clazz);
-            if ( isDebugEnabled() ) {
-               debug("Found and added class [class="+clazz.getName()+", classLoader="+classLoader.getClass().getName()+"] matching filter");
-            }
-         }
+         return classLoader.loadClass(packageAndClassName);
       }
       catch (ClassNotFoundException cnfEx) {
          if ( isDebugEnabled() ) {
@@ -268,6 +396,7 @@ public class FilteringPackageClassScanner implements PackageResourceScanner<Clas
             debug("Ignoring class which could not be loaded through classloader [class="+packageAndClassName+", classLoader="+classLoader.getClass().getName()+"]: ", ncdEx);
          }
       }
+      return null;
    }
 
    protected Set<ClassLoader> getDefaultClassLoaders() {
@@ -282,4 +411,136 @@ public class FilteringPackageClassScanner implements PackageResourceScanner<Clas
       }
       return classLoaders;
    }
+
+   /**
+    * A class file found in a package, with the summary of the class if it was read.
+    */
+   protected static final class ClassFile {
+      private final String resourceName;
+      private final ClassFileSummary summary;
+
+      private ClassFile(String resourceName, ClassFileSummary summary) {
+         this.resourceName = resourceName;
+         this.summary = summary;
+      }
+
+      /**
+       * @return the resource name of the class file, such as <code>java/util/Map$Entry.class</code>.
+       */
+      public String getResourceName() {
+         return resourceName;
+      }
+
+      /**
+       * @return the summary of the class, or null if it was not read or the class file could not be read.
+       */
+      public ClassFileSummary getSummary() {
+         return summary;
+      }
+
+      private static ClassFile read(String resourceName, ClassFileSource source, boolean summarise) {
+         if ( !summarise ) return new ClassFile(resourceName, null);
+
+         try (InputStream classFileStream = new NonClosingInputStream(source.open())) {
+            return new ClassFile(resourceName, ClassFileSummary.read(classFileStream));
+         }
+         catch (IOException ioEx) {
+            // Left for the class loader, and the filter, to decide
+            return new ClassFile(resourceName, null);
+         }
+      }
+   }
+
+   @FunctionalInterface
+   private interface ClassFileSource {
+      InputStream open() throws IOException;
+   }
+
+   /**
+    * Leaves the underlying stream open when closed, for reading successive entries of an archive stream.
+    */
+   private static final class NonClosingInputStream extends java.io.FilterInputStream {
+      private final boolean closeUnderlying;
+
+      private NonClosingInputStream(InputStream in) {
+         super(in);
+         closeUnderlying = !(in instanceof JarInputStream);
+      }
+
+      @Override
+      public void close() throws IOException {
+         if ( closeUnderlying ) {
+            super.close();
+         }
+      }
+   }
+
+   /**
+    * Traverses a package directory, and its subpackages, forking a task for each subpackage.
+    */
+   private static final class DirectoryScan extends RecursiveTask<List<ClassFile>> {
+      private static final long serialVersionUID = 1L;
+
+      private final String packageName;
+      private final Path packageDirectory;
+      private final boolean summarise;
+
+      private DirectoryScan(String packageName, Path packageDirectory, boolean summarise) {
+         this.packageName = packageName;
+         this.packageDirectory = packageDirectory;
+         this.summarise = summarise;
+      }
+
+      @Override
+      protected List<ClassFile> compute() {
+         List<Path> paths = new ArrayList<>();
+         try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(packageDirectory)) {
+            directoryStream.forEach(paths::add);
+         }
+         catch (IOException ioEx) {
+            return Collections.emptyList();
+         }
+         paths.sort(Comparator.comparing(Path::toString));
+
+         List<DirectoryScan> subpackageScans = new ArrayList<>();
+         List<ClassFile> classFiles = new ArrayList<>();
+         for (Path path : paths) {
+            String filename = path.getFileName().toString().trim();
+            String packageOrClass = (packageName == null ? filename : packageName + "/" + filename);
+            if ( Files.isDirectory(path) ) {
+               subpackageScans.add(new DirectoryScan(packageOrClass, path, summarise));
+            }
+            else if ( isClassFileName(filename) ) {
+               classFiles.add(ClassFile.read(packageOrClass, () -> Files.newInputStream(path), summarise));
+            }
+         }
+
+         if ( inForkJoinPool() ) {
+            ForkJoinTask.invokeAll(subpackageScans);
+            subpackageScans.forEach(scan -> classFiles.addAll(scan.join()));
+         }
+         else {
+            subpackageScans.forEach(scan -> classFiles.addAll(scan.compute()));
+         }
+         return classFiles;
+      }
+   }
+
+   /**
+    * The class files found in the packages of an archive, valid while the archive is unmodified.
+    */
+   private static final class ArchiveClassFiles {
+      private final long lastModified;
+      private final long length;
+      private final ConcurrentHashMap<String, List<ClassFile>> packageClassFiles = new ConcurrentHashMap<>();
+
+      private ArchiveClassFiles(File archive) {
+         lastModified = archive.lastModified();
+         length = archive.length();
+      }
+
+      private boolean isCurrent(File archive) {
+         return lastModified == archive.lastModified() && length == archive.length();
+      }
+   }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.lang;
+
+import org.beanplanet.core.UncheckedException;
+
+import java.lang.invoke.*;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * A static utility class for binding methods and constructors, once, to functional interfaces which call them
+ * directly, in place of reflective invocation.
+ * <p>
+ * Where a method and its class are public and visible to the caller, an implementation of the functional interface is
+ * generated by {@link LambdaMetafactory}, which calls the method as fast as a direct call once warm. The implementation
+ * is defined by the caller's lookup, so the functional interface need only be accessible to the caller. Callers fall
+ * back to calling other methods through the {@link MethodHandle} returned by {@link #unreflect(Method)}. Either way, no
+ * arguments are copied into arrays and no reflection takes place on each call.
+ * </p>
+ * <p>
+ * Generated functions do not declare the checked exceptions of the methods they call, so they may throw them
+ * regardless. {@link #rethrow(Object, Throwable)} wraps such exceptions consistently, in an
+ * {@link UncheckedException}, while runtime exceptions and errors propagate unchanged.
+ * </p>
+ *
+ * @author Gary Watson
+ */
+public final class MethodBinder {
+    private MethodBinder() {}
+
+    /**
+     * Returns a method handle for a method, first making the method accessible if it, or its class, is not public.
+     *
+     * @param method the method to be unreflected.
+     * @return a direct method handle for the method.
+     * @throws IllegalAccessException if access checking fails.
+     * @throws RuntimeException if the method could not be made accessible.
+     */
+    public static MethodHandle unreflect(Method method) throws IllegalAccessException {
+        if (!isAccessible(method)) {
+            method.setAccessible(true);
+        }
+        return MethodHandles.lookup().unreflect(method);
+    }
+
+    /**
+     * Returns a method handle for a constructor, first making the constructor accessible if it, or its class, is not
+     * public.
+     *
+     * @param constructor the constructor to be unreflected.
+     * @return a direct method handle for the constructor.
+     * @throws IllegalAccessException if access checking fails.
+     * @throws RuntimeException if the constructor could not be made accessible.
+     */
+    public static MethodHandle unreflectConstructor(Constructor<?> constructor) throws IllegalAccessException {
+        if (!isAccessible(constructor)) {
+            constructor.setAccessible(true);
+        }
+        return MethodHandles.lookup().unreflectConstructor(constructor);
+    }
+
+    /**
+     * Determines whether a method or constructor and the class declaring it are both public.
+     *
+     * @param member the method or constructor to be checked.
+     * @return true if the member and its declaring class are public, false otherwise.
+     */
+    public static boolean isAccessible(Member member) {
+        return Modifier.isPublic(member.getModifiers()) && Modifier.isPublic(member.getDeclaringClass().getModifiers());
+    }
+
+    /**
+     * Determines whether a function calling a method or constructor directly may be generated for a caller: whether the
+     * member is accessible and its declaring class visible to the class loader of the caller, which defines the
+     * generated class.
+     *
+     * @param caller the lookup of the class on whose behalf the function is generated.
+     * @param member the method or constructor to be checked.
+     * @return true if a function calling the member may be generated, false otherwise.
+     */
+    public static boolean isDirectlyCallable(MethodHandles.Lookup caller, Member member) {
+        return isAccessible(member) && isVisible(caller.lookupClass().getClassLoader(), member.getDeclaringClass());
+    }
+
+    private static boolean isVisible(ClassLoader classLoader, Class<?> type) {
+        try {
+            return Class.forName(type.getName(), false, classLoader) == type;
+        } catch (ClassNotFoundException | LinkageError notVisibleEx) {
+            return false;
+        }
+    }
+
+    /**
+     * Generates an implementation of a functional interface which calls a method or constructor directly.
+     *
+     * @param caller the lookup, with private access, of the class on whose behalf the function is generated, which
+     *        defines the generated class.
+     * @param functionType the functional interface to be implemented.
+     * @param functionMethodName the name of the single abstract method of the functional interface.
+     * @param functionMethodType the erased signature of the single abstract method of the functional interface.
+     * @param member the method or constructor to be called.
+     * @param handle a direct method handle for the member, as returned by {@link #unreflect(Method)}.
+     * @param instantiatedMethodType the signature the function method is to have once its type variables are
+     *        instantiated, which is <code>functionMethodType</code> with some parameter or return types specialised.
+     * @param receiver the instance to which an instance method is bound, or null if the member is static or the
+     *        instance is passed as the first argument of the function.
+     * @return the function generated, or null if the member is not directly callable or the function could not be
+     *         generated.
+     */
+    @SuppressWarnings("unchecked")
+    public static <F> F generate(MethodHandles.Lookup caller,
+                                 Class<? super F> functionType,
+                                 String functionMethodName,
+                                 MethodType functionMethodType,
+                                 Member member,
+                                 MethodHandle handle,
+                                 MethodType instantiatedMethodType,
+                                 Object receiver) {
+        if (!isDirectlyCallable(caller, member)) return null;
+
+        try {
+            CallSite callSite = LambdaMetafactory.metafactory(caller,
+                                                              functionMethodName,
+                                                              receiver == null ? MethodType.methodType(functionType)
+                                                                               : MethodType.methodType(functionType, member.getDeclaringClass()),
+                                                              functionMethodType,
+                                                              handle,
+                                                              instantiatedMethodType);
+            return (F)(receiver == null ? callSite.getTarget().invoke() : callSite.getTarget().invoke(receiver));
+        } catch (Throwable th) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns an exception to be thrown for a throwable raised by a method or constructor called through a bound
+     * function or method handle. Runtime exceptions are returned unchanged and errors rethrown, while checked exceptions
+     * are wrapped in an {@link UncheckedException}.
+     *
+     * @param member the method or constructor which raised the throwable, described in any exception message.
+     * @param th the throwable raised.
+     * @return the runtime exception to be thrown.
+     */
+    public static RuntimeException rethrow(Object member, Throwable th) {
+        if (th instanceof RuntimeException) return (RuntimeException)th;
+        if (th instanceof Error) throw (Error)th;
+
+        return new UncheckedException("Unable to invoke [" + member + "]: ", th);
+    }
+}
@@ -21,6 +21,14 @@ import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Default implementation of a type converter registry.
+ * <p>
+ * Lookups are resolved once for each pair of source and target type and cached, until converters are next added or
+ * cleared. Pairs with no converter are cached too, so repeated lookups of unsupported conversions do not search the
+ * registry each time. Resolved lookups are held against the source and target types in nested {@link ClassValue}s,
+ * rather than in a map keyed by class, so the cache does not pin either class through its keys and the lookups from a
+ * source type go when that class is unloaded. The converters resolved are held strongly, however, and may themselves
+ * refer to classes of other class loaders.
+ * </p>
  * 
  * @author Gary Watson
  * 
@@ -30,6 +38,12 @@ public abstract class AbstractTypeConverterRegistry implements TypeConverterRegi
 
    protected ConcurrentHashMap<Class<?>, CompositeTypeConverter> unboundedConverters = new ConcurrentHashMap<>();
 
+   /**
+    * The resolved converters, by source type and then target type, replaced whenever converters change. Lookups
+    * resolved against stale converters are only ever held by a class value that has already been replaced.
+    */
+   private volatile ClassValue<ClassValue<Optional<TypeConverter>>> resolvedConverters = newResolvedConverters();
+
    public void addConverter(Class<?> fromType, Class<?> toType, TypeConverter converter) {
       ConcurrentHashMap<Class<?>, CompositeTypeConverter> sourceTypeConverterMap = converters.get(toType);
       if (sourceTypeConverterMap == null) {
@@ -49,11 +63,13 @@ public abstract class AbstractTypeConverterRegistry implements TypeConverterRegi
          }
       }
       convertersSet.add(converter);
+      convertersChanged();
    }
 
    public void addConverter(Class<?> fromType, TypeConverter converter) {
       CompositeTypeConverter unboundedConvertersFromType = unboundedConverters.computeIfAbsent(fromType, t -> new CompositeTypeConverter());
       unboundedConvertersFromType.add(converter);
+      convertersChanged();
    }
 
    public void addConverter(TypeConverter converter) {
@@ -62,7 +78,41 @@ public abstract class AbstractTypeConverterRegistry implements TypeConverterRegi
       addConverter(Object.class, Object.class, converter);
    }
 
+   /**
+    * Discards all resolved lookups, once converters have changed.
+    */
+   protected void convertersChanged() {
+      resolvedConverters = newResolvedConverters();
+   }
+
+   private ClassValue<ClassValue<Optional<TypeConverter>>> newResolvedConverters() {
+      return new ClassValue<ClassValue<Optional<TypeConverter>>>() {
+         @Override
+         protected ClassValue<Optional<TypeConverter>> computeValue(Class<?> fromType) {
+            return new ClassValue<Optional<TypeConverter>>() {
+               @Override
+               protected Optional<TypeConverter> computeValue(Class<?> toType) {
+                  return resolve(fromType, toType);
+               }
+            };
+         }
+      };
+   }
+
    public Optional<TypeConverter> lookup(final Class<?> fromType, final Class<?> toType) {
+      return resolvedConverters.get(fromType).get(toType);
+   }
+
+   /**
+    * Resolves the converter of a source type to a target type, from the converters registered for the pair, for a
+    * supertype of the source or, failing those, for the source alone.
+    *
+    * @param fromType the source type of the conversion.
+    * @param toType the target type of the conversion.
+    * @return the converter of the source to the target type, or empty if there is none. A composite of only one
+    *         converter is resolved to that converter.
+    */
+   protected Optional<TypeConverter> resolve(final Class<?> fromType, final Class<?> toType) {
       TypeConverter matchingConverter = null;
 
       //----------------------------------------------------------------------------------------------------------------
@@ -82,7 +132,7 @@ public abstract class AbstractTypeConverterRegistry implements TypeConverterRegi
 
          }
       }
-      if (matchingConverter != null) return Optional.of(matchingConverter);
+      if (matchingConverter != null) return Optional.of(unwrap(matchingConverter));
 
       //----------------------------------------------------------------------------------------------------------------
       // Lookup unbounded type converter(s).
@@ -99,7 +149,14 @@ public abstract class AbstractTypeConverterRegistry implements TypeConverterRegi
 
       }
 
-      return Optional.ofNullable(matchingConverter);
+      return Optional.ofNullable(matchingConverter).map(this::unwrap);
+   }
+
+   private TypeConverter unwrap(TypeConverter converter) {
+      if (converter instanceof CompositeTypeConverter && ((CompositeTypeConverter)converter).size() == 1) {
+         return ((CompositeTypeConverter)converter).getConverters().get(0);
+      }
+      return converter;
    }
 
    public int size() {
@@ -117,5 +174,9 @@ public abstract class AbstractTypeConverterRegistry implements TypeConverterRegi
       if (converters != null) {
          converters.clear();
       }
+      if (unboundedConverters != null) {
+         unboundedConverters.clear();
+      }
+      convertersChanged();
    }
 }
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.lang.conversion;
+
+import org.beanplanet.core.UncheckedException;
+import org.beanplanet.core.lang.MethodBinder;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Binds type converter methods, once, to functions calling them directly, through the {@link MethodBinder}.
+ * <p>
+ * Methods returning a primitive <code>int</code>, <code>long</code> or <code>double</code> may be bound to functions
+ * returning it unboxed. Runtime exceptions and errors thrown by the converter method propagate unchanged, while
+ * checked exceptions are wrapped in an {@link UncheckedException}, as when converter methods were called reflectively.
+ * </p>
+ */
+final class ConverterMethods {
+   /**
+    * Converts a value through a converter method of one parameter, the value.
+    */
+   @FunctionalInterface
+   interface ValueConverter {
+      Object convert(Object value);
+   }
+
+   /**
+    * Converts a value through a converter method of two parameters, the value and the type to which it is converted.
+    */
+   @FunctionalInterface
+   interface TargetTypeConverter {
+      Object convert(Object value, Class<?> targetType);
+   }
+
+   private static final MethodType VALUE_CONVERTER_TYPE = MethodType.methodType(Object.class, Object.class);
+   private static final MethodType TARGET_TYPE_CONVERTER_TYPE = MethodType.methodType(Object.class, Object.class, Class.class);
+   private static final MethodType LONG_CONVERTER_TYPE = MethodType.methodType(long.class, Object.class);
+   private static final MethodType INT_CONVERTER_TYPE = MethodType.methodType(int.class, Object.class);
+   private static final MethodType DOUBLE_CONVERTER_TYPE = MethodType.methodType(double.class, Object.class);
+
+   private ConverterMethods() {}
+
+   /**
+    * Binds a converter method of one parameter.
+    *
+    * @param target the instance on which an instance method is called, or null for a static method.
+    * @param method the converter method.
+    * @return a function calling the converter method.
+    */
+   static ValueConverter bindValueConverter(Object target, Method method) {
+      MethodHandle handle = unreflect(method);
+      ValueConverter generated = generate(ValueConverter.class, "convert", VALUE_CONVERTER_TYPE, target, method, handle);
+      if (generated != null) return generated;
+
+      MethodHandle boundHandle = bind(target, handle).asType(VALUE_CONVERTER_TYPE);
+      return value -> {
+         try {
+            return boundHandle.invokeExact(value);
+         } catch (Throwable th) {
+            throw MethodBinder.rethrow(method, th);
+         }
+      };
+   }
+
+   /**
+    * Binds a converter method of two parameters.
+    *
+    * @param target the instance on which an instance method is called, or null for a static method.
+    * @param method the converter method.
+    * @return a function calling the converter method.
+    */
+   static TargetTypeConverter bindTargetTypeConverter(Object target, Method method) {
+      MethodHandle handle = unreflect(method);
+      TargetTypeConverter generated = generate(TargetTypeConverter.class, "convert", TARGET_TYPE_CONVERTER_TYPE, target, method, handle);
+      if (generated != null) return generated;
+
+      MethodHandle boundHandle = bind(target, handle).asType(TARGET_TYPE_CONVERTER_TYPE);
+      return (value, targetType) -> {
+         try {
+            return boundHandle.invokeExact(value, targetType);
+         } catch (Throwable th) {
+            throw MethodBinder.rethrow(method, th);
+         }
+      };
+   }
+
+   /**
+    * Binds a converter method of one parameter returning a primitive <code>long</code>, without boxing the result.
+    *
+    * @param target the instance on which an instance method is called, or null for a static method.
+    * @param method the converter method, whose return type is <code>long</code>.
+    * @return a function calling the converter method.
+    */
+   static ToLongFunction<Object> bindLongConverter(Object target, Method method) {
+      MethodHandle handle = unreflect(method);
+      ToLongFunction<Object> generated = generate(ToLongFunction.class, "applyAsLong", LONG_CONVERTER_TYPE, target, method, handle);
+      if (generated != null) return generated;
+
+      MethodHandle boundHandle = bind(target, handle).asType(LONG_CONVERTER_TYPE);
+      return value -> {
+         try {
+            return (long)boundHandle.invokeExact(value);
+         } catch (Throwable th) {
+            throw MethodBinder.rethrow(method, th);
+         }
+      };
+   }
+
+   /**
+    * Binds a converter method of one parameter returning a primitive <code>int</code>, without boxing the result.
+    *
+    * @param target the instance on which an instance method is called, or null for a static method.
+    * @param method the converter method, whose return type is <code>int</code>.
+    * @return a function calling the converter method.
+    */
+   static ToIntFunction<Object> bindIntConverter(Object target, Method method) {
+      MethodHandle handle = unreflect(method);
+      ToIntFunction<Object> generated = generate(ToIntFunction.class, "applyAsInt", INT_CONVERTER_TYPE, target, method, handle);
+      if (generated != null) return generated;
+
+      MethodHandle boundHandle = bind(target, handle).asType(INT_CONVERTER_TYPE);
+      return value -> {
+         try {
+            return (int)boundHandle.invokeExact(value);
+         } catch (Throwable th) {
+            throw MethodBinder.rethrow(method, th);
+         }
+      };
+   }
+
+   /**
+    * Binds a converter method of one parameter returning a primitive <code>double</code>, without boxing the result.
+    *
+    * @param target the instance on which an instance method is called, or null for a static method.
+    * @param method the converter method, whose return type is <code>double</code>.
+    * @return a function calling the converter method.
+    */
+   static ToDoubleFunction<Object> bindDoubleConverter(Object target, Method method) {
+      MethodHandle handle = unreflect(method);
+      ToDoubleFunction<Object> generated = generate(ToDoubleFunction.class, "applyAsDouble", DOUBLE_CONVERTER_TYPE, target, method, handle);
+      if (generated != null) return generated;
+
+      MethodHandle boundHandle = bind(target, handle).asType(DOUBLE_CONVERTER_TYPE);
+      return value -> {
+         try {
+            return (double)boundHandle.invokeExact(value);
+         } catch (Throwable th) {
+            throw MethodBinder.rethrow(method, th);
+         }
+      };
+   }
+
+   private static MethodHandle unreflect(Method method) {
+      try {
+         return MethodBinder.unreflect(method);
+      } catch (IllegalAccessException | RuntimeException accessEx) {
+         throw new UncheckedException("Unable to bind type converter method [" + method + "] - the method is not accessible: ", accessEx);
+      }
+   }
+
+   private static MethodHandle bind(Object target, MethodHandle handle) {
+      return target == null ? handle : handle.bindTo(target);
+   }
+
+   /**
+    * Generates a function calling a converter method directly, if the method is directly callable.
+    *
+    * @return the function generated, or null if the method is not directly callable or the function could not be
+    *         generated.
+    */
+   private static <F> F generate(Class<? super F> functionType, String functionMethodName, MethodType functionMethodType, Object target, Method method, MethodHandle handle) {
+      MethodType instantiatedMethodType = MethodType.methodType(method.getReturnType(), method.getParameterTypes()).wrap();
+      if (functionMethodType.returnType().isPrimitive()) {
+         // Returned unboxed, as the function method returns it
+         instantiatedMethodType = instantiatedMethodType.changeReturnType(functionMethodType.returnType());
+      }
+      Object receiver = Modifier.isStatic(method.getModifiers()) ? null : target;
+      return MethodBinder.generate(MethodHandles.lookup(), functionType, functionMethodName, functionMethodType, method, handle, instantiatedMethodType, receiver);
+   }
+}
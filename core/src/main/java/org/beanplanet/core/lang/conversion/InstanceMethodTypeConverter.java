@@ -15,11 +15,12 @@
  */
 package org.beanplanet.core.lang.conversion;
 
+import org.beanplanet.core.UncheckedException;
 import org.beanplanet.core.lang.Assert;
-import org.beanplanet.core.lang.TypeUtil;
 import org.beanplanet.core.util.PropertyBasedToStringBuilder;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 
 /**
  * Implementation of a type converter that is pinned to an instance method of a class.
@@ -34,9 +35,13 @@ import java.lang.reflect.Method;
  * public Object[] toArray(Collection col) { ... }   // Might convert a collection to an array
  * public YourType toArray(MyType myTypeValue) { ... }   // Might convert objects of MyType to YourType
  * </pre>
- * Naturally, interfaces may be specified for the <em>from</em> and <em>to</em> types.
+ * Naturally, interfaces may be specified for the <em>from</em> and <em>to</em> types. Methods may also take the
+ * target type of the conversion, as a second parameter of type <code>Class</code>.
  * </p>
  * 
+ * <p>The method is bound to the target instance on first use, and again whenever either is changed, to a function
+ * calling it directly, so conversions cost little more than calling the method itself.</p>
+ * 
  * <p>This type converter implementation is not usually used directly by clients but is primarily used during auto-discovery
  * of type converters. See <code>{@link PackageScanTypeConverterLoader}</code> for further information about how to
  * make your type converters available at runtime.</p>
@@ -47,6 +52,9 @@ import java.lang.reflect.Method;
 public class InstanceMethodTypeConverter implements TypeConverter {
    protected Method typeConverterMethod;
    protected Object target;
+
+   /** The method bound to the target, or null if not yet bound. */
+   private volatile Object boundConverter;
    
    /**
     * Creates a new type converter instance method wrapper with no initial method. Be sure to set
@@ -84,6 +92,7 @@ public class InstanceMethodTypeConverter implements TypeConverter {
     */
    public void setTypeConverterMethod(Method typeConverterMethod) {
       this.typeConverterMethod = typeConverterMethod;
+      boundConverter = null;
    }
 
    /**
@@ -98,6 +107,7 @@ public class InstanceMethodTypeConverter implements TypeConverter {
     */
    public void setTarget(Object target) {
       this.target = target;
+      boundConverter = null;
    }
 
 
@@ -111,7 +121,27 @@ public class InstanceMethodTypeConverter implements TypeConverter {
    @SuppressWarnings("unchecked")
    public <T> T convert(Object value, Class<T> targetType) throws UnsupportedTypeConversionException {
       Assert.notNull(typeConverterMethod, "The type converter method may not be null");
-      return (T) TypeUtil.invokeMethod(null, typeConverterMethod, new Object[] {value});
+      Object converter = boundConverter;
+      if (converter == null) {
+         converter = boundConverter = bind();
+      }
+
+      try {
+         return converter instanceof ConverterMethods.TargetTypeConverter ? (T) ((ConverterMethods.TargetTypeConverter)converter).convert(value, targetType)
+                                                                          : (T) ((ConverterMethods.ValueConverter)converter).convert(value);
+      } catch (RuntimeException | Error ex) {
+         throw ex;
+      } catch (Exception checkedEx) {
+         // Thrown, undeclared, by the converter method itself
+         throw new UncheckedException("Unable to invoke method [" + typeConverterMethod + "]: ", checkedEx);
+      }
+   }
+
+   private Object bind() {
+      boolean targetTypeConversion = typeConverterMethod.getParameterCount() == 2 && typeConverterMethod.getParameterTypes()[1] == Class.class;
+      Object boundTarget = Modifier.isStatic(typeConverterMethod.getModifiers()) ? null : target;
+      return targetTypeConversion ? ConverterMethods.bindTargetTypeConverter(boundTarget, typeConverterMethod)
+                                  : ConverterMethods.bindValueConverter(boundTarget, typeConverterMethod);
    }
    
    /**
@@ -16,6 +16,7 @@
 package org.beanplanet.core.lang.conversion;
 
 import org.beanplanet.core.io.IoUtil;
+import org.beanplanet.core.lang.ClassFileSummary;
 import org.beanplanet.core.lang.FilteringPackageClassScanner;
 import org.beanplanet.core.lang.PackageResourceScanner;
 import org.beanplanet.core.lang.TypeUtil;
@@ -26,6 +27,7 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.*;
 import java.util.function.Predicate;
@@ -36,9 +38,17 @@ import static org.beanplanet.core.util.StringUtil.asDelimitedString;
 
 public class PackageScanTypeConverterLoader implements TypeConverterLoader, Logger {
    public static final String TYPE_CONVERTER_PACKAGES_RESOURCE = "META-INF/services/org/beanplanet/converters/type-converter-packages.txt";
+   /**
+    * The build-time index of type converter classes, generated alongside the packages resource by the
+    * <code>beanplanet-processor</code> annotation processor. Packages declared by a packages resource with an
+    * index beside it are loaded straight from the index, without scanning the classpath.
+    */
+   public static final String TYPE_CONVERTER_INDEX_RESOURCE = "META-INF/services/org/beanplanet/converters/type-converter-index.txt";
 
    protected String typeConverterPackagesResource = TYPE_CONVERTER_PACKAGES_RESOURCE;
 
+   protected String typeConverterIndexResource = TYPE_CONVERTER_INDEX_RESOURCE;
+
 //   protected SeverityLogger logger = BeanPlanetLogFactory.getSeverityLogger(PackageScanTypeConverterLoader.class);
 //
    protected static final Predicate<Class<?>> ANNOTATED_CLASS_FILTER = new Predicate<Class<?>>() {
@@ -65,7 +75,12 @@ public class PackageScanTypeConverterLoader implements TypeConverterLoader, Logg
    };
    protected static final Predicate<Class<?>> PACKAGE_SCAN_CLASS_FILTER = TYPE_CONVERTER_CLASS_FILTER.or(ANNOTATED_CLASS_FILTER);
 
-   protected PackageResourceScanner<Class<?>> packageScanner = new FilteringPackageClassScanner(PACKAGE_SCAN_CLASS_FILTER);
+   /** Rejects, before they are loaded, classes which cannot be accepted by the package scan class filter. */
+   protected static final Predicate<ClassFileSummary> PACKAGE_SCAN_CLASS_FILE_FILTER =
+         ClassFileSummary.possiblyAssignableTo(TypeConverter.class)
+                         .or(ClassFileSummary.withAnnotation(org.beanplanet.core.lang.conversion.annotations.TypeConverter.class));
+
+   protected PackageResourceScanner<Class<?>> packageScanner = new FilteringPackageClassScanner(PACKAGE_SCAN_CLASS_FILTER, PACKAGE_SCAN_CLASS_FILE_FILTER);
 
    private static final Predicate<Method> ANNOTATED_BOUNDED_METHOD_FILTER = new Predicate<Method>() {
       public boolean test(Method method) {
@@ -108,11 +123,28 @@ public class PackageScanTypeConverterLoader implements TypeConverterLoader, Logg
       this.typeConverterPackagesResource = typeConverterPackagesResource;
    }
 
+   /**
+    * @return the typeConverterIndexResource
+    */
+   public String getTypeConverterIndexResource() {
+      return typeConverterIndexResource;
+   }
+
+   /**
+    * @param typeConverterIndexResource the typeConverterIndexResource to set, or null to always scan the declared packages
+    */
+   public void setTypeConverterIndexResource(String typeConverterIndexResource) {
+      this.typeConverterIndexResource = typeConverterIndexResource;
+   }
+
    public void load(TypeConverterRegistry registry) {
       // ------------------------------------------------------------------------
       // Add context class loader packages first, if available
       // ------------------------------------------------------------------------
-      String packageNames[] = findPackageNames();
+      Map<URL, List<String>> packageResources = findPackageResources();
+      Set<String> packageNamesSet = new LinkedHashSet<>();
+      packageResources.values().forEach(packageNamesSet::addAll);
+      String packageNames[] = packageNamesSet.toArray(new String[packageNamesSet.size()]);
       if ( packageNames.length > 0 ) {
          if (isDebugEnabled()) {
             debug("Discovered type converter "
@@ -120,7 +152,7 @@ public class PackageScanTypeConverterLoader implements TypeConverterLoader, Logg
                   + ": \n" + asDelimitedString(packageNames, ",\n"));
          }
 
-         Set<Class<?>> classes = packageScanner.findResourcesInPackages(packageNames);
+         Set<Class<?>> classes = findTypeConverterClasses(packageResources);
          loadTypeConverters(registry, classes);
 
          if (isDebugEnabled()) {
@@ -148,18 +180,30 @@ public class PackageScanTypeConverterLoader implements TypeConverterLoader, Logg
 //
    protected String[] findPackageNames() {
       Set<String> packageNamesSet = new LinkedHashSet<String>();
-      ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
-      ClassLoader classLoader = getClass().getClassLoader();
-      if (contextClassLoader != null) {
-         findAndAddPackages(packageNamesSet, contextClassLoader);
-      }
-      if (contextClassLoader != classLoader) {
-         findAndAddPackages(packageNamesSet, classLoader);
-      }
+      findPackageResources().values().forEach(packageNamesSet::addAll);
       return packageNamesSet.toArray(new String[packageNamesSet.size()]);
    }
 
+   /**
+    * Finds the type converter packages resources visible to the context and this class' class loaders.
+    *
+    * @return the package names declared, keyed by the resource declaring them, in discovery order.
+    */
+   protected Map<URL, List<String>> findPackageResources() {
+      Map<URL, List<String>> packageResources = new LinkedHashMap<>();
+      for (ClassLoader cl : searchClassLoaders()) {
+         findAndAddPackages(packageResources, cl);
+      }
+      return packageResources;
+   }
+
    protected void findAndAddPackages(Set<String> packageNames, ClassLoader cl) {
+      Map<URL, List<String>> packageResources = new LinkedHashMap<>();
+      findAndAddPackages(packageResources, cl);
+      packageResources.values().forEach(packageNames::addAll);
+   }
+
+   protected void findAndAddPackages(Map<URL, List<String>> packageResources, ClassLoader cl) {
       if (isDebugEnabled()) {
          debug("Searching for annotation-configured type converters [classLoader=" + cl + ", resource(s)="
                       + getTypeConverterPackagesResource() + "] ...");
@@ -173,6 +217,7 @@ public class PackageScanTypeConverterLoader implements TypeConverterLoader, Logg
                if (isDebugEnabled()) {
                   debug("Reading type converter packages from resource [" + resourceURL.toExternalForm() + "] ...");
                }
+               List<String> packageNames = packageResources.computeIfAbsent(resourceURL, k -> new ArrayList<>());
                reader = new BufferedReader(new InputStreamReader(resourceURL.openStream()));
                for (String line = null; (line = reader.readLine()) != null;) {
                   line = line.trim();
@@ -184,6 +229,7 @@ public class PackageScanTypeConverterLoader implements TypeConverterLoader, Logg
                      packageNames.addAll(linePackageNames);
                   }
                }
+               reader.close();
             }
          }
       } catch (IOException ioEx) {
@@ -196,6 +242,116 @@ public class PackageScanTypeConverterLoader implements TypeConverterLoader, Logg
       }
    }
 
+   /**
+    * Finds the candidate type converter classes in the packages declared. Classes listed in a build-time type
+    * converter index are loaded directly and only those packages declared by a packages resource without an index
+    * beside it, such as a library built without the <code>beanplanet-processor</code>, are scanned.
+    *
+    * @param packageResources the package names declared, keyed by the resource declaring them.
+    * @return the candidate type converter classes found.
+    */
+   protected Set<Class<?>> findTypeConverterClasses(Map<URL, List<String>> packageResources) {
+      Set<String> packageNames = new LinkedHashSet<>();
+      packageResources.values().forEach(packageNames::addAll);
+
+      Set<Class<?>> classes = new LinkedHashSet<>();
+      Set<String> indexResources = new HashSet<>();
+      if (getTypeConverterIndexResource() != null && getTypeConverterIndexResource().length() > 0) {
+         for (ClassLoader cl : searchClassLoaders()) {
+            findAndAddIndexedClasses(classes, indexResources, packageNames, cl);
+         }
+      }
+
+      Set<String> unindexedPackageNames = new LinkedHashSet<>();
+      for (Map.Entry<URL, List<String>> packageResource : packageResources.entrySet()) {
+         if (!indexResources.contains(indexResourceBeside(packageResource.getKey()))) {
+            unindexedPackageNames.addAll(packageResource.getValue());
+         }
+      }
+
+      if (!unindexedPackageNames.isEmpty()) {
+         if (isDebugEnabled()) {
+            debug("Scanning unindexed type converter "
+                  + (unindexedPackageNames.size() == 1 ? "package" : "packages")
+                  + ": \n" + asDelimitedString(unindexedPackageNames.stream(), ",\n"));
+         }
+         classes.addAll(packageScanner.findResourcesInPackages(unindexedPackageNames.toArray(new String[unindexedPackageNames.size()])));
+      }
+      return classes;
+   }
+
+   protected void findAndAddIndexedClasses(Set<Class<?>> classes, Set<String> indexResources, Set<String> packageNames, ClassLoader cl) {
+      BufferedReader reader = null;
+      try {
+         for (Enumeration<URL> resources = cl.getResources(getTypeConverterIndexResource()); resources.hasMoreElements();) {
+            URL resourceURL = resources.nextElement();
+            if (!indexResources.add(resourceURL.toExternalForm())) {
+               continue;
+            }
+            if (isDebugEnabled()) {
+               debug("Reading type converter index from resource [" + resourceURL.toExternalForm() + "] ...");
+            }
+            reader = new BufferedReader(new InputStreamReader(resourceURL.openStream()));
+            for (String line = null; (line = reader.readLine()) != null;) {
+               line = line.trim();
+               if (line.length() == 0 || line.startsWith("#") || !isInPackages(line, packageNames)) {
+                  continue;
+               }
+               try {
+                  Class<?> clazz = Class.forName(line, false, cl);
+                  if (PACKAGE_SCAN_CLASS_FILTER.test(clazz)) {
+                     classes.add(clazz);
+                  }
+               } catch (ClassNotFoundException | LinkageError ex) {
+                  warning("Ignoring type converter [class=" + line + "] listed in index [" + resourceURL.toExternalForm()
+                          + "] which could not be loaded: ", ex);
+               }
+            }
+            reader.close();
+         }
+      } catch (IOException ioEx) {
+         throw new TypeConversionException("Unable to load type converter index ["
+                                                 + getTypeConverterIndexResource() + "] through classloader [" + cl
+                                                 + "]: ",
+                                           ioEx);
+      } finally {
+         IoUtil.closeIgnoringErrors(reader);
+      }
+   }
+
+   private String indexResourceBeside(URL packagesResource) {
+      String indexResource = getTypeConverterIndexResource();
+      if (indexResource == null) return null;
+
+      try {
+         return new URL(packagesResource, indexResource.substring(indexResource.lastIndexOf('/') + 1)).toExternalForm();
+      } catch (MalformedURLException ignoreEx) {
+         return null;
+      }
+   }
+
+   private static boolean isInPackages(String className, Set<String> packageNames) {
+      for (int dotPos = className.lastIndexOf('.'); dotPos > 0; dotPos = className.lastIndexOf('.', dotPos - 1)) {
+         if (packageNames.contains(className.substring(0, dotPos))) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   private List<ClassLoader> searchClassLoaders() {
+      List<ClassLoader> classLoaders = new ArrayList<>(2);
+      ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+      ClassLoader classLoader = getClass().getClassLoader();
+      if (contextClassLoader != null) {
+         classLoaders.add(contextClassLoader);
+      }
+      if (contextClassLoader != classLoader) {
+         classLoaders.add(classLoader);
+      }
+      return classLoaders;
+   }
+
    protected void loadTypeConverters(TypeConverterRegistry registry, Set<Class<?>> classes) {
       Set<Class<?>> visitedClasses = new HashSet<>();
       for (Class<?> clazz : classes) {
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.lang.conversion;
+
+/**
+ * A type converter which may convert values to primitive <code>int</code>, <code>long</code> and <code>double</code>
+ * values without boxing them. The defaults box the value converted, by way of
+ * {@link TypeConverter#convert(Object, Class)}, and are overridden where a converter is able to do better.
+ *
+ * @see SystemTypeConverter#convertToLong(Object)
+ */
+public interface PrimitiveTypeConverter extends TypeConverter {
+   /**
+    * Converts a value to a primitive long.
+    *
+    * @param value the value to be converted, which may not be null.
+    * @return the primitive long value converted from the source value.
+    * @exception UnsupportedTypeConversionException if this converter cannot convert the value.
+    */
+   default long convertToLong(Object value) throws UnsupportedTypeConversionException {
+      return ((Number)convert(value, long.class)).longValue();
+   }
+
+   /**
+    * Converts a value to a primitive integer.
+    *
+    * @param value the value to be converted, which may not be null.
+    * @return the primitive integer value converted from the source value.
+    * @exception UnsupportedTypeConversionException if this converter cannot convert the value.
+    */
+   default int convertToInt(Object value) throws UnsupportedTypeConversionException {
+      return ((Number)convert(value, int.class)).intValue();
+   }
+
+   /**
+    * Converts a value to a primitive double.
+    *
+    * @param value the value to be converted, which may not be null.
+    * @return the primitive double value converted from the source value.
+    * @exception UnsupportedTypeConversionException if this converter cannot convert the value.
+    */
+   default double convertToDouble(Object value) throws UnsupportedTypeConversionException {
+      return ((Number)convert(value, double.class)).doubleValue();
+   }
+}
@@ -15,13 +15,14 @@
  */
 package org.beanplanet.core.lang.conversion;
 
+import org.beanplanet.core.UncheckedException;
 import org.beanplanet.core.lang.Assert;
-import org.beanplanet.core.lang.TypeUtil;
 import org.beanplanet.core.util.PropertyBasedToStringBuilder;
 
 import java.lang.reflect.Method;
-
-import static org.beanplanet.core.lang.TypeUtil.invokeMethod;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 
 /**
  * Implementation of a type converter that is pinned to a static method of a class.
@@ -42,6 +43,12 @@ import static org.beanplanet.core.lang.TypeUtil.invokeMethod;
  * </p>
  * 
  * <p>
+ * The method is bound once, when the converter is created, to a function calling it directly, so conversions cost
+ * little more than calling the method itself. Methods returning a primitive <code>int</code>, <code>long</code> or
+ * <code>double</code> are also bound to return it unboxed, through the {@link PrimitiveTypeConverter} methods.
+ * </p>
+ * 
+ * <p>
  * This type converter implementation is not usually used directly by clients but is primarily used during
  * auto-discovery of type converters. See <code>{@link PackageScanTypeConverterLoader}</code> for further information
  * about how to make your type converters available at runtime.
@@ -50,9 +57,14 @@ import static org.beanplanet.core.lang.TypeUtil.invokeMethod;
  * @author Gary Watson
  * 
  */
-public class StaticMethodTypeConverter implements TypeConverter {
+public class StaticMethodTypeConverter implements PrimitiveTypeConverter {
    private final Method typeConverterMethod;
    private final boolean arrayConversion;
+   private final ConverterMethods.ValueConverter valueConverter;
+   private final ConverterMethods.TargetTypeConverter targetTypeConverter;
+   private final ToLongFunction<Object> longConverter;
+   private final ToIntFunction<Object> intConverter;
+   private final ToDoubleFunction<Object> doubleConverter;
 
    /**
     * Creates a new static type converter method wrapper with the specified method.
@@ -62,6 +74,13 @@ public class StaticMethodTypeConverter implements TypeConverter {
    public StaticMethodTypeConverter(final Method typeConverterMethod) {
       this.typeConverterMethod = typeConverterMethod;
       arrayConversion = typeConverterMethod.getParameterCount() == 2 && typeConverterMethod.getParameterTypes()[1] == Class.class;
+      valueConverter = arrayConversion ? null : ConverterMethods.bindValueConverter(null, typeConverterMethod);
+      targetTypeConverter = arrayConversion ? ConverterMethods.bindTargetTypeConverter(null, typeConverterMethod) : null;
+
+      Class<?> returnType = typeConverterMethod.getReturnType();
+      longConverter = !arrayConversion && returnType == long.class ? ConverterMethods.bindLongConverter(null, typeConverterMethod) : null;
+      intConverter = !arrayConversion && returnType == int.class ? ConverterMethods.bindIntConverter(null, typeConverterMethod) : null;
+      doubleConverter = !arrayConversion && returnType == double.class ? ConverterMethods.bindDoubleConverter(null, typeConverterMethod) : null;
    }
 
    /**
@@ -76,8 +95,30 @@ public class StaticMethodTypeConverter implements TypeConverter {
    @SuppressWarnings("unchecked")
    public <T> T convert(final Object value, final Class<T> targetType) throws UnsupportedTypeConversionException {
       Assert.notNull(typeConverterMethod, "The type converter method may not be null");
-      return arrayConversion ? (T) invokeMethod(null, typeConverterMethod, value, targetType)
-                             : (T) invokeMethod(null, typeConverterMethod, value);
+      try {
+         return arrayConversion ? (T) targetTypeConverter.convert(value, targetType)
+                                : (T) valueConverter.convert(value);
+      } catch (RuntimeException | Error ex) {
+         throw ex;
+      } catch (Exception checkedEx) {
+         // Thrown, undeclared, by the converter method itself
+         throw new UncheckedException("Unable to invoke method [" + typeConverterMethod + "]: ", checkedEx);
+      }
+   }
+
+   @Override
+   public long convertToLong(final Object value) throws UnsupportedTypeConversionException {
+      return longConverter != null ? longConverter.applyAsLong(value) : PrimitiveTypeConverter.super.convertToLong(value);
+   }
+
+   @Override
+   public int convertToInt(final Object value) throws UnsupportedTypeConversionException {
+      return intConverter != null ? intConverter.applyAsInt(value) : PrimitiveTypeConverter.super.convertToInt(value);
+   }
+
+   @Override
+   public double convertToDouble(final Object value) throws UnsupportedTypeConversionException {
+      return doubleConverter != null ? doubleConverter.applyAsDouble(value) : PrimitiveTypeConverter.super.convertToDouble(value);
    }
 
    /**
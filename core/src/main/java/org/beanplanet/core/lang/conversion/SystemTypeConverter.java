@@ -29,7 +29,10 @@ public class SystemTypeConverter extends AbstractTypeConverterRegistry implement
 
     protected TypeConverterLoader loader = new PackageScanTypeConverterLoader();
 
-    private boolean isLoaded = false;
+    private volatile boolean isLoaded = false;
+
+    /** Receives measurements of conversions made, or null if none are measured. */
+    private volatile TypeConversionMetricsSink metricsSink;
 
     private static SystemTypeConverter instance = INSTANCE;
 
@@ -61,15 +64,37 @@ public class SystemTypeConverter extends AbstractTypeConverterRegistry implement
         isLoaded = false;
     }
 
+    /**
+     * Returns the sink receiving measurements of the conversions made by this converter.
+     *
+     * @return the metrics sink of the converter, or null if none has been set.
+     */
+    public TypeConversionMetricsSink getMetricsSink() {
+        return metricsSink;
+    }
+
+    /**
+     * Sets the sink to receive measurements of the conversions made by this converter.
+     *
+     * @param metricsSink the metrics sink of the converter, or null for none.
+     */
+    public void setMetricsSink(TypeConversionMetricsSink metricsSink) {
+        this.metricsSink = metricsSink;
+    }
+
     protected void loadTypeConverters() {
         clear();
         loader.load(this);
     }
 
-    protected synchronized void checkLoaded() {
-        if (!isLoaded) {
-            loadTypeConverters();
-            isLoaded = true;
+    protected void checkLoaded() {
+        if (isLoaded) return;
+
+        synchronized (this) {
+            if (!isLoaded) {
+                loadTypeConverters();
+                isLoaded = true;
+            }
         }
     }
 
@@ -94,10 +119,142 @@ public class SystemTypeConverter extends AbstractTypeConverterRegistry implement
         //--------------------------------------------------------------------------------------------------------------
 //        Class<?> targetClass = targetType.isArray() ? Object[].class : targetType;    // GAW 2023-11-05 Why to Object[] ?!?
         Class<?> targetClass = targetType;
-        return lookup(value.getClass(), targetClass)
-                   .orElseThrow(() -> new UnsupportedTypeConversionException(format("Type converter from type \"%s\" to type \"%s\" not found",
-                                                                                    (value == null ? null : value.getClass().getName()), targetType.getName()))
-                   ).convert(value, targetType);
+        TypeConversionMetricsSink metricsSink = this.metricsSink;
+        if (metricsSink != null) return convertMeasured(value, targetType, targetClass, metricsSink);
+
+        TypeConverter converter = lookup(value.getClass(), targetClass).orElse(null);
+        if (converter == null) throw unsupportedConversion(value, targetType);
+
+        return converter.convert(value, targetType);
+    }
+
+    /**
+     * Converts a value to a primitive long. Where the converter resolved for the value's type returns a primitive long,
+     * as do those of numbers, strings and dates, neither the value converted nor any intermediate value is boxed.
+     *
+     * @param value the value to be converted, which may not be null.
+     * @return the primitive long value converted from the value.
+     * @exception UnsupportedTypeConversionException if no converter of the value to a long was found.
+     * @exception TypeConversionException if the value is null, or the converter of the value returned null.
+     */
+    public long convertToLong(Object value) throws UnsupportedTypeConversionException {
+        if (value instanceof Long) return (Long) value;
+
+        PrimitiveTypeConverter converter = primitiveConverter(value, long.class);
+        return converter != null ? converter.convertToLong(value) : requireConverted(value, convert(value, long.class), long.class);
+    }
+
+    /**
+     * Converts a value to a primitive integer. Where the converter resolved for the value's type returns a primitive
+     * integer, as do those of numbers and strings, neither the value converted nor any intermediate value is boxed.
+     *
+     * @param value the value to be converted, which may not be null.
+     * @return the primitive integer value converted from the value.
+     * @exception UnsupportedTypeConversionException if no converter of the value to an integer was found.
+     * @exception TypeConversionException if the value is null, or the converter of the value returned null.
+     */
+    public int convertToInt(Object value) throws UnsupportedTypeConversionException {
+        if (value instanceof Integer) return (Integer) value;
+
+        PrimitiveTypeConverter converter = primitiveConverter(value, int.class);
+        return converter != null ? converter.convertToInt(value) : requireConverted(value, convert(value, int.class), int.class);
+    }
+
+    /**
+     * Converts a value to a primitive double. Where the converter resolved for the value's type returns a primitive
+     * double, as do those of numbers and strings, neither the value converted nor any intermediate value is boxed.
+     *
+     * @param value the value to be converted, which may not be null.
+     * @return the primitive double value converted from the value.
+     * @exception UnsupportedTypeConversionException if no converter of the value to a double was found.
+     * @exception TypeConversionException if the value is null, or the converter of the value returned null.
+     */
+    public double convertToDouble(Object value) throws UnsupportedTypeConversionException {
+        if (value instanceof Double) return (Double) value;
+
+        PrimitiveTypeConverter converter = primitiveConverter(value, double.class);
+        return converter != null ? converter.convertToDouble(value) : requireConverted(value, convert(value, double.class), double.class);
+    }
+
+    /**
+     * Converts a value, such as a collection or an array of another primitive type, to an array of primitive longs.
+     *
+     * @param value the value to be converted, which may be null.
+     * @return the array of primitive longs converted from the value, or null if the value was null.
+     * @exception UnsupportedTypeConversionException if no converter of the value to a long array was found.
+     */
+    public long[] convertToLongArray(Object value) throws UnsupportedTypeConversionException {
+        return convert(value, long[].class);
+    }
+
+    /**
+     * Converts a value, such as a collection or an array of another primitive type, to an array of primitive integers.
+     *
+     * @param value the value to be converted, which may be null.
+     * @return the array of primitive integers converted from the value, or null if the value was null.
+     * @exception UnsupportedTypeConversionException if no converter of the value to an integer array was found.
+     */
+    public int[] convertToIntArray(Object value) throws UnsupportedTypeConversionException {
+        return convert(value, int[].class);
+    }
+
+    /**
+     * Converts a value, such as a collection or an array of another primitive type, to an array of primitive doubles.
+     *
+     * @param value the value to be converted, which may be null.
+     * @return the array of primitive doubles converted from the value, or null if the value was null.
+     * @exception UnsupportedTypeConversionException if no converter of the value to a double array was found.
+     */
+    public double[] convertToDoubleArray(Object value) throws UnsupportedTypeConversionException {
+        return convert(value, double[].class);
+    }
+
+    /**
+     * Returns the converter of a value to a primitive type, if the converter resolved may return the primitive unboxed.
+     * Measured conversions always take the boxed path, where they are reported to the metrics sink.
+     *
+     * @return the primitive converter of the value, or null if conversion should take the boxed path.
+     */
+    private PrimitiveTypeConverter primitiveConverter(Object value, Class<?> primitiveType) {
+        checkLoaded();
+        if (value == null) {
+            throw new TypeConversionException(format("Unable to convert null to primitive type \"%s\"", primitiveType.getName()));
+        }
+        if (metricsSink != null) return null;
+
+        TypeConverter converter = lookup(value.getClass(), primitiveType).orElse(null);
+        return converter instanceof PrimitiveTypeConverter ? (PrimitiveTypeConverter) converter : null;
+    }
+
+    private static <T> T requireConverted(Object value, T converted, Class<?> primitiveType) {
+        if (converted == null) {
+            throw new TypeConversionException(format("Type converter from type \"%s\" to primitive type \"%s\" returned null",
+                                                     value.getClass().getName(), primitiveType.getName()));
+        }
+        return converted;
+    }
+
+    private <T> T convertMeasured(Object value, Class<T> targetType, Class<?> targetClass, TypeConversionMetricsSink metricsSink) {
+        long startNanos = System.nanoTime();
+        TypeConverter converter = lookup(value.getClass(), targetClass).orElse(null);
+        if (converter == null) {
+            metricsSink.conversionUnsupported(value.getClass(), targetType);
+            throw unsupportedConversion(value, targetType);
+        }
+
+        try {
+            T converted = converter.convert(value, targetType);
+            metricsSink.converted(value.getClass(), targetType, System.nanoTime() - startNanos);
+            return converted;
+        } catch (RuntimeException ex) {
+            metricsSink.conversionFailed(value.getClass(), targetType, ex);
+            throw ex;
+        }
+    }
+
+    private static UnsupportedTypeConversionException unsupportedConversion(Object value, Class<?> targetType) {
+        return new UnsupportedTypeConversionException(format("Type converter from type \"%s\" to type \"%s\" not found",
+                                                             value.getClass().getName(), targetType.getName()));
     }
 
     public static void main(String... args) {
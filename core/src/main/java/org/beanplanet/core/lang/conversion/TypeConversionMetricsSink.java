@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.lang.conversion;
+
+/**
+ * Receives measurements of the conversions made by a {@link SystemTypeConverter}. Every method has an empty default, so
+ * sinks need only implement the measurements they are interested in. Methods are called on the threads converting
+ * values, so must be fast and thread-safe.
+ * <p>
+ * Only conversions made through a registered converter are measured: null values, and values already of the target
+ * type, are passed through unmeasured.
+ */
+public interface TypeConversionMetricsSink {
+    /**
+     * Called when a value has been converted.
+     *
+     * @param sourceType the type of the value converted.
+     * @param targetType the type to which the value was converted.
+     * @param elapsedNanos the time taken to find a converter and convert the value, in nanoseconds.
+     */
+    default void converted(Class<?> sourceType, Class<?> targetType, long elapsedNanos) {}
+
+    /**
+     * Called when no converter was found for a conversion.
+     *
+     * @param sourceType the type of the value to be converted.
+     * @param targetType the type to which the value was to be converted.
+     */
+    default void conversionUnsupported(Class<?> sourceType, Class<?> targetType) {}
+
+    /**
+     * Called when the converter found for a conversion failed to convert a value.
+     *
+     * @param sourceType the type of the value to be converted.
+     * @param targetType the type to which the value was to be converted.
+     * @param cause the reason the value could not be converted.
+     */
+    default void conversionFailed(Class<?> sourceType, Class<?> targetType, Throwable cause) {}
+}
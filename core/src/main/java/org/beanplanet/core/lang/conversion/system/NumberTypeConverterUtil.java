@@ -826,7 +826,7 @@ public class NumberTypeConverterUtil {
 
     @TypeConverter
     public static Long toLong(double value) {
-        return (long) (int) value;
+        return (long) value;
     }
 
     @TypeConverter
@@ -836,7 +836,7 @@ public class NumberTypeConverterUtil {
 
     @TypeConverter
     public static Long toLong(float value) {
-        return (long) (int) value;
+        return (long) value;
     }
 
     @TypeConverter
@@ -856,7 +856,7 @@ public class NumberTypeConverterUtil {
 
     @TypeConverter
     public static Long toLong(long value) {
-        return (long) (int) value;
+        return value;
     }
 
     @TypeConverter
@@ -1351,97 +1351,97 @@ public class NumberTypeConverterUtil {
 
     @TypeConverter
     public static double toPrimitiveDouble(BigDecimal value) {
-        return toDouble(value);
+        return value.doubleValue();
     }
 
     @TypeConverter
     public static double toPrimitiveDouble(BigInteger value) {
-        return toDouble(value);
+        return value.doubleValue();
     }
 
     @TypeConverter
     public static double toPrimitiveDouble(boolean value) {
-        return toDouble(value);
+        return value ? 1d : 0d;
     }
 
     @TypeConverter
     public static double toPrimitiveDouble(Boolean value) {
-        return toDouble(value);
+        return toPrimitiveDouble(value.booleanValue());
     }
 
     @TypeConverter
     public static double toPrimitiveDouble(byte value) {
-        return toDouble(value);
+        return (double) value;
     }
 
     @TypeConverter
     public static double toPrimitiveDouble(Byte value) {
-        return toDouble(value);
+        return value.doubleValue();
     }
 
     @TypeConverter
     public static double toPrimitiveDouble(char value) {
-        return toDouble(value);
+        return (double) value;
     }
 
     @TypeConverter
     public static double toPrimitiveDouble(Character value) {
-        return toDouble(value);
+        return toPrimitiveDouble(value.charValue());
     }
 
     @TypeConverter
     public static double toPrimitiveDouble(double value) {
-        return toDouble(value);
+        return value;
     }
 
     @TypeConverter
     public static double toPrimitiveDouble(Double value) {
-        return toDouble(value);
+        return value.doubleValue();
     }
 
     @TypeConverter
     public static double toPrimitiveDouble(float value) {
-        return toDouble(value);
+        return (double) value;
     }
 
     @TypeConverter
     public static double toPrimitiveDouble(Float value) {
-        return toDouble(value);
+        return value.doubleValue();
     }
 
     @TypeConverter
     public static double toPrimitiveDouble(int value) {
-        return toDouble(value);
+        return (double) value;
     }
 
     @TypeConverter
     public static double toPrimitiveDouble(Integer value) {
-        return toDouble(value);
+        return value.doubleValue();
     }
 
     @TypeConverter
     public static double toPrimitiveDouble(long value) {
-        return toDouble(value);
+        return (double) value;
     }
 
     @TypeConverter
     public static double toPrimitiveDouble(Long value) {
-        return toDouble(value);
+        return value.doubleValue();
     }
 
     @TypeConverter
     public static double toPrimitiveDouble(short value) {
-        return toDouble(value);
+        return (double) value;
     }
 
     @TypeConverter
     public static double toPrimitiveDouble(String value) {
-        return toDouble(value);
+        return Double.parseDouble(value);
     }
 
     @TypeConverter
     public static double toPrimitiveDouble(Short value) {
-        return toDouble(value);
+        return value.doubleValue();
     }
 
     @TypeConverter
@@ -1541,192 +1541,192 @@ public class NumberTypeConverterUtil {
 
     @TypeConverter
     public static int toPrimitiveInteger(BigDecimal value) {
-        return toInteger(value);
+        return value.intValue();
     }
 
     @TypeConverter
     public static int toPrimitiveInteger(BigInteger value) {
-        return toInteger(value);
+        return value.intValue();
     }
 
     @TypeConverter
     public static int toPrimitiveInteger(boolean value) {
-        return toInteger(value);
+        return value ? 1 : 0;
     }
 
     @TypeConverter
     public static int toPrimitiveInteger(Boolean value) {
-        return toInteger(value);
+        return toPrimitiveInteger(value.booleanValue());
     }
 
     @TypeConverter
     public static int toPrimitiveInteger(byte value) {
-        return toInteger(value);
+        return (int) value;
     }
 
     @TypeConverter
     public static int toPrimitiveInteger(Byte value) {
-        return toInteger(value);
+        return value.intValue();
     }
 
     @TypeConverter
     public static int toPrimitiveInteger(char value) {
-        return toInteger(value);
+        return (int) value;
     }
 
     @TypeConverter
     public static int toPrimitiveInteger(Character value) {
-        return toInteger(value);
+        return toPrimitiveInteger(value.charValue());
     }
 
     @TypeConverter
     public static int toPrimitiveInteger(double value) {
-        return toInteger(value);
+        return (int) value;
     }
 
     @TypeConverter
     public static int toPrimitiveInteger(Double value) {
-        return toInteger(value);
+        return value.intValue();
     }
 
     @TypeConverter
     public static int toPrimitiveInteger(float value) {
-        return toInteger(value);
+        return (int) value;
     }
 
     @TypeConverter
     public static int toPrimitiveInteger(Float value) {
-        return toInteger(value);
+        return value.intValue();
     }
 
     @TypeConverter
     public static int toPrimitiveInteger(int value) {
-        return toInteger(value);
+        return value;
     }
 
     @TypeConverter
     public static int toPrimitiveInteger(Integer value) {
-        return toInteger(value);
+        return value.intValue();
     }
 
     @TypeConverter
     public static int toPrimitiveInteger(long value) {
-        return toInteger(value);
+        return (int) value;
     }
 
     @TypeConverter
     public static int toPrimitiveInteger(Long value) {
-        return toInteger(value);
+        return value.intValue();
     }
 
     @TypeConverter
     public static int toPrimitiveInteger(String value) {
-        return toInteger(value);
+        return Integer.parseInt(value);
     }
 
     @TypeConverter
     public static int toPrimitiveInteger(short value) {
-        return toInteger(value);
+        return (int) value;
     }
 
     @TypeConverter
     public static int toPrimitiveInteger(Short value) {
-        return toInteger(value);
+        return value.intValue();
     }
 
     @TypeConverter
     public static long toPrimitiveLong(BigDecimal value) {
-        return toLong(value);
+        return value.longValue();
     }
 
     @TypeConverter
     public static long toPrimitiveLong(BigInteger value) {
-        return toLong(value);
+        return value.longValue();
     }
 
     @TypeConverter
     public static long toPrimitiveLong(boolean value) {
-        return toLong(value);
+        return value ? 1L : 0L;
     }
 
     @TypeConverter
     public static long toPrimitiveLong(Boolean value) {
-        return toLong(value);
+        return toPrimitiveLong(value.booleanValue());
     }
 
     @TypeConverter
     public static long toPrimitiveLong(byte value) {
-        return toLong(value);
+        return (long) value;
     }
 
     @TypeConverter
     public static long toPrimitiveLong(Byte value) {
-        return toLong(value);
+        return value.longValue();
     }
 
     @TypeConverter
     public static long toPrimitiveLong(char value) {
-        return toLong(value);
+        return (long) value;
     }
 
     @TypeConverter
     public static long toPrimitiveLong(Character value) {
-        return toLong(value);
+        return toPrimitiveLong(value.charValue());
     }
 
     @TypeConverter
     public static long toPrimitiveLong(double value) {
-        return toLong(value);
+        return (long) value;
     }
 
     @TypeConverter
     public static long toPrimitiveLong(Double value) {
-        return toLong(value);
+        return value.longValue();
     }
 
     @TypeConverter
     public static long toPrimitiveLong(float value) {
-        return toLong(value);
+        return (long) value;
     }
 
     @TypeConverter
     public static long toPrimitiveLong(Float value) {
-        return toLong(value);
+        return value.longValue();
     }
 
     @TypeConverter
     public static long toPrimitiveLong(int value) {
-        return toLong(value);
+        return (long) value;
     }
 
     @TypeConverter
     public static long toPrimitiveLong(Integer value) {
-        return toLong(value);
+        return value.longValue();
     }
 
     @TypeConverter
     public static long toPrimitiveLong(long value) {
-        return toLong(value);
+        return value;
     }
 
     @TypeConverter
     public static long toPrimitiveLong(Long value) {
-        return toLong(value);
+        return value.longValue();
     }
 
     @TypeConverter
     public static long toPrimitiveLong(short value) {
-        return toLong(value);
+        return (long) value;
     }
 
     @TypeConverter
     public static long toPrimitiveLong(String value) {
-        return toLong(value);
+        return Long.parseLong(value);
     }
 
     @TypeConverter
     public static long toPrimitiveLong(Short value) {
-        return toLong(value);
+        return value.longValue();
     }
 
     @TypeConverter
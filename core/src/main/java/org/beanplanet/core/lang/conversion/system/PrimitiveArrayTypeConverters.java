@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.lang.conversion.system;
+
+import org.beanplanet.core.lang.conversion.annotations.TypeConverter;
+
+/**
+ * Conversions between arrays of the primitive numeric types (e.g. int[] <-> long[]), copying the elements
+ * without boxing them.
+ */
+@TypeConverter
+public final class PrimitiveArrayTypeConverters {
+    /**
+     * Converts a primitive long array to a primitive int array.
+     *
+     * @param value the array to be converted.
+     * @return an array of primitive integers containing the elements of the source array, narrowed as by a cast,
+     *         or null if the array provided was null.
+     */
+    @TypeConverter
+    public static int[] toIntArray(long[] value) {
+        if (value == null) return null;
+
+        int[] result = new int[value.length];
+        for (int n=0; n < value.length; n++) {
+            result[n] = (int) value[n];
+        }
+
+        return result;
+    }
+
+    /**
+     * Converts a primitive float array to a primitive int array.
+     *
+     * @param value the array to be converted.
+     * @return an array of primitive integers containing the elements of the source array, narrowed as by a cast,
+     *         or null if the array provided was null.
+     */
+    @TypeConverter
+    public static int[] toIntArray(float[] value) {
+        if (value == null) return null;
+
+        int[] result = new int[value.length];
+        for (int n=0; n < value.length; n++) {
+            result[n] = (int) value[n];
+        }
+
+        return result;
+    }
+
+    /**
+     * Converts a primitive double array to a primitive int array.
+     *
+     * @param value the array to be converted.
+     * @return an array of primitive integers containing the elements of the source array, narrowed as by a cast,
+     *         or null if the array provided was null.
+     */
+    @TypeConverter
+    public static int[] toIntArray(double[] value) {
+        if (value == null) return null;
+
+        int[] result = new int[value.length];
+        for (int n=0; n < value.length; n++) {
+            result[n] = (int) value[n];
+        }
+
+        return result;
+    }
+
+    /**
+     * Converts a primitive int array to a primitive long array.
+     *
+     * @param value the array to be converted.
+     * @return an array of primitive longs containing the elements of the source array, widened,
+     *         or null if the array provided was null.
+     */
+    @TypeConverter
+    public static long[] toLongArray(int[] value) {
+        if (value == null) return null;
+
+        long[] result = new long[value.length];
+        for (int n=0; n < value.length; n++) {
+            result[n] = value[n];
+        }
+
+        return result;
+    }
+
+    /**
+     * Converts a primitive float array to a primitive long array.
+     *
+     * @param value the array to be converted.
+     * @return an array of primitive longs containing the elements of the source array, narrowed as by a cast,
+     *         or null if the array provided was null.
+     */
+    @TypeConverter
+    public static long[] toLongArray(float[] value) {
+        if (value == null) return null;
+
+        long[] result = new long[value.length];
+        for (int n=0; n < value.length; n++) {
+            result[n] = (long) value[n];
+        }
+
+        return result;
+    }
+
+    /**
+     * Converts a primitive double array to a primitive long array.
+     *
+     * @param value the array to be converted.
+     * @return an array of primitive longs containing the elements of the source array, narrowed as by a cast,
+     *         or null if the array provided was null.
+     */
+    @TypeConverter
+    public static long[] toLongArray(double[] value) {
+        if (value == null) return null;
+
+        long[] result = new long[value.length];
+        for (int n=0; n < value.length; n++) {
+            result[n] = (long) value[n];
+        }
+
+        return result;
+    }
+
+    /**
+     * Converts a primitive int array to a primitive float array.
+     *
+     * @param value the array to be converted.
+     * @return an array of primitive floats containing the elements of the source array, widened,
+     *         or null if the array provided was null.
+     */
+    @TypeConverter
+    public static float[] toFloatArray(int[] value) {
+        if (value == null) return null;
+
+        float[] result = new float[value.length];
+        for (int n=0; n < value.length; n++) {
+            result[n] = value[n];
+        }
+
+        return result;
+    }
+
+    /**
+     * Converts a primitive long array to a primitive float array.
+     *
+     * @param value the array to be converted.
+     * @return an array of primitive floats containing the elements of the source array, widened,
+     *         or null if the array provided was null.
+     */
+    @TypeConverter
+    public static float[] toFloatArray(long[] value) {
+        if (value == null) return null;
+
+        float[] result = new float[value.length];
+        for (int n=0; n < value.length; n++) {
+            result[n] = value[n];
+        }
+
+        return result;
+    }
+
+    /**
+     * Converts a primitive double array to a primitive float array.
+     *
+     * @param value the array to be converted.
+     * @return an array of primitive floats containing the elements of the source array, narrowed as by a cast,
+     *         or null if the array provided was null.
+     */
+    @TypeConverter
+    public static float[] toFloatArray(double[] value) {
+        if (value == null) return null;
+
+        float[] result = new float[value.length];
+        for (int n=0; n < value.length; n++) {
+            result[n] = (float) value[n];
+        }
+
+        return result;
+    }
+
+    /**
+     * Converts a primitive int array to a primitive double array.
+     *
+     * @param value the array to be converted.
+     * @return an array of primitive doubles containing the elements of the source array, widened,
+     *         or null if the array provided was null.
+     */
+    @TypeConverter
+    public static double[] toDoubleArray(int[] value) {
+        if (value == null) return null;
+
+        double[] result = new double[value.length];
+        for (int n=0; n < value.length; n++) {
+            result[n] = value[n];
+        }
+
+        return result;
+    }
+
+    /**
+     * Converts a primitive long array to a primitive double array.
+     *
+     * @param value the array to be converted.
+     * @return an array of primitive doubles containing the elements of the source array, widened,
+     *         or null if the array provided was null.
+     */
+    @TypeConverter
+    public static double[] toDoubleArray(long[] value) {
+        if (value == null) return null;
+
+        double[] result = new double[value.length];
+        for (int n=0; n < value.length; n++) {
+            result[n] = value[n];
+        }
+
+        return result;
+    }
+
+    /**
+     * Converts a primitive float array to a primitive double array.
+     *
+     * @param value the array to be converted.
+     * @return an array of primitive doubles containing the elements of the source array, widened,
+     *         or null if the array provided was null.
+     */
+    @TypeConverter
+    public static double[] toDoubleArray(float[] value) {
+        if (value == null) return null;
+
+        double[] result = new double[value.length];
+        for (int n=0; n < value.length; n++) {
+            result[n] = value[n];
+        }
+
+        return result;
+    }
+}
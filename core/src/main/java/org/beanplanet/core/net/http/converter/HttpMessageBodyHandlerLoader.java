@@ -18,6 +18,7 @@ package org.beanplanet.core.net.http.converter;
 
 import org.beanplanet.core.io.IoException;
 import org.beanplanet.core.io.IoUtil;
+import org.beanplanet.core.lang.ClassFileSummary;
 import org.beanplanet.core.lang.FilteringPackageClassScanner;
 import org.beanplanet.core.lang.PackageResourceScanner;
 import org.beanplanet.core.lang.TypeUtil;
@@ -45,7 +46,8 @@ public class HttpMessageBodyHandlerLoader implements RegistryLoader<Registry<Med
 
     protected static final Predicate<Class<?>> HANDLER_ANNOTATED_TYPE_FILTER = type -> type.isAnnotationPresent(HttpMessageBodyConverter.class);
 
-    protected PackageResourceScanner<Class<?>> packageScanner = new FilteringPackageClassScanner(HANDLER_ANNOTATED_TYPE_FILTER);
+    protected PackageResourceScanner<Class<?>> packageScanner = new FilteringPackageClassScanner(HANDLER_ANNOTATED_TYPE_FILTER,
+                                                                                                 ClassFileSummary.withAnnotation(HttpMessageBodyConverter.class));
 
     @SuppressWarnings("unchecked")
     @Override
@@ -13,14 +13,24 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
+
 package org.beanplanet.core.pool;
 
 import org.beanplanet.core.models.lifecycle.StartupShutdownLifecycle;
 import org.beanplanet.core.util.SizeUtil;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
-
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.beanplanet.core.pool.PoolEntry.*;
 import static org.beanplanet.core.pool.ResourcePoolEvent.PoolEventType.ITEM_LOANED;
 import static org.beanplanet.core.pool.ResourcePoolEvent.PoolEventType.ITEM_RETURNED;
 
@@ -31,22 +41,91 @@ import static org.beanplanet.core.pool.ResourcePoolEvent.PoolEventType.ITEM_RETU
  * Provides an abstract pool of arbitrary object types, where implementing classes provide the mechanism for creating
  * specific object types for the pool.
  * </p>
+ *
+ * <p>
+ * Loaning and returning items takes no locks. Each pooled item has an atomic state through which borrowers claim it,
+ * trying first the items most recently returned by their own thread, then any available item in the pool, then
+ * creating a new item if the pool may grow. Borrowers who still find nothing wait in a fair queue, to which returned
+ * items are handed directly while anyone is waiting.
+ * </p>
+ *
+ * <p>
+ * Once started, the pool runs housekeeping on its own maintenance thread: available items are validated in the
+ * background, items idle for longer than the maximum idle time (beyond the minimum available) or older than the maximum
+ * lifetime are destroyed, and the number of available items is topped up to the minimum. Items a waiting borrower
+ * needs are also created on the maintenance thread, so borrowers only ever take an item that is ready to use.
+ * </p>
  * 
  * @author Gary Watson
  * @since 1999
  */
 public class ManagedResourcePool<E> extends ManagedResourcePoolBase<E> implements StartupShutdownLifecycle {
+   /** The maximum number of recently returned items each thread remembers, to try first on its next loan. */
+   private static final int MAXIMUM_THREAD_ENTRIES = 16;
+
+   /** How long a returning thread parks between attempts to hand its item to a waiting borrower. */
+   private static final long HANDOFF_PARK_NANOS = MICROSECONDS.toNanos(10);
+
    private String name;
 
    /**
-    * List of items in the pool that are not on loan to clients. A [doubly] linked list is used to ensure a round-robin
-    * loaning strategy.
+    * The available items of the pool, no longer maintained: the pool tracks the state of each item itself.
+    *
+    * @deprecated always empty; use {@link #getNumberOfAvailableItems()}.
     */
+   @Deprecated
    protected LinkedList<E> availableItems = new LinkedList<E>();
 
-   /** List of items in the pool that are on loan to clients. */
+   /**
+    * The loaned items of the pool and their loan times, no longer maintained: the pool tracks the state of each item
+    * itself.
+    *
+    * @deprecated always empty; use {@link #getNumberOfLoanedItems()}.
+    */
+   @Deprecated
    protected HashMap<E, Long> loanedItems = new HashMap<E, Long>();
 
+   /** All items in the pool, loaned or available, in the order they were created. */
+   private final CopyOnWriteArrayList<PoolEntry<E>> entries = new CopyOnWriteArrayList<>();
+
+   /** The entries of the pool, by the items they hold. */
+   private final ConcurrentHashMap<E, PoolEntry<E>> entriesByItem = new ConcurrentHashMap<>();
+
+   /** The entries most recently returned by each thread. */
+   private final ThreadLocal<List<WeakReference<PoolEntry<E>>>> threadEntries = ThreadLocal.withInitial(() -> new ArrayList<>(MAXIMUM_THREAD_ENTRIES));
+
+   /** Hands returned items directly to waiting borrowers, in the order they started waiting. */
+   private final SynchronousQueue<PoolEntry<E>> handoffQueue = new SynchronousQueue<>(true);
+
+   /** The number of borrowers waiting for an item to be returned. */
+   private final AtomicInteger waiters = new AtomicInteger();
+
+   /** The number of items in the pool plus those being created, which may not exceed the maximum total size. */
+   private final AtomicInteger reservedSize = new AtomicInteger();
+
+   /** The number of items requested for waiting borrowers and not yet created. */
+   private final AtomicInteger pendingCreations = new AtomicInteger();
+
+   private final LongSupplier nanoTimeSource;
+
+   /** Runs housekeeping and creates items for waiting borrowers, while the pool is started. */
+   private volatile ScheduledExecutorService maintenanceExecutor;
+
+   /** The interval between runs of pool housekeeping, in milliseconds. */
+   private long housekeepingIntervalMillis = 30000;
+
+   /** The time after which an available item beyond the minimum available is destroyed, in milliseconds, or 0 for never. */
+   private long maximumIdleMillis;
+
+   /** The time after which an item is destroyed, once available, in milliseconds, or 0 for never. */
+   private long maximumLifetimeMillis;
+
+   /** Whether items are validated as they are loaned, in addition to in the background. */
+   private boolean validateOnLoan = true;
+
+   /** Receives measurements of pool activity, if set. */
+   private volatile ResourcePoolMetricsSink metricsSink;
+
    /** The maximum number of items in the pool. */
    private Integer maximumTotalSize;
 
@@ -66,11 +145,17 @@ public class ManagedResourcePool<E> extends ManagedResourcePoolBase<E> implement
     */
    private Integer maximumClientWaitMillis;
 
+
    /**
     * Creates a named pool with a minimal configuration.
     */
    public ManagedResourcePool(PooledResourceManager<E> pooledResourceManager) {
+      this(pooledResourceManager, System::nanoTime);
+   }
+
+   ManagedResourcePool(PooledResourceManager<E> pooledResourceManager, LongSupplier nanoTimeSource) {
       super(pooledResourceManager);
+      this.nanoTimeSource = nanoTimeSource;
    }
 
    /**
@@ -132,19 +217,131 @@ public class ManagedResourcePool<E> extends ManagedResourcePoolBase<E> implement
       this.maximumTotalSize = maximumTotalSize;
    }
 
-   public void startup() throws Exception {
+   /**
+    * Returns the interval between runs of pool housekeeping, once the pool is started.
+    *
+    * @return the housekeeping interval, in milliseconds.
+    */
+   public long getHousekeepingIntervalMillis() {
+      return housekeepingIntervalMillis;
+   }
+
+   /**
+    * Sets the interval between runs of pool housekeeping, once the pool is started.
+    *
+    * @param housekeepingIntervalMillis the housekeeping interval, in milliseconds.
+    */
+   public void setHousekeepingIntervalMillis(long housekeepingIntervalMillis) {
+      this.housekeepingIntervalMillis = housekeepingIntervalMillis;
+   }
+
+   /**
+    * Returns the time after which an available item is destroyed by housekeeping, provided the minimum number of
+    * available items remain.
+    *
+    * @return the maximum idle time of an item, in milliseconds, or 0 if items may idle indefinitely.
+    */
+   public long getMaximumIdleMillis() {
+      return maximumIdleMillis;
+   }
+
+   /**
+    * Sets the time after which an available item is destroyed by housekeeping, provided the minimum number of
+    * available items remain.
+    *
+    * @param maximumIdleMillis the maximum idle time of an item, in milliseconds, or 0 if items may idle indefinitely.
+    */
+   public void setMaximumIdleMillis(long maximumIdleMillis) {
+      this.maximumIdleMillis = maximumIdleMillis;
+   }
+
+   /**
+    * Returns the time after which an item is destroyed, by housekeeping or when it is returned.
+    *
+    * @return the maximum lifetime of an item, in milliseconds, or 0 if items may live indefinitely.
+    */
+   public long getMaximumLifetimeMillis() {
+      return maximumLifetimeMillis;
+   }
+
+   /**
+    * Sets the time after which an item is destroyed, by housekeeping or when it is returned.
+    *
+    * @param maximumLifetimeMillis the maximum lifetime of an item, in milliseconds, or 0 if items may live
+    *        indefinitely.
+    */
+   public void setMaximumLifetimeMillis(long maximumLifetimeMillis) {
+      this.maximumLifetimeMillis = maximumLifetimeMillis;
+   }
+
+   /**
+    * Returns whether items are validated as they are loaned, in addition to by housekeeping.
+    *
+    * @return true if items are validated on loan, false if validation is left to housekeeping.
+    */
+   public boolean isValidateOnLoan() {
+      return validateOnLoan;
+   }
+
+   /**
+    * Sets whether items are validated as they are loaned, in addition to by housekeeping. Disabling validation on loan
+    * removes its latency from borrowers, at the risk of loaning an item invalidated since it was last housekept.
+    *
+    * @param validateOnLoan true if items are validated on loan, false if validation is left to housekeeping.
+    */
+   public void setValidateOnLoan(boolean validateOnLoan) {
+      this.validateOnLoan = validateOnLoan;
+   }
+
+   /**
+    * Returns the sink receiving measurements of the activity of this pool.
+    *
+    * @return the metrics sink of the pool, or null if none is set.
+    */
+   public ResourcePoolMetricsSink getMetricsSink() {
+      return metricsSink;
+   }
+
+   /**
+    * Sets the sink to receive measurements of the activity of this pool, such as a {@link ResourcePoolMetrics}.
+    *
+    * @param metricsSink the metrics sink of the pool, or null for none.
+    */
+   public void setMetricsSink(ResourcePoolMetricsSink metricsSink) {
+      this.metricsSink = metricsSink;
+   }
+
+   /**
+    * Starts the pool, creating its initial items and starting its maintenance thread. Has no effect if the pool is
+    * already started.
+    */
+   public synchronized void startup() throws Exception {
+      if (maintenanceExecutor != null) return;
+
       debug("Starting up ...");
       reset();
+
+      ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+         Thread thread = new Thread(runnable, "beanplanet-pool-maintenance-" + getName());
+         thread.setDaemon(true); // Allow for unexpected DIRECT shutdown of the VM
+         return thread;
+      });
+      executor.scheduleWithFixedDelay(this::housekeepSafely, housekeepingIntervalMillis, housekeepingIntervalMillis, TimeUnit.MILLISECONDS);
+      maintenanceExecutor = executor;
       debug("Startup complete");
    }
 
    /**
     * Shuts down the pool gracefully.
     */
-   public void shutdown() {
+   public synchronized void shutdown() {
       debug("Shutting down ...");
 
-      // removeHousekeepers();
+      ScheduledExecutorService executor = maintenanceExecutor;
+      maintenanceExecutor = null;
+      if (executor != null) {
+         executor.shutdownNow();
+      }
       clear();
       debug("Shutdown complete");
    }
@@ -178,7 +375,7 @@ public class ManagedResourcePool<E> extends ManagedResourcePoolBase<E> implement
     *         forever.
     */
    public int getMaximumClientWaitMillis() {
-      return maximumClientWaitMillis;
+      return maximumClientWaitMillis == null ? -1 : maximumClientWaitMillis;
    }
 
    /**
@@ -211,17 +408,20 @@ public class ManagedResourcePool<E> extends ManagedResourcePoolBase<E> implement
    }
 
    private void checkMinimumAvailableResources() {
-      for (int n = 0; n < minimumAvailableResources; n++) {
+      int minimumAvailable = minimumAvailableResources == null ? 0 : minimumAvailableResources;
+      for (int n = 0; n < minimumAvailable && reserve(); n++) {
          try {
-            availableItems.add(createNewItem());
+            addEntry(createNewItem(), STATE_AVAILABLE);
          } catch (Exception e) {
+            reservedSize.decrementAndGet();
+            itemCreationFailed(e);
             // Don't worry if we can't make the initial object at this time.
             // Perhaps now is a bad time. Clients requesting objects from the
             // pool later
             // will cause a new one to be made.
             //
             // However, this could be catastrophic so log it.
-            error("Unable to create initial item: ", e);
+            error(e, "Unable to create initial item: ");
          }
       }
    }
@@ -236,7 +436,7 @@ public class ManagedResourcePool<E> extends ManagedResourcePoolBase<E> implement
     * @return the current totals number of items in the pool - loaned or free.
     */
    public int size() {
-      return getNumberOfLoanedItems() + getNumberOfAvailableItems();
+      return entries.size();
    }
 
    /**
@@ -245,7 +445,7 @@ public class ManagedResourcePool<E> extends ManagedResourcePoolBase<E> implement
     * @return the number of loaned items.
     */
    public int getNumberOfLoanedItems() {
-      return loanedItems.size();
+      return countEntriesInState(STATE_LOANED);
    }
 
    /**
@@ -254,7 +454,24 @@ public class ManagedResourcePool<E> extends ManagedResourcePoolBase<E> implement
     * @return the number of free items.
     */
    public int getNumberOfAvailableItems() {
-      return availableItems.size();
+      return countEntriesInState(STATE_AVAILABLE);
+   }
+
+   /**
+    * Returns the number of borrowers currently waiting for an item to become available.
+    *
+    * @return the number of waiting borrowers.
+    */
+   public int getNumberOfWaitingBorrowers() {
+      return waiters.get();
+   }
+
+   private int countEntriesInState(int state) {
+      int count = 0;
+      for (PoolEntry<E> entry : entries) {
+         if (entry.getState() == state) count++;
+      }
+      return count;
    }
 
    /**
@@ -265,88 +482,228 @@ public class ManagedResourcePool<E> extends ManagedResourcePoolBase<E> implement
     * @see #returnItem(Object)
     * @exception ResourcePoolException thrown if, for any reason, a new poolable object could not be created.
     */
-   public synchronized E loanItem() throws ResourcePoolException {
-      debug("loanItem started [pool=" + getName() + ", report=" + getReport() + "]");
-
+   public E loanItem() throws ResourcePoolException {
       try {
-         // Log time to get a connection using superclass
-         // (PerformanceMonitoringAuditedResourceImpl) methods
-         long startTime = System.currentTimeMillis();
+         long startNanos = nanoTimeSource.getAsLong();
+         PoolEntry<E> entry = borrow();
+         entry.loanedAtNanos = nanoTimeSource.getAsLong();
+         ResourcePoolMetricsSink metricsSink = this.metricsSink;
+         if (metricsSink != null) {
+            metricsSink.itemLoaned(entry.loanedAtNanos - startNanos);
+         }
+         fireResourcePoolEvent(new ResourcePoolEvent<E>(ITEM_LOANED, this, entry.item));
 
-         E item = getExistingOrNewValidItem();
-         long remaining = maximumClientWaitMillis;
+         return entry.item;
+      } catch (Throwable th) {
+         throw new ResourcePoolException(getName() + " pool: error loaning pooled resource: ", th);
+      }
+   }
 
-         while (item == null) {
-            try {
-               if (maximumClientWaitMillis < 0) {
-                  wait(); // Wait until one becomes available
-               }
-               else {
-                  wait(remaining); // Wait remaining time or until available
+   /**
+    * Claims a valid item for a borrower, waiting for one to be returned if none is available and the pool may not grow.
+    *
+    * @return the entry of the valid item claimed.
+    * @exception Exception thrown if the wait timed out or was interrupted, or a new poolable object could not be created.
+    */
+   private PoolEntry<E> borrow() throws Exception {
+      long startNanos = nanoTimeSource.getAsLong();
+      PoolEntry<E> entry = claimThreadEntry();
+      if (entry == null) {
+         entry = claimAvailableEntry();
+      }
+      if (entry == null && maintenanceExecutor == null) {
+         entry = createEntry(STATE_LOANED);
+      }
+      if (entry != null) return entry;
+
+      int maximumWaitMillis = getMaximumClientWaitMillis();
+      waiters.incrementAndGet();
+      try {
+         while (true) {
+            // Look again now we are counted as a waiter, as returners do not hand off items to borrowers they cannot see
+            entry = claimAvailableEntry();
+            if (entry == null) {
+               ScheduledExecutorService executor = maintenanceExecutor;
+               if (executor == null) {
+                  entry = createEntry(STATE_LOANED);
+               } else {
+                  requestNewItems(executor);
                }
-            } catch (InterruptedException e) {
             }
-
-            if (maximumClientWaitMillis >= 0) {
-               remaining = maximumClientWaitMillis - (System.currentTimeMillis() - startTime);
-               if (remaining <= 0) {
+            if (entry != null) return entry;
+
+            PoolEntry<E> handedOff;
+            if (maximumWaitMillis < 0) {
+               handedOff = handoffQueue.take();
+            } else {
+               long remainingNanos = MILLISECONDS.toNanos(maximumWaitMillis) - (nanoTimeSource.getAsLong() - startNanos);
+               handedOff = remainingNanos > 0 ? handoffQueue.poll(remainingNanos, NANOSECONDS) : null;
+               if (handedOff == null) {
                   String errorMessage = "Pool client timed out waiting on pooled resource for longer than "
-                                        + maximumClientWaitMillis + " ms ("
-                                        + SizeUtil.getElapsedTimeSpecificationDescription(maximumClientWaitMillis)
+                                        + maximumWaitMillis + " ms ("
+                                        + SizeUtil.getElapsedTimeSpecificationDescription(maximumWaitMillis)
                                         + ")";
+                  ResourcePoolMetricsSink metricsSink = this.metricsSink;
+                  if (metricsSink != null) {
+                     metricsSink.loanTimedOut(nanoTimeSource.getAsLong() - startNanos);
+                  }
                   throw new ResourcePoolException(errorMessage);
                }
             }
 
-            item = getExistingOrNewValidItem();
+            // Another borrower may have claimed the item while it was being handed off
+            if (claim(handedOff)) return handedOff;
          }
+      } catch (InterruptedException interruptedEx) {
+         Thread.currentThread().interrupt();
+         throw interruptedEx;
+      } finally {
+         waiters.decrementAndGet();
+      }
+   }
 
-         loanedItems.put(item, new Long(System.currentTimeMillis()));
-         fireResourcePoolEvent(new ResourcePoolEvent<E>(ITEM_LOANED, this, item));
+   private PoolEntry<E> claimThreadEntry() {
+      List<WeakReference<PoolEntry<E>>> recentEntries = threadEntries.get();
+      for (int n = recentEntries.size() - 1; n >= 0; n--) {
+         PoolEntry<E> entry = recentEntries.remove(n).get();
+         if (entry != null && claim(entry)) return entry;
+      }
+      return null;
+   }
 
-         return item;
-      } catch (Throwable th) {
-         throw new ResourcePoolException(getName() + " pool: error loaning pooled resource: ", th);
-      } finally {
-         debug("loanItem ended [pool=" + getName() + ", report=" + getReport() + "]");
+   private PoolEntry<E> claimAvailableEntry() {
+      for (PoolEntry<E> entry : entries) {
+         if (entry.getState() == STATE_AVAILABLE && claim(entry)) return entry;
       }
+      return null;
    }
 
    /**
-    * Loans an item from the pool. This method attempts to use an existing item from the free pool. If no free items
-    * exist, either a new one is created, if configured, or no item is returned.
-    * 
-    * @return a pooled item known to be valid at this instant, or null if all items are loaned and no further expansion
-    *         of the pool is allowed.
+    * Creates a new valid item, if the pool may grow.
+    *
+    * @param state the state of the entry of the new item.
+    * @return the entry of the valid item created, or null if no further expansion of the pool is allowed or all
+    *         attempts created invalid items.
     * @exception Exception thrown if, for any reason, a new poolable object could not be created.
     */
-   private E getExistingOrNewValidItem() throws Exception {
-      E item = null;
-      int maximumNewTriesCount = 0;
-
-      while (item == null && maximumNewTriesCount < getMaximumNumberOfNewItemCreationTriesBeforeFailure()) {
-         if (availableItems.size() > 0) {
-            // Pick the first Object in the list
-            // using our round-robin strategy.
-            item = availableItems.getFirst();
-            availableItems.removeFirst();
-         }
-         else if (loanedItems.size() < maximumTotalSize) {
-            maximumNewTriesCount++;
+   private PoolEntry<E> createEntry(int state) throws Exception {
+      for (int tries = 0; tries < getMaximumNumberOfNewItemCreationTriesBeforeFailure() && reserve(); tries++) {
+         E item;
+         try {
             item = createNewItem();
+         } catch (Exception ex) {
+            reservedSize.decrementAndGet();
+            itemCreationFailed(ex);
+            throw ex;
          }
-         else {
-            // Unable to loan existing item or create a new one due to the
-            // current pool configuration
-            break;
+
+         PoolEntry<E> entry = addEntry(item, state);
+         if (isItemValid(item)) return entry;
+
+         removeEntry(entry);
+      }
+
+      return null;
+   }
+
+   /**
+    * Requests new items be created on the maintenance thread, for borrowers waiting without one already requested.
+    *
+    * @param executor the maintenance executor of the pool.
+    */
+   private void requestNewItems(ScheduledExecutorService executor) {
+      while (pendingCreations.get() < waiters.get() && reservedSize.get() + pendingCreations.get() < getMaximumSize()) {
+         pendingCreations.incrementAndGet();
+         try {
+            executor.execute(this::addNewItem);
+         } catch (RejectedExecutionException rejectedEx) {
+            // The pool is shutting down
+            pendingCreations.decrementAndGet();
+            return;
          }
+      }
+   }
 
-         if (!isItemValid(item)) {
-            item = null;
+   private void addNewItem() {
+      try {
+         PoolEntry<E> entry = createEntry(STATE_RESERVED);
+         if (entry != null) {
+            makeAvailable(entry);
          }
+      } catch (Exception ex) {
+         error(ex, "Unable to create pooled resource [pool=" + getName() + "]");
+      } finally {
+         pendingCreations.decrementAndGet();
       }
+   }
+
+   /**
+    * Claims an available item, removing it from the pool if it is no longer valid.
+    *
+    * @param entry the entry of the item to be claimed.
+    * @return true if the item was claimed and is valid, false otherwise.
+    */
+   private boolean claim(PoolEntry<E> entry) {
+      if (!entry.compareAndSetState(STATE_AVAILABLE, STATE_LOANED)) return false;
+      if (!validateOnLoan || isItemValid(entry.item)) return true;
 
-      return item;
+      removeEntry(entry);
+      return false;
+   }
+
+   /**
+    * Reserves room in the pool for a new item, if it has not reached its maximum total size.
+    *
+    * @return true if room was reserved, false if the pool is full.
+    */
+   private boolean reserve() {
+      int maximumSize = getMaximumSize();
+      for (int size = reservedSize.get(); size < maximumSize; size = reservedSize.get()) {
+         if (reservedSize.compareAndSet(size, size + 1)) return true;
+      }
+      return false;
+   }
+
+   private void itemCreationFailed(Throwable cause) {
+      ResourcePoolMetricsSink metricsSink = this.metricsSink;
+      if (metricsSink != null) {
+         metricsSink.itemCreationFailed(cause);
+      }
+   }
+
+   private int getMaximumSize() {
+      return maximumTotalSize == null ? Integer.MAX_VALUE : maximumTotalSize;
+   }
+
+   private PoolEntry<E> addEntry(E item, int state) {
+      PoolEntry<E> entry = new PoolEntry<>(item, state, nanoTimeSource.getAsLong());
+      entriesByItem.put(item, entry);
+      entries.add(entry);
+      return entry;
+   }
+
+   /**
+    * Removes a claimed entry from the pool and disposes of its item, requesting a replacement for any waiting borrowers
+    * once the pool is started.
+    *
+    * @param entry the entry to be removed.
+    */
+   private void removeEntry(PoolEntry<E> entry) {
+      entry.setState(STATE_REMOVED);
+      entries.remove(entry);
+      entriesByItem.remove(entry.item, entry);
+      reservedSize.decrementAndGet();
+      try {
+         expireItem(entry.item);
+      } catch (RuntimeException ex) {
+         warning("Unable to dispose of pooled resource [" + entry.item + "]: " + ex);
+      }
+
+      // Replace the item for anyone waiting, now there is room
+      ScheduledExecutorService executor = maintenanceExecutor;
+      if (executor != null) {
+         requestNewItems(executor);
+      }
    }
 
    /**
@@ -356,21 +713,108 @@ public class ManagedResourcePool<E> extends ManagedResourcePoolBase<E> implement
     * @param item the object to return.
     * @see #loanItem()
     */
-   public synchronized boolean returnItem(E item) {
-      debug("returnItem started [pool=" + getName() + ", report=" + getReport() + "]");
-      boolean originatedFromPool = loanedItems.containsKey(item);
-      if (originatedFromPool) {
-         loanedItems.remove(item);
-
-         //
-         // Put the connection back at the end of our list for a
-         // round-robin connection pooling strategy.
-         availableItems.add(item);
-         fireResourcePoolEvent(new ResourcePoolEvent<E>(ITEM_RETURNED, this, item));
-         notifyAll();
+   public boolean returnItem(E item) {
+      PoolEntry<E> entry = entriesByItem.get(item);
+      // Reserve the item while it is returned, so only one of any concurrent returns of it succeeds
+      if (entry == null || !entry.compareAndSetState(STATE_LOANED, STATE_RESERVED)) return false;
+
+      fireResourcePoolEvent(new ResourcePoolEvent<E>(ITEM_RETURNED, this, item));
+      long nowNanos = nanoTimeSource.getAsLong();
+      ResourcePoolMetricsSink metricsSink = this.metricsSink;
+      if (metricsSink != null) {
+         metricsSink.itemReturned(nowNanos - entry.loanedAtNanos);
+      }
+      if (isPastLifetime(entry, nowNanos)) {
+         removeEntry(entry);
+         return true;
+      }
+
+      entry.lastReturnedNanos = nowNanos;
+      entry.setState(STATE_AVAILABLE);
+      if (handOff(entry)) return true;
+
+      List<WeakReference<PoolEntry<E>>> recentEntries = threadEntries.get();
+      if (recentEntries.size() == MAXIMUM_THREAD_ENTRIES) {
+         recentEntries.remove(0);
+      }
+      recentEntries.add(new WeakReference<>(entry));
+      return true;
+   }
+
+   private void makeAvailable(PoolEntry<E> entry) {
+      entry.setState(STATE_AVAILABLE);
+      handOff(entry);
+   }
+
+   /**
+    * Hands an available item directly to a waiting borrower, if there are any, until one takes it or a scanning borrower
+    * claims it.
+    *
+    * @param entry the entry of the available item.
+    * @return true if the item was taken by a waiting or scanning borrower, false if there were no waiting borrowers.
+    */
+   private boolean handOff(PoolEntry<E> entry) {
+      for (int n = 0; waiters.get() > 0; n++) {
+         if (entry.getState() != STATE_AVAILABLE || handoffQueue.offer(entry)) return true;
+
+         if ((n & 0xff) == 0xff) {
+            LockSupport.parkNanos(HANDOFF_PARK_NANOS);
+         } else {
+            Thread.yield();
+         }
+      }
+      return false;
+   }
+
+   private void housekeepSafely() {
+      try {
+         housekeep();
+      } catch (RuntimeException ex) {
+         error(ex, "Pool housekeeping failed [pool=" + getName() + "]");
+      }
+   }
+
+   /**
+    * Performs a single run of pool housekeeping. Each available item is destroyed if past its maximum lifetime, or idle
+    * for longer than the maximum idle time while more than the minimum number of items are available, or no longer
+    * valid. The number of available items is then topped up to the minimum.
+    * <p>
+    * The number of available items is counted once per run and adjusted as items are destroyed and created, so a run
+    * is linear in the size of the pool. The count does not follow concurrent loans and returns during the run.
+    */
+   void housekeep() {
+      int minimumAvailable = minimumAvailableResources == null ? 0 : minimumAvailableResources;
+      int available = getNumberOfAvailableItems();
+      for (PoolEntry<E> entry : entries) {
+         if (!entry.compareAndSetState(STATE_AVAILABLE, STATE_RESERVED)) continue;
+
+         // The items available besides this one, now reserved, must remain at least the minimum
+         long nowNanos = nanoTimeSource.getAsLong();
+         boolean idleTooLong = maximumIdleMillis > 0
+                               && nowNanos - entry.lastReturnedNanos > MILLISECONDS.toNanos(maximumIdleMillis)
+                               && available - 1 >= minimumAvailable;
+         if (idleTooLong || isPastLifetime(entry, nowNanos) || !isItemValid(entry.item)) {
+            removeEntry(entry);
+            available--;
+         } else {
+            makeAvailable(entry);
+         }
+      }
+
+      try {
+         for (; available < minimumAvailable; available++) {
+            PoolEntry<E> entry = createEntry(STATE_RESERVED);
+            if (entry == null) break;
+
+            makeAvailable(entry);
+         }
+      } catch (Exception ex) {
+         error(ex, "Unable to create pooled resource [pool=" + getName() + "]");
       }
-      debug("returnItem ended [pool=" + getName() + ", report=" + getReport() + "]");
-      return originatedFromPool;
+   }
+
+   private boolean isPastLifetime(PoolEntry<E> entry, long nowNanos) {
+      return maximumLifetimeMillis > 0 && nowNanos - entry.createdAtNanos > MILLISECONDS.toNanos(maximumLifetimeMillis);
    }
 
    /**
@@ -397,10 +841,12 @@ public class ManagedResourcePool<E> extends ManagedResourcePoolBase<E> implement
     * </p>
     */
    public final synchronized void clear() {
-      if (availableItems.size() > 0) {
+      if (getNumberOfAvailableItems() > 0) {
          debug("Clearing resource pool available items [" + getReport() + "] ...");
-         while (availableItems.size() > 0) {
-            expireItem(availableItems.remove(0));
+         for (PoolEntry<E> entry : entries) {
+            if (entry.compareAndSetState(STATE_AVAILABLE, STATE_LOANED)) {
+               removeEntry(entry);
+            }
          }
          debug("Clearing resource pool complete [" + getReport() + "] ...");
       }
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.pool;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * An item held by a {@link ManagedResourcePool}, with the state through which borrowers claim it without locking.
+ *
+ * @param <E> the type of the pooled item.
+ */
+final class PoolEntry<E> {
+   static final int STATE_AVAILABLE = 0;
+   static final int STATE_LOANED = 1;
+   static final int STATE_REMOVED = -1;
+   /** Claimed by the pool itself, for validation or before first being made available. */
+   static final int STATE_RESERVED = 2;
+
+   private static final VarHandle STATE;
+
+   static {
+      try {
+         STATE = MethodHandles.lookup().findVarHandle(PoolEntry.class, "state", int.class);
+      } catch (ReflectiveOperationException ex) {
+         throw new ExceptionInInitializerError(ex);
+      }
+   }
+
+   final E item;
+
+   private volatile int state;
+
+   /** The time the item was last loaned, in nanoseconds of the pool's time source. */
+   volatile long loanedAtNanos;
+
+   /** The time the item was created, in nanoseconds of the pool's time source. */
+   final long createdAtNanos;
+
+   /** The time the item was created or last returned, in nanoseconds of the pool's time source. */
+   volatile long lastReturnedNanos;
+
+   PoolEntry(E item, int state, long createdAtNanos) {
+      this.item = item;
+      this.state = state;
+      this.createdAtNanos = createdAtNanos;
+      this.lastReturnedNanos = createdAtNanos;
+   }
+
+   int getState() {
+      return state;
+   }
+
+   void setState(int state) {
+      this.state = state;
+   }
+
+   boolean compareAndSetState(int expectedState, int newState) {
+      return STATE.compareAndSet(this, expectedState, newState);
+   }
+
+   @Override
+   public String toString() {
+      return "PoolEntry[item=" + item + ", state=" + state + "]";
+   }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.pool;
+
+import org.beanplanet.core.util.LatencyHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the metrics of a {@link ManagedResourcePool}, for sizing and monitoring the pool: histograms of how long
+ * borrowers wait for items and how long items are on loan, counts of timeouts and creation failures, and gauges of the
+ * items loaned, available and waited for.
+ * <p>
+ * Install on a pool with {@link ManagedResourcePool#setMetricsSink(ResourcePoolMetricsSink)}.
+ */
+public class ResourcePoolMetrics implements ResourcePoolMetricsSink {
+   private final ManagedResourcePool<?> pool;
+
+   private final LatencyHistogram loanWaitNanos = new LatencyHistogram();
+   private final LatencyHistogram loanDurationNanos = new LatencyHistogram();
+   private final LongAdder loanTimeouts = new LongAdder();
+   private final LongAdder itemCreationFailures = new LongAdder();
+
+   /**
+    * Creates the metrics of the given pool.
+    *
+    * @param pool the pool whose gauges are to be read.
+    */
+   public ResourcePoolMetrics(ManagedResourcePool<?> pool) {
+      this.pool = pool;
+   }
+
+   @Override
+   public void itemLoaned(long waitNanos) {
+      loanWaitNanos.record(waitNanos);
+   }
+
+   @Override
+   public void itemReturned(long loanNanos) {
+      loanDurationNanos.record(loanNanos);
+   }
+
+   @Override
+   public void loanTimedOut(long waitNanos) {
+      loanTimeouts.increment();
+   }
+
+   @Override
+   public void itemCreationFailed(Throwable cause) {
+      itemCreationFailures.increment();
+   }
+
+   /**
+    * Returns the histogram of how long borrowers waited for the items loaned to them.
+    *
+    * @return the loan wait histogram, in nanoseconds.
+    */
+   public LatencyHistogram getLoanWaitNanos() {
+      return loanWaitNanos;
+   }
+
+   /**
+    * Returns the histogram of how long items were on loan before being returned.
+    *
+    * @return the loan duration histogram, in nanoseconds.
+    */
+   public LatencyHistogram getLoanDurationNanos() {
+      return loanDurationNanos;
+   }
+
+   public long getLoanCount() {
+      return loanWaitNanos.getCount();
+   }
+
+   public long getLoanTimeouts() {
+      return loanTimeouts.sum();
+   }
+
+   public long getItemCreationFailures() {
+      return itemCreationFailures.sum();
+   }
+
+   public int getLoanedItems() {
+      return pool.getNumberOfLoanedItems();
+   }
+
+   public int getAvailableItems() {
+      return pool.getNumberOfAvailableItems();
+   }
+
+   public int getWaitingBorrowers() {
+      return pool.getNumberOfWaitingBorrowers();
+   }
+
+   /**
+    * Returns the proportion of the maximum size of the pool currently on loan.
+    *
+    * @return the utilisation of the pool, from 0 to 1, or 0 if the pool has no maximum size.
+    */
+   public double getUtilisation() {
+      Integer maximumTotalSize = pool.getMaximumTotalSize();
+      return maximumTotalSize == null || maximumTotalSize == 0 ? 0 : (double)getLoanedItems() / maximumTotalSize;
+   }
+
+   /**
+    * Clears the histograms and counts collected so far.
+    */
+   public void reset() {
+      loanWaitNanos.reset();
+      loanDurationNanos.reset();
+      loanTimeouts.reset();
+      itemCreationFailures.reset();
+   }
+
+   @Override
+   public String toString() {
+      return getClass().getSimpleName() + "[pool=" + pool.getName() + ", loaned=" + getLoanedItems()
+             + ", available=" + getAvailableItems() + ", waiting=" + getWaitingBorrowers()
+             + ", loanTimeouts=" + getLoanTimeouts() + ", itemCreationFailures=" + getItemCreationFailures()
+             + ", loanWaitNanos=" + loanWaitNanos + ", loanDurationNanos=" + loanDurationNanos + "]";
+   }
+}
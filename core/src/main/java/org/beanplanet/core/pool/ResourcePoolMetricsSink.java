@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.pool;
+
+/**
+ * Receives measurements of the activity of a {@link ManagedResourcePool}. Every method has an empty default, so sinks
+ * need only implement the measurements they are interested in. Methods are called on the threads borrowing and
+ * returning items, so must be fast and thread-safe.
+ *
+ * @see ResourcePoolMetrics
+ */
+public interface ResourcePoolMetricsSink {
+   /**
+    * Called when an item has been loaned.
+    *
+    * @param waitNanos the time the borrower waited for the item, in nanoseconds.
+    */
+   default void itemLoaned(long waitNanos) {}
+
+   /**
+    * Called when a loaned item has been returned.
+    *
+    * @param loanNanos the time the item was on loan, in nanoseconds.
+    */
+   default void itemReturned(long loanNanos) {}
+
+   /**
+    * Called when a borrower gave up waiting for an item.
+    *
+    * @param waitNanos the time the borrower waited, in nanoseconds.
+    */
+   default void loanTimedOut(long waitNanos) {}
+
+   /**
+    * Called when a new item could not be created.
+    *
+    * @param cause the reason the item could not be created.
+    */
+   default void itemCreationFailed(Throwable cause) {}
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe histogram of non-negative values, typically latencies in nanoseconds, in the style of an HDR histogram.
+ * <p>
+ * Values are counted in log-linear buckets: values below 64 are counted exactly and larger values in buckets whose
+ * width is 1/32 of their magnitude, so any value reported is within about 3% of the values recorded, over the whole
+ * range of a long, in fixed memory. Recording is lock-free and allocation-free.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+    private static final int BUCKET_COUNT = indexOf(Long.MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalSum = new LongAdder();
+    private final AtomicLong minimum = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong maximum = new AtomicLong();
+
+    /**
+     * Records a value in the histogram. Negative values are recorded as zero.
+     *
+     * @param value the value to be recorded.
+     */
+    public void record(long value) {
+        if (value < 0) value = 0;
+
+        counts.incrementAndGet(indexOf(value));
+        totalCount.increment();
+        totalSum.add(value);
+        if (value < minimum.get()) minimum.accumulateAndGet(value, Math::min);
+        if (value > maximum.get()) maximum.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Returns the number of values recorded.
+     *
+     * @return the count of values recorded since the histogram was created or last reset.
+     */
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * Returns the sum of all values recorded.
+     *
+     * @return the sum of the values recorded since the histogram was created or last reset.
+     */
+    public long getSum() {
+        return totalSum.sum();
+    }
+
+    /**
+     * Returns the smallest value recorded.
+     *
+     * @return the minimum value recorded, or 0 if none has been recorded.
+     */
+    public long getMin() {
+        long min = minimum.get();
+        return min == Long.MAX_VALUE ? 0 : min;
+    }
+
+    /**
+     * Returns the largest value recorded.
+     *
+     * @return the maximum value recorded, or 0 if none has been recorded.
+     */
+    public long getMax() {
+        return maximum.get();
+    }
+
+    /**
+     * Returns the mean of the values recorded.
+     *
+     * @return the mean value, or 0 if none has been recorded.
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double)getSum() / count;
+    }
+
+    /**
+     * Returns the value at or below which the given percentage of recorded values fall.
+     *
+     * @param percentile the percentile required, from 0 to 100.
+     * @return the highest value equivalent to the value at the given percentile, or 0 if no value has been recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = getCount();
+        if (count == 0) return 0;
+
+        long countAtPercentile = Math.max(1, (long)Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * count));
+        long cumulativeCount = 0;
+        for (int index = 0; index < BUCKET_COUNT; index++) {
+            cumulativeCount += counts.get(index);
+            if (cumulativeCount >= countAtPercentile) {
+                return Math.min(highestValueOf(index), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Clears all values recorded. Values recorded concurrently with a reset may or may not be retained.
+     */
+    public void reset() {
+        for (int index = 0; index < BUCKET_COUNT; index++) {
+            counts.set(index, 0);
+        }
+        totalCount.reset();
+        totalSum.reset();
+        minimum.set(Long.MAX_VALUE);
+        maximum.set(0);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) return (int)value;
+
+        int bucket = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return bucket * SUB_BUCKET_HALF_COUNT + (int)(value >>> bucket);
+    }
+
+    static long lowestValueOf(int index) {
+        if (index < SUB_BUCKET_COUNT) return index;
+
+        int bucket = index / SUB_BUCKET_HALF_COUNT - 1;
+        return (long)(index - bucket * SUB_BUCKET_HALF_COUNT) << bucket;
+    }
+
+    static long highestValueOf(int index) {
+        return index == BUCKET_COUNT - 1 ? Long.MAX_VALUE : lowestValueOf(index + 1) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[count=" + getCount() + ", min=" + getMin() + ", mean=" + (long)getMean()
+               + ", p50=" + getValueAtPercentile(50) + ", p99=" + getValueAtPercentile(99) + ", max=" + getMax() + "]";
+    }
+}
@@ -67,6 +67,55 @@ public class SizeUtil
    /** The number of hours in a day, ignoring daylight saving time. */
    public static int HOURS_IN_A_DAY = 24;
 
+   /** The estimated size of an object header on the heap, in bytes, assuming a 64-bit VM with compressed pointers. */
+   public static final int OBJECT_HEADER_BYTES = 12;
+
+   /** The estimated size of an array header on the heap, in bytes, assuming a 64-bit VM with compressed pointers. */
+   public static final int ARRAY_HEADER_BYTES = 16;
+
+   /** The estimated size of an object reference on the heap, in bytes, assuming compressed pointers. */
+   public static final int REFERENCE_BYTES = 4;
+
+   /** The alignment of objects on the heap, in bytes. */
+   public static final int OBJECT_ALIGNMENT_BYTES = 8;
+
+   /**
+    * Rounds a size up to the object alignment on the heap.
+    *
+    * @param sizeInBytes the unaligned size in bytes.
+    * @return the size in bytes, aligned to {@link #OBJECT_ALIGNMENT_BYTES}.
+    */
+   public static long alignedSizeInBytes(long sizeInBytes)
+   {
+      return (sizeInBytes + OBJECT_ALIGNMENT_BYTES - 1) & -OBJECT_ALIGNMENT_BYTES;
+   }
+
+   /**
+    * Returns the estimated heap size of an array of bytes.
+    *
+    * @param length the number of elements in the array.
+    * @return the estimated size of the array on the heap, in bytes.
+    */
+   public static long estimateByteArraySizeInBytes(int length)
+   {
+      return alignedSizeInBytes(ARRAY_HEADER_BYTES + (long) length);
+   }
+
+   /**
+    * Returns the estimated heap size of a character sequence, including its backing array. Assumes two bytes per
+    * character, which overestimates compact strings holding only Latin-1 characters.
+    *
+    * @param charSequence the character sequence whose size is to be estimated, which may be null.
+    * @return the estimated size of the character sequence on the heap, in bytes, or zero if null.
+    */
+   public static long estimateCharSequenceSizeInBytes(CharSequence charSequence)
+   {
+      if (charSequence == null) return 0;
+
+      return alignedSizeInBytes(OBJECT_HEADER_BYTES + REFERENCE_BYTES + 2 * Integer.BYTES)
+             + alignedSizeInBytes(ARRAY_HEADER_BYTES + 2L * charSequence.length());
+   }
+
    /**
     * Returns a short string description of the length, in bytes, specified.
     * 
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.beans;
+
+import org.beanplanet.core.lang.TypeUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of bean property access through {@link BeanUtil}: reading a property through its bound accessor against
+ * reflective invocation of its read method, and copying properties through a cached copy plan against copying by name.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BeanPropertyBenchmark {
+    private final TestBean source = new TestBean("theStringProperty", 1234);
+    private Method readMethod;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        source.setPrimitiveLongProperty(5678L);
+        source.setDoubleProperty(1.5d);
+        readMethod = TestBean.class.getMethod("getStringProperty");
+    }
+
+    @Benchmark
+    public Object getPropertyValue() {
+        return BeanUtil.getPropertyValue(source, "stringProperty");
+    }
+
+    @Benchmark
+    public Object getPropertyValueReflectively() {
+        return TypeUtil.invokeMethod(source, readMethod);
+    }
+
+    @Benchmark
+    public TestBean copyProperties() {
+        return BeanUtil.copyProperties(source, new TestBean());
+    }
+
+    @Benchmark
+    public TestBean copyPropertiesByName() {
+        return BeanUtil.copyProperties(source, new TestBean(), BeanUtil.allProperties());
+    }
+}
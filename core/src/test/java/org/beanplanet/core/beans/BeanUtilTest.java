@@ -16,9 +16,12 @@
 
 package org.beanplanet.core.beans;
 
+import org.beanplanet.core.UncheckedException;
 import org.junit.Test;
 
-import static org.hamcrest.Matchers.equalTo;
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
 
 public class BeanUtilTest {
@@ -34,4 +37,153 @@ public class BeanUtilTest {
         //Then
         assertThat(target, equalTo(source));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void copyProperties_convertsValuesToTheDestinationPropertyType() {
+        // Given
+        Source source = new Source();
+        source.setCount("42");
+        source.setName("theName");
+        Destination destination = new Destination();
+
+        // When
+        BeanUtil.copyProperties(source, destination);
+
+        //Then
+        assertThat(destination.getCount(), equalTo(42));
+        assertThat(destination.getName(), equalTo("theName"));
+    }
+
+    @Test
+    public void copyProperties_planIsBuiltOnceForTheSourceAndDestinationClasses() {
+        // Given
+        JavabeanMetadataCache cache = JavabeanMetadataCache.getSystemCache();
+
+        // When
+        BeanCopyPlan plan = cache.getCopyPlan(Source.class, Destination.class);
+
+        //Then
+        assertThat(cache.getCopyPlan(Source.class, Destination.class), sameInstance(plan));
+        assertThat(plan.getNumberOfProperties(), equalTo(2));
+    }
+
+    @Test
+    public void getBeanMetaData_isCachedByStartAndStopClass() {
+        // Given
+        JavabeanMetadataCache cache = new JavabeanMetadataCache();
+
+        // When
+        JavabeanMetadata noStopClass = cache.getBeanMetaData(TestBean.class);
+        JavabeanMetadata objectStopClass = cache.getBeanMetaData(TestBean.class, Object.class);
+
+        //Then
+        assertThat(cache.getBeanMetaData(TestBean.class, null), sameInstance(noStopClass));
+        assertThat(cache.getBeanMetaData(TestBean.class, Object.class), sameInstance(objectStopClass));
+        assertThat(objectStopClass, not(sameInstance(noStopClass)));
+    }
+
+    @Test
+    public void getPropertyValue_readsPropertiesAndValueReturningMethods() {
+        // Given
+        TestBean bean = new TestBean("theStringProperty", 1234);
+
+        // Then
+        assertThat(BeanUtil.getPropertyValue(bean, "stringProperty"), equalTo("theStringProperty"));
+        assertThat(BeanUtil.getPropertyValue(bean, "intProperty"), equalTo(1234));
+        assertThat(BeanUtil.getPropertyValue(bean, "toString"), equalTo(bean.toString()));
+        assertThat(BeanUtil.getPropertyType(TestBean.class, "primitiveIntProperty"), equalTo(int.class));
+        assertThat(BeanUtil.isReadableProperty(bean, "notAProperty"), is(false));
+    }
+
+    @Test(expected = PropertyNotFoundException.class)
+    public void getPropertyValue_unreadableName() {
+        BeanUtil.getPropertyValue(new TestBean(), "notAProperty");
+    }
+
+    @Test
+    public void javaBean_readsAndWritesPropertiesOfNonPublicClasses() {
+        // Given
+        JavaBean<PackagePrivateBean> bean = new JavaBean<>(new PackagePrivateBean());
+
+        // When
+        bean.set("value", 7L);
+
+        // Then
+        assertThat(bean.getBean().getValue(), equalTo("7"));
+        assertThat(bean.get("value").getValue(), equalTo("7"));
+    }
+
+    @Test
+    public void javaBean_checkedExceptionsThrownByAccessorsAreWrapped() {
+        // Given
+        JavaBean<Source> bean = new JavaBean<>(new Source());
+
+        try {
+            // When
+            bean.get("failing");
+        } catch (UncheckedException ex) {
+            // Then
+            assertThat(ex.getCause(), instanceOf(IOException.class));
+            return;
+        }
+        throw new AssertionError("Expected an UncheckedException");
+    }
+
+    public static class Source {
+        private String count;
+        private String name;
+
+        public String getCount() {
+            return count;
+        }
+
+        public void setCount(String count) {
+            this.count = count;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getFailing() throws IOException {
+            throw new IOException("Unable to read");
+        }
+    }
+
+    public static class Destination {
+        private int count;
+        private String name;
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    static class PackagePrivateBean {
+        private String value;
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+    }
+}
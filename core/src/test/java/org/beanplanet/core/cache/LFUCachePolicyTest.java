@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class LFUCachePolicyTest {
+    private ManagedCache<String, String> cache;
+    private LFUCachePolicy<String, String> policy;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new ManagedCache<>();
+        policy = new LFUCachePolicy<>(100);
+        cache.addCachePolicy(policy);
+    }
+
+    @Test
+    public void put_cacheBoundedToLfuBufferSize() {
+        // When the cache is set to grow beyond the LFU buffer size
+        for (int n=0; n < 250; n++) {
+            cache.put("key" + n, "value" + n);
+        }
+
+        // Then the cache policy maintains the buffer size
+        assertThat(cache.size(), equalTo(100));
+        assertThat(policy.size(), equalTo(100));
+        assertThat(policy.getEvictionCount(), equalTo(150L));
+    }
+
+    @Test
+    public void put_frequentlyUsedItemSurvivesScan() {
+        // Given an item which is used frequently
+        cache.put("hot", "hotValue");
+        for (int n=0; n < 10; n++) {
+            assertThat(cache.get("hot"), equalTo("hotValue"));
+        }
+
+        // When the cache is scanned with many items used once only
+        for (int n=0; n < 1000; n++) {
+            cache.put("cold" + n, "coldValue" + n);
+        }
+
+        // Then the frequently used item is retained
+        assertThat(cache.size(), equalTo(100));
+        assertThat(cache.containsKey("hot"), is(true));
+    }
+
+    @Test
+    public void put_cacheBoundedByMaximumWeight() {
+        // Given a policy bounding the cache to 1KB of byte arrays
+        LFUCachePolicy<String, byte[]> weighedPolicy = new LFUCachePolicy<>(100);
+        weighedPolicy.setWeigher(new DefaultWeigher<>());
+        weighedPolicy.setMaximumWeight(1024);
+        ManagedCache<String, byte[]> byteArrayCache = new ManagedCache<>();
+        byteArrayCache.addCachePolicy(weighedPolicy);
+
+        // When the cache is set to grow beyond the maximum weight
+        for (int n=0; n < 50; n++) {
+            byteArrayCache.put("key" + n, new byte[112]);
+        }
+
+        // Then the policy maintains the maximum weight
+        assertThat(weighedPolicy.getTotalWeight(), lessThanOrEqualTo(1024L));
+        assertThat(byteArrayCache.size(), equalTo(8));
+        assertThat(weighedPolicy.getTotalWeight(), equalTo(8 * 128L));
+    }
+
+    @Test
+    public void remove_itemNoLongerTracked() {
+        // Given
+        cache.put("key1", "value1");
+        cache.put("key2", "value2");
+
+        // When
+        cache.remove("key1");
+
+        // Then
+        assertThat(policy.size(), equalTo(1));
+    }
+
+    @Test
+    public void clear_noItemsTracked() {
+        // Given
+        cache.put("key1", "value1");
+        cache.put("key2", "value2");
+
+        // When
+        cache.clear();
+
+        // Then
+        assertThat(policy.size(), equalTo(0));
+    }
+
+    @Test
+    public void hitRatio() {
+        // Given
+        cache.put("key1", "value1");
+
+        // When
+        cache.get("key1");
+        cache.get("key1");
+        cache.get("key1");
+        cache.get("noSuchKey");
+
+        // Then
+        assertThat(policy.getHitCount(), equalTo(3L));
+        assertThat(policy.getMissCount(), equalTo(1L));
+        assertThat(policy.getHitRatio(), closeTo(0.75d, 0.0001d));
+    }
+}
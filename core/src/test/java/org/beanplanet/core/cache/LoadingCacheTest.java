@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LoadingCacheTest {
+    private final AtomicInteger loadCount = new AtomicInteger();
+
+    @Test
+    public void get_missLoadsAndCachesValue() {
+        // Given
+        LoadingCache<String, String> cache = new LoadingCache<>(key -> {
+            loadCount.incrementAndGet();
+            return key.toUpperCase();
+        });
+
+        // When
+        String value = cache.get("key1");
+        String cachedValue = cache.get("key1");
+
+        // Then
+        assertThat(value, equalTo("KEY1"));
+        assertThat(cachedValue, sameInstance(value));
+        assertThat(loadCount.get(), equalTo(1));
+        assertThat(cache.getIfPresent("key2"), nullValue());
+    }
+
+    @Test
+    public void get_concurrentMissesCoalescedIntoSingleLoad() throws Exception {
+        // Given a loader which blocks until all threads have missed
+        int numberOfThreads = 8;
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        LoadingCache<String, String> cache = new LoadingCache<>(key -> {
+            loadCount.incrementAndGet();
+            loadStarted.countDown();
+            try {
+                releaseLoad.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return "loadedValue";
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+
+        try {
+            // When
+            List<Future<String>> results = new ArrayList<>();
+            for (int n=0; n < numberOfThreads; n++) {
+                results.add(executor.submit(() -> cache.get("key1")));
+            }
+            assertThat(loadStarted.await(10, TimeUnit.SECONDS), is(true));
+            Thread.sleep(100);
+            releaseLoad.countDown();
+
+            // Then
+            for (Future<String> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS), equalTo("loadedValue"));
+            }
+            assertThat(loadCount.get(), equalTo(1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void get_loaderFailurePropagatedAndNotCached() {
+        // Given
+        LoadingCache<String, String> cache = new LoadingCache<>(key -> {
+            if (loadCount.incrementAndGet() == 1) throw new IllegalStateException("Load failed");
+            return "loadedValue";
+        });
+
+        // When the first load fails
+        assertThrows(IllegalStateException.class, () -> cache.get("key1"));
+
+        // Then nothing is cached and the next lookup retries the load
+        assertThat(cache.isEmpty(), is(true));
+        assertThat(cache.get("key1"), equalTo("loadedValue"));
+    }
+
+    @Test
+    public void getAll_missingKeysBulkLoaded() {
+        // Given
+        List<Set<String>> bulkLoads = new ArrayList<>();
+        LoadingCache<String, String> cache = new LoadingCache<>(key -> {
+            throw new AssertionError("Unexpected single load");
+        });
+        cache.setBulkLoader(keys -> {
+            bulkLoads.add(new HashSet<>(keys));
+            Map<String, String> values = new HashMap<>();
+            keys.stream().filter(key -> !key.equals("noSuchKey")).forEach(key -> values.put(key, key.toUpperCase()));
+            return values;
+        });
+        cache.put("key2", "cachedValue2");
+
+        // When
+        Map<String, String> values = cache.getAll(asList("key1", "key2", "key3", "noSuchKey"));
+
+        // Then only the missing keys are loaded, in a single call
+        assertThat(bulkLoads, equalTo(Collections.singletonList(new HashSet<>(asList("key1", "key3", "noSuchKey")))));
+        assertThat(new ArrayList<>(values.keySet()), equalTo(asList("key1", "key2", "key3")));
+        assertThat(values.get("key1"), equalTo("KEY1"));
+        assertThat(values.get("key2"), equalTo("cachedValue2"));
+        assertThat(values.get("key3"), equalTo("KEY3"));
+        assertThat(cache.size(), equalTo(3));
+    }
+
+    @Test
+    public void getAll_withoutBulkLoader_loadsEachKey() {
+        // Given
+        LoadingCache<String, String> cache = new LoadingCache<>(key -> {
+            loadCount.incrementAndGet();
+            return key.toUpperCase();
+        });
+
+        // When
+        Map<String, String> values = cache.getAll(asList("key1", "key2"));
+
+        // Then
+        assertThat(values.get("key1"), equalTo("KEY1"));
+        assertThat(values.get("key2"), equalTo("KEY2"));
+        assertThat(loadCount.get(), equalTo(2));
+    }
+
+    @Test
+    public void get_refreshAfterWrite_servesStaleValueWhileRefreshing() {
+        // Given
+        AtomicLong nanoTime = new AtomicLong();
+        Queue<Runnable> refreshTasks = new LinkedList<>();
+        LoadingCache<String, String> cache = new LoadingCache<>(new ConcurrentHashMap<>(),
+                                                                key -> "value" + loadCount.incrementAndGet(),
+                                                                nanoTime::get);
+        cache.setRefreshAfterWriteMillis(1000);
+        cache.setRefreshExecutor(refreshTasks::add);
+        assertThat(cache.get("key1"), equalTo("value1"));
+
+        // When read before the refresh period
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+
+        // Then no refresh is scheduled
+        assertThat(cache.get("key1"), equalTo("value1"));
+        assertThat(refreshTasks.isEmpty(), is(true));
+
+        // When read after the refresh period
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+
+        // Then the stale value is returned and a single refresh scheduled
+        assertThat(cache.get("key1"), equalTo("value1"));
+        assertThat(cache.get("key1"), equalTo("value1"));
+        assertThat(refreshTasks.size(), equalTo(1));
+
+        // When the refresh completes
+        refreshTasks.poll().run();
+
+        // Then the refreshed value is served
+        assertThat(cache.get("key1"), equalTo("value2"));
+        assertThat(refreshTasks.isEmpty(), is(true));
+    }
+
+    @Test
+    public void get_refreshAfterWrite_promotedValueRefreshedAfterPeriod() {
+        // Given
+        AtomicLong nanoTime = new AtomicLong();
+        Queue<Runnable> refreshTasks = new LinkedList<>();
+        LoadingCache<String, String> cache = new LoadingCache<>(new ConcurrentHashMap<>(),
+                                                                key -> "value" + loadCount.incrementAndGet(),
+                                                                nanoTime::get);
+        cache.setSecondTier(new OffHeapValueStore<>(new StringValueCodec(), 4096, 4096));
+        cache.setRefreshAfterWriteMillis(1000);
+        cache.setRefreshExecutor(refreshTasks::add);
+        assertThat(cache.get("key1"), equalTo("value1"));
+        cache.evict("key1");
+
+        // When promoted from the second tier
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertThat(cache.get("key1"), equalTo("value1"));
+
+        // Then refreshed once the refresh period has passed since promotion
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+        assertThat(cache.get("key1"), equalTo("value1"));
+        assertThat(refreshTasks.isEmpty(), is(true));
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertThat(cache.get("key1"), equalTo("value1"));
+        assertThat(refreshTasks.size(), equalTo(1));
+        refreshTasks.poll().run();
+        assertThat(cache.get("key1"), equalTo("value2"));
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.cache;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of reads and writes through a {@link ManagedCache} bounded by an {@link LruCachePolicy}, against a plain
+ * {@link ConcurrentHashMap} baseline. Run from the IDE or via the test classpath, for example:
+ * <pre>
+ * java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.beanplanet.core.cache.LruCachePolicyBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LruCachePolicyBenchmark {
+    private static final int MAXIMUM_SIZE = 10_000;
+    private static final int KEY_SPACE = MAXIMUM_SIZE * 2;
+
+    private Integer[] keys;
+    private ConcurrentHashMap<Integer, Integer> baseline;
+    private ManagedCache<Integer, Integer> lruCache;
+
+    @Setup
+    public void setUp() {
+        keys = new Integer[KEY_SPACE];
+        for (int n=0; n < KEY_SPACE; n++) {
+            keys[n] = n;
+        }
+
+        baseline = new ConcurrentHashMap<>();
+        lruCache = new ManagedCache<>();
+        lruCache.addCachePolicy(new LruCachePolicy<>(MAXIMUM_SIZE));
+        for (int n=0; n < MAXIMUM_SIZE; n++) {
+            baseline.put(keys[n], keys[n]);
+            lruCache.put(keys[n], keys[n]);
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void concurrentHashMap_get(Blackhole blackhole) {
+        blackhole.consume(baseline.get(keys[ThreadLocalRandom.current().nextInt(MAXIMUM_SIZE)]));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void lruCache_get(Blackhole blackhole) {
+        blackhole.consume(lruCache.get(keys[ThreadLocalRandom.current().nextInt(MAXIMUM_SIZE)]));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void concurrentHashMap_getOrPut(Blackhole blackhole) {
+        Integer key = keys[ThreadLocalRandom.current().nextInt(KEY_SPACE)];
+        Integer value = baseline.get(key);
+        blackhole.consume(value != null ? value : baseline.put(key, key));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void lruCache_getOrPut(Blackhole blackhole) {
+        Integer key = keys[ThreadLocalRandom.current().nextInt(KEY_SPACE)];
+        Integer value = lruCache.get(key);
+        blackhole.consume(value != null ? value : lruCache.put(key, key));
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(LruCachePolicyBenchmark.class.getSimpleName()).build()).run();
+    }
+}
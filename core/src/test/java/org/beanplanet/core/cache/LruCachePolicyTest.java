@@ -17,14 +17,12 @@
 package org.beanplanet.core.cache;
 
 import org.junit.Before;
-import org.junit.Ignore;
 import org.junit.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 
-@Ignore
 public class LruCachePolicyTest {
     private ManagedCache<String, String> cache;
     private LruCachePolicy<String, String> policy;
@@ -62,4 +60,95 @@ public class LruCachePolicyTest {
         assertThat(cache.containsKey("key4"), is(true));
     }
 
+    @Test
+    public void get_cacheHitRefreshesRecency() {
+        // Given
+        policy.setLruCacheSize(3);
+        cache.put("key1", "value1");
+        cache.put("key2", "value2");
+        cache.put("key3", "value3");
+
+        // When the oldest item is used and the cache is set to grow beyond the LRU cache size
+        assertThat(cache.get("key1"), equalTo("value1"));
+        cache.put("key4", "value4");
+
+        // Then the next least recently used item is evicted instead
+        assertThat(cache.size(), equalTo(3));
+        assertThat(cache.containsKey("key1"), is(true));
+        assertThat(cache.containsKey("key2"), is(false));
+        assertThat(cache.containsKey("key3"), is(true));
+        assertThat(cache.containsKey("key4"), is(true));
+    }
+
+    @Test
+    public void put_cacheBoundedByMaximumWeight() {
+        // Given a policy bounding the cache to 10 units, each value weighing its length
+        policy.setWeigher((key, value) -> value.length());
+        policy.setMaximumWeight(10);
+
+        // When the cache is set to grow beyond the maximum weight
+        cache.put("key1", "aaaa");
+        cache.put("key2", "bbbb");
+        cache.put("key3", "cccc");
+
+        // Then the least recently used items are evicted to maintain the maximum weight
+        assertThat(cache.size(), equalTo(2));
+        assertThat(cache.containsKey("key1"), is(false));
+        assertThat(policy.getTotalWeight(), equalTo(8L));
+
+        // When an item too heavy to ever fit is added
+        cache.put("key4", "dddddddddddd");
+
+        // Then it alone is evicted
+        assertThat(cache.size(), equalTo(2));
+        assertThat(cache.containsKey("key2"), is(true));
+        assertThat(cache.containsKey("key3"), is(true));
+        assertThat(cache.containsKey("key4"), is(false));
+        assertThat(policy.getTotalWeight(), equalTo(8L));
+    }
+
+    @Test
+    public void remove_itemNoLongerTracked() {
+        // Given
+        policy.setLruCacheSize(2);
+        cache.put("key1", "value1");
+        cache.put("key2", "value2");
+
+        // When
+        cache.remove("key1");
+        cache.put("key3", "value3");
+
+        // Then the remaining items are retained
+        assertThat(policy.size(), equalTo(2));
+        assertThat(cache.size(), equalTo(2));
+        assertThat(cache.containsKey("key2"), is(true));
+        assertThat(cache.containsKey("key3"), is(true));
+    }
+
+    @Test
+    public void concurrentAccess_cacheRemainsBounded() throws Exception {
+        // Given
+        policy.setLruCacheSize(100);
+        Thread[] threads = new Thread[8];
+        for (int t=0; t < threads.length; t++) {
+            final int threadNumber = t;
+            threads[t] = new Thread(() -> {
+                for (int n=0; n < 10_000; n++) {
+                    String key = "key" + ((n * 31 + threadNumber) % 500);
+                    if (cache.get(key) == null) {
+                        cache.put(key, key);
+                    }
+                }
+            });
+        }
+
+        // When
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+
+        // Then
+        assertThat(cache.size() <= 100, is(true));
+        assertThat(policy.size(), equalTo(cache.size()));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.cache;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of {@link ManagedCache} lookups with no listeners, with a listener subscribed only to writes and with
+ * a policy subscribed to everything. Cache policies are not used for the write-only listener, as even the time-to-live
+ * policy subscribes to hits, for time-to-idle expiry.
+ * <p>
+ * Run with the GC profiler, as {@link #main(String[])} does, to measure the allocation of lookups nobody is listening
+ * to: <code>gc.alloc.rate.norm</code> should be zero bytes per operation for the unobserved and write-observed
+ * benchmarks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ManagedCacheBenchmark {
+    private final String hitKey = "hitKey";
+    private final String missKey = "missKey";
+
+    private ManagedCache<String, String> unobservedCache;
+    private ManagedCache<String, String> writeObservedCache;
+    private ManagedCache<String, String> fullyObservedCache;
+
+    @Setup
+    public void setUp() {
+        unobservedCache = new ManagedCache<>();
+        writeObservedCache = new ManagedCache<>();
+        writeObservedCache.addCacheListener(new WriteListener());
+        fullyObservedCache = new ManagedCache<>();
+        fullyObservedCache.addCachePolicy(new LFUCachePolicy<>());
+
+        unobservedCache.put(hitKey, "value");
+        writeObservedCache.put(hitKey, "value");
+        fullyObservedCache.put(hitKey, "value");
+    }
+
+    @Benchmark
+    public String unobserved_hit() {
+        return unobservedCache.get(hitKey);
+    }
+
+    @Benchmark
+    public String unobserved_miss() {
+        return unobservedCache.get(missKey);
+    }
+
+    @Benchmark
+    public String writeObserved_hit() {
+        return writeObservedCache.get(hitKey);
+    }
+
+    @Benchmark
+    public String fullyObserved_hit() {
+        return fullyObservedCache.get(hitKey);
+    }
+
+    /**
+     * A listener subscribed only to writes to the cache, which does nothing with them.
+     */
+    private static final class WriteListener implements SelectiveCacheListener<String, String> {
+        @Override
+        public boolean isSubscribedTo(Class<?> eventType) {
+            return eventType == CacheItemsAddedEvent.class
+                   || eventType == CacheItemsRemovedEvent.class
+                   || eventType == CacheClearedEvent.class;
+        }
+
+        @Override
+        public void onCacheCleared(CacheClearedEvent<String, String> event) {}
+
+        @Override
+        public void onCacheItemsAdded(CacheItemsAddedEvent<String, String> event) {}
+
+        @Override
+        public void onCacheItemsRemoved(CacheItemsRemovedEvent<String, String> event) {}
+
+        @Override
+        public void onCacheMiss(CacheMissEvent<String, String> event) {}
+
+        @Override
+        public void onCacheHit(CacheHitEvent<String, String> event) {}
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(ManagedCacheBenchmark.class.getSimpleName())
+                                       .addProfiler("gc")
+                                       .build()).run();
+    }
+}
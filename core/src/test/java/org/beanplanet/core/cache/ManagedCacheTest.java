@@ -24,6 +24,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.lang.management.ManagementFactory;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -212,4 +213,221 @@ public class ManagedCacheTest {
         verify(listener).onCacheCleared(any());
         verifyNoMoreInteractions(listener);
     }
+
+    @Test
+    public void get_noListenersSubscribed_noAllocation() {
+        // Given a cache without listeners
+        ManagedCache<String, String> unobservedCache = new ManagedCache<>();
+        unobservedCache.put("key1", "value1");
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int n=0; n < 100_000; n++) {
+            unobservedCache.get("key1");
+            unobservedCache.get("noSuchKey");
+        }
+
+        // When
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int n=0; n < 100_000; n++) {
+            unobservedCache.get("key1");
+            unobservedCache.get("noSuchKey");
+        }
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        // Then lookups allocate nothing, allowing for the measurement itself
+        assertThat(allocated, lessThan(10_000L));
+    }
+
+    @Test
+    public void get_selectiveListenerNotSubscribed_noEventsDispatched() {
+        // Given
+        SelectiveCacheListener<String, String> selectiveListener = mock(SelectiveCacheListener.class);
+        when(selectiveListener.isSubscribedTo(any())).thenReturn(false);
+        when(selectiveListener.isSubscribedTo(CacheItemsAddedEvent.class)).thenReturn(true);
+        ManagedCache<String, String> selectiveCache = new ManagedCache<>();
+        selectiveCache.addCacheListener(selectiveListener);
+
+        // When
+        selectiveCache.put("key1", "value1");
+        selectiveCache.get("key1");
+        selectiveCache.get("noSuchKey");
+        selectiveCache.remove("key1");
+        selectiveCache.clear();
+
+        // Then only the events subscribed to are dispatched
+        verify(selectiveListener).onCacheItemsAdded(any());
+        verify(selectiveListener, never()).onCacheHit(any());
+        verify(selectiveListener, never()).onCacheMiss(any());
+        verify(selectiveListener, never()).onCacheItemsRemoved(any());
+        verify(selectiveListener, never()).onCacheCleared(any());
+    }
+
+    @Test
+    public void removeCacheListener_noEventsDispatched() {
+        // Given
+        cache.removeCacheListener(listener);
+
+        // When
+        cache.put("key1", "value1");
+        cache.get("key1");
+
+        // Then
+        verifyNoInteractions(listener);
+    }
+
+    @Test
+    public void evict_demotedToSecondTierAndPromotedOnHit() {
+        // Given a cache of two items on the heap, with an off-heap second tier
+        OffHeapValueStore<String, String> secondTier = new OffHeapValueStore<>(new StringValueCodec(), 4096, 4096);
+        cache.setSecondTier(secondTier);
+        cache.addCachePolicy(new LruCachePolicy<>(2));
+        cache.put("key1", "value1");
+        cache.put("key2", "value2");
+
+        // When a third item is added
+        cache.put("key3", "value3");
+
+        // Then the least recently used is demoted to the second tier
+        assertThat(cache.size(), equalTo(2));
+        assertThat(secondTier.containsKey("key1"), is(true));
+        assertThat(cache.containsKey("key1"), is(true));
+
+        // And when it is looked up, it is served by the second tier and promoted back to the heap
+        assertThat(cache.get("key1"), equalTo("value1"));
+        ArgumentCaptor<CacheHitEvent> eventCapture = ArgumentCaptor.forClass(CacheHitEvent.class);
+        verify(listener).onCacheHit(eventCapture.capture());
+        assertThat(eventCapture.getValue().getTier(), equalTo(CacheTier.OFF_HEAP));
+        assertThat(cache.getBackingMap().containsKey("key1"), is(true));
+        assertThat(secondTier.containsKey("key1"), is(false));
+        assertThat(secondTier.containsKey("key2"), is(true));
+    }
+
+    @Test
+    public void removeAndClear_spanSecondTier() {
+        // Given
+        OffHeapValueStore<String, String> secondTier = new OffHeapValueStore<>(new StringValueCodec(), 4096, 4096);
+        cache.setSecondTier(secondTier);
+        cache.put("key1", "value1");
+        cache.put("key2", "value2");
+        cache.evict("key1");
+        cache.evict("key2");
+
+        // When
+        assertThat(cache.remove("key1"), equalTo("value1"));
+        assertThat(cache.get("key1"), nullValue());
+        cache.clear();
+
+        // Then
+        assertThat(secondTier.size(), equalTo(0));
+        ArgumentCaptor<CacheMissEvent> eventCapture = ArgumentCaptor.forClass(CacheMissEvent.class);
+        verify(listener).onCacheMiss(eventCapture.capture());
+        assertThat(eventCapture.getValue().getTier(), equalTo(CacheTier.OFF_HEAP));
+    }
+
+    @Test
+    public void put_deletesSupersededValueFromSecondTier() {
+        // Given a value evicted to the second tier
+        OffHeapValueStore<String, String> secondTier = withSecondTier();
+        cache.put("key1", "value1");
+        cache.evict("key1");
+
+        // When a new value is put and then removed
+        cache.put("key1", "value2");
+        assertThat(cache.remove("key1", "value2"), is(true));
+
+        // Then the superseded value is not promoted back
+        assertThat(secondTier.containsKey("key1"), is(false));
+        assertThat(cache.get("key1"), nullValue());
+    }
+
+    @Test
+    public void putAll_deletesSupersededValuesFromSecondTier() {
+        // Given values evicted to the second tier, with no listener interested in additions
+        OffHeapValueStore<String, String> secondTier = withSecondTier();
+        cache.put("key1", "value1");
+        cache.put("key2", "value2");
+        cache.evict("key1");
+        cache.evict("key2");
+        cache.removeCacheListener(listener);
+
+        // When new values are put
+        Map<String, String> values = new HashMap<>();
+        values.put("key1", "value1a");
+        values.put("key2", "value2a");
+        cache.putAll(values);
+
+        // Then the superseded values are deleted from the second tier
+        assertThat(secondTier.size(), equalTo(0));
+
+        // And when the same happens with a listener interested in additions
+        cache.addCacheListener(listener);
+        cache.evict("key1");
+        cache.putAll(Collections.singletonMap("key1", "value1b"));
+        assertThat(secondTier.size(), equalTo(0));
+        assertThat(cache.get("key1"), equalTo("value1b"));
+    }
+
+    @Test
+    public void removeKeyAndValue_removesValueFromSecondTier() {
+        // Given a value evicted to the second tier
+        OffHeapValueStore<String, String> secondTier = withSecondTier();
+        cache.put("key1", "value1");
+        cache.evict("key1");
+
+        // When removed with a different value, then with the value held
+        assertThat(cache.remove("key1", "otherValue"), is(false));
+        assertThat(secondTier.containsKey("key1"), is(true));
+        assertThat(cache.remove("key1", "value1"), is(true));
+
+        // Then it is removed from the second tier, raising a removal event
+        assertThat(secondTier.containsKey("key1"), is(false));
+        assertThat(cache.containsKey("key1"), is(false));
+        ArgumentCaptor<CacheItemsRemovedEvent> eventCapture = ArgumentCaptor.forClass(CacheItemsRemovedEvent.class);
+        verify(listener, times(2)).onCacheItemsRemoved(eventCapture.capture());
+        assertThat(eventCapture.getValue().getEntriesRemoved(), equalTo(singletonList(new ManagedCacheEntry<>("key1", "value1"))));
+    }
+
+    @Test
+    public void replace_replacesValueInEitherTier() {
+        // Given a value on the heap with a stale copy in the second tier, and a value only in the second tier
+        OffHeapValueStore<String, String> secondTier = withSecondTier();
+        cache.put("key1", "value1");
+        secondTier.put("key1", "staleValue");
+        cache.put("key2", "value2");
+        cache.evict("key2");
+
+        // When both are replaced
+        assertThat(cache.replace("key1", "value1", "value1a"), is(true));
+        assertThat(cache.replace("key2", "otherValue", "value2a"), is(false));
+        assertThat(cache.replace("key2", "value2", "value2a"), is(true));
+
+        // Then the replacements are held on the heap, and neither old value remains in the second tier
+        assertThat(secondTier.size(), equalTo(0));
+        assertThat(cache.getBackingMap().get("key1"), equalTo("value1a"));
+        assertThat(cache.getBackingMap().get("key2"), equalTo("value2a"));
+    }
+
+    @Test
+    public void remove_deletesFromSecondTierBeforeRemovalEvent() {
+        // Given a value on the heap with a copy in the second tier
+        OffHeapValueStore<String, String> secondTier = withSecondTier();
+        cache.put("key1", "value1");
+        secondTier.put("key1", "value1");
+        boolean[] heldBySecondTier = new boolean[1];
+        doAnswer(invocation -> heldBySecondTier[0] = secondTier.containsKey("key1")).when(listener).onCacheItemsRemoved(any());
+
+        // When
+        assertThat(cache.remove("key1"), equalTo("value1"));
+
+        // Then
+        verify(listener).onCacheItemsRemoved(any());
+        assertThat(heldBySecondTier[0], is(false));
+        assertThat(cache.containsKey("key1"), is(false));
+    }
+
+    private OffHeapValueStore<String, String> withSecondTier() {
+        OffHeapValueStore<String, String> secondTier = new OffHeapValueStore<>(new StringValueCodec(), 4096, 4096);
+        cache.setSecondTier(secondTier);
+        return secondTier;
+    }
 }
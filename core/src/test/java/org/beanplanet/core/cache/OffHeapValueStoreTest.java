@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.cache;
+
+import org.beanplanet.core.io.resource.FileResource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class OffHeapValueStoreTest {
+    @TempDir
+    File tempDir;
+
+    @Test
+    public void putAndGet_directBuffers() {
+        // Given
+        OffHeapValueStore<String, String> store = new OffHeapValueStore<>(new StringValueCodec(), 64 * 1024, 4096);
+
+        // When
+        assertThat(store.put("key1", "value1"), is(true));
+        assertThat(store.put("key2", "été"), is(true));
+
+        // Then
+        assertThat(store.size(), equalTo(2));
+        assertThat(store.get("key1"), equalTo("value1"));
+        assertThat(store.get("key2"), equalTo("été"));
+        assertThat(store.get("noSuchKey"), nullValue());
+        assertThat(store.getHitCount(), equalTo(2L));
+        assertThat(store.getMissCount(), equalTo(1L));
+        assertThat(store.getAllocatedBytes(), equalTo(4096L));
+    }
+
+    @Test
+    public void putAndGet_memoryMappedFile() throws Exception {
+        // Given
+        FileResource file = new FileResource(new File(tempDir, "store.bin"));
+        try (OffHeapValueStore<String, ArrayList<Integer>> store = new OffHeapValueStore<>(new SerializableValueCodec<>(), 8192, 4096, file)) {
+            ArrayList<Integer> value = new ArrayList<>();
+            for (int n=0; n < 100; n++) {
+                value.add(n);
+            }
+
+            // When
+            store.put("key", value);
+
+            // Then
+            assertThat(store.get("key"), equalTo(value));
+            assertThat(file.getFile().length(), greaterThanOrEqualTo(4096L));
+        }
+    }
+
+    @Test
+    public void put_replacesAndRemoveReleasesChunks() {
+        // Given
+        OffHeapValueStore<String, byte[]> store = new OffHeapValueStore<>(new ByteArrayValueCodec(), 4096, 4096);
+        store.put("key", new byte[10]);
+
+        // When
+        store.put("key", new byte[20]);
+
+        // Then
+        assertThat(store.get("key").length, equalTo(20));
+        assertThat(store.getUsedBytes(), equalTo(20L));
+
+        // And when removed
+        assertThat(store.remove("key").length, equalTo(20));
+        assertThat(store.delete("key"), is(false));
+        assertThat(store.getUsedBytes(), equalTo(0L));
+        assertThat(store.size(), equalTo(0));
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsedOfSizeClassWhenFull() {
+        // Given a store of a single slab, holding 4 chunks of 1KB
+        OffHeapValueStore<String, byte[]> store = new OffHeapValueStore<>(new ByteArrayValueCodec(), 4096, 4096);
+        for (int n=0; n < 4; n++) {
+            assertThat(store.put("key" + n, new byte[1000]), is(true));
+        }
+        store.get("key0");
+
+        // When another value of the same size class is stored
+        assertThat(store.put("key4", new byte[1000]), is(true));
+
+        // Then the least recently used is evicted
+        assertThat(store.getEvictionCount(), equalTo(1L));
+        assertThat(store.containsKey("key0"), is(true));
+        assertThat(store.containsKey("key1"), is(false));
+        assertThat(store.getAllocatedBytes(), equalTo(4096L));
+
+        // And values larger than a slab are rejected
+        assertThat(store.put("huge", new byte[5000]), is(false));
+        assertThat(store.getRejectionCount(), equalTo(1L));
+    }
+
+    @Test
+    public void put_reusesSlabsReleasedBySizeClassNoLongerInUse() {
+        // Given a store of two slabs, both filled with values of one size class
+        OffHeapValueStore<String, byte[]> store = new OffHeapValueStore<>(new ByteArrayValueCodec(), 8192, 4096);
+        for (int n=0; n < 8; n++) {
+            assertThat(store.put("key" + n, new byte[1000]), is(true));
+        }
+
+        // When the values of one slab are removed and values of another size class stored
+        for (int n=0; n < 4; n++) {
+            store.delete("key" + n);
+        }
+        for (int n=0; n < 64; n++) {
+            assertThat(store.put("small" + n, new byte[10]), is(true));
+        }
+
+        // Then the free slab is reassigned, without eviction
+        assertThat(store.getEvictionCount(), equalTo(0L));
+        assertThat(store.size(), equalTo(68));
+        assertThat(store.getAllocatedBytes(), equalTo(8192L));
+    }
+
+    @Test
+    public void put_reclaimsLeastOccupiedSlabOfAnotherSizeClassWhenFull() {
+        // Given a store of two full slabs, one of them only partly occupied
+        OffHeapValueStore<String, byte[]> store = new OffHeapValueStore<>(new ByteArrayValueCodec(), 8192, 4096);
+        for (int n=0; n < 8; n++) {
+            assertThat(store.put("key" + n, new byte[1000]), is(true));
+        }
+        store.delete("key7");
+
+        // When a value of a size class holding no values is stored
+        assertThat(store.put("small", new byte[10]), is(true));
+
+        // Then the least occupied slab is emptied and reassigned to the size class
+        assertThat(store.get("small").length, equalTo(10));
+        assertThat(store.getEvictionCount(), equalTo(3L));
+        assertThat(store.size(), equalTo(5));
+        assertThat(store.getAllocatedBytes(), equalTo(8192L));
+    }
+
+    @Test
+    public void sizeClassOf() {
+        assertThat(OffHeapValueStore.sizeClassOf(0), equalTo(0));
+        assertThat(OffHeapValueStore.sizeClassOf(64), equalTo(0));
+        assertThat(OffHeapValueStore.sizeClassOf(65), equalTo(1));
+        assertThat(OffHeapValueStore.sizeClassOf(128), equalTo(1));
+        assertThat(OffHeapValueStore.sizeClassOf(1000), equalTo(4));
+        assertThat(OffHeapValueStore.chunkSizeOf(4), equalTo(1024));
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class TimeToLiveCachePolicyTest {
+    private final AtomicLong nanoTime = new AtomicLong(123_456_789L);
+    private ManagedCache<String, String> cache;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new ManagedCache<>();
+    }
+
+    @Test
+    public void timeToLive_itemsExpireAfterWrite() {
+        // Given
+        TimeToLiveCachePolicy<String, String> policy = newPolicy(1000, 0);
+        cache.put("key1", "value1");
+
+        // When within the time-to-live
+        advanceMillis(500);
+
+        // Then the item is retained
+        assertThat(policy.expireItems(), equalTo(0));
+        assertThat(cache.containsKey("key1"), is(true));
+
+        // When beyond the time-to-live
+        advanceMillis(600);
+
+        // Then the item is expired
+        assertThat(policy.expireItems(), equalTo(1));
+        assertThat(cache.containsKey("key1"), is(false));
+        assertThat(policy.getNumberOfTimeToLiveItems(), equalTo(0));
+    }
+
+    @Test
+    public void timeToLive_replacedItemExpiresFromLastWrite() {
+        // Given
+        TimeToLiveCachePolicy<String, String> policy = newPolicy(1000, 0);
+        cache.put("key1", "value1");
+        advanceMillis(800);
+
+        // When the item is replaced
+        cache.put("key1", "value2");
+        advanceMillis(800);
+
+        // Then it is retained beyond the time-to-live of the original write
+        assertThat(policy.expireItems(), equalTo(0));
+        assertThat(cache.get("key1"), equalTo("value2"));
+
+        // When beyond the time-to-live of the replacement
+        advanceMillis(300);
+
+        // Then the item is expired
+        assertThat(policy.expireItems(), equalTo(1));
+        assertThat(cache.containsKey("key1"), is(false));
+    }
+
+    @Test
+    public void timeToIdle_accessExtendsExpiry() {
+        // Given
+        TimeToLiveCachePolicy<String, String> policy = newPolicy(0, 1000);
+        cache.put("key1", "value1");
+        cache.put("key2", "value2");
+
+        // When only one item is accessed within the time-to-idle
+        advanceMillis(800);
+        assertThat(cache.get("key1"), equalTo("value1"));
+        policy.expireItems();
+        advanceMillis(700);
+
+        // Then only the idle item is expired
+        assertThat(policy.expireItems(), equalTo(1));
+        assertThat(cache.containsKey("key1"), is(true));
+        assertThat(cache.containsKey("key2"), is(false));
+
+        // When the accessed item becomes idle
+        advanceMillis(400);
+
+        // Then it too is expired
+        assertThat(policy.expireItems(), equalTo(1));
+        assertThat(cache.isEmpty(), is(true));
+    }
+
+    @Test
+    public void timeToLive_longPeriodsCascadeThroughWheel() {
+        // Given
+        TimeToLiveCachePolicy<String, String> policy = newPolicy(TimeUnit.HOURS.toMillis(2), 0);
+        cache.put("key1", "value1");
+
+        // When time advances in steps within the time-to-live
+        for (int minute=0; minute < 119; minute++) {
+            advanceMillis(TimeUnit.MINUTES.toMillis(1));
+            assertThat(policy.expireItems(), equalTo(0));
+        }
+
+        // Then the item is retained until the time-to-live has passed
+        assertThat(cache.containsKey("key1"), is(true));
+        advanceMillis(TimeUnit.MINUTES.toMillis(1) + 1);
+        assertThat(policy.expireItems(), equalTo(1));
+        assertThat(cache.containsKey("key1"), is(false));
+    }
+
+    @Test
+    public void remove_itemNoLongerTracked() {
+        // Given
+        TimeToLiveCachePolicy<String, String> policy = newPolicy(1000, 0);
+        cache.put("key1", "value1");
+
+        // When
+        cache.remove("key1");
+        advanceMillis(2000);
+
+        // Then
+        assertThat(policy.getNumberOfTimeToLiveItems(), equalTo(0));
+        assertThat(policy.expireItems(), equalTo(0));
+    }
+
+    @Test
+    public void secondTier_evictedItemsExpireAndKeepExpiryWhenPromoted() {
+        // Given items evicted to the second tier of the cache
+        cache.setSecondTier(new OffHeapValueStore<>(new StringValueCodec(), 4096, 4096));
+        TimeToLiveCachePolicy<String, String> policy = newPolicy(1000, 0);
+        cache.put("key1", "value1");
+        cache.put("key2", "value2");
+        cache.evict("key1");
+        cache.evict("key2");
+        advanceMillis(800);
+
+        // When one is promoted back to the heap
+        assertThat(cache.get("key1"), equalTo("value1"));
+
+        // Then both remain tracked and expire from the time they were written
+        assertThat(policy.getNumberOfTimeToLiveItems(), equalTo(2));
+        advanceMillis(300);
+        assertThat(policy.expireItems(), equalTo(2));
+        assertThat(cache.get("key1"), nullValue());
+        assertThat(cache.get("key2"), nullValue());
+        assertThat(cache.getSecondTier().size(), equalTo(0));
+        assertThat(policy.getNumberOfTimeToLiveItems(), equalTo(0));
+    }
+
+    @Test
+    public void secondTier_evictedValuesWithoutEqualityExpire() {
+        // Given values whose decoded copies are never equal to the values evicted to the second tier
+        ManagedCache<String, byte[]> byteArrayCache = new ManagedCache<>();
+        byteArrayCache.setSecondTier(new OffHeapValueStore<>(new ByteArrayValueCodec(), 4096, 4096));
+        TimeToLiveCachePolicy<String, byte[]> policy = new TimeToLiveCachePolicy<>(1000, 0, nanoTime::get);
+        policy.setExpiredItemCheckIntervalMillis(0);
+        byteArrayCache.addCachePolicy(policy);
+        byteArrayCache.put("key1", new byte[] { 1 });
+        byteArrayCache.put("key2", new byte[] { 2 });
+        byteArrayCache.evict("key1");
+        byteArrayCache.evict("key2");
+        advanceMillis(800);
+        assertThat(byteArrayCache.get("key1"), equalTo(new byte[] { 1 }));
+
+        // When beyond the time-to-live
+        advanceMillis(300);
+
+        // Then both the promoted and the demoted items are expired, and neither is promoted with a new expiry
+        assertThat(policy.expireItems(), equalTo(2));
+        assertThat(byteArrayCache.getSecondTier().size(), equalTo(0));
+        assertThat(byteArrayCache.get("key1"), nullValue());
+        assertThat(byteArrayCache.get("key2"), nullValue());
+        assertThat(policy.getNumberOfTimeToLiveItems(), equalTo(0));
+    }
+
+    @Test
+    public void sharedScheduler_expiresItemsInBackground() throws Exception {
+        // Given
+        TimeToLiveCachePolicy<String, String> policy = new TimeToLiveCachePolicy<>(100);
+        policy.setExpiredItemCheckIntervalMillis(50);
+        cache.addCachePolicy(policy);
+
+        // When
+        cache.put("key1", "value1");
+
+        // Then
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (cache.containsKey("key1") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(cache.containsKey("key1"), is(false));
+    }
+
+    private TimeToLiveCachePolicy<String, String> newPolicy(long timeToLiveMillis, long timeToIdleMillis) {
+        TimeToLiveCachePolicy<String, String> policy = new TimeToLiveCachePolicy<>(timeToLiveMillis, timeToIdleMillis, nanoTime::get);
+        policy.setExpiredItemCheckIntervalMillis(0);
+        cache.addCachePolicy(policy);
+        return policy;
+    }
+
+    private void advanceMillis(long millis) {
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
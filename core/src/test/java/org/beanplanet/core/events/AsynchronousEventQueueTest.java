@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.events;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AsynchronousEventQueueTest {
+    /** Drain tasks held until run explicitly, so queue contents are deterministic. */
+    private final List<Runnable> drainTasks = new ArrayList<>();
+
+    private AsynchronousEventQueue<Event> heldQueue(int capacity, BackpressurePolicy policy) {
+        AsynchronousEventQueue<Event> queue = new AsynchronousEventQueue<>(capacity, policy);
+        queue.setExecutor(drainTasks::add);
+        return queue;
+    }
+
+    private void runDrainTasks() {
+        while (!drainTasks.isEmpty()) {
+            drainTasks.remove(0).run();
+        }
+    }
+
+    @Test
+    public void capacityRoundedUpToPowerOfTwo() {
+        assertThat(new AsynchronousEventQueue<>(1, BackpressurePolicy.BLOCK).getCapacity(), equalTo(1));
+        assertThat(new AsynchronousEventQueue<>(5, BackpressurePolicy.BLOCK).getCapacity(), equalTo(8));
+        assertThat(new AsynchronousEventQueue<>(64, BackpressurePolicy.BLOCK).getCapacity(), equalTo(64));
+    }
+
+    @Test
+    public void eventSupport_eventsDeliveredOffTheDispatchingThreadInOrder() {
+        // Given
+        EventSupport eventSupport = new EventSupport();
+        AsynchronousEventQueue<Event> queue = new AsynchronousEventQueue<>(16, BackpressurePolicy.BLOCK);
+        eventSupport.setAsynchronousQueue(queue);
+        List<String> calls = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        eventSupport.addListener(ChangeEvent.class, (ChangeListener<String>)event -> {
+            calls.add(event.getNewValue());
+            threads.add(Thread.currentThread());
+        });
+
+        // When
+        for (int n=0; n < 100; n++) {
+            eventSupport.dispatchEvent(new ChangeEvent<>("old", String.valueOf(n)));
+        }
+
+        // Then
+        assertThat(queue.awaitDrained(10_000), is(true));
+        assertThat(calls, hasSize(100));
+        for (int n=0; n < 100; n++) {
+            assertThat(calls.get(n), equalTo(String.valueOf(n)));
+        }
+        assertThat(threads, everyItem(not(Thread.currentThread())));
+        assertThat(queue.getPublishedCount(), equalTo(100L));
+        assertThat(queue.getDeliveredCount(), equalTo(100L));
+        assertThat(queue.getDroppedCount(), equalTo(0L));
+    }
+
+    @Test
+    public void eventSupport_batchListenersPassedEventsInBatches() {
+        // Given
+        EventSupport eventSupport = new EventSupport();
+        AsynchronousEventQueue<Event> queue = heldQueue(16, BackpressurePolicy.BLOCK);
+        queue.setMaximumBatchSize(4);
+        eventSupport.setAsynchronousQueue(queue);
+        List<List<ChangeEvent<String>>> batches = new ArrayList<>();
+        List<String> calls = new ArrayList<>();
+        eventSupport.addListener(ChangeEvent.class, (BatchEventListener<ChangeEvent<String>>)events -> batches.add(new ArrayList<>(events)));
+        eventSupport.addListener(ChangeEvent.class, (ChangeListener<String>)event -> calls.add(event.getNewValue()));
+
+        // When
+        for (int n=0; n < 10; n++) {
+            eventSupport.dispatchEvent(new ChangeEvent<>("old", String.valueOf(n)));
+        }
+        runDrainTasks();
+
+        // Then
+        assertThat(batches, hasSize(3));
+        assertThat(batches.get(0), hasSize(4));
+        assertThat(batches.get(1), hasSize(4));
+        assertThat(batches.get(2), hasSize(2));
+        assertThat(batches.get(2).get(1).getNewValue(), equalTo("9"));
+        assertThat(calls, hasSize(10));
+        assertThat(queue.getBatchCount(), equalTo(3L));
+    }
+
+    @Test
+    public void eventSupport_batchListenerPassedSingleEventWhenSynchronous() {
+        // Given
+        EventSupport eventSupport = new EventSupport();
+        List<List<ChangeEvent<String>>> batches = new ArrayList<>();
+        eventSupport.addListener(ChangeEvent.class, (BatchEventListener<ChangeEvent<String>>)events -> batches.add(new ArrayList<>(events)));
+
+        // When
+        eventSupport.dispatchEvent(new ChangeEvent<>("old", "new"));
+
+        // Then
+        assertThat(batches, hasSize(1));
+        assertThat(batches.get(0), hasSize(1));
+    }
+
+    @Test
+    public void dropOldest_oldestEventsDiscardedWhenFull() {
+        // Given
+        AsynchronousEventQueue<Event> queue = heldQueue(4, BackpressurePolicy.DROP_OLDEST);
+        List<Event> delivered = new ArrayList<>();
+        queue.attach(delivered::addAll);
+        List<Event> events = new ArrayList<>();
+        for (int n=0; n < 10; n++) {
+            events.add(new ChangeEvent<>("old", String.valueOf(n)));
+        }
+
+        // When
+        events.forEach(queue::publish);
+        runDrainTasks();
+
+        // Then
+        assertThat(delivered, contains(events.subList(6, 10).toArray()));
+        assertThat(queue.getDroppedCount(), equalTo(6L));
+        assertThat(queue.getHighWaterMark(), equalTo(4));
+    }
+
+    @Test
+    public void sample_onlySampledEventsQueuedOnceHalfFull() {
+        // Given
+        AsynchronousEventQueue<Event> queue = heldQueue(8, BackpressurePolicy.SAMPLE);
+        queue.setSampleRate(2);
+        List<Event> delivered = new ArrayList<>();
+        queue.attach(delivered::addAll);
+
+        // When
+        for (int n=0; n < 12; n++) {
+            queue.publish(new ChangeEvent<>("old", String.valueOf(n)));
+        }
+        runDrainTasks();
+
+        // Then the first 4 are queued, then every second until full and the rest dropped
+        assertThat(delivered, hasSize(8));
+        assertThat(queue.getDroppedCount(), equalTo(4L));
+    }
+
+    @Test
+    public void block_publisherWaitsForRoom() throws Exception {
+        // Given
+        AsynchronousEventQueue<Event> queue = new AsynchronousEventQueue<>(2, BackpressurePolicy.BLOCK);
+        List<Event> delivered = Collections.synchronizedList(new ArrayList<>());
+        queue.attach(batch -> {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException ignoreEx) {}
+            delivered.addAll(batch);
+        });
+
+        // When
+        for (int n=0; n < 20; n++) {
+            queue.publish(new ChangeEvent<>("old", String.valueOf(n)));
+        }
+
+        // Then
+        assertThat(queue.awaitDrained(10_000), is(true));
+        assertThat(delivered, hasSize(20));
+        assertThat(queue.getDroppedCount(), equalTo(0L));
+        assertThat(queue.getBlockedCount(), greaterThan(0L));
+    }
+
+    @Test
+    public void block_publishingToFullUnattachedQueueFails() {
+        // Given
+        AsynchronousEventQueue<Event> queue = new AsynchronousEventQueue<>(2, BackpressurePolicy.BLOCK);
+        queue.publish(new ChangeEvent<>("old", "1"));
+        queue.publish(new ChangeEvent<>("old", "2"));
+
+        // Then
+        assertThrows(IllegalStateException.class, () -> queue.publish(new ChangeEvent<>("old", "3")));
+        assertThat(queue.getQueueDepth(), equalTo(2));
+        assertThat(queue.getBlockedCount(), equalTo(0L));
+    }
+
+    @Test
+    public void eventSupport_listenerWithItsOwnQueueCalledAsynchronously() {
+        // Given
+        EventSupport eventSupport = new EventSupport();
+        AsynchronousEventQueue<ChangeEvent> queue = new AsynchronousEventQueue<>(16, BackpressurePolicy.BLOCK);
+        queue.setExecutor(drainTasks::add);
+        List<String> calls = new ArrayList<>();
+        ChangeListener<String> queuedListener = event -> calls.add("queued:" + event.getNewValue());
+        eventSupport.addListener(ChangeEvent.class, queuedListener, queue);
+        eventSupport.addListener(ChangeEvent.class, (ChangeListener<String>)event -> calls.add("direct:" + event.getNewValue()));
+
+        // When
+        eventSupport.dispatchEvent(new ChangeEvent<>("old", "new"));
+        List<String> callsBeforeDrain = new ArrayList<>(calls);
+        runDrainTasks();
+
+        // Then
+        assertThat(callsBeforeDrain, contains("direct:new"));
+        assertThat(calls, contains("direct:new", "queued:new"));
+        assertThat(eventSupport.getListeners(ChangeEvent.class, ChangeListener.class), hasItem(queuedListener));
+        assertThat(eventSupport.removeListener(ChangeEvent.class, queuedListener), is(true));
+    }
+
+    @Test
+    public void attach_queueMayBeUsedOnlyOnce() {
+        AsynchronousEventQueue<Event> queue = new AsynchronousEventQueue<>();
+        new EventSupport().setAsynchronousQueue(queue);
+
+        assertThrows(IllegalStateException.class, () -> new EventSupport().setAsynchronousQueue(queue));
+    }
+}
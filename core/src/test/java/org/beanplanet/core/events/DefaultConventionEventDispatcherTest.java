@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.events;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DefaultConventionEventDispatcherTest {
+    @Test
+    public void dispatchEvent_reflectiveInvoker() throws Exception {
+        // Given
+        List<String> calls = new ArrayList<>();
+        ChangeListener<String> listener = event -> calls.add(event.getNewValue());
+        DefaultConventionEventDispatcher<ChangeEvent<String>, ChangeListener<String>> dispatcher = new DefaultConventionEventDispatcher<>();
+
+        // When
+        dispatcher.dispatchEvent(new ChangeEvent<>("old", "1"), listener);
+        dispatcher.dispatchEvent(new ChangeEvent<>("old", "2"), listener);
+
+        // Then
+        assertThat(calls, contains("1", "2"));
+    }
+
+    @Test
+    public void dispatchEvent_generatedInvoker() throws Exception {
+        // Given
+        List<String> calls = new ArrayList<>();
+        ChangeListener<String> listener = event -> calls.add(event.getNewValue());
+        DefaultConventionEventDispatcher<ChangeEvent<String>, ChangeListener<String>> dispatcher = new DefaultConventionEventDispatcher<>(true);
+
+        // When
+        dispatcher.dispatchEvent(new ChangeEvent<>("old", "1"), listener);
+        dispatcher.dispatchEvent(new ChangeEvent<>("old", "2"), listener);
+
+        // Then
+        assertThat(dispatcher.isGenerateInvokers(), is(true));
+        assertThat(calls, contains("1", "2"));
+    }
+
+    @Test
+    public void dispatchEvent_generatedInvokerPropagatesListenerExceptions() {
+        // Given
+        IllegalStateException failure = new IllegalStateException();
+        ChangeListener<String> listener = event -> { throw failure; };
+        DefaultConventionEventDispatcher<ChangeEvent<String>, ChangeListener<String>> dispatcher = new DefaultConventionEventDispatcher<>(true);
+
+        // When
+        Exception thrown = assertThrows(Exception.class, () -> dispatcher.dispatchEvent(new ChangeEvent<>("old", "new"), listener));
+
+        // Then
+        assertThat(thrown, sameInstance(failure));
+    }
+
+    @Test
+    public void dispatchEvent_listenerWithoutEventMethodThrows() {
+        // Given
+        PropertyChangeEvent<String> event = new PropertyChangeEvent<>(this, "name", "old", "new");
+        DefaultConventionEventDispatcher<PropertyChangeEvent<String>, EventListener> dispatcher = new DefaultConventionEventDispatcher<>(true);
+        EventListener listener = new EventListener() {};
+
+        // Then
+        assertThrows(NoSuchMethodException.class, () -> dispatcher.dispatchEvent(event, listener));
+        assertThrows(NoSuchMethodException.class, () -> dispatcher.dispatchEvent(event, listener));
+    }
+}
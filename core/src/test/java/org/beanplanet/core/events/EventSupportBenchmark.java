@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.events;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of {@link EventSupport} dispatch to a handful of listeners from 1, 4 and 16 publisher threads. With
+ * lock-free dispatch, throughput should scale with the number of publisher threads, up to the number of cores.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventSupportBenchmark {
+    private final EventSupport eventSupport = new EventSupport();
+    private final ChangeEvent<String> event = new ChangeEvent<>("old", "new");
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        EventDispatcher<ChangeEvent<String>, ChangeListener<String>> dispatcher = (event, listener) -> listener.onChange(event);
+        for (int n=0; n < 4; n++) {
+            eventSupport.addListener((Class<ChangeEvent<String>>)(Class<?>)ChangeEvent.class, (ChangeListener<String>)blackhole::consume, dispatcher);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void dispatch_1Publisher() {
+        eventSupport.dispatchEvent(event);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void dispatch_4Publishers() {
+        eventSupport.dispatchEvent(event);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void dispatch_16Publishers() {
+        eventSupport.dispatchEvent(event);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(EventSupportBenchmark.class.getSimpleName()).build()).run();
+    }
+}
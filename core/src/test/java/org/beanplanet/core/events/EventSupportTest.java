@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.events;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class EventSupportTest {
+    private final EventSupport eventSupport = new EventSupport();
+
+    @Test
+    public void dispatchEvent_listenersCalledInRegistrationOrder() {
+        // Given
+        List<String> calls = new ArrayList<>();
+        eventSupport.addListener(ChangeEvent.class, (ChangeListener<String>)event -> calls.add("first:" + event.getNewValue()));
+        eventSupport.addListener(ChangeEvent.class, (ChangeListener<String>)event -> calls.add("second:" + event.getNewValue()));
+
+        // When
+        eventSupport.dispatchEvent(new ChangeEvent<>("old", "new"));
+
+        // Then
+        assertThat(calls, contains("first:new", "second:new"));
+    }
+
+    @Test
+    public void dispatchEvent_subclassEventsDispatchedToSupertypeListeners() {
+        // Given
+        List<Event> events = new ArrayList<>();
+        eventSupport.addListener(BaseEvent.class, (ChangeListener<String>)events::add, (event, listener) -> listener.onChange((ChangeEvent<String>)event));
+        ChangeEvent<String> event = new ChangeEvent<>("old", "new");
+
+        // When
+        eventSupport.dispatchEvent(event);
+
+        // Then
+        assertThat(events, contains(event));
+    }
+
+    @Test
+    public void dispatchEvent_listenerChangesSeenByNextDispatch() {
+        // Given an event dispatched before any listener is added, caching its absence
+        List<String> calls = new ArrayList<>();
+        eventSupport.dispatchEvent(new ChangeEvent<>("old", "new"));
+        ChangeListener<String> listener = event -> calls.add(event.getNewValue());
+
+        // When
+        eventSupport.addListener(ChangeEvent.class, listener);
+        eventSupport.dispatchEvent(new ChangeEvent<>("old", "added"));
+        eventSupport.removeListener(ChangeEvent.class, listener);
+        eventSupport.dispatchEvent(new ChangeEvent<>("old", "removed"));
+
+        // Then
+        assertThat(calls, contains("added"));
+    }
+
+    @Test
+    public void dispatchEvent_listenerAddedDuringDispatchNotCalledUntilNextDispatch() {
+        // Given
+        List<String> calls = new ArrayList<>();
+        ChangeListener<String> lateListener = event -> calls.add("late:" + event.getNewValue());
+        eventSupport.addListener(ChangeEvent.class, (ChangeListener<String>)event -> {
+            calls.add("early:" + event.getNewValue());
+            eventSupport.addListener(ChangeEvent.class, lateListener);
+        });
+
+        // When
+        eventSupport.dispatchEvent(new ChangeEvent<>("old", "1"));
+        eventSupport.dispatchEvent(new ChangeEvent<>("old", "2"));
+
+        // Then
+        assertThat(calls, contains("early:1", "early:2", "late:2"));
+    }
+
+    @Test
+    public void dispatchEvent_listenerExceptionsIgnored() {
+        // Given
+        List<String> calls = new ArrayList<>();
+        eventSupport.addListener(ChangeEvent.class, (ChangeListener<String>)event -> { throw new IllegalStateException(); });
+        eventSupport.addListener(ChangeEvent.class, (ChangeListener<String>)event -> calls.add(event.getNewValue()));
+
+        // When
+        eventSupport.dispatchEvent(new ChangeEvent<>("old", "new"));
+
+        // Then
+        assertThat(calls, contains("new"));
+    }
+
+    @Test
+    public void removeListener_eventTypeOfLambdaListenerResolvedFromItsInterface() {
+        // Given
+        List<String> calls = new ArrayList<>();
+        ChangeListener<String> listener = event -> calls.add(event.getNewValue());
+        eventSupport.addListener(ChangeEvent.class, listener);
+
+        // When
+        boolean removed = eventSupport.removeListener(listener);
+        eventSupport.dispatchEvent(new ChangeEvent<>("old", "new"));
+
+        // Then
+        assertThat(removed, is(true));
+        assertThat(calls, empty());
+    }
+
+    @Test
+    public void addListener_conventionDispatcherResolvedOnceAndShared() {
+        // Given
+        EventSupport otherEventSupport = new EventSupport();
+
+        // When
+        eventSupport.addListener(ChangeEvent.class, (ChangeListener<String>)event -> {});
+        otherEventSupport.addListener(ChangeEvent.class, (ChangeListener<String>)event -> {});
+
+        // Then
+        assertThat(eventSupport.getEventInfo(ChangeEvent.class).getDispatcher(), instanceOf(ChangeEventDispatcher.class));
+        assertThat(eventSupport.getEventInfo(ChangeEvent.class).getDispatcher(), sameInstance(otherEventSupport.getEventInfo(ChangeEvent.class).getDispatcher()));
+    }
+}
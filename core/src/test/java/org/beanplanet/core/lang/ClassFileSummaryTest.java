@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.lang;
+
+import org.beanplanet.core.lang.conversion.PrimitiveTypeConverter;
+import org.beanplanet.core.lang.conversion.StaticMethodTypeConverter;
+import org.beanplanet.core.lang.conversion.TypeConverter;
+import org.beanplanet.core.lang.conversion.system.LongConverter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ClassFileSummaryTest {
+    private static ClassFileSummary summaryOf(Class<?> type) throws IOException {
+        try (InputStream classFileStream = type.getResourceAsStream("/" + type.getName().replace('.', '/') + ".class")) {
+            return ClassFileSummary.read(classFileStream);
+        }
+    }
+
+    @Test
+    public void read_classDeclaration() throws IOException {
+        // When
+        ClassFileSummary summary = summaryOf(StaticMethodTypeConverter.class);
+
+        // Then
+        assertThat(summary.getClassName(), equalTo(StaticMethodTypeConverter.class.getName()));
+        assertThat(summary.getSuperclassName(), equalTo(Object.class.getName()));
+        assertThat(summary.getInterfaceNames(), contains(PrimitiveTypeConverter.class.getName()));
+        assertThat(summary.isInterface(), is(false));
+        assertThat(summary.getAnnotationNames(), empty());
+    }
+
+    @Test
+    public void read_runtimeVisibleAnnotations() throws IOException {
+        // When
+        ClassFileSummary summary = summaryOf(LongConverter.class);
+
+        // Then
+        assertThat(summary.isAnnotatedWith(org.beanplanet.core.lang.conversion.annotations.TypeConverter.class), is(true));
+        assertThat(summary.isAnnotatedWith(Deprecated.class), is(false));
+        assertThat(summaryOf(Map.Entry.class).getClassName(), equalTo("java.util.Map$Entry"));
+        assertThat(summaryOf(Map.Entry.class).isInterface(), is(true));
+    }
+
+    @Test
+    public void mayBeAssignableTo() throws IOException {
+        // Directly implemented
+        assertThat(summaryOf(StaticMethodTypeConverter.class).mayBeAssignableTo(PrimitiveTypeConverter.class), is(true));
+        // Through a supertype outside of the JDK
+        assertThat(summaryOf(StaticMethodTypeConverter.class).mayBeAssignableTo(TypeConverter.class), is(true));
+        // No supertypes but Object
+        assertThat(summaryOf(LongConverter.class).mayBeAssignableTo(TypeConverter.class), is(false));
+        // Supertypes of the JDK only
+        assertThat(summaryOf(IOException.class).mayBeAssignableTo(TypeConverter.class), is(false));
+        assertThat(summaryOf(IOException.class).mayBeAssignableTo(Serializable.class), is(true));
+    }
+
+    @Test
+    public void read_malformedClassFile() {
+        assertThrows(IOException.class, () -> ClassFileSummary.read(new byte[] { 1, 2, 3, 4 }));
+        assertThrows(IOException.class, () -> ClassFileSummary.read(new byte[] { (byte)0xCA, (byte)0xFE, (byte)0xBA, (byte)0xBE, 0, 0 }));
+    }
+}
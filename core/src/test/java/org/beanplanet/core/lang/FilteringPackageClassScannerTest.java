@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.lang;
+
+import org.beanplanet.core.lang.conversion.annotations.TypeConverter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static java.util.stream.Collectors.toSet;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class FilteringPackageClassScannerTest {
+    private static final String CONVERTERS_PACKAGE = "org.beanplanet.core.lang.conversion.system";
+    private static final Predicate<Class<?>> ANNOTATED = type -> type.isAnnotationPresent(TypeConverter.class);
+
+    public static class RunnableFixture implements Runnable {
+        public void run() {}
+    }
+
+    public static class CallableFixture implements java.util.concurrent.Callable<Object>, Runnable {
+        public Object call() { return null; }
+        public void run() {}
+    }
+
+    @Test
+    public void findResourcesInPackages_classFileFilterAgreesWithFilter() {
+        // Given
+        FilteringPackageClassScanner loadingScanner = new FilteringPackageClassScanner(ANNOTATED);
+        FilteringPackageClassScanner prefilteringScanner = new FilteringPackageClassScanner(ANNOTATED, ClassFileSummary.withAnnotation(TypeConverter.class));
+
+        // When
+        Set<Class<?>> loaded = loadingScanner.findResourcesInPackages(CONVERTERS_PACKAGE);
+        Set<Class<?>> prefiltered = prefilteringScanner.findResourcesInPackages(CONVERTERS_PACKAGE);
+
+        // Then
+        assertThat(loaded, not(empty()));
+        assertThat(prefiltered, equalTo(loaded));
+    }
+
+    @Test
+    public void findResourcesInPackages_sequentialAgreesWithParallel() {
+        // Given
+        FilteringPackageClassScanner sequentialScanner = new FilteringPackageClassScanner(ANNOTATED);
+        sequentialScanner.setParallel(false);
+
+        // Then
+        assertThat(new FilteringPackageClassScanner(ANNOTATED).findResourcesInPackages(CONVERTERS_PACKAGE),
+                   contains(sequentialScanner.findResourcesInPackages(CONVERTERS_PACKAGE).toArray()));
+    }
+
+    @Test
+    public void findResourcesInPackage_archiveRescannedOnlyOnceModified(@TempDir Path tempDir) throws IOException {
+        // Given an archive of one runnable class
+        Path archive = tempDir.resolve("fixtures.jar");
+        writeArchive(archive, RunnableFixture.class);
+        FilteringPackageClassScanner scanner = new FilteringPackageClassScanner(Runnable.class::isAssignableFrom,
+                                                                                ClassFileSummary.possiblyAssignableTo(Runnable.class));
+
+        try (URLClassLoader archiveClassLoader = new URLClassLoader(new URL[] { archive.toUri().toURL() }, ClassLoader.getPlatformClassLoader())) {
+            // When
+            Set<String> found = classNames(scanner.findResourcesInPackage(getClass().getPackage().getName(), archiveClassLoader));
+
+            // Then
+            assertThat(found, contains(RunnableFixture.class.getName()));
+        }
+
+        // Given the archive is modified
+        writeArchive(archive, RunnableFixture.class, CallableFixture.class);
+        Files.setLastModifiedTime(archive, FileTime.fromMillis(Files.getLastModifiedTime(archive).toMillis() + 2000));
+
+        try (URLClassLoader archiveClassLoader = new URLClassLoader(new URL[] { archive.toUri().toURL() }, ClassLoader.getPlatformClassLoader())) {
+            // When
+            Set<String> found = classNames(scanner.findResourcesInPackage(getClass().getPackage().getName(), archiveClassLoader));
+
+            // Then
+            assertThat(found, containsInAnyOrder(RunnableFixture.class.getName(), CallableFixture.class.getName()));
+        }
+    }
+
+    private static Set<String> classNames(Set<Class<?>> classes) {
+        return classes.stream().map(Class::getName).collect(toSet());
+    }
+
+    private static void writeArchive(Path archive, Class<?>... classes) throws IOException {
+        try (JarOutputStream jarStream = new JarOutputStream(Files.newOutputStream(archive))) {
+            // Directory entries, through which class loaders find the package
+            String packagePath = "";
+            for (String packageName : classes[0].getPackage().getName().split("\\.")) {
+                packagePath += packageName + "/";
+                jarStream.putNextEntry(new JarEntry(packagePath));
+                jarStream.closeEntry();
+            }
+
+            for (Class<?> type : classes) {
+                String resourceName = type.getName().replace('.', '/') + ".class";
+                jarStream.putNextEntry(new JarEntry(resourceName));
+                try (InputStream classFileStream = type.getClassLoader().getResourceAsStream(resourceName)) {
+                    classFileStream.transferTo(jarStream);
+                }
+                jarStream.closeEntry();
+            }
+        }
+    }
+}
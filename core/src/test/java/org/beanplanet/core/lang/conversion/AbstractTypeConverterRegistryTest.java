@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.lang.conversion;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class AbstractTypeConverterRegistryTest {
+    private final AbstractTypeConverterRegistry registry = new AbstractTypeConverterRegistry() {};
+    private final TypeConverter stringToInteger = new TypeConverter() {
+        @Override
+        public <T> T convert(Object value, Class<T> targetType) {
+            return targetType.cast(Integer.valueOf((String)value));
+        }
+    };
+
+    @Test
+    public void lookup_resolvedOnceAndCached() {
+        // Given
+        registry.addConverter(String.class, Integer.class, stringToInteger);
+
+        // When
+        Optional<TypeConverter> converter = registry.lookup(String.class, Integer.class);
+
+        // Then the composite of one converter is resolved to the converter itself
+        assertThat(converter.get(), sameInstance(stringToInteger));
+        assertThat(registry.lookup(String.class, Integer.class), sameInstance(converter));
+    }
+
+    @Test
+    public void lookup_sourceSupertypeConverterResolved() {
+        // Given
+        TypeConverter collectionToList = new TypeConverter() {
+            @Override
+            public <T> T convert(Object value, Class<T> targetType) {
+                return targetType.cast(new ArrayList<>((Collection<?>)value));
+            }
+        };
+        registry.addConverter(Collection.class, List.class, collectionToList);
+
+        // Then
+        assertThat(registry.lookup(ArrayList.class, List.class).get(), sameInstance(collectionToList));
+    }
+
+    @Test
+    public void lookup_unsupportedConversionCachedUntilConvertersChange() {
+        // Given
+        Optional<TypeConverter> unsupported = registry.lookup(String.class, Integer.class);
+
+        // When
+        registry.addConverter(String.class, Integer.class, stringToInteger);
+
+        // Then
+        assertThat(unsupported.isPresent(), is(false));
+        assertThat(registry.lookup(String.class, Integer.class).get(), sameInstance(stringToInteger));
+    }
+
+    @Test
+    public void clear_resolvedConvertersDiscarded() {
+        // Given
+        registry.addConverter(String.class, Integer.class, stringToInteger);
+        registry.addConverter(String.class, stringToInteger);
+        registry.lookup(String.class, Integer.class);
+
+        // When
+        registry.clear();
+
+        // Then
+        assertThat(registry.lookup(String.class, Integer.class).isPresent(), is(false));
+    }
+
+    @Test
+    public void lookup_compositeOfSeveralConvertersResolvedToComposite() {
+        // Given
+        registry.addConverter(String.class, Integer.class, stringToInteger);
+        registry.addConverter(String.class, Integer.class, stringToInteger);
+
+        // Then
+        assertThat(registry.lookup(String.class, Integer.class).get(), instanceOf(CompositeTypeConverter.class));
+    }
+}
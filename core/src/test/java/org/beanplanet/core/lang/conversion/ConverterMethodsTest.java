@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.lang.conversion;
+
+import org.beanplanet.core.UncheckedException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ConverterMethodsTest {
+    public static int parseInt(String value) {
+        return Integer.parseInt(value);
+    }
+
+    public static Object toTargetType(Integer value, Class<?> targetType) {
+        return targetType == BigDecimal.class ? BigDecimal.valueOf(value) : String.valueOf(value);
+    }
+
+    public static String failChecked(String value) throws IOException {
+        throw new IOException(value);
+    }
+
+    public String prefix(String value) {
+        return "prefix-" + value;
+    }
+
+    private static final class Hidden {
+        private static long doubled(long value) {
+            return value * 2;
+        }
+    }
+
+    @Test
+    public void staticMethod_primitiveResultBoxed() throws Exception {
+        // Given
+        StaticMethodTypeConverter converter = new StaticMethodTypeConverter(getClass().getMethod("parseInt", String.class));
+
+        // Then
+        assertThat(converter.convert("123", Integer.class), equalTo(123));
+    }
+
+    @Test
+    public void staticMethod_targetTypePassed() throws Exception {
+        // Given
+        StaticMethodTypeConverter converter = new StaticMethodTypeConverter(getClass().getMethod("toTargetType", Integer.class, Class.class));
+
+        // Then
+        assertThat(converter.convert(5, BigDecimal.class), equalTo(BigDecimal.valueOf(5)));
+        assertThat(converter.convert(5, String.class), equalTo("5"));
+    }
+
+    @Test
+    public void inaccessibleMethod_calledThroughMethodHandle() throws Exception {
+        // Given
+        StaticMethodTypeConverter converter = new StaticMethodTypeConverter(Hidden.class.getDeclaredMethod("doubled", long.class));
+
+        // Then
+        assertThat(converter.convert(21L, Long.class), equalTo(42L));
+    }
+
+    @Test
+    public void staticMethod_primitiveResultUnboxed() throws Exception {
+        // Given
+        StaticMethodTypeConverter converter = new StaticMethodTypeConverter(getClass().getMethod("parseInt", String.class));
+
+        // Then the int is returned unboxed and other primitives take the boxed path
+        assertThat(converter.convertToInt("123"), equalTo(123));
+        assertThat(converter.convertToLong("123"), equalTo(123L));
+        assertThat(converter.convertToDouble("123"), equalTo(123d));
+    }
+
+    @Test
+    public void inaccessibleMethod_primitiveResultCalledThroughMethodHandle() throws Exception {
+        // Given
+        StaticMethodTypeConverter converter = new StaticMethodTypeConverter(Hidden.class.getDeclaredMethod("doubled", long.class));
+
+        // Then
+        assertThat(converter.convertToLong(21L), equalTo(42L));
+    }
+
+    @Test
+    public void instanceMethod_boundToTarget() throws Exception {
+        // Given
+        InstanceMethodTypeConverter converter = new InstanceMethodTypeConverter(new ConverterMethodsTest(), getClass().getMethod("prefix", String.class));
+
+        // Then
+        assertThat(converter.convert("value", String.class), equalTo("prefix-value"));
+    }
+
+    @Test
+    public void checkedExceptions_wrapped() throws Exception {
+        // Given
+        StaticMethodTypeConverter converter = new StaticMethodTypeConverter(getClass().getMethod("failChecked", String.class));
+
+        // When
+        UncheckedException thrown = assertThrows(UncheckedException.class, () -> converter.convert("failed", String.class));
+
+        // Then
+        assertThat(thrown.getCause(), instanceOf(IOException.class));
+    }
+
+    @Test
+    public void runtimeExceptions_propagatedUnchanged() throws Exception {
+        // Given
+        StaticMethodTypeConverter converter = new StaticMethodTypeConverter(getClass().getMethod("parseInt", String.class));
+
+        // Then
+        assertThrows(NumberFormatException.class, () -> converter.convert("not a number", Integer.class));
+    }
+}
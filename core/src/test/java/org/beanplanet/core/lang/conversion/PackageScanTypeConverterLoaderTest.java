@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.lang.conversion;
+
+import org.beanplanet.core.lang.FilteringPackageClassScanner;
+import org.beanplanet.core.lang.conversion.system.LongConverter;
+import org.beanplanet.core.lang.conversion.system.UnboundedTypeConverters;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class PackageScanTypeConverterLoaderTest {
+    private final List<String> scannedPackages = new ArrayList<>();
+
+    private PackageScanTypeConverterLoader recordingLoader() {
+        PackageScanTypeConverterLoader loader = new PackageScanTypeConverterLoader();
+        loader.packageScanner = new FilteringPackageClassScanner(PackageScanTypeConverterLoader.PACKAGE_SCAN_CLASS_FILTER) {
+            @Override
+            public Set<Class<?>> findResourcesInPackages(String... packageNames) {
+                scannedPackages.addAll(Arrays.asList(packageNames));
+                return super.findResourcesInPackages(packageNames);
+            }
+        };
+        return loader;
+    }
+
+    @Test
+    public void findTypeConverterClasses_indexedPackagesAreNotScanned() {
+        // Given
+        PackageScanTypeConverterLoader loader = recordingLoader();
+
+        // When
+        Set<Class<?>> classes = loader.findTypeConverterClasses(loader.findPackageResources());
+
+        // Then
+        assertThat(scannedPackages, empty());
+        assertThat(classes, hasItems(LongConverter.class, UnboundedTypeConverters.class));
+        assertThat(classes, not(hasItem(SystemTypeConverter.class)));
+    }
+
+    @Test
+    public void findTypeConverterClasses_packagesScannedWhenNoIndexPresent() {
+        // Given
+        PackageScanTypeConverterLoader indexedLoader = recordingLoader();
+        PackageScanTypeConverterLoader scanningLoader = recordingLoader();
+        scanningLoader.setTypeConverterIndexResource("META-INF/services/org/beanplanet/converters/no-such-index.txt");
+
+        // When
+        Set<Class<?>> indexedClasses = indexedLoader.findTypeConverterClasses(indexedLoader.findPackageResources());
+        Set<Class<?>> scannedClasses = scanningLoader.findTypeConverterClasses(scanningLoader.findPackageResources());
+
+        // Then
+        assertThat(scannedPackages, hasItem("org.beanplanet.core.lang.conversion.system"));
+        assertThat(scannedClasses, equalTo(indexedClasses));
+    }
+
+    @Test
+    public void load_indexedConvertersAreRegistered() {
+        // Given
+        AbstractTypeConverterRegistry indexedRegistry = new AbstractTypeConverterRegistry() {};
+        AbstractTypeConverterRegistry scannedRegistry = new AbstractTypeConverterRegistry() {};
+        PackageScanTypeConverterLoader scanningLoader = new PackageScanTypeConverterLoader();
+        scanningLoader.setTypeConverterIndexResource(null);
+
+        // When
+        new PackageScanTypeConverterLoader().load(indexedRegistry);
+        scanningLoader.load(scannedRegistry);
+
+        // Then
+        assertThat(indexedRegistry.size(), greaterThan(0));
+        assertThat(indexedRegistry.size(), equalTo(scannedRegistry.size()));
+    }
+}
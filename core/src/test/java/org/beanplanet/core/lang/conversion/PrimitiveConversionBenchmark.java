@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.lang.conversion;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of numeric conversions of a column of values through {@link SystemTypeConverter}, boxed through
+ * {@link SystemTypeConverter#convert(Object, Class)} against unboxed through the primitive-specialised methods. Run
+ * with <code>-prof gc</code> to compare allocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrimitiveConversionBenchmark {
+    private static final int COLUMN_SIZE = 1000;
+
+    private final SystemTypeConverter converter = new SystemTypeConverter();
+    private final String[] longColumn = new String[COLUMN_SIZE];
+    private final String[] doubleColumn = new String[COLUMN_SIZE];
+    private final Integer[] integerColumn = new Integer[COLUMN_SIZE];
+    private final int[] intArray = new int[COLUMN_SIZE];
+
+    @Setup
+    public void setUp() {
+        for (int n=0; n < COLUMN_SIZE; n++) {
+            longColumn[n] = Long.toString(1_000_000_000L * n);
+            doubleColumn[n] = Double.toString(n / 8d);
+            integerColumn[n] = n * 1000;
+            intArray[n] = n;
+        }
+        converter.convertToLong("1");
+    }
+
+    @Benchmark
+    public long stringToLongBoxed() {
+        long sum = 0;
+        for (String value : longColumn) {
+            sum += converter.convert(value, Long.class);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long stringToLongUnboxed() {
+        long sum = 0;
+        for (String value : longColumn) {
+            sum += converter.convertToLong(value);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double stringToDoubleBoxed() {
+        double sum = 0;
+        for (String value : doubleColumn) {
+            sum += converter.convert(value, Double.class);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double stringToDoubleUnboxed() {
+        double sum = 0;
+        for (String value : doubleColumn) {
+            sum += converter.convertToDouble(value);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double integerToDoubleBoxed() {
+        double sum = 0;
+        for (Integer value : integerColumn) {
+            sum += converter.convert(value, Double.class);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double integerToDoubleUnboxed() {
+        double sum = 0;
+        for (Integer value : integerColumn) {
+            sum += converter.convertToDouble(value);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Long[] intArrayToLongArrayBoxed() {
+        Long[] result = new Long[intArray.length];
+        for (int n=0; n < intArray.length; n++) {
+            result[n] = converter.convert(intArray[n], Long.class);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long[] intArrayToLongArrayUnboxed() {
+        return converter.convertToLongArray(intArray);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(PrimitiveConversionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.lang.conversion;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PrimitiveTypeConversionTest {
+    private final SystemTypeConverter converter = new SystemTypeConverter();
+
+    @Test
+    public void convertToLong() {
+        assertThat(converter.convertToLong(123L), equalTo(123L));
+        assertThat(converter.convertToLong("-9876543210"), equalTo(-9876543210L));
+        assertThat(converter.convertToLong(42), equalTo(42L));
+        assertThat(converter.convertToLong(3.0e10), equalTo(30_000_000_000L));
+        assertThat(converter.convertToLong(new BigDecimal("12.7")), equalTo(12L));
+        assertThat(converter.convertToLong(true), equalTo(1L));
+        assertThat(converter.convertToLong(new Date(1000L)), equalTo(1000L));
+    }
+
+    @Test
+    public void convertToInt() {
+        assertThat(converter.convertToInt(123), equalTo(123));
+        assertThat(converter.convertToInt("-12345"), equalTo(-12345));
+        assertThat(converter.convertToInt(42L), equalTo(42));
+        assertThat(converter.convertToInt('A'), equalTo(65));
+    }
+
+    @Test
+    public void convertToDouble() {
+        assertThat(converter.convertToDouble(1.5d), equalTo(1.5d));
+        assertThat(converter.convertToDouble("-1.25e3"), equalTo(-1250d));
+        assertThat(converter.convertToDouble(3), equalTo(3d));
+        assertThat(converter.convertToDouble(new BigDecimal("0.5")), equalTo(0.5d));
+    }
+
+    @Test
+    public void numericConvertersResolveUnboxed() {
+        // When
+        converter.convertToLong("1");
+
+        // Then
+        assertThat(converter.lookup(String.class, long.class).get(), instanceOf(PrimitiveTypeConverter.class));
+        assertThat(converter.lookup(Integer.class, int.class).get(), instanceOf(PrimitiveTypeConverter.class));
+        assertThat(converter.lookup(Float.class, double.class).get(), instanceOf(PrimitiveTypeConverter.class));
+    }
+
+    @Test
+    public void measuredConversionsTakeTheBoxedPath() {
+        // Given
+        int conversions[] = new int[1];
+        converter.setMetricsSink(new TypeConversionMetricsSink() {
+            @Override
+            public void converted(Class<?> sourceType, Class<?> targetType, long elapsedNanos) {
+                conversions[0]++;
+            }
+        });
+
+        // When
+        long converted = converter.convertToLong("123");
+
+        // Then
+        assertThat(converted, equalTo(123L));
+        assertThat(conversions[0], equalTo(1));
+    }
+
+    @Test
+    public void nullAndUnsupportedValues_throw() {
+        assertThrows(TypeConversionException.class, () -> converter.convertToLong(null));
+        assertThrows(UnsupportedTypeConversionException.class, () -> converter.convertToDouble(new Object()));
+    }
+
+    @Test
+    public void primitiveArrays() {
+        assertThat(converter.convertToLongArray(new int[] { 1, 2, 3 }), equalTo(new long[] { 1, 2, 3 }));
+        assertThat(converter.convertToDoubleArray(new long[] { 1, 2 }), equalTo(new double[] { 1, 2 }));
+        assertThat(converter.convertToIntArray(new double[] { 1.9, -2.9 }), equalTo(new int[] { 1, -2 }));
+        assertThat(converter.convertToDoubleArray(new float[] { 0.5f }), equalTo(new double[] { 0.5 }));
+        assertThat(converter.convertToLongArray(null), nullValue());
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.lang.conversion;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of {@link SystemTypeConverter} conversions: direct source and target type matches, a source type
+ * matched through one of its supertypes, and an unsupported conversion.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SystemTypeConverterBenchmark {
+    private final SystemTypeConverter converter = new SystemTypeConverter();
+    private final List<String> list = new ArrayList<>(List.of("a", "b", "c"));
+    private final Object unconvertible = new Object();
+
+    @Setup
+    public void setUp() {
+        converter.convert(1L, String.class);
+    }
+
+    @Benchmark
+    public String longToString() {
+        return converter.convert(123456789L, String.class);
+    }
+
+    @Benchmark
+    public Integer stringToInteger() {
+        return converter.convert("12345", Integer.class);
+    }
+
+    @Benchmark
+    public BigDecimal integerToBigDecimal() {
+        return converter.convert(12345, BigDecimal.class);
+    }
+
+    @Benchmark
+    public Object[] arrayListToArray() {
+        return converter.convert(list, Object[].class);
+    }
+
+    @Benchmark
+    public Object unsupported() {
+        try {
+            return converter.convert(unconvertible, Thread.class);
+        } catch (UnsupportedTypeConversionException expectedEx) {
+            return expectedEx;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(SystemTypeConverterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
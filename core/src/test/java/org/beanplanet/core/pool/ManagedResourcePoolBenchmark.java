@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.pool;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JMH benchmark of {@link ManagedResourcePool} loan and return under contention, with more borrowing threads than
+ * pooled items and a short simulated use of each item loaned.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class ManagedResourcePoolBenchmark {
+    @Param({"8", "32"})
+    public int maximumTotalSize;
+
+    private ManagedResourcePool<Integer> pool;
+
+    @Setup
+    public void setUp() {
+        AtomicInteger created = new AtomicInteger();
+        pool = new ManagedResourcePool<>(new PooledResourceManager<Integer>() {
+            @Override
+            public Integer createItem() {
+                return created.incrementAndGet();
+            }
+
+            @Override
+            public void destroyItem(Integer pooledItem) {
+            }
+
+            @Override
+            public boolean isPooledItemValid(Integer pooledItem) {
+                return true;
+            }
+        });
+        pool.setMinimumAvailableResources(maximumTotalSize);
+        pool.setMaximumTotalSize(maximumTotalSize);
+        pool.setMaximumClientWaitMillis(-1);
+        pool.reset();
+    }
+
+    @Benchmark
+    public void loanAndReturn() {
+        Integer item = pool.loanItem();
+        Blackhole.consumeCPU(100);
+        pool.returnItem(item);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(ManagedResourcePoolBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.pool;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ManagedResourcePoolTest {
+    private final AtomicInteger created = new AtomicInteger();
+    private final Set<Integer> invalid = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> destroyed = ConcurrentHashMap.newKeySet();
+    private final AtomicLong nanoTime = new AtomicLong();
+    private ManagedResourcePool<Integer> pool;
+
+    @BeforeEach
+    public void setUp() {
+        pool = new ManagedResourcePool<>(new PooledResourceManager<Integer>() {
+            @Override
+            public Integer createItem() {
+                return created.incrementAndGet();
+            }
+
+            @Override
+            public void destroyItem(Integer pooledItem) {
+                destroyed.add(pooledItem);
+            }
+
+            @Override
+            public boolean isPooledItemValid(Integer pooledItem) {
+                return !invalid.contains(pooledItem);
+            }
+        }, nanoTime::get);
+        pool.setName("test");
+        pool.setMinimumAvailableResources(2);
+        pool.setMaximumTotalSize(4);
+        pool.setMaximumClientWaitMillis(100);
+        pool.reset();
+    }
+
+    @Test
+    public void reset_createsMinimumAvailableResources() {
+        assertThat(pool.size(), equalTo(2));
+        assertThat(pool.getNumberOfAvailableItems(), equalTo(2));
+        assertThat(pool.getNumberOfLoanedItems(), equalTo(0));
+    }
+
+    @Test
+    public void loanItem_growsToMaximumThenTimesOut() {
+        // When the pool is exhausted
+        for (int n=0; n < 4; n++) {
+            pool.loanItem();
+        }
+
+        // Then
+        assertThat(pool.size(), equalTo(4));
+        assertThat(pool.getNumberOfLoanedItems(), equalTo(4));
+        ResourcePoolException ex = assertThrows(ResourcePoolException.class, () -> pool.loanItem());
+        assertThat(ex.getCause().getMessage(), containsString("timed out"));
+    }
+
+    @Test
+    public void returnItem_reloanedToSameThread() {
+        // Given
+        Integer item = pool.loanItem();
+
+        // When
+        assertThat(pool.returnItem(item), is(true));
+        assertThat(pool.returnItem(item), is(false));
+        assertThat(pool.returnItem(99), is(false));
+
+        // Then the thread is loaned the item it returned most recently
+        assertThat(pool.loanItem(), equalTo(item));
+    }
+
+    @Test
+    public void returnItem_concurrentReturnOfSameItemRecordedOnce() {
+        // Given a sink which returns the item again while its first return is in progress
+        Integer item = pool.loanItem();
+        AtomicInteger returns = new AtomicInteger();
+        AtomicInteger nestedReturnResult = new AtomicInteger(-1);
+        pool.setMetricsSink(new ResourcePoolMetricsSink() {
+            @Override
+            public void itemReturned(long loanNanos) {
+                if (returns.incrementAndGet() == 1) {
+                    nestedReturnResult.set(pool.returnItem(item) ? 1 : 0);
+                }
+            }
+        });
+
+        // When
+        assertThat(pool.returnItem(item), is(true));
+
+        // Then only the first return succeeds and is measured
+        assertThat(nestedReturnResult.get(), equalTo(0));
+        assertThat(returns.get(), equalTo(1));
+        assertThat(pool.getNumberOfAvailableItems(), equalTo(2));
+    }
+
+    @Test
+    public void startup_idempotent() throws Exception {
+        // Given
+        pool.setName("startupTest");
+        pool.startup();
+        try {
+            assertThat(countMaintenanceThreads(), equalTo(1));
+
+            // When
+            pool.startup();
+
+            // Then
+            assertThat(countMaintenanceThreads(), equalTo(1));
+            assertThat(pool.size(), equalTo(2));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static int countMaintenanceThreads() {
+        return (int)Thread.getAllStackTraces().keySet().stream()
+                          .filter(thread -> thread.getName().equals("beanplanet-pool-maintenance-startupTest"))
+                          .count();
+    }
+
+    @Test
+    public void loanItem_invalidItemsRemovedAndDestroyed() {
+        // Given
+        invalid.add(1);
+        invalid.add(2);
+
+        // When
+        Integer item = pool.loanItem();
+
+        // Then
+        assertThat(item, equalTo(3));
+        assertThat(destroyed, containsInAnyOrder(1, 2));
+        assertThat(pool.size(), equalTo(1));
+    }
+
+    @Test
+    public void loanItem_waiterHandedReturnedItem() throws Exception {
+        // Given an exhausted pool
+        pool.setMaximumClientWaitMillis(5000);
+        for (int n=0; n < 4; n++) {
+            pool.loanItem();
+        }
+
+        // When a waiting borrower is handed an item returned by another thread
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> loan = executor.submit(() -> pool.loanItem());
+            Thread.sleep(50);
+            pool.returnItem(3);
+
+            // Then
+            assertThat(loan.get(5, TimeUnit.SECONDS), equalTo(3));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void loanAndReturn_concurrentBorrowersNeverShareItems() throws Exception {
+        // Given
+        pool.setMaximumClientWaitMillis(-1);
+        Set<Integer> onLoan = ConcurrentHashMap.newKeySet();
+        AtomicInteger shared = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+
+        // When many threads contend for the pool
+        try {
+            for (int t=0; t < 16; t++) {
+                executor.submit(() -> {
+                    for (int n=0; n < 1000; n++) {
+                        Integer item = pool.loanItem();
+                        if (!onLoan.add(item)) shared.incrementAndGet();
+                        onLoan.remove(item);
+                        pool.returnItem(item);
+                    }
+                    return null;
+                });
+            }
+            executor.shutdown();
+            assertThat(executor.awaitTermination(30, TimeUnit.SECONDS), is(true));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then
+        assertThat(shared.get(), equalTo(0));
+        assertThat(pool.size(), lessThanOrEqualTo(4));
+        assertThat(pool.getNumberOfLoanedItems(), equalTo(0));
+    }
+
+    @Test
+    public void clear_expiresAvailableItemsOnly() {
+        // Given
+        Integer loaned = pool.loanItem();
+
+        // When
+        pool.clear();
+
+        // Then
+        assertThat(pool.size(), equalTo(1));
+        assertThat(destroyed, hasSize(1));
+        assertThat(pool.returnItem(loaned), is(true));
+        assertThat(pool.getNumberOfAvailableItems(), equalTo(1));
+    }
+
+    @Test
+    public void housekeep_evictsIdleItemsBeyondMinimumAndTopsUp() {
+        // Given four available items, two of which have been idle for longer than the maximum idle time
+        pool.setMaximumIdleMillis(1000);
+        for (int n=0; n < 4; n++) {
+            pool.loanItem();
+        }
+        pool.returnItem(1);
+        pool.returnItem(2);
+        nanoTime.set(TimeUnit.SECONDS.toNanos(2));
+        pool.returnItem(3);
+        pool.returnItem(4);
+
+        // When
+        pool.housekeep();
+
+        // Then the idle items are evicted, leaving the minimum available
+        assertThat(pool.getNumberOfAvailableItems(), equalTo(2));
+        assertThat(destroyed, containsInAnyOrder(1, 2));
+
+        // And when the remaining items become invalid, they are replaced
+        invalid.add(3);
+        invalid.add(4);
+        pool.housekeep();
+        assertThat(pool.getNumberOfAvailableItems(), equalTo(2));
+        assertThat(destroyed, containsInAnyOrder(1, 2, 3, 4));
+        assertThat(created.get(), equalTo(6));
+    }
+
+    @Test
+    public void returnItem_itemPastMaximumLifetimeDestroyed() {
+        // Given
+        pool.setMaximumLifetimeMillis(1000);
+        Integer item = pool.loanItem();
+        nanoTime.set(TimeUnit.SECONDS.toNanos(2));
+
+        // When
+        assertThat(pool.returnItem(item), is(true));
+
+        // Then
+        assertThat(destroyed, contains(item));
+        assertThat(pool.size(), equalTo(1));
+    }
+
+    @Test
+    public void loanItem_startedPoolCreatesItemsForWaitersInBackground() throws Exception {
+        // Given a started pool with no items
+        pool.setMinimumAvailableResources(0);
+        pool.setMaximumClientWaitMillis(5000);
+        pool.startup();
+        try {
+            // When
+            Integer item = pool.loanItem();
+
+            // Then the item was created on the maintenance thread
+            assertThat(item, equalTo(3));
+            assertThat(pool.size(), equalTo(1));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void metrics_loanWaitAndDurationTimeoutsAndGauges() {
+        // Given
+        ResourcePoolMetrics metrics = new ResourcePoolMetrics(pool);
+        pool.setMetricsSink(metrics);
+
+        // When
+        Integer item = pool.loanItem();
+        nanoTime.addAndGet(5000);
+        pool.returnItem(item);
+        for (int n=0; n < 4; n++) {
+            pool.loanItem();
+        }
+        assertThrows(ResourcePoolException.class, () -> pool.loanItem());
+
+        // Then
+        assertThat(metrics.getLoanCount(), equalTo(5L));
+        assertThat(metrics.getLoanDurationNanos().getCount(), equalTo(1L));
+        assertThat(metrics.getLoanDurationNanos().getMax(), equalTo(5000L));
+        assertThat(metrics.getLoanTimeouts(), equalTo(1L));
+        assertThat(metrics.getLoanedItems(), equalTo(4));
+        assertThat(metrics.getAvailableItems(), equalTo(0));
+        assertThat(metrics.getUtilisation(), equalTo(1d));
+    }
+}
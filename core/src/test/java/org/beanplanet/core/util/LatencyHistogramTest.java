@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.core.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class LatencyHistogramTest {
+    @Test
+    public void bucketBoundaries_contiguousAndWithinPrecision() {
+        for (int index = 1; index < LatencyHistogram.indexOf(Long.MAX_VALUE); index++) {
+            long lowest = LatencyHistogram.lowestValueOf(index);
+            assertThat(LatencyHistogram.indexOf(lowest), equalTo(index));
+            assertThat(LatencyHistogram.indexOf(lowest - 1), equalTo(index - 1));
+            assertThat((double)(LatencyHistogram.highestValueOf(index) - lowest), lessThanOrEqualTo(lowest / 32d));
+        }
+    }
+
+    @Test
+    public void record_percentilesMinMaxAndMean() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // When
+        for (long value = 1; value <= 10000; value++) {
+            histogram.record(value);
+        }
+
+        // Then
+        assertThat(histogram.getCount(), equalTo(10000L));
+        assertThat(histogram.getMin(), equalTo(1L));
+        assertThat(histogram.getMax(), equalTo(10000L));
+        assertThat(histogram.getMean(), closeTo(5000.5, 0.001));
+        assertThat((double)histogram.getValueAtPercentile(50), closeTo(5000, 5000 * 0.04));
+        assertThat((double)histogram.getValueAtPercentile(99), closeTo(9900, 9900 * 0.04));
+        assertThat(histogram.getValueAtPercentile(100), equalTo(10000L));
+    }
+
+    @Test
+    public void reset() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(123);
+
+        // When
+        histogram.reset();
+
+        // Then
+        assertThat(histogram.getCount(), equalTo(0L));
+        assertThat(histogram.getMin(), equalTo(0L));
+        assertThat(histogram.getMax(), equalTo(0L));
+        assertThat(histogram.getValueAtPercentile(50), equalTo(0L));
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.csv;
+
+import org.beanplanet.core.UncheckedException;
+import org.beanplanet.core.lang.MethodBinder;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.function.*;
+
+/**
+ * Binds the setters and constructors of bound types, once, to functions calling them directly, through the
+ * {@link MethodBinder}.
+ * <p>
+ * Setters of <code>int</code>, <code>long</code> and <code>double</code> properties may be bound to functions
+ * accepting the value unboxed. Runtime exceptions and errors thrown by the method propagate unchanged, while checked
+ * exceptions thrown through a {@link MethodHandle} are wrapped in an {@link UncheckedException}.
+ * </p>
+ */
+final class BoundMethods {
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType INT_SETTER_TYPE = MethodType.methodType(void.class, Object.class, int.class);
+    private static final MethodType LONG_SETTER_TYPE = MethodType.methodType(void.class, Object.class, long.class);
+    private static final MethodType DOUBLE_SETTER_TYPE = MethodType.methodType(void.class, Object.class, double.class);
+    private static final MethodType SUPPLIER_TYPE = MethodType.methodType(Object.class);
+
+    private BoundMethods() {}
+
+    static BiConsumer<Object, Object> bindSetter(Method method) {
+        MethodHandle handle = setterHandle(method);
+        BiConsumer<Object, Object> generated = generate(BiConsumer.class, "accept", SETTER_TYPE, method);
+        if (generated != null) return generated;
+
+        MethodHandle adaptedHandle = handle.asType(SETTER_TYPE);
+        return (target, value) -> {
+            try {
+                adaptedHandle.invokeExact(target, value);
+            } catch (Throwable th) {
+                throw MethodBinder.rethrow(method, th);
+            }
+        };
+    }
+
+    static ObjIntConsumer<Object> bindIntSetter(Method method) {
+        MethodHandle handle = setterHandle(method);
+        ObjIntConsumer<Object> generated = generate(ObjIntConsumer.class, "accept", INT_SETTER_TYPE, method);
+        if (generated != null) return generated;
+
+        MethodHandle adaptedHandle = handle.asType(INT_SETTER_TYPE);
+        return (target, value) -> {
+            try {
+                adaptedHandle.invokeExact(target, value);
+            } catch (Throwable th) {
+                throw MethodBinder.rethrow(method, th);
+            }
+        };
+    }
+
+    static ObjLongConsumer<Object> bindLongSetter(Method method) {
+        MethodHandle handle = setterHandle(method);
+        ObjLongConsumer<Object> generated = generate(ObjLongConsumer.class, "accept", LONG_SETTER_TYPE, method);
+        if (generated != null) return generated;
+
+        MethodHandle adaptedHandle = handle.asType(LONG_SETTER_TYPE);
+        return (target, value) -> {
+            try {
+                adaptedHandle.invokeExact(target, value);
+            } catch (Throwable th) {
+                throw MethodBinder.rethrow(method, th);
+            }
+        };
+    }
+
+    static ObjDoubleConsumer<Object> bindDoubleSetter(Method method) {
+        MethodHandle handle = setterHandle(method);
+        ObjDoubleConsumer<Object> generated = generate(ObjDoubleConsumer.class, "accept", DOUBLE_SETTER_TYPE, method);
+        if (generated != null) return generated;
+
+        MethodHandle adaptedHandle = handle.asType(DOUBLE_SETTER_TYPE);
+        return (target, value) -> {
+            try {
+                adaptedHandle.invokeExact(target, value);
+            } catch (Throwable th) {
+                throw MethodBinder.rethrow(method, th);
+            }
+        };
+    }
+
+    /**
+     * Binds a no-arg constructor.
+     *
+     * @param constructor the constructor.
+     * @return a supplier of new instances.
+     */
+    static Supplier<Object> bindConstructor(Constructor<?> constructor) {
+        MethodHandle handle;
+        try {
+            handle = MethodBinder.unreflectConstructor(constructor);
+        } catch (IllegalAccessException | RuntimeException accessEx) {
+            throw new UncheckedException("Unable to bind constructor [" + constructor + "] - the constructor is not accessible: ", accessEx);
+        }
+
+        Supplier<Object> generated = MethodBinder.generate(MethodHandles.lookup(), Supplier.class, "get", SUPPLIER_TYPE, constructor, handle, handle.type(), null);
+        if (generated != null) return generated;
+
+        MethodHandle adaptedHandle = handle.asType(SUPPLIER_TYPE);
+        return () -> {
+            try {
+                return adaptedHandle.invokeExact();
+            } catch (Throwable th) {
+                throw MethodBinder.rethrow(constructor, th);
+            }
+        };
+    }
+
+    /**
+     * Binds a constructor of any number of parameters to a function of the array of arguments. The constructor is
+     * called reflectively: a spreading {@link MethodHandle}, which cannot be a constant here, is several times slower
+     * than the accessor generated by reflection once the constructor is hot.
+     *
+     * @param constructor the constructor.
+     * @return a function of the constructor arguments to a new instance.
+     */
+    static Function<Object[], Object> bindSpreadConstructor(Constructor<?> constructor) {
+        try {
+            if (!MethodBinder.isAccessible(constructor)) {
+                constructor.setAccessible(true);
+            }
+        } catch (RuntimeException accessEx) {
+            throw new UncheckedException("Unable to bind constructor [" + constructor + "] - the constructor is not accessible: ", accessEx);
+        }
+
+        return arguments -> {
+            try {
+                return constructor.newInstance(arguments);
+            } catch (InvocationTargetException invocationEx) {
+                throw MethodBinder.rethrow(constructor, invocationEx.getCause());
+            } catch (ReflectiveOperationException reflectionEx) {
+                throw MethodBinder.rethrow(constructor, reflectionEx);
+            }
+        };
+    }
+
+    private static MethodHandle setterHandle(Method method) {
+        try {
+            MethodHandle handle = MethodBinder.unreflect(method);
+            // Any value returned by a fluent setter is discarded
+            return handle.asType(handle.type().changeReturnType(void.class));
+        } catch (IllegalAccessException | RuntimeException accessEx) {
+            throw new UncheckedException("Unable to bind setter method [" + method + "] - the method is not accessible: ", accessEx);
+        }
+    }
+
+    /**
+     * Generates a function calling a setter method directly, with the target as its first argument, if the method is
+     * directly callable.
+     *
+     * @return the function generated, or null if the method is not directly callable or the function could not be
+     *         generated.
+     */
+    private static <F> F generate(Class<? super F> functionType, String functionMethodName, MethodType functionMethodType, Method method) {
+        if (!MethodBinder.isDirectlyCallable(MethodHandles.lookup(), method)) return null;
+
+        MethodHandle directHandle;
+        try {
+            directHandle = MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException accessEx) {
+            return null;
+        }
+        MethodType instantiatedMethodType = directHandle.type().changeReturnType(void.class);
+        if (!functionMethodType.parameterType(1).isPrimitive()) {
+            instantiatedMethodType = instantiatedMethodType.wrap().changeReturnType(void.class);
+        }
+        return MethodBinder.generate(MethodHandles.lookup(), functionType, functionMethodName, functionMethodType, method, directHandle, instantiatedMethodType, null);
+    }
+}
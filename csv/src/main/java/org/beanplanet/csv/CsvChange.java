@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.csv;
+
+import java.util.List;
+
+/**
+ * A record inserted, changed or deleted since a CSV source was last fingerprinted, as detected by a
+ * {@link CsvChangeDetector}.
+ */
+public final class CsvChange {
+    /**
+     * The type of change.
+     */
+    public enum Type {
+        /** The record's key was not in the source when last fingerprinted. */
+        INSERTED,
+        /** The record's key was in the source when last fingerprinted, but the content of the record differed. */
+        CHANGED,
+        /** The record's key is no longer in the source. */
+        DELETED
+    }
+
+    private final Type type;
+
+    private final List<String> key;
+
+    private final CsvRecord record;
+
+    CsvChange(Type type, List<String> key, CsvRecord record) {
+        this.type = type;
+        this.key = key;
+        this.record = record;
+    }
+
+    /**
+     * Gets the type of change.
+     *
+     * @return the type of change.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the key of the record.
+     *
+     * @return an unmodifiable list of the key fields of the record.
+     */
+    public List<String> getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the record inserted or changed, which is a copy and may be retained.
+     *
+     * @return the record inserted or changed, or null if the record was deleted.
+     */
+    public CsvRecord getRecord() {
+        return record;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + key + (record == null ? "" : " " + record);
+    }
+}
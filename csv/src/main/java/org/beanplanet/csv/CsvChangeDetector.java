@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.csv;
+
+import org.beanplanet.core.io.resource.FileResource;
+import org.beanplanet.core.io.resource.Resource;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Detects the records of a CSV source inserted, changed or deleted since the source was last read, so that a source
+ * re-extracted periodically can be re-ingested incrementally, at a cost proportional to the changes rather than to the
+ * size of the source.
+ * <p>
+ * Records are identified by the fields of their key columns. As the source is parsed, a 64-bit hash of the key and of
+ * the content of each record is compared with the fingerprint index of the source when last read, which is kept in a
+ * file beside the source. Once every change has been consumed from the stream, the index is replaced with the
+ * fingerprints of the source as read; if the stream is closed before then, the index is left unchanged, and the same
+ * changes are detected again on the next read.
+ * </p>
+ * <pre>
+ * CsvChangeDetector detector = new CsvChangeDetector(0).withHeader();
+ * try (Stream&lt;CsvChange&gt; changes = detector.detectChanges(new FileResource("extract.csv"))) {
+ *     changes.forEach(change -&gt; ...);
+ * }
+ * </pre>
+ */
+public class CsvChangeDetector {
+    /** The suffix of the name of the index file beside a source file. */
+    public static final String INDEX_FILE_SUFFIX = ".fingerprints";
+
+    /** The indices of the key columns. */
+    private final int[] keyColumns;
+
+    /** Whether the first record is a header, which is not fingerprinted. */
+    private boolean header;
+
+    /** The reader of the source records. */
+    private CsvReader csvReader = new CsvReader();
+
+    /**
+     * Constructs a new change detector, of records identified by the given key columns.
+     *
+     * @param keyColumns the indices of the key columns, starting at 0.
+     */
+    public CsvChangeDetector(int ... keyColumns) {
+        if (keyColumns.length == 0) throw new IllegalArgumentException("At least one key column must be specified");
+        for (int keyColumn : keyColumns) {
+            if (keyColumn < 0) throw new IllegalArgumentException("A key column index must not be negative: " + keyColumn);
+        }
+        this.keyColumns = keyColumns.clone();
+    }
+
+    /**
+     * Whether the first record is a header, which is not fingerprinted.
+     *
+     * @return true if the first record is a header, false otherwise.
+     */
+    public boolean isHeader() {
+        return header;
+    }
+
+    /**
+     * Sets whether the first record is a header, which is not fingerprinted.
+     *
+     * @param header true if the first record is a header, false otherwise.
+     */
+    public void setHeader(boolean header) {
+        this.header = header;
+    }
+
+    /**
+     * Specifies that the first record is a header, which is not fingerprinted.
+     *
+     * @return this detector, for method chaining.
+     */
+    public CsvChangeDetector withHeader() {
+        setHeader(true);
+        return this;
+    }
+
+    /**
+     * Gets the reader of the source records.
+     *
+     * @return the reader of the source records.
+     */
+    public CsvReader getCsvReader() {
+        return csvReader;
+    }
+
+    /**
+     * Sets the reader of the source records.
+     *
+     * @param csvReader the reader of the source records.
+     */
+    public void setCsvReader(CsvReader csvReader) {
+        this.csvReader = csvReader;
+    }
+
+    /**
+     * Gets the index file beside a source file.
+     *
+     * @param source the source file.
+     * @return the index file, named after the source file with the suffix {@value #INDEX_FILE_SUFFIX}.
+     */
+    public static File indexFileFor(File source) {
+        return new File(source.getPath() + INDEX_FILE_SUFFIX);
+    }
+
+    /**
+     * Detects the changes to the records of a UTF-8 encoded source file, since last read, with an index beside it.
+     *
+     * @param source the source file.
+     * @return a stream of the records inserted and changed, in the order of the source, followed by those deleted.
+     * @see #detectChanges(Resource, String, File)
+     */
+    public Stream<CsvChange> detectChanges(FileResource source) {
+        return detectChanges(source, "UTF-8", indexFileFor(source.getFile()));
+    }
+
+    /**
+     * Detects the changes to the records of a source since last read. The index is replaced once the stream returned
+     * has been consumed to its end; the stream is sequential and must be closed.
+     *
+     * @param source the source resource.
+     * @param encoding the character encoding of the source.
+     * @param indexFile the fingerprint index of the source, which need not exist when the source is first read.
+     * @return a stream of the records inserted and changed, in the order of the source, followed by those deleted.
+     * @throws IllegalStateException if the index file is not an index, or not an index of the key columns of this
+     *         detector.
+     */
+    public Stream<CsvChange> detectChanges(Resource source, String encoding, File indexFile) throws IllegalStateException {
+        CsvFingerprintIndex previousIndex = CsvFingerprintIndex.read(indexFile, keyColumns);
+        CsvFingerprintIndex.Writer indexWriter = new CsvFingerprintIndex.Writer(indexFile, keyColumns);
+        Stream<CsvRecord> records;
+        try {
+            records = csvReader.streamRecords(source, encoding);
+        } catch (RuntimeException ex) {
+            indexWriter.close();
+            throw ex;
+        }
+
+        ChangeIterator changes = new ChangeIterator(records.iterator(), previousIndex, indexWriter);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(changes, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                            .onClose(() -> {
+                                try {
+                                    records.close();
+                                } finally {
+                                    indexWriter.close();
+                                }
+                            });
+    }
+
+    static List<String> toStrings(CsvRecord record, int size) {
+        List<String> fields = new ArrayList<>(size);
+        for (int n = 0; n < size; n++) {
+            fields.add(n < record.size() ? record.getString(n) : "");
+        }
+        return Collections.unmodifiableList(fields);
+    }
+
+    private List<String> key(CsvRecord record) {
+        List<String> key = new ArrayList<>(keyColumns.length);
+        for (int keyColumn : keyColumns) {
+            key.add(keyColumn < record.size() ? record.getString(keyColumn) : "");
+        }
+        return Collections.unmodifiableList(key);
+    }
+
+    /**
+     * Iterates the changes detected while parsing the source, then the records deleted, committing the new index once
+     * all have been iterated.
+     */
+    private final class ChangeIterator implements Iterator<CsvChange> {
+        private final Iterator<CsvRecord> records;
+
+        private final CsvFingerprintIndex previousIndex;
+
+        private final CsvFingerprintIndex.Writer indexWriter;
+
+        private boolean headerSkipped;
+
+        /** The index in the previous index from which to find the next deleted record. */
+        private int deletedFrom;
+
+        private CsvChange nextChange;
+
+        private boolean committed;
+
+        ChangeIterator(Iterator<CsvRecord> records, CsvFingerprintIndex previousIndex, CsvFingerprintIndex.Writer indexWriter) {
+            this.records = records;
+            this.previousIndex = previousIndex;
+            this.indexWriter = indexWriter;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextChange != null) return true;
+
+            while (records.hasNext()) {
+                CsvRecord record = records.next();
+                if (header && !headerSkipped) {
+                    headerSkipped = true;
+                    continue;
+                }
+
+                long keyHash = record.hash(keyColumns);
+                long contentHash = record.hash();
+                indexWriter.add(record, keyHash, contentHash);
+                int previous = previousIndex.find(keyHash);
+                if (previous < 0) {
+                    nextChange = new CsvChange(CsvChange.Type.INSERTED, key(record), record.copy());
+                    return true;
+                }
+                if (previousIndex.getContentHash(previous) != contentHash) {
+                    nextChange = new CsvChange(CsvChange.Type.CHANGED, key(record), record.copy());
+                    return true;
+                }
+            }
+
+            deletedFrom = previousIndex.nextNotFound(deletedFrom);
+            if (deletedFrom < previousIndex.size()) {
+                nextChange = new CsvChange(CsvChange.Type.DELETED, previousIndex.getKey(deletedFrom++), null);
+                return true;
+            }
+
+            if (!committed) {
+                indexWriter.commit();
+                committed = true;
+            }
+            return false;
+        }
+
+        @Override
+        public CsvChange next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("There are no more changes to return through this iterator.");
+            }
+            CsvChange change = nextChange;
+            nextChange = null;
+            return change;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.csv;
+
+import org.beanplanet.core.lang.conversion.TypeConverter;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Parses a field of a {@link CsvRecord} to a value of a given type. Parsers are resolved once per column, by
+ * {@link #forType(Class, TypeConverter)}, and parse numbers, booleans and characters directly from the buffer of the
+ * record, without an intermediate {@link String}.
+ *
+ * @param <V> the type of the values parsed.
+ */
+@FunctionalInterface
+public interface CsvFieldParser<V> {
+    /**
+     * Parses a field of a record.
+     *
+     * @param record the record containing the field.
+     * @param index the index of the field, which is present and not empty.
+     * @return the value parsed.
+     */
+    V parse(CsvRecord record, int index);
+
+    /**
+     * Resolves the parser of fields to a given type. Strings, primitives and their wrappers, <code>BigDecimal</code>,
+     * <code>BigInteger</code> and enums are parsed directly; any other type is converted from the string value of the
+     * field by the type converter given.
+     *
+     * @param type the type of the values to be parsed, which may be primitive.
+     * @param typeConverter the type converter used for types not parsed directly.
+     * @return the parser of fields to the given type, returning wrappers for primitive types.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    static CsvFieldParser<?> forType(Class<?> type, TypeConverter typeConverter) {
+        if (type == String.class || type == CharSequence.class || type == Object.class) return CsvRecord::getString;
+        if (type == int.class || type == Integer.class) return CsvRecord::parseInt;
+        if (type == long.class || type == Long.class) return CsvRecord::parseLong;
+        if (type == double.class || type == Double.class) return CsvRecord::parseDouble;
+        if (type == boolean.class || type == Boolean.class) return CsvRecord::parseBoolean;
+        if (type == float.class || type == Float.class) return (record, index) -> (float)record.parseDouble(index);
+        if (type == BigDecimal.class) return CsvRecord::parseBigDecimal;
+        if (type == BigInteger.class) return (record, index) -> new BigInteger(record.getString(index));
+        if (type == short.class || type == Short.class) {
+            return (record, index) -> {
+                int value = record.parseInt(index);
+                if ((short)value != value) throw new NumberFormatException("Value out of range. Value:\"" + value + "\" in field " + index);
+                return (short)value;
+            };
+        }
+        if (type == byte.class || type == Byte.class) {
+            return (record, index) -> {
+                int value = record.parseInt(index);
+                if ((byte)value != value) throw new NumberFormatException("Value out of range. Value:\"" + value + "\" in field " + index);
+                return (byte)value;
+            };
+        }
+        if (type == char.class || type == Character.class) {
+            return (record, index) -> {
+                if (record.length(index) != 1) throw new IllegalArgumentException("Field " + index + " is not a single character");
+                return record.charAt(index, 0);
+            };
+        }
+        if (type.isEnum()) return (record, index) -> Enum.valueOf((Class<Enum>)type, record.getString(index));
+
+        return (record, index) -> typeConverter.convert(record.getString(index), type);
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.csv;
+
+import org.beanplanet.core.io.IoException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The fingerprints of the records of a CSV source: the hash of the key and of the content of each record, and the key
+ * fields themselves, so that deleted records can be reported by key. An index is read whole into a few arrays, and
+ * its records found by key hash through an open-addressing table.
+ * <p>
+ * The index file holds a header of the format version and key columns, then an entry per record of the length of the
+ * key, the key hash, the content hash and the key fields as a UTF-8 encoded CSV line, ending with an entry of length
+ * -1.
+ * </p>
+ */
+final class CsvFingerprintIndex {
+    /** The magic number identifying an index file, "CSVF". */
+    private static final int MAGIC = 0x43535646;
+
+    private static final int VERSION = 1;
+
+    /** The number of records in the index. */
+    private final int size;
+
+    private final long[] keyHashes;
+
+    private final long[] contentHashes;
+
+    /** The UTF-8 encoded key fields of every record, concatenated. */
+    private final byte[] keys;
+
+    /** The offset of the key fields of each record in the concatenated keys, and the end offset of the last. */
+    private final int[] keyOffsets;
+
+    /** The open-addressing table of one plus the index of each record, at the slot of its key hash. */
+    private final int[] table;
+
+    /** The records found, and therefore not deleted. */
+    private final BitSet found;
+
+    private CsvFingerprintIndex(int size, long[] keyHashes, long[] contentHashes, byte[] keys, int[] keyOffsets) {
+        this.size = size;
+        this.keyHashes = keyHashes;
+        this.contentHashes = contentHashes;
+        this.keys = keys;
+        this.keyOffsets = keyOffsets;
+        this.found = new BitSet(size);
+
+        table = new int[Integer.highestOneBit(Math.max(size, 1) * 2 - 1) * 2];
+        int mask = table.length - 1;
+        for (int n = 0; n < size; n++) {
+            int slot = (int)keyHashes[n] & mask;
+            while (table[slot] != 0) slot = (slot + 1) & mask;
+            table[slot] = n + 1;
+        }
+    }
+
+    /**
+     * Reads an index, or returns an empty index if the index file does not exist.
+     *
+     * @param file the index file.
+     * @param keyColumns the key columns of the records, which must be the key columns of the index.
+     * @return the index read.
+     * @throws IllegalStateException if the file is not an index, or not an index of the given key columns.
+     * @throws IoException if an error occurred reading the index.
+     */
+    static CsvFingerprintIndex read(File file, int[] keyColumns) throws IllegalStateException, IoException {
+        if (!file.exists()) return new CsvFingerprintIndex(0, new long[0], new long[0], new byte[0], new int[1]);
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath()), 64 * 1024))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IllegalStateException("The file [" + file + "] is not a CSV fingerprint index of version " + VERSION);
+            }
+            int[] indexKeyColumns = new int[in.readInt()];
+            for (int n = 0; n < indexKeyColumns.length; n++) {
+                indexKeyColumns[n] = in.readInt();
+            }
+            if (!Arrays.equals(indexKeyColumns, keyColumns)) {
+                throw new IllegalStateException("The CSV fingerprint index [" + file + "] is keyed by columns " + Arrays.toString(indexKeyColumns)
+                                                + ", rather than " + Arrays.toString(keyColumns) + ". Delete the index to fingerprint the source afresh");
+            }
+
+            int size = 0;
+            long[] keyHashes = new long[1024];
+            long[] contentHashes = new long[1024];
+            int[] keyOffsets = new int[1025];
+            byte[] keys = new byte[16 * 1024];
+            for (int keyLength = in.readInt(); keyLength >= 0; keyLength = in.readInt()) {
+                if (size == keyHashes.length) {
+                    keyHashes = Arrays.copyOf(keyHashes, size * 2);
+                    contentHashes = Arrays.copyOf(contentHashes, size * 2);
+                    keyOffsets = Arrays.copyOf(keyOffsets, size * 2 + 1);
+                }
+                int keyOffset = keyOffsets[size];
+                if (keyOffset + keyLength > keys.length) {
+                    keys = Arrays.copyOf(keys, Math.max(keys.length * 2, keyOffset + keyLength));
+                }
+                keyHashes[size] = in.readLong();
+                contentHashes[size] = in.readLong();
+                in.readFully(keys, keyOffset, keyLength);
+                keyOffsets[++size] = keyOffset + keyLength;
+            }
+            return new CsvFingerprintIndex(size, keyHashes, contentHashes, keys, keyOffsets);
+        } catch (IOException ioEx) {
+            throw new IoException(ioEx);
+        }
+    }
+
+    /**
+     * Gets the number of records in the index.
+     *
+     * @return the number of records.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Finds a record, not already found, by its key hash and marks it found.
+     *
+     * @param keyHash the hash of the key of the record.
+     * @return the index of the record, or -1 if no record with the key hash remains to be found.
+     */
+    int find(long keyHash) {
+        int mask = table.length - 1;
+        for (int slot = (int)keyHash & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int record = table[slot] - 1;
+            if (keyHashes[record] == keyHash && !found.get(record)) {
+                found.set(record);
+                return record;
+            }
+        }
+        return -1;
+    }
+
+    long getContentHash(int record) {
+        return contentHashes[record];
+    }
+
+    /**
+     * Finds the next record not found, from a given record.
+     *
+     * @param from the index of the record from which to search, inclusive.
+     * @return the index of the next record not found, or the size of the index if there are none.
+     */
+    int nextNotFound(int from) {
+        return Math.min(found.nextClearBit(from), size);
+    }
+
+    /**
+     * Gets the key fields of a record.
+     *
+     * @param record the index of the record.
+     * @return the key fields of the record.
+     */
+    List<String> getKey(int record) {
+        String key = new String(keys, keyOffsets[record], keyOffsets[record + 1] - keyOffsets[record], StandardCharsets.UTF_8);
+        CsvRecord keyRecord = new CsvTokenizer(key.toCharArray(), 0, key.length()).next();
+        return keyRecord == null ? List.of("") : CsvChangeDetector.toStrings(keyRecord, keyRecord.size());
+    }
+
+    /**
+     * Writes an index to a temporary file beside the index file, replacing the index file only once committed.
+     */
+    static final class Writer implements Closeable {
+        private final Path file;
+
+        private final Path temporaryFile;
+
+        private final DataOutputStream out;
+
+        private final int[] keyColumns;
+
+        private final CsvRecordEncoder keyEncoder = new CsvRecordEncoder(256);
+
+        private boolean committed;
+
+        Writer(File file, int[] keyColumns) throws IoException {
+            this.file = file.toPath();
+            this.temporaryFile = this.file.resolveSibling(file.getName() + ".tmp");
+            this.keyColumns = keyColumns;
+            try {
+                out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile), 64 * 1024));
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(keyColumns.length);
+                for (int keyColumn : keyColumns) {
+                    out.writeInt(keyColumn);
+                }
+            } catch (IOException ioEx) {
+                throw new IoException(ioEx);
+            }
+        }
+
+        /**
+         * Adds the fingerprint of a record.
+         *
+         * @param record the record.
+         * @param keyHash the hash of the key of the record.
+         * @param contentHash the hash of the content of the record.
+         */
+        void add(CsvRecord record, long keyHash, long contentHash) throws IoException {
+            keyEncoder.clear(0);
+            keyEncoder.appendFields(record, keyColumns);
+            byte[] key = new String(keyEncoder.chars, 0, keyEncoder.length).getBytes(StandardCharsets.UTF_8);
+            try {
+                out.writeInt(key.length);
+                out.writeLong(keyHash);
+                out.writeLong(contentHash);
+                out.write(key);
+            } catch (IOException ioEx) {
+                throw new IoException(ioEx);
+            }
+        }
+
+        /**
+         * Completes the index and replaces the index file with it.
+         */
+        void commit() throws IoException {
+            try {
+                out.writeInt(-1);
+                out.close();
+                try {
+                    Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException atomicMoveEx) {
+                    Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+                committed = true;
+            } catch (IOException ioEx) {
+                throw new IoException(ioEx);
+            }
+        }
+
+        /**
+         * Discards the index, unless committed, leaving the index file as it was.
+         */
+        @Override
+        public void close() {
+            if (committed) return;
+
+            try {
+                out.close();
+                Files.deleteIfExists(temporaryFile);
+            } catch (IOException ioEx) {
+                throw new IoException(ioEx);
+            }
+        }
+    }
+}
@@ -17,22 +17,53 @@
 package org.beanplanet.csv;
 
 import org.beanplanet.core.io.IoException;
+import org.beanplanet.core.io.resource.FileResource;
 import org.beanplanet.core.io.resource.Resource;
 import org.beanplanet.core.io.resource.StringResource;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.function.Function;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 /**
  * The Class CSVReader.
+ * <p>
+ * Records are parsed by a {@link CsvTokenizer}, from a large reused character buffer, unless the grammar-based
+ * {@link CSVResourceParser} has been selected through {@link #setUseGrammarParser(boolean)}.
+ * </p>
  */
 public class CsvReader {
+    /** The default size, in bytes, below which a memory-mapped file range will not split for parallel parsing. */
+    public static final long DEFAULT_MINIMUM_SPLIT_SIZE = 1024 * 1024;
+
+    /** The initial size of the character buffer of the tokenizer reading only the header of a file. */
+    private static final int HEADER_BUFFER_SIZE = 4096;
+
+    /** Whether records are parsed by the grammar-based parser, rather than the tokenizer. */
+    private boolean useGrammarParser;
+
+    /** The initial size of the character buffer of the tokenizer, in characters. */
+    private int bufferSize = CsvTokenizer.DEFAULT_BUFFER_SIZE;
+
+    /** Whether file resources are memory-mapped and split for parallel parsing. */
+    private boolean memoryMapped = true;
+
+    /** The size, in bytes, below which a memory-mapped file range will not split for parallel parsing. */
+    private long minimumSplitSize = DEFAULT_MINIMUM_SPLIT_SIZE;
+
+    /** Whether the records of memory-mapped files are reassembled in order when parsed in parallel. */
+    private boolean ordered = true;
 
     /**
      * Instantiates a new cSV reader.
@@ -40,11 +71,110 @@ public class CsvReader {
     public CsvReader() {
     }
 
+    /**
+     * Whether records are parsed by the grammar-based parser, rather than the tokenizer.
+     *
+     * @return true if the grammar-based parser is used, false otherwise.
+     */
+    public boolean isUseGrammarParser() {
+        return useGrammarParser;
+    }
+
+    /**
+     * Sets whether records are parsed by the grammar-based parser, rather than the tokenizer. The grammar-based parser
+     * remains available as a fallback but is considerably slower.
+     *
+     * @param useGrammarParser true if the grammar-based parser is to be used, false otherwise.
+     */
+    public void setUseGrammarParser(boolean useGrammarParser) {
+        this.useGrammarParser = useGrammarParser;
+    }
+
+    /**
+     * Gets the initial size of the character buffer of the tokenizer.
+     *
+     * @return the initial size of the buffer, in characters.
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Sets the initial size of the character buffer of the tokenizer. The buffer grows should a single record not fit.
+     *
+     * @param bufferSize the initial size of the buffer, in characters.
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Whether file resources are memory-mapped and split into ranges at record boundaries, which are parsed in parallel
+     * when the stream is parallel.
+     *
+     * @return true if file resources are memory-mapped, false otherwise.
+     */
+    public boolean isMemoryMapped() {
+        return memoryMapped;
+    }
+
+    /**
+     * Sets whether file resources are memory-mapped and split into ranges at record boundaries, which are parsed in
+     * parallel when the stream is parallel. Files are only memory-mapped when their encoding is UTF-8 or a single-byte
+     * encoding compatible with ASCII.
+     *
+     * @param memoryMapped true if file resources are to be memory-mapped, false otherwise.
+     */
+    public void setMemoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+    }
+
+    /**
+     * Gets the size below which a memory-mapped file range will not split for parallel parsing.
+     *
+     * @return the minimum split size, in bytes.
+     */
+    public long getMinimumSplitSize() {
+        return minimumSplitSize;
+    }
+
+    /**
+     * Sets the size below which a memory-mapped file range will not split for parallel parsing.
+     *
+     * @param minimumSplitSize the minimum split size, in bytes.
+     */
+    public void setMinimumSplitSize(long minimumSplitSize) {
+        this.minimumSplitSize = minimumSplitSize;
+    }
+
+    /**
+     * Whether the records of memory-mapped files are reassembled in order when parsed in parallel.
+     *
+     * @return true if the stream of records of a memory-mapped file is ordered, false otherwise.
+     */
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    /**
+     * Sets whether the records of memory-mapped files are reassembled in order when parsed in parallel. Unordered
+     * streams avoid buffering the records of later ranges until those of earlier ranges are consumed.
+     *
+     * @param ordered true if the stream of records of a memory-mapped file is to be ordered, false otherwise.
+     */
+    public void setOrdered(boolean ordered) {
+        this.ordered = ordered;
+    }
+
     public Stream<List<CharSequence>> streamLines(Resource resource) {
         return streamLines(resource, "UTF-8");
     }
 
     public Stream<List<CharSequence>> streamLines(Resource resource, String encoding) {
+        if (!useGrammarParser) {
+            return streamRecords(resource, encoding).map(CsvRecord::toList);
+        }
+
         Reader reader = resource.getReader(encoding);
         return StreamSupport
                 .stream(Spliterators.spliteratorUnknownSize(lineIterator(reader), Spliterator.ORDERED), false)
@@ -57,6 +187,158 @@ public class CsvReader {
                 });
     }
 
+    /**
+     * Streams the records of a UTF-8 encoded resource, as flyweight views of the buffer they are parsed from.
+     *
+     * @param resource the resource whose records are to be streamed.
+     * @return a stream of the records of the resource, which must be closed to release the resource.
+     * @see #streamRecords(Resource, String)
+     */
+    public Stream<CsvRecord> streamRecords(Resource resource) {
+        return streamRecords(resource, "UTF-8");
+    }
+
+    /**
+     * Streams the records of a resource, as flyweight views of the buffer they are parsed from. The same record
+     * instance is supplied for every record, and is only valid until the next is parsed: use {@link CsvRecord#copy()}
+     * or {@link CsvRecord#toList()} to retain a record beyond the operation consuming it.
+     * <p>
+     * File resources are memory-mapped, unless disabled through {@link #setMemoryMapped(boolean)}, and their records
+     * parsed in parallel when the stream is made parallel.
+     * </p>
+     *
+     * @param resource the resource whose records are to be streamed.
+     * @param encoding the character encoding of the resource.
+     * @return a stream of the records of the resource, which must be closed to release the resource.
+     */
+    public Stream<CsvRecord> streamRecords(Resource resource, String encoding) {
+        Charset charset = Charset.forName(encoding);
+        if (memoryMapped && resource instanceof FileResource && MappedCsvSpliterator.supports(charset)) {
+            return streamMappedRecords(((FileResource) resource).getFile(), charset, false);
+        }
+
+        CsvTokenizer tokenizer = new CsvTokenizer(resource.getReader(encoding), bufferSize, CsvTokenizer.DEFAULT_DELIMITER, CsvTokenizer.DEFAULT_QUOTE);
+        return StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(recordIterator(tokenizer), Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(tokenizer::close);
+    }
+
+    /**
+     * Streams the records of a UTF-8 encoded resource, bound to JavaBeans or Java records by a schema.
+     *
+     * @param resource the resource whose records are to be streamed.
+     * @param schema the schema binding the columns of the records to properties or record components.
+     * @param <T> the type of the objects records are bound to.
+     * @return a stream of the objects bound, which must be closed to release the resource.
+     * @see #stream(Resource, String, CsvSchema)
+     */
+    public <T> Stream<T> stream(Resource resource, CsvSchema<T> schema) {
+        return stream(resource, "UTF-8", schema);
+    }
+
+    /**
+     * Streams the records of a resource, bound to JavaBeans or Java records by a schema. The header, if the schema has
+     * one, is read first to compile the schema, and is not bound. Records are parsed as by
+     * {@link #streamRecords(Resource, String)}, and in parallel when the stream is made parallel, but each object bound
+     * is new and may be retained.
+     *
+     * @param resource the resource whose records are to be streamed.
+     * @param encoding the character encoding of the resource.
+     * @param schema the schema binding the columns of the records to properties or record components.
+     * @param <T> the type of the objects records are bound to.
+     * @return a stream of the objects bound, which must be closed to release the resource.
+     * @throws IllegalArgumentException if a column of the schema, or the property to which it is bound, is not found.
+     */
+    public <T> Stream<T> stream(Resource resource, String encoding, CsvSchema<T> schema) throws IllegalArgumentException {
+        Charset charset = Charset.forName(encoding);
+        if (memoryMapped && resource instanceof FileResource && MappedCsvSpliterator.supports(charset)) {
+            CsvRecord header = null;
+            if (schema.isHeader()) {
+                try (CsvTokenizer headerTokenizer = new CsvTokenizer(resource.getReader(encoding), HEADER_BUFFER_SIZE,
+                                                                     CsvTokenizer.DEFAULT_DELIMITER, CsvTokenizer.DEFAULT_QUOTE)) {
+                    header = headerTokenizer.next();
+                }
+                if (header == null) return Stream.empty();
+            }
+            Function<CsvRecord, T> binder = schema.compile(header);
+            return streamMappedRecords(((FileResource) resource).getFile(), charset, schema.isHeader()).map(binder);
+        }
+
+        CsvTokenizer tokenizer = new CsvTokenizer(resource.getReader(encoding), bufferSize, CsvTokenizer.DEFAULT_DELIMITER, CsvTokenizer.DEFAULT_QUOTE);
+        Function<CsvRecord, T> binder;
+        try {
+            CsvRecord header = null;
+            if (schema.isHeader()) {
+                header = tokenizer.next();
+                if (header == null) {
+                    tokenizer.close();
+                    return Stream.empty();
+                }
+            }
+            binder = schema.compile(header);
+        } catch (RuntimeException ex) {
+            tokenizer.close();
+            throw ex;
+        }
+        return StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(recordIterator(tokenizer), Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .map(binder)
+                .onClose(tokenizer::close);
+    }
+
+    /**
+     * Streams the records of a memory-mapped file, from ranges split at record boundaries which are parsed in parallel
+     * when the stream is parallel. Each range has its own flyweight record, which is only valid until the next record
+     * of the range is parsed: records must be copied, by a stateless operation such as <code>map</code>, before being
+     * retained or passed to an operation which buffers them.
+     *
+     * @param file the file whose records are to be streamed.
+     * @param charset the character set in which the file is encoded.
+     * @param skipHeader whether the first record of the file, which is a header, is to be skipped.
+     * @return a stream of the records of the file, which must be closed to release the file.
+     */
+    private Stream<CsvRecord> streamMappedRecords(File file, Charset charset, boolean skipHeader) {
+        try {
+            MappedCsvSpliterator spliterator = new MappedCsvSpliterator(FileChannel.open(file.toPath(), StandardOpenOption.READ),
+                                                                        charset, bufferSize, minimumSplitSize, ordered);
+            if (skipHeader) spliterator.skipHeader();
+            return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+        } catch (IOException ioEx) {
+            throw new IoException(ioEx);
+        }
+    }
+
+    /**
+     * Record iterator, over the records parsed by a tokenizer.
+     *
+     * @param tokenizer
+     *           the tokenizer
+     * @return the iterator
+     */
+    private static Iterator<CsvRecord> recordIterator(final CsvTokenizer tokenizer) {
+        return new Iterator<CsvRecord>() {
+            private CsvRecord nextRecord;
+
+            private boolean fetched;
+
+            public boolean hasNext() {
+                if (!fetched) {
+                    nextRecord = tokenizer.next();
+                    fetched = true;
+                }
+                return nextRecord != null;
+            }
+
+            public CsvRecord next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("There are no more records to return through this iterator.");
+                }
+                fetched = false;
+                return nextRecord;
+            }
+        };
+    }
+
     /**
      * Record iterator.
      *
@@ -0,0 +1,417 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.csv;
+
+import java.math.BigDecimal;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A flyweight view of a single CSV record, whose fields are ranges of the character buffer they were parsed from.
+ * Quoted fields are unescaped in place, so every field is a contiguous range of the buffer and no characters are copied
+ * until a field is asked for as a {@link String}.
+ * <p>
+ * A record produced by a {@link CsvTokenizer} is reused for each record it parses, and its buffer is overwritten as
+ * parsing proceeds. A record, and any view of its fields, is therefore only valid until the next record is parsed; use
+ * {@link #copy()} or {@link #toList()} to retain it beyond then.
+ * </p>
+ */
+public final class CsvRecord {
+    private static final int INITIAL_FIELD_CAPACITY = 16;
+
+    /** The most decimal digits parsed directly, all of whose values are exactly representable as a double. */
+    private static final int MAXIMUM_EXACT_DIGITS = 15;
+
+    /** The offset basis and prime of the 64-bit FNV-1a hash. */
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
+    /** The buffer containing the characters of the fields. */
+    char[] buffer;
+
+    /** The start offset in the buffer of each field, inclusive. */
+    int[] starts;
+
+    /** The end offset in the buffer of each field, exclusive. */
+    int[] ends;
+
+    /** The number of fields in the record. */
+    int size;
+
+    /** The number of this record within its source, starting at 1. */
+    long recordNumber;
+
+    /**
+     * Constructs a new, empty, <code>CsvRecord</code>.
+     */
+    public CsvRecord() {
+        this(null, new int[INITIAL_FIELD_CAPACITY], new int[INITIAL_FIELD_CAPACITY], 0, 0);
+    }
+
+    private CsvRecord(char[] buffer, int[] starts, int[] ends, int size, long recordNumber) {
+        this.buffer = buffer;
+        this.starts = starts;
+        this.ends = ends;
+        this.size = size;
+        this.recordNumber = recordNumber;
+    }
+
+    /**
+     * Returns the number of fields in this record.
+     *
+     * @return the number of fields in this record.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of this record within its source, starting at 1 for the first record.
+     *
+     * @return the number of this record.
+     */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    /**
+     * Returns the number of characters in a field of this record.
+     *
+     * @param index the index of the field, starting at 0.
+     * @return the length of the field.
+     */
+    public int length(int index) {
+        checkIndex(index);
+        return ends[index] - starts[index];
+    }
+
+    /**
+     * Returns a character of a field of this record.
+     *
+     * @param index the index of the field, starting at 0.
+     * @param offset the offset of the character within the field.
+     * @return the character at the offset given.
+     */
+    public char charAt(int index, int offset) {
+        checkIndex(index);
+        if (offset < 0 || offset >= ends[index] - starts[index]) {
+            throw new IndexOutOfBoundsException("Offset " + offset + " is out of bounds for field " + index + " of length " + (ends[index] - starts[index]));
+        }
+        return buffer[starts[index] + offset];
+    }
+
+    /**
+     * Returns a read-only view of a field of this record, without copying its characters. The view is only valid until
+     * the next record is parsed.
+     *
+     * @param index the index of the field, starting at 0.
+     * @return a view of the characters of the field.
+     */
+    public CharSequence getField(int index) {
+        checkIndex(index);
+        return CharBuffer.wrap(buffer, starts[index], ends[index] - starts[index]).asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns a copy of a field of this record.
+     *
+     * @param index the index of the field, starting at 0.
+     * @return the characters of the field, as a string.
+     */
+    public String getString(int index) {
+        checkIndex(index);
+        return new String(buffer, starts[index], ends[index] - starts[index]);
+    }
+
+    /**
+     * Appends the characters of a field of this record to a string builder.
+     *
+     * @param index the index of the field, starting at 0.
+     * @param builder the builder to which the field is appended.
+     * @return the builder, for convenience.
+     */
+    public StringBuilder appendTo(int index, StringBuilder builder) {
+        checkIndex(index);
+        return builder.append(buffer, starts[index], ends[index] - starts[index]);
+    }
+
+    /**
+     * Determines whether a field of this record is empty.
+     *
+     * @param index the index of the field, starting at 0.
+     * @return true if the field has no characters, false otherwise.
+     */
+    public boolean isEmpty(int index) {
+        checkIndex(index);
+        return starts[index] == ends[index];
+    }
+
+    /**
+     * Parses a field of this record as a decimal <code>long</code>, directly from the buffer, as
+     * {@link Long#parseLong(String)} would parse it.
+     *
+     * @param index the index of the field, starting at 0.
+     * @return the value of the field.
+     * @throws NumberFormatException if the field is not a decimal <code>long</code>.
+     */
+    public long parseLong(int index) throws NumberFormatException {
+        checkIndex(index);
+        int n = starts[index];
+        int end = ends[index];
+        boolean negative = n < end && buffer[n] == '-';
+        if (n < end && (negative || buffer[n] == '+')) {
+            n++;
+        }
+        if (n == end) throw numberFormatException(index);
+
+        // Accumulated negatively, as is Long.parseLong, to reach Long.MIN_VALUE
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplicationLimit = limit / 10;
+        long result = 0;
+        for (; n < end; n++) {
+            int digit = buffer[n] - '0';
+            if (digit < 0 || digit > 9 || result < multiplicationLimit) throw numberFormatException(index);
+            result *= 10;
+            if (result < limit + digit) throw numberFormatException(index);
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Parses a field of this record as a decimal <code>int</code>, directly from the buffer, as
+     * {@link Integer#parseInt(String)} would parse it.
+     *
+     * @param index the index of the field, starting at 0.
+     * @return the value of the field.
+     * @throws NumberFormatException if the field is not a decimal <code>int</code>.
+     */
+    public int parseInt(int index) throws NumberFormatException {
+        long value = parseLong(index);
+        if ((int)value != value) throw numberFormatException(index);
+
+        return (int)value;
+    }
+
+    /**
+     * Parses a field of this record as a <code>double</code>. Plain decimals of up to 15 significant digits, the most
+     * common form, are parsed directly from the buffer and exactly rounded; any other form is parsed by
+     * {@link Double#parseDouble(String)}.
+     *
+     * @param index the index of the field, starting at 0.
+     * @return the value of the field.
+     * @throws NumberFormatException if the field is not a <code>double</code>.
+     */
+    public double parseDouble(int index) throws NumberFormatException {
+        checkIndex(index);
+        int n = starts[index];
+        int end = ends[index];
+        boolean negative = n < end && buffer[n] == '-';
+        if (n < end && (negative || buffer[n] == '+')) {
+            n++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean point = false;
+        for (; n < end; n++) {
+            char ch = buffer[n];
+            if (ch >= '0' && ch <= '9' && digits < MAXIMUM_EXACT_DIGITS) {
+                mantissa = mantissa * 10 + (ch - '0');
+                digits++;
+                if (point) {
+                    fractionDigits++;
+                }
+            } else if (ch == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (n < end || digits == 0) {
+            // An exponent, too many digits or not a number, which the JDK parses or rejects
+            return Double.parseDouble(getString(index));
+        }
+
+        // Both the mantissa and the power of ten are exact, so the quotient is correctly rounded
+        double value = fractionDigits == 0 ? mantissa : mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a field of this record as a <code>boolean</code>, directly from the buffer, as
+     * {@link Boolean#parseBoolean(String)} would parse it.
+     *
+     * @param index the index of the field, starting at 0.
+     * @return true if the field is <code>true</code>, ignoring case, false otherwise.
+     */
+    public boolean parseBoolean(int index) {
+        checkIndex(index);
+        int start = starts[index];
+        if (ends[index] - start != 4) return false;
+
+        return (buffer[start] | 0x20) == 't' && (buffer[start + 1] | 0x20) == 'r' && (buffer[start + 2] | 0x20) == 'u' && (buffer[start + 3] | 0x20) == 'e';
+    }
+
+    /**
+     * Parses a field of this record as a {@link BigDecimal}, directly from the buffer.
+     *
+     * @param index the index of the field, starting at 0.
+     * @return the value of the field.
+     * @throws NumberFormatException if the field is not a decimal number.
+     */
+    public BigDecimal parseBigDecimal(int index) throws NumberFormatException {
+        checkIndex(index);
+        return new BigDecimal(buffer, starts[index], ends[index] - starts[index]);
+    }
+
+    private NumberFormatException numberFormatException(int index) {
+        return new NumberFormatException("For input string: \"" + getString(index) + "\" in field " + index + " of record " + recordNumber);
+    }
+
+    /**
+     * Computes a 64-bit hash of the content of this record: of the characters and length of every field, so that records
+     * whose fields differ only in how characters are divided between them hash differently. The hash is FNV-1a over the
+     * characters, which is much faster than a cryptographic digest, with a final avalanche mix of its bits.
+     *
+     * @return the hash of all the fields of this record.
+     */
+    public long hash() {
+        long hash = FNV_OFFSET_BASIS;
+        for (int n = 0; n < size; n++) {
+            hash = hashField(hash, n);
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Computes a 64-bit hash of some fields of this record, such as the fields of a key. Fields beyond the end of this
+     * record hash as empty fields.
+     *
+     * @param indices the indices of the fields, starting at 0.
+     * @return the hash of the given fields of this record.
+     * @see #hash()
+     */
+    public long hash(int ... indices) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int index : indices) {
+            hash = index < size ? hashField(hash, index) : hash * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    private long hashField(long hash, int index) {
+        for (int n = starts[index], end = ends[index]; n < end; n++) {
+            hash = (hash ^ buffer[n]) * FNV_PRIME;
+        }
+        return (hash ^ (ends[index] - starts[index])) * FNV_PRIME;
+    }
+
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    /**
+     * Returns a copy of the fields of this record, as strings, which remains valid after the next record is parsed.
+     *
+     * @return an unmodifiable list of the fields of this record.
+     */
+    public List<CharSequence> toList() {
+        List<CharSequence> fields = new ArrayList<>(size);
+        for (int n = 0; n < size; n++) {
+            fields.add(new String(buffer, starts[n], ends[n] - starts[n]));
+        }
+        return Collections.unmodifiableList(fields);
+    }
+
+    /**
+     * Returns a copy of this record, backed by a buffer of its own, which remains valid after the next record is parsed.
+     *
+     * @return a detached copy of this record.
+     */
+    public CsvRecord copy() {
+        int from = size == 0 ? 0 : starts[0];
+        int to = size == 0 ? 0 : ends[size - 1];
+        int[] copyStarts = new int[size];
+        int[] copyEnds = new int[size];
+        for (int n = 0; n < size; n++) {
+            copyStarts[n] = starts[n] - from;
+            copyEnds[n] = ends[n] - from;
+        }
+        return new CsvRecord(Arrays.copyOfRange(buffer, from, to), copyStarts, copyEnds, size, recordNumber);
+    }
+
+    /**
+     * Removes all fields from this record, in preparation for parsing the next record into it.
+     *
+     * @param buffer the buffer into which the fields of the next record will be parsed.
+     */
+    void reset(char[] buffer) {
+        this.buffer = buffer;
+        this.size = 0;
+    }
+
+    /**
+     * Adds a field to this record.
+     *
+     * @param start the start offset of the field in the buffer, inclusive.
+     * @param end the end offset of the field in the buffer, exclusive.
+     */
+    void addField(int start, int end) {
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+        }
+        starts[size] = start;
+        ends[size++] = end;
+    }
+
+    /**
+     * Moves the fields of this record to a new buffer, or a new position within the same buffer.
+     *
+     * @param buffer the buffer now containing the fields.
+     * @param shift the distance, in characters, the fields have moved.
+     */
+    void relocate(char[] buffer, int shift) {
+        this.buffer = buffer;
+        for (int n = 0; n < size; n++) {
+            starts[n] += shift;
+            ends[n] += shift;
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Field index " + index + " is out of bounds for record of " + size + " fields");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.csv;
+
+import org.beanplanet.core.lang.ParseException;
+import org.beanplanet.core.lang.conversion.TypeConverter;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * A compiled {@link CsvSchema}, binding records to new JavaBeans or Java records through parsers, setters and
+ * constructors resolved once, when the schema is compiled.
+ *
+ * @param <T> the type of the objects records are bound to.
+ */
+abstract class CsvRecordBinder<T> implements Function<CsvRecord, T> {
+    /** The type of the objects records are bound to. */
+    final Class<T> type;
+
+    /** The indices of the columns bound. */
+    final int[] indices;
+
+    /** The names of the properties or record components to which the columns are bound. */
+    final String[] properties;
+
+    CsvRecordBinder(Class<T> type, List<ResolvedColumn> columns) {
+        this.type = type;
+        this.indices = new int[columns.size()];
+        this.properties = new String[columns.size()];
+        for (int n = 0; n < indices.length; n++) {
+            indices[n] = columns.get(n).index;
+            properties[n] = columns.get(n).property;
+        }
+    }
+
+    /**
+     * Binds a record to a new object.
+     *
+     * @param record the record to be bound.
+     * @return a new object, whose properties or components are the fields of the bound columns of the record.
+     * @throws ParseException if a field could not be parsed or assigned.
+     */
+    @Override
+    public abstract T apply(CsvRecord record) throws ParseException;
+
+    ParseException bindingException(CsvRecord record, int column, RuntimeException cause) {
+        return new ParseException("Unable to bind field " + indices[column] + " of record " + record.getRecordNumber()
+                                  + " to property \"" + properties[column] + "\" of " + type.getName() + ": " + cause.getMessage(), cause);
+    }
+
+    /**
+     * Compiles a schema, resolving its columns against a header.
+     *
+     * @param schema the schema to be compiled.
+     * @param header the header record, or null if the schema has no header.
+     * @return a binder of records to new objects of the schema type.
+     * @throws IllegalArgumentException if a column or property is not found.
+     */
+    static <T> CsvRecordBinder<T> compile(CsvSchema<T> schema, CsvRecord header) throws IllegalArgumentException {
+        Class<T> type = schema.getType();
+        if (type.isRecord()) {
+            RecordComponent[] components = type.getRecordComponents();
+            Map<String, Class<?>> componentTypes = new LinkedHashMap<>();
+            for (RecordComponent component : components) {
+                componentTypes.put(component.getName(), component.getType());
+            }
+            return new RecordBinder<>(type, components, resolveColumns(schema, header, componentTypes), schema.getTypeConverter());
+        }
+
+        Map<String, Method> writeMethods = new LinkedHashMap<>();
+        try {
+            for (PropertyDescriptor descriptor : Introspector.getBeanInfo(type, Object.class).getPropertyDescriptors()) {
+                if (descriptor.getWriteMethod() != null) writeMethods.put(descriptor.getName(), descriptor.getWriteMethod());
+            }
+        } catch (IntrospectionException introspectionEx) {
+            throw new IllegalArgumentException("Unable to introspect the properties of " + type.getName(), introspectionEx);
+        }
+        Map<String, Class<?>> propertyTypes = new LinkedHashMap<>();
+        writeMethods.forEach((name, method) -> propertyTypes.put(name, method.getParameterTypes()[0]));
+        return new BeanBinder<>(type, writeMethods, resolveColumns(schema, header, propertyTypes), schema.getTypeConverter());
+    }
+
+    /**
+     * Resolves the columns of a schema to their indices and the names of the properties to which they are bound. With
+     * no columns declared, the columns of a header are bound to the properties they name and, without a header, the
+     * columns of a Java record type are bound to its components in order.
+     */
+    private static List<ResolvedColumn> resolveColumns(CsvSchema<?> schema, CsvRecord header, Map<String, Class<?>> propertyTypes) {
+        List<ResolvedColumn> resolved = new ArrayList<>();
+        if (schema.getColumns().isEmpty()) {
+            if (header != null) {
+                for (int n = 0; n < header.size(); n++) {
+                    String property = findProperty(propertyTypes, header.getString(n).trim());
+                    if (property != null) resolved.add(new ResolvedColumn(n, property, propertyTypes.get(property)));
+                }
+            } else if (schema.getType().isRecord()) {
+                int n = 0;
+                for (Map.Entry<String, Class<?>> component : propertyTypes.entrySet()) {
+                    resolved.add(new ResolvedColumn(n++, component.getKey(), component.getValue()));
+                }
+            } else {
+                throw new IllegalArgumentException("No columns are declared for the JavaBean type " + schema.getType().getName()
+                                                   + " and the schema has no header naming them");
+            }
+            return resolved;
+        }
+
+        for (CsvSchema.Column column : schema.getColumns()) {
+            if (!propertyTypes.containsKey(column.property)) {
+                throw new IllegalArgumentException("The type " + schema.getType().getName() + " has no writable property or component named \""
+                                                   + column.property + "\"");
+            }
+            resolved.add(new ResolvedColumn(column.header == null ? column.index : headerIndex(header, column.header),
+                                            column.property, propertyTypes.get(column.property)));
+        }
+        return resolved;
+    }
+
+    private static String findProperty(Map<String, Class<?>> propertyTypes, String name) {
+        if (propertyTypes.containsKey(name)) return name;
+
+        for (String property : propertyTypes.keySet()) {
+            if (property.equalsIgnoreCase(name)) return property;
+        }
+        return null;
+    }
+
+    private static int headerIndex(CsvRecord header, String name) {
+        if (header == null) {
+            throw new IllegalArgumentException("The column \"" + name + "\" is identified by header name, but the schema has no header");
+        }
+        for (int n = 0; n < header.size(); n++) {
+            if (header.getString(n).trim().equals(name)) return n;
+        }
+        throw new IllegalArgumentException("The header has no column named \"" + name + "\"");
+    }
+
+    /**
+     * A column resolved to its index and the property, and type of property, to which it is bound.
+     */
+    static final class ResolvedColumn {
+        final int index;
+
+        final String property;
+
+        final Class<?> propertyType;
+
+        ResolvedColumn(int index, String property, Class<?> propertyType) {
+            this.index = index;
+            this.property = property;
+            this.propertyType = propertyType;
+        }
+    }
+
+    /**
+     * The assignment of a field of a record to a property of a bean.
+     */
+    @FunctionalInterface
+    interface FieldSetter {
+        void set(Object bean, CsvRecord record, int index);
+    }
+
+    /**
+     * Binds records to new JavaBeans, constructed through their no-arg constructor and populated through their setters.
+     */
+    static final class BeanBinder<T> extends CsvRecordBinder<T> {
+        private final Supplier<Object> constructor;
+
+        private final FieldSetter[] setters;
+
+        BeanBinder(Class<T> type, Map<String, Method> writeMethods, List<ResolvedColumn> columns, TypeConverter typeConverter) {
+            super(type, columns);
+            Constructor<T> noArgConstructor;
+            try {
+                noArgConstructor = type.getDeclaredConstructor();
+            } catch (NoSuchMethodException noSuchMethodEx) {
+                throw new IllegalArgumentException("The JavaBean type " + type.getName() + " has no no-arg constructor", noSuchMethodEx);
+            }
+            this.constructor = BoundMethods.bindConstructor(noArgConstructor);
+
+            setters = new FieldSetter[columns.size()];
+            for (int n = 0; n < setters.length; n++) {
+                ResolvedColumn column = columns.get(n);
+                setters[n] = fieldSetter(writeMethods.get(column.property), column.propertyType, typeConverter);
+            }
+        }
+
+        private static FieldSetter fieldSetter(Method writeMethod, Class<?> propertyType, TypeConverter typeConverter) {
+            if (propertyType == int.class) {
+                ObjIntConsumer<Object> setter = BoundMethods.bindIntSetter(writeMethod);
+                return (bean, record, index) -> setter.accept(bean, record.parseInt(index));
+            }
+            if (propertyType == long.class) {
+                ObjLongConsumer<Object> setter = BoundMethods.bindLongSetter(writeMethod);
+                return (bean, record, index) -> setter.accept(bean, record.parseLong(index));
+            }
+            if (propertyType == double.class) {
+                ObjDoubleConsumer<Object> setter = BoundMethods.bindDoubleSetter(writeMethod);
+                return (bean, record, index) -> setter.accept(bean, record.parseDouble(index));
+            }
+
+            BiConsumer<Object, Object> setter = BoundMethods.bindSetter(writeMethod);
+            CsvFieldParser<?> parser = CsvFieldParser.forType(propertyType, typeConverter);
+            return (bean, record, index) -> setter.accept(bean, parser.parse(record, index));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T apply(CsvRecord record) {
+            Object bean = constructor.get();
+            int size = record.size();
+            for (int n = 0; n < setters.length; n++) {
+                int index = indices[n];
+                if (index >= size || record.isEmpty(index)) continue;
+
+                try {
+                    setters[n].set(bean, record, index);
+                } catch (RuntimeException ex) {
+                    throw bindingException(record, n, ex);
+                }
+            }
+            return (T)bean;
+        }
+    }
+
+    /**
+     * Binds records to new Java records, constructed through their canonical constructor.
+     */
+    static final class RecordBinder<T> extends CsvRecordBinder<T> {
+        private final Function<Object[], Object> constructor;
+
+        /** The position of the component to which each column is bound, in the canonical constructor. */
+        private final int[] positions;
+
+        private final CsvFieldParser<?>[] parsers;
+
+        /** The default values of the components, for fields that are missing or empty. */
+        private final Object[] defaults;
+
+        RecordBinder(Class<T> type, RecordComponent[] components, List<ResolvedColumn> columns, TypeConverter typeConverter) {
+            super(type, columns);
+            Class<?>[] componentTypes = new Class<?>[components.length];
+            defaults = new Object[components.length];
+            List<String> componentNames = new ArrayList<>();
+            for (int n = 0; n < components.length; n++) {
+                componentTypes[n] = components[n].getType();
+                componentNames.add(components[n].getName());
+                if (componentTypes[n].isPrimitive()) defaults[n] = Array.get(Array.newInstance(componentTypes[n], 1), 0);
+            }
+            try {
+                this.constructor = BoundMethods.bindSpreadConstructor(type.getDeclaredConstructor(componentTypes));
+            } catch (NoSuchMethodException noSuchMethodEx) {
+                throw new IllegalArgumentException("The record type " + type.getName() + " has no canonical constructor", noSuchMethodEx);
+            }
+
+            positions = new int[columns.size()];
+            parsers = new CsvFieldParser<?>[columns.size()];
+            for (int n = 0; n < positions.length; n++) {
+                ResolvedColumn column = columns.get(n);
+                positions[n] = componentNames.indexOf(column.property);
+                parsers[n] = CsvFieldParser.forType(column.propertyType, typeConverter);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T apply(CsvRecord record) {
+            Object[] arguments = defaults.clone();
+            int size = record.size();
+            for (int n = 0; n < parsers.length; n++) {
+                int index = indices[n];
+                if (index >= size || record.isEmpty(index)) continue;
+
+                try {
+                    arguments[positions[n]] = parsers[n].parse(record, index);
+                } catch (RuntimeException ex) {
+                    throw bindingException(record, n, ex);
+                }
+            }
+            return (T)constructor.apply(arguments);
+        }
+    }
+}
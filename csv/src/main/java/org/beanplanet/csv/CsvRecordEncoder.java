@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.csv;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Encodes CSV records, in a single pass over each field, into a growable character buffer. Fields containing a
+ * delimiter, quote, carriage return or line feed are quoted, and their quotes doubled, as they are copied; other fields
+ * are copied in bulk. <code>Integer</code> and <code>Long</code> fields are formatted directly into the buffer. Other
+ * characters requiring a field to be quoted may be given by a predicate, at the cost of testing each character through
+ * it.
+ */
+final class CsvRecordEncoder {
+    /** Whether each ASCII character requires the field containing it to be quoted. */
+    private static final boolean[] QUOTABLE = new boolean[128];
+
+    static {
+        QUOTABLE[CsvTokenizer.DEFAULT_DELIMITER] = true;
+        QUOTABLE[CsvTokenizer.DEFAULT_QUOTE] = true;
+        QUOTABLE['\r'] = true;
+        QUOTABLE['\n'] = true;
+    }
+
+    /** The buffer of encoded characters. */
+    char[] chars;
+
+    /** The number of encoded characters in the buffer. */
+    int length;
+
+    /** Tests whether a character requires the field containing it to be quoted, or null for the default characters. */
+    private final IntPredicate quotable;
+
+    CsvRecordEncoder(int capacity) {
+        this(capacity, null);
+    }
+
+    CsvRecordEncoder(int capacity, IntPredicate quotable) {
+        this.chars = new char[Math.max(capacity, 16)];
+        this.quotable = quotable;
+    }
+
+    void appendRecord(List<?> fields) {
+        if (fields == null) return;
+
+        int n = 0;
+        for (Object field : fields) {
+            if (n++ > 0) appendFieldDelimiter();
+            appendField(field);
+        }
+        appendRecordDelimiter();
+    }
+
+    void appendRecord(CsvRecord record) {
+        for (int n = 0; n < record.size(); n++) {
+            if (n > 0) appendFieldDelimiter();
+            appendField(record.buffer, record.starts[n], record.ends[n]);
+        }
+        appendRecordDelimiter();
+    }
+
+    /**
+     * Appends some fields of a record, without a record delimiter. Fields beyond the end of the record are appended as
+     * empty fields.
+     */
+    void appendFields(CsvRecord record, int[] indices) {
+        for (int n = 0; n < indices.length; n++) {
+            if (n > 0) appendFieldDelimiter();
+            if (indices[n] < record.size()) appendField(record.buffer, record.starts[indices[n]], record.ends[indices[n]]);
+        }
+    }
+
+    void appendFieldDelimiter() {
+        ensureCapacity(1);
+        chars[length++] = CsvTokenizer.DEFAULT_DELIMITER;
+    }
+
+    void appendRecordDelimiter() {
+        ensureCapacity(2);
+        chars[length++] = '\r';
+        chars[length++] = '\n';
+    }
+
+    void appendField(Object field) {
+        if (field == null) return;
+
+        if (field instanceof Integer || field instanceof Long) {
+            appendLong(((Number)field).longValue());
+        } else {
+            appendField(field instanceof CharSequence ? (CharSequence)field : field.toString());
+        }
+    }
+
+    void appendField(CharSequence field) {
+        int fieldLength = field.length();
+        int quotableIndex = 0;
+        while (quotableIndex < fieldLength && !isQuotable(field.charAt(quotableIndex))) quotableIndex++;
+
+        if (quotableIndex == fieldLength) {
+            ensureCapacity(fieldLength);
+            copy(field, 0, fieldLength);
+            return;
+        }
+
+        // At worst every remaining character is a quote to be doubled, between the enclosing quotes
+        ensureCapacity(quotableIndex + 2 * (fieldLength - quotableIndex) + 2);
+        chars[length++] = CsvTokenizer.DEFAULT_QUOTE;
+        copy(field, 0, quotableIndex);
+        for (int n = quotableIndex; n < fieldLength; n++) {
+            char ch = field.charAt(n);
+            if (ch == CsvTokenizer.DEFAULT_QUOTE) chars[length++] = ch;
+            chars[length++] = ch;
+        }
+        chars[length++] = CsvTokenizer.DEFAULT_QUOTE;
+    }
+
+    private void appendField(char[] source, int from, int to) {
+        int quotableIndex = from;
+        while (quotableIndex < to && !isQuotable(source[quotableIndex])) quotableIndex++;
+
+        if (quotableIndex == to) {
+            ensureCapacity(to - from);
+            System.arraycopy(source, from, chars, length, to - from);
+            length += to - from;
+            return;
+        }
+
+        ensureCapacity(quotableIndex - from + 2 * (to - quotableIndex) + 2);
+        chars[length++] = CsvTokenizer.DEFAULT_QUOTE;
+        System.arraycopy(source, from, chars, length, quotableIndex - from);
+        length += quotableIndex - from;
+        for (int n = quotableIndex; n < to; n++) {
+            char ch = source[n];
+            if (ch == CsvTokenizer.DEFAULT_QUOTE) chars[length++] = ch;
+            chars[length++] = ch;
+        }
+        chars[length++] = CsvTokenizer.DEFAULT_QUOTE;
+    }
+
+    private void appendLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            appendField(Long.toString(value));
+            return;
+        }
+
+        ensureCapacity(20);
+        if (value < 0) {
+            chars[length++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long remaining = value / 10; remaining > 0; remaining /= 10) digits++;
+        for (int n = length + digits - 1; n >= length; n--) {
+            chars[n] = (char)('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+    }
+
+    /**
+     * Determines whether a character requires the field containing it to be quoted by default: whether it is a
+     * delimiter, quote, carriage return or line feed.
+     *
+     * @param ch the character to be tested.
+     * @return true if the field containing the character is to be quoted, false otherwise.
+     */
+    static boolean isDefaultQuotable(char ch) {
+        return ch < 128 && QUOTABLE[ch];
+    }
+
+    private boolean isQuotable(char ch) {
+        return quotable == null ? isDefaultQuotable(ch) : quotable.test(ch);
+    }
+
+    private void copy(CharSequence source, int from, int to) {
+        if (source instanceof String) {
+            ((String)source).getChars(from, to, chars, length);
+            length += to - from;
+        } else {
+            for (int n = from; n < to; n++) chars[length++] = source.charAt(n);
+        }
+    }
+
+    private void ensureCapacity(int additional) {
+        if (length + additional > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + additional));
+        }
+    }
+
+    /**
+     * Discards the encoded characters, retaining the given number of trailing characters, which have yet to be written.
+     *
+     * @param retained the number of trailing characters to be retained at the start of the buffer.
+     */
+    void clear(int retained) {
+        System.arraycopy(chars, length - retained, chars, 0, retained);
+        length = retained;
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.csv;
+
+import org.beanplanet.core.lang.conversion.TypeConverter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.beanplanet.core.lang.conversion.SystemTypeConverter.systemTypeConverter;
+
+/**
+ * A schema binding the columns of CSV records to the properties of a JavaBean or the components of a Java record.
+ * Columns are identified by header name, when the first record is a header, or by index, and only the columns bound are
+ * ever read: the fields of other columns are skipped without being materialised.
+ * <p>
+ * The schema is compiled, against the header if any, into a binder which resolves the parser of each column, and the
+ * setter or record component it is bound to, once. Numbers are parsed directly from the buffer of the record and,
+ * where a JavaBean property is an <code>int</code>, <code>long</code> or <code>double</code>, set without boxing.
+ * Empty fields leave properties at their initial values, and record components at their defaults.
+ * </p>
+ * <pre>
+ * CsvSchema&lt;Trade&gt; schema = new CsvSchema&lt;&gt;(Trade.class).withHeader()
+ *                                                       .column("Trade Id", "id")
+ *                                                       .column("Price", "price");
+ * try (Stream&lt;Trade&gt; trades = new CsvReader().stream(resource, schema)) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * @param <T> the type of the objects records are bound to.
+ */
+public class CsvSchema<T> {
+    /**
+     * A column binding, of a column identified by header name or index to a property or record component.
+     */
+    static final class Column {
+        /** The header name of the column, or null if identified by index. */
+        final String header;
+
+        /** The index of the column, or -1 if identified by header name. */
+        final int index;
+
+        /** The name of the property or record component to which the column is bound. */
+        final String property;
+
+        Column(String header, int index, String property) {
+            this.header = header;
+            this.index = index;
+            this.property = property;
+        }
+    }
+
+    /** The type of the objects records are bound to. */
+    private final Class<T> type;
+
+    /** Whether the first record is a header naming the columns. */
+    private boolean header;
+
+    /** The columns bound, in the order declared. */
+    private final List<Column> columns = new ArrayList<>();
+
+    /** The type converter of fields to types not parsed directly. */
+    private TypeConverter typeConverter = systemTypeConverter();
+
+    /**
+     * Constructs a new schema, binding records to the given type.
+     *
+     * @param type the JavaBean or Java record type to which records are bound.
+     */
+    public CsvSchema(Class<T> type) {
+        this.type = type;
+    }
+
+    /**
+     * Gets the type of the objects records are bound to.
+     *
+     * @return the JavaBean or Java record type to which records are bound.
+     */
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Whether the first record is a header naming the columns.
+     *
+     * @return true if the first record is a header, false otherwise.
+     */
+    public boolean isHeader() {
+        return header;
+    }
+
+    /**
+     * Sets whether the first record is a header naming the columns.
+     *
+     * @param header true if the first record is a header, false otherwise.
+     */
+    public void setHeader(boolean header) {
+        this.header = header;
+    }
+
+    /**
+     * Specifies that the first record is a header naming the columns. If no columns are declared, each column whose
+     * header names a property or record component is bound to it.
+     *
+     * @return this schema, for method chaining.
+     */
+    public CsvSchema<T> withHeader() {
+        setHeader(true);
+        return this;
+    }
+
+    /**
+     * Gets the type converter of fields to types not parsed directly.
+     *
+     * @return the type converter, which is the system type converter unless set otherwise.
+     */
+    public TypeConverter getTypeConverter() {
+        return typeConverter;
+    }
+
+    /**
+     * Sets the type converter of fields to types not parsed directly.
+     *
+     * @param typeConverter the type converter.
+     */
+    public void setTypeConverter(TypeConverter typeConverter) {
+        this.typeConverter = typeConverter;
+    }
+
+    /**
+     * Sets the type converter of fields to types not parsed directly.
+     *
+     * @param typeConverter the type converter.
+     * @return this schema, for method chaining.
+     */
+    public CsvSchema<T> withTypeConverter(TypeConverter typeConverter) {
+        setTypeConverter(typeConverter);
+        return this;
+    }
+
+    /**
+     * Binds the column with the given header name to the property or record component of the same name.
+     *
+     * @param name the header name of the column and the name of the property or record component.
+     * @return this schema, for method chaining.
+     */
+    public CsvSchema<T> column(String name) {
+        return column(name, name);
+    }
+
+    /**
+     * Binds the column with the given header name to a property or record component.
+     *
+     * @param header the header name of the column.
+     * @param property the name of the property or record component.
+     * @return this schema, for method chaining.
+     */
+    public CsvSchema<T> column(String header, String property) {
+        columns.add(new Column(header, -1, property));
+        return this;
+    }
+
+    /**
+     * Binds the column at the given index to a property or record component.
+     *
+     * @param index the index of the column, starting at 0.
+     * @param property the name of the property or record component.
+     * @return this schema, for method chaining.
+     */
+    public CsvSchema<T> column(int index, String property) {
+        if (index < 0) throw new IllegalArgumentException("The column index must not be negative: " + index);
+
+        columns.add(new Column(null, index, property));
+        return this;
+    }
+
+    /**
+     * Gets the columns bound, in the order declared.
+     *
+     * @return an unmodifiable list of the columns bound.
+     */
+    List<Column> getColumns() {
+        return Collections.unmodifiableList(columns);
+    }
+
+    /**
+     * Compiles this schema into a function binding records to new objects of the schema type. The function is
+     * thread-safe and may be shared by the ranges of a parallel stream.
+     *
+     * @param headerRecord the header record, or null if the schema has no header.
+     * @return a function binding a record to a new object.
+     * @throws IllegalArgumentException if a column or property is not found.
+     */
+    public Function<CsvRecord, T> compile(CsvRecord headerRecord) throws IllegalArgumentException {
+        return CsvRecordBinder.compile(this, headerRecord);
+    }
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.csv;
+
+import org.beanplanet.core.io.IoException;
+import org.beanplanet.core.lang.ParseException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * A table-driven CSV tokenizer, parsing records from a large, reused, character buffer into a flyweight
+ * {@link CsvRecord} whose fields are ranges of that buffer.
+ * <p>
+ * Each character is classified through a lookup table, and the class and current state index a transition table giving
+ * the action to take and the next state. No objects are allocated per field or per record: quoted fields are unescaped
+ * in place within the buffer, and the same record is returned, refilled, for every record parsed. The buffer is
+ * refilled from the source {@link Reader} as parsing proceeds, and grows only when a single record does not fit.
+ * </p>
+ * <p>
+ * The format accepted is that of RFC 4180, as parsed by the grammar-based {@link CSVResourceParser}: records are
+ * terminated by LF or CRLF (or a lone CR), fields are separated by a delimiter and may be enclosed in quotes, within
+ * which delimiters, line breaks and doubled quotes are taken literally. Unlike the grammar-based parser, blank lines
+ * are skipped rather than ending the input, and Java unicode escapes in the input are not expanded.
+ * </p>
+ */
+public class CsvTokenizer implements Closeable {
+    /** The default size of the character buffer, in characters. */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /** The default field delimiter. */
+    public static final char DEFAULT_DELIMITER = ',';
+
+    /** The default quote character. */
+    public static final char DEFAULT_QUOTE = '"';
+
+    // Character classes
+    private static final int OTHER = 0;
+    private static final int DELIMITER = 1;
+    private static final int QUOTE = 2;
+    private static final int CR = 3;
+    private static final int LF = 4;
+    private static final int NUMBER_OF_CHARACTER_CLASSES = 5;
+
+    // States
+    private static final int RECORD_START = 0;
+    private static final int FIELD_START = 1;
+    private static final int UNQUOTED = 2;
+    private static final int QUOTED = 3;
+    private static final int QUOTE_IN_QUOTED = 4;
+
+    // Actions
+    private static final int SKIP = 0;
+    private static final int APPEND = 1;
+    private static final int START_UNQUOTED = 2;
+    private static final int START_QUOTED = 3;
+    private static final int EMPTY_FIELD = 4;
+    private static final int END_FIELD = 5;
+    private static final int EMPTY_FIELD_END_RECORD = 6;
+    private static final int END_FIELD_END_RECORD = 7;
+
+    private static final int STATE_BITS = 3;
+    private static final int STATE_MASK = (1 << STATE_BITS) - 1;
+
+    /** The action and next state, indexed by the current state then character class. */
+    private static final int[] TRANSITIONS = {
+        // RECORD_START
+        transition(START_UNQUOTED, UNQUOTED), transition(EMPTY_FIELD, FIELD_START), transition(START_QUOTED, QUOTED), transition(SKIP, RECORD_START), transition(SKIP, RECORD_START),
+        // FIELD_START
+        transition(START_UNQUOTED, UNQUOTED), transition(EMPTY_FIELD, FIELD_START), transition(START_QUOTED, QUOTED), transition(EMPTY_FIELD_END_RECORD, RECORD_START), transition(EMPTY_FIELD_END_RECORD, RECORD_START),
+        // UNQUOTED
+        transition(APPEND, UNQUOTED), transition(END_FIELD, FIELD_START), transition(APPEND, UNQUOTED), transition(END_FIELD_END_RECORD, RECORD_START), transition(END_FIELD_END_RECORD, RECORD_START),
+        // QUOTED
+        transition(APPEND, QUOTED), transition(APPEND, QUOTED), transition(SKIP, QUOTE_IN_QUOTED), transition(APPEND, QUOTED), transition(APPEND, QUOTED),
+        // QUOTE_IN_QUOTED: a doubled quote, the end of the field or, leniently, text following the closing quote
+        transition(APPEND, UNQUOTED), transition(END_FIELD, FIELD_START), transition(APPEND, QUOTED), transition(END_FIELD_END_RECORD, RECORD_START), transition(END_FIELD_END_RECORD, RECORD_START)
+    };
+
+    /** The source of the characters parsed, or null if parsing a fixed region of characters. */
+    private final Reader reader;
+
+    /** The class of each ASCII character. Non-ASCII characters are always of the OTHER class. */
+    private final byte[] characterClasses = new byte[128];
+
+    /** The record reused for every record parsed. */
+    private final CsvRecord record = new CsvRecord();
+
+    private char[] buffer;
+
+    /** The offset in the buffer of the next character to be parsed. */
+    private int position;
+
+    /** The offset in the buffer after the last character available to be parsed. */
+    private int limit;
+
+    /** Whether all characters from the source have been read into the buffer. */
+    private boolean endOfInput;
+
+    /** The number of records parsed so far. */
+    private long recordCount;
+
+    /** The read position after the last run of ordinary characters scanned. */
+    private int scanned;
+
+    /**
+     * Constructs a new <code>CsvTokenizer</code> parsing characters from a reader, using the default buffer size,
+     * delimiter and quote character.
+     *
+     * @param reader the source of the characters to parse.
+     */
+    public CsvTokenizer(Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE, DEFAULT_DELIMITER, DEFAULT_QUOTE);
+    }
+
+    /**
+     * Constructs a new <code>CsvTokenizer</code> parsing characters from a reader.
+     *
+     * @param reader the source of the characters to parse.
+     * @param bufferSize the initial size of the character buffer, in characters.
+     * @param delimiter the field delimiter, which must be an ASCII character.
+     * @param quote the quote character, which must be an ASCII character.
+     */
+    public CsvTokenizer(Reader reader, int bufferSize, char delimiter, char quote) {
+        this(reader, new char[Math.max(bufferSize, 16)], 0, 0, delimiter, quote);
+    }
+
+    /**
+     * Constructs a new <code>CsvTokenizer</code> parsing a region of characters, in place, using the default delimiter
+     * and quote character. The characters of quoted fields are unescaped within the region as they are parsed.
+     *
+     * @param chars the characters to parse.
+     * @param offset the offset of the first character to parse.
+     * @param length the number of characters to parse.
+     */
+    public CsvTokenizer(char[] chars, int offset, int length) {
+        this(null, chars, offset, offset + length, DEFAULT_DELIMITER, DEFAULT_QUOTE);
+    }
+
+    private CsvTokenizer(Reader reader, char[] buffer, int position, int limit, char delimiter, char quote) {
+        if (delimiter >= characterClasses.length || quote >= characterClasses.length || delimiter == quote
+            || delimiter == '\r' || delimiter == '\n' || quote == '\r' || quote == '\n') {
+            throw new IllegalArgumentException("The delimiter and quote must be distinct ASCII characters other than CR and LF");
+        }
+        this.reader = reader;
+        this.buffer = buffer;
+        this.position = position;
+        this.limit = limit;
+        this.endOfInput = reader == null;
+
+        characterClasses[delimiter] = DELIMITER;
+        characterClasses[quote] = QUOTE;
+        characterClasses['\r'] = CR;
+        characterClasses['\n'] = LF;
+    }
+
+    private static int transition(int action, int nextState) {
+        return (action << STATE_BITS) | nextState;
+    }
+
+    /**
+     * Parses the next record.
+     *
+     * @return the record parsed, which is the same record instance on every call and only valid until the next call,
+     *         or null if there are no more records.
+     * @throws ParseException if the input ends within a quoted field.
+     * @throws IoException if an error occurs reading from the source.
+     */
+    public CsvRecord next() throws ParseException, IoException {
+        char[] buf = buffer;
+        byte[] classes = characterClasses;
+        record.reset(buf);
+
+        int state = RECORD_START;
+        int r = position;
+        int w = r;
+        int fieldStart = r;
+        int recordStart = r;
+        for (;;) {
+            if (r == limit) {
+                if (endOfInput) {
+                    position = r;
+                    return endOfInput(state, fieldStart, w);
+                }
+
+                int shift = fill(recordStart);
+                buf = buffer;
+                r += shift;
+                w += shift;
+                fieldStart += shift;
+                recordStart += shift;
+                record.relocate(buf, shift);
+                continue;
+            }
+
+            char ch = buf[r++];
+            int transition = TRANSITIONS[state * NUMBER_OF_CHARACTER_CLASSES + (ch < 128 ? classes[ch] : OTHER)];
+            state = transition & STATE_MASK;
+            switch (transition >>> STATE_BITS) {
+                case APPEND:
+                    buf[w++] = ch;
+                    w = appendOrdinary(buf, classes, r, w);
+                    r = scanned;
+                    break;
+                case START_UNQUOTED:
+                    fieldStart = r - 1;
+                    w = appendOrdinary(buf, classes, r, r);
+                    r = scanned;
+                    break;
+                case START_QUOTED:
+                    fieldStart = r;
+                    w = r;
+                    break;
+                case EMPTY_FIELD:
+                    record.addField(r - 1, r - 1);
+                    break;
+                case END_FIELD:
+                    record.addField(fieldStart, w);
+                    break;
+                case EMPTY_FIELD_END_RECORD:
+                    record.addField(r - 1, r - 1);
+                    return endRecord(r);
+                case END_FIELD_END_RECORD:
+                    record.addField(fieldStart, w);
+                    return endRecord(r);
+                default:
+                    // Blank lines and quotes are skipped, the record starting after any blank lines
+                    if (state == RECORD_START) {
+                        recordStart = r;
+                    }
+            }
+        }
+    }
+
+    /**
+     * Appends the run of ordinary characters from a position, which have no special meaning in any state, without
+     * consulting the transition table, leaving the position after the run in <code>scanned</code>.
+     *
+     * @return the write position after the run.
+     */
+    private int appendOrdinary(char[] buf, byte[] classes, int r, int w) {
+        int end = limit;
+        if (r == w) {
+            // Nothing unescaped in this record yet, so the characters are already in place
+            while (r < end) {
+                char ch = buf[r];
+                if (ch < 128 && classes[ch] != OTHER) break;
+                r++;
+            }
+            w = r;
+        } else {
+            while (r < end) {
+                char ch = buf[r];
+                if (ch < 128 && classes[ch] != OTHER) break;
+                buf[w++] = ch;
+                r++;
+            }
+        }
+        scanned = r;
+        return w;
+    }
+
+    private CsvRecord endRecord(int r) {
+        position = r;
+        record.recordNumber = ++recordCount;
+        return record;
+    }
+
+    private CsvRecord endOfInput(int state, int fieldStart, int w) {
+        switch (state) {
+            case RECORD_START:
+                return null;
+            case FIELD_START:
+                record.addField(w, w);
+                break;
+            case QUOTED:
+                throw new ParseException("The input ended within a quoted field of record " + (recordCount + 1));
+            default:
+                record.addField(fieldStart, w);
+        }
+        return endRecord(position);
+    }
+
+    /**
+     * Reads more characters from the source into the buffer, first discarding the characters before those of the
+     * record being parsed, or growing the buffer if the record already fills it.
+     *
+     * @param keepFrom the offset of the first character of the record being parsed, or of the next character to be
+     *        parsed if the record has not yet started.
+     * @return the distance, in characters, the characters kept have moved within the buffer.
+     */
+    private int fill(int keepFrom) {
+        int shift = 0;
+        if (keepFrom > 0) {
+            System.arraycopy(buffer, keepFrom, buffer, 0, limit - keepFrom);
+            limit -= keepFrom;
+            shift = -keepFrom;
+        } else if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+
+        try {
+            int read = reader.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                endOfInput = true;
+            } else {
+                limit += read;
+            }
+        } catch (IOException ioEx) {
+            throw new IoException(ioEx);
+        }
+        return shift;
+    }
+
+    /**
+     * Returns the number of records parsed so far.
+     *
+     * @return the number of records parsed.
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Closes the source of the characters parsed, if any.
+     */
+    @Override
+    public void close() {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException ioEx) {
+                throw new IoException(ioEx);
+            }
+        }
+    }
+}
@@ -16,29 +16,100 @@
 
 package org.beanplanet.csv;
 
+import org.beanplanet.core.io.IoException;
 import org.beanplanet.core.io.IoUtil;
 import org.beanplanet.core.io.resource.Resource;
 
 import java.io.Closeable;
+import java.io.IOException;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
 
 import static org.beanplanet.core.io.IoUtil.flushWithRuntimeError;
-import static org.beanplanet.core.io.IoUtil.write;
 
 /**
  * The Class CsvWriter.
+ * <p>
+ * Records are encoded, quoting and escaping each field in a single pass, into a large reused character buffer which is
+ * written to the delegate in blocks of about the buffer size. The delegate is either a {@link Writer} or, to write
+ * UTF-8 bytes directly, a {@link WritableByteChannel} such as a <code>FileChannel</code>. Large lists of records may be
+ * encoded in parallel, in batches written in order, through {@link #writeRecordsInParallel(List)}.
+ * </p>
+ * <p>
+ * A writer is not thread-safe. Records are held in the buffer, and not written to the delegate, until about the
+ * buffer size has been encoded, so a writer must be flushed, through {@link #flush()}, for the records written so far
+ * to reach the delegate, and closed for the last of them to be written.
+ * </p>
  */
 public class CsvWriter implements Closeable {
+    /** The default size of the character buffer, in characters. */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /** The default number of records encoded by each task when writing records in parallel. */
+    public static final int DEFAULT_PARALLEL_BATCH_SIZE = 4096;
+
     /** The destination where the data is written. */
     protected Writer writerDelegate;
 
-    private StringBuilder tempBuilder = new StringBuilder();
+    /** The channel where the data is written as UTF-8 bytes, if not written to a writer. */
+    private WritableByteChannel channelDelegate;
+
+    /** The encoder of the characters written to the channel. */
+    private CharsetEncoder channelEncoder;
+
+    /** The buffer of bytes written to the channel. */
+    private ByteBuffer byteBuffer;
+
+    /** The size, in characters, of the buffer of encoded records above which the buffer is written. */
+    private final int bufferSize;
+
+    /** The buffer of encoded records. */
+    private final CsvRecordEncoder encoder;
+
+    /**
+     * Tests whether a character requires a field to be quoted through {@link #isQuotableCharacter(char)}, where a
+     * subclass overrides it, or null where the encoder's default characters apply.
+     */
+    private final IntPredicate quotable;
+
+    /** The number of records encoded by each task when writing records in parallel. */
+    private int parallelBatchSize = DEFAULT_PARALLEL_BATCH_SIZE;
 
     /**
      * Instantiates a new cSV writer.
      */
     public CsvWriter() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    private CsvWriter(int bufferSize) {
+        if (bufferSize <= 0) throw new IllegalArgumentException("The buffer size must be positive: " + bufferSize);
+
+        this.bufferSize = bufferSize;
+        this.quotable = overridesQuotableCharacter() ? ch -> isQuotableCharacter((char)ch) : null;
+        this.encoder = new CsvRecordEncoder(bufferSize + bufferSize / 4, quotable);
+    }
+
+    private boolean overridesQuotableCharacter() {
+        for (Class<?> type = getClass(); type != CsvWriter.class; type = type.getSuperclass()) {
+            try {
+                type.getDeclaredMethod("isQuotableCharacter", char.class);
+                return true;
+            } catch (NoSuchMethodException notDeclaredEx) {
+                // Not overridden at this level
+            }
+        }
+        return false;
     }
 
     /**
@@ -48,16 +119,49 @@ public class CsvWriter implements Closeable {
      *           the delegate writer
      */
     public CsvWriter(Writer delegateWriter) {
+        this(delegateWriter, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Instantiates a new CSV writer.
+     *
+     * @param delegateWriter the delegate writer.
+     * @param bufferSize the size, in characters, of the buffer of encoded records above which the buffer is written.
+     */
+    public CsvWriter(Writer delegateWriter, int bufferSize) {
+        this(bufferSize);
         setWriterDelegate(delegateWriter);
     }
 
+    /**
+     * Instantiates a new CSV writer, writing UTF-8 bytes directly to a channel.
+     *
+     * @param channel the channel, such as a <code>FileChannel</code>, where the content will be written.
+     */
+    public CsvWriter(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Instantiates a new CSV writer, writing UTF-8 bytes directly to a channel.
+     *
+     * @param channel the channel, such as a <code>FileChannel</code>, where the content will be written.
+     * @param bufferSize the size, in characters, of the buffer of encoded records above which the buffer is written.
+     */
+    public CsvWriter(WritableByteChannel channel, int bufferSize) {
+        this(bufferSize);
+        this.channelDelegate = channel;
+        this.channelEncoder = newUtf8Encoder();
+        this.byteBuffer = ByteBuffer.allocate(bufferSize * 2);
+    }
+
     /**
      * Instantiates a new CSV writer. The content will be written using the platform's default character set.
      *
      * @param resource the delegate resource where the content will be written.
      */
     public CsvWriter(Resource resource) {
-        setWriterDelegate(resource.getWriter());
+        this(resource.getWriter());
     }
 
     /**
@@ -67,7 +171,7 @@ public class CsvWriter implements Closeable {
      * @param charSetName the name of the character set applied to the written content.
      */
     public CsvWriter(Resource resource, String charSetName) {
-        setWriterDelegate(resource.getWriter(charSetName));
+        this(resource.getWriter(charSetName));
     }
 
     /**
@@ -89,6 +193,31 @@ public class CsvWriter implements Closeable {
         this.writerDelegate = writerDelegate;
     }
 
+    /**
+     * Gets the number of records encoded by each task when writing records in parallel.
+     *
+     * @return the number of records encoded by each parallel task.
+     */
+    public int getParallelBatchSize() {
+        return parallelBatchSize;
+    }
+
+    /**
+     * Sets the number of records encoded by each task when writing records in parallel.
+     *
+     * @param parallelBatchSize the number of records encoded by each parallel task.
+     */
+    public void setParallelBatchSize(int parallelBatchSize) {
+        if (parallelBatchSize <= 0) throw new IllegalArgumentException("The parallel batch size must be positive: " + parallelBatchSize);
+
+        this.parallelBatchSize = parallelBatchSize;
+    }
+
+    /**
+     * Writes a record to the buffer, which is written to the delegate once about the buffer size has been encoded.
+     *
+     * @param fields the fields of the record to be written, or null for no record.
+     */
     public void writeRecord(List<?> fields) {
         if (fields == null) {
             return;
@@ -103,49 +232,155 @@ public class CsvWriter implements Closeable {
         }
 
         writeRecordDelimter();
+        writeBufferIfFull();
     }
 
-    protected void writeField(Object field) {
-        if (field == null) {
-            return;
+    /**
+     * Writes a record parsed by a {@link CsvTokenizer}, copying its fields directly from the buffer they were parsed
+     * from, to the buffer of encoded records.
+     *
+     * @param record the record to be written.
+     */
+    public void writeRecord(CsvRecord record) {
+        encoder.appendRecord(record);
+        writeBufferIfFull();
+    }
+
+    /**
+     * Writes a list of records, encoding batches of the records in parallel and writing the batches in order. When
+     * writing to a channel, each batch is also encoded to UTF-8 bytes in parallel. The records are encoded by
+     * the standard rules of this class and {@link #isQuotableCharacter(char)}, rather than through any overridden
+     * {@link #writeField(Object)}.
+     *
+     * @param records the records to be written.
+     */
+    public void writeRecordsInParallel(List<? extends List<?>> records) {
+        writeBuffer(false);
+
+        int numberOfBatches = (records.size() + parallelBatchSize - 1) / parallelBatchSize;
+        IntStream.range(0, numberOfBatches)
+                 .parallel()
+                 .mapToObj(batch -> encodeBatch(records.subList(batch * parallelBatchSize, Math.min(records.size(), (batch + 1) * parallelBatchSize))))
+                 .forEachOrdered(this::writeBatch);
+    }
+
+    private Object encodeBatch(List<? extends List<?>> records) {
+        CsvRecordEncoder batchEncoder = new CsvRecordEncoder(records.size() * 64, quotable);
+        for (List<?> record : records) {
+            batchEncoder.appendRecord(record);
         }
+        if (channelDelegate == null) return batchEncoder;
 
-        tempBuilder.setLength(0);
-        tempBuilder.append(field.toString());
-        boolean containsQuotableCharacters = false;
-        for (int n=0; n < tempBuilder.length(); n++) {
-            char ch = tempBuilder.charAt(n);
-            containsQuotableCharacters = containsQuotableCharacters || isQuotableCharacter(ch);
-            if (ch == '\"') {
-                tempBuilder.insert(n, "\"");
-                n++;
-            }
+        try {
+            return newUtf8Encoder().encode(CharBuffer.wrap(batchEncoder.chars, 0, batchEncoder.length));
+        } catch (CharacterCodingException codingEx) {
+            throw new IoException(codingEx);
         }
+    }
 
-        if ( containsQuotableCharacters ) {
-            tempBuilder.insert(0, '\"').append('\"');
+    private void writeBatch(Object batch) {
+        try {
+            if (batch instanceof ByteBuffer) {
+                writeBytes((ByteBuffer)batch);
+            } else {
+                CsvRecordEncoder batchEncoder = (CsvRecordEncoder)batch;
+                writerDelegate.write(batchEncoder.chars, 0, batchEncoder.length);
+            }
+        } catch (IOException ioEx) {
+            throw new IoException(ioEx);
         }
+    }
 
-        write(getWriterDelegate(), tempBuilder);
+    protected void writeField(Object field) {
+        encoder.appendField(field);
     }
 
+    /**
+     * Determines whether a character requires the field containing it to be quoted. By default, fields containing a
+     * delimiter, quote, carriage return or line feed are quoted. Where a subclass overrides this method, each character
+     * of each field is tested through it.
+     *
+     * @param ch the character to be tested.
+     * @return true if the field containing the character is to be quoted, false otherwise.
+     */
     protected boolean isQuotableCharacter(char ch) {
-        return ",\n\"".indexOf(ch) >= 0;
+        return CsvRecordEncoder.isDefaultQuotable(ch);
     }
 
     protected void writeFieldDelimter() {
-        write(getWriterDelegate(), ",");
+        encoder.appendFieldDelimiter();
     }
 
     protected void writeRecordDelimter() {
-        write(getWriterDelegate(), IoUtil.CRLF);
+        encoder.appendRecordDelimiter();
     }
 
+    private void writeBufferIfFull() {
+        if (encoder.length >= bufferSize) writeBuffer(false);
+    }
+
+    /**
+     * Writes the buffer of encoded records to the delegate.
+     *
+     * @param endOfInput whether no more characters will be written, in which case a trailing high surrogate is encoded
+     *                   as malformed rather than retained for the next write to the channel.
+     */
+    private void writeBuffer(boolean endOfInput) {
+        try {
+            if (channelDelegate == null) {
+                if (encoder.length > 0) writerDelegate.write(encoder.chars, 0, encoder.length);
+                encoder.clear(0);
+                return;
+            }
+
+            CharBuffer chars = CharBuffer.wrap(encoder.chars, 0, encoder.length);
+            for (CoderResult result = channelEncoder.encode(chars, byteBuffer, endOfInput); result.isOverflow();
+                 result = channelEncoder.encode(chars, byteBuffer, endOfInput)) {
+                writeByteBuffer();
+            }
+            if (endOfInput) {
+                while (channelEncoder.flush(byteBuffer).isOverflow()) {
+                    writeByteBuffer();
+                }
+            }
+            writeByteBuffer();
+            encoder.clear(chars.remaining());
+        } catch (IOException ioEx) {
+            throw new IoException(ioEx);
+        }
+    }
+
+    private void writeByteBuffer() throws IOException {
+        byteBuffer.flip();
+        writeBytes(byteBuffer);
+        byteBuffer.clear();
+    }
+
+    private void writeBytes(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            channelDelegate.write(bytes);
+        }
+    }
+
+    private static CharsetEncoder newUtf8Encoder() {
+        return StandardCharsets.UTF_8.newEncoder()
+                                     .onMalformedInput(CodingErrorAction.REPLACE)
+                                     .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Writes the records buffered to the delegate, and flushes the delegate.
+     */
     public void flush() {
-        flushWithRuntimeError(getWriterDelegate());
+        writeBuffer(false);
+        if (writerDelegate != null) flushWithRuntimeError(getWriterDelegate());
     }
 
     public void close() {
-        IoUtil.close(getWriterDelegate());
+        try {
+            writeBuffer(true);
+        } finally {
+            IoUtil.close(channelDelegate != null ? channelDelegate : getWriterDelegate());
+        }
     }
 }
@@ -0,0 +1,379 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.csv;
+
+import org.beanplanet.core.io.IoException;
+import org.beanplanet.core.lang.ParseException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A spliterator of the records of a byte range of a CSV file, which splits by dividing the range at a record boundary
+ * near its middle, so that the records of a file may be parsed on a fork-join pool. Each range is parsed by a
+ * {@link CsvTokenizer} of its own, from a {@link MappedRangeReader} decoding its bytes from memory-mapped windows.
+ * <p>
+ * Whether a line feed ends a record depends on whether it falls within a quoted field, which cannot be known without
+ * parsing from the start of the range. A boundary is therefore first found by speculation: parsing from the split point
+ * is simulated for each state in which the point might fall - outside a field, within a quoted field and just after a
+ * quote within a quoted field - against RFC 4180, until those hypotheses contradicted by the input are eliminated and
+ * the survivors agree on the first record boundary. Where the input does not decide between them within a window of
+ * {@link #SPECULATION_WINDOW_SIZE} bytes, as with data containing no quotes, the speculation is resolved instead: the
+ * state at the split point is found by scanning the range from its start, itself a record boundary, as the
+ * {@link CsvTokenizer} would parse it. Runs of bytes containing no quote are skipped a word at a time.
+ * <p>
+ * Speculation only decides correctly for content quoted according to RFC 4180. Should content quoted otherwise lead it
+ * astray, the range before the boundary ends within a quoted field and parsing fails with a {@link ParseException}.
+ * </p>
+ * <p>
+ * The encoding of the file must be one in which the delimiter, quote, carriage return and line feed are encoded as
+ * their single ASCII bytes, and no other character contains those bytes, such as UTF-8 or ISO-8859-1.
+ * </p>
+ */
+final class MappedCsvSpliterator implements Spliterator<CsvRecord>, Closeable {
+    /** The maximum number of bytes examined from a split point to find a record boundary. */
+    static final int SPECULATION_WINDOW_SIZE = 256 * 1024;
+
+    // Character classes
+    private static final int OTHER = 0;
+    private static final int DELIMITER = 1;
+    private static final int QUOTE = 2;
+    private static final int CR = 3;
+    private static final int LF = 4;
+
+    // Speculative states: at a field start, within an unquoted field, within a quoted field, after a quote within a
+    // quoted field, and contradicted by the input
+    private static final int START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+    private static final int CONTRADICTED = 4;
+
+    /** The next speculative state, indexed by the current state then character class. */
+    private static final int[][] SPECULATIVE_TRANSITIONS = {
+        { UNQUOTED, START, QUOTED, START, START },
+        { UNQUOTED, START, CONTRADICTED, UNQUOTED, START },
+        { QUOTED, QUOTED, QUOTE_IN_QUOTED, QUOTED, QUOTED },
+        { CONTRADICTED, START, QUOTED, QUOTE_IN_QUOTED, START }
+    };
+
+    private static final int UNDECIDED = -1;
+    private static final int CONTRADICTED_ALL = -2;
+
+    /** The states hypothesised at a split point. */
+    private static final int[] HYPOTHESES = { START, QUOTED, QUOTE_IN_QUOTED };
+
+    /**
+     * The next state as the {@link CsvTokenizer} parses, indexed by the current state then character class: a quote
+     * within an unquoted field and text following a closing quote are taken literally, rather than contradicting.
+     */
+    private static final int[][] LENIENT_TRANSITIONS = {
+        { UNQUOTED, START, QUOTED, START, START },
+        { UNQUOTED, START, UNQUOTED, START, START },
+        { QUOTED, QUOTED, QUOTE_IN_QUOTED, QUOTED, QUOTED },
+        { UNQUOTED, START, QUOTED, START, START }
+    };
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private final FileChannel channel;
+
+    private final Charset charset;
+
+    private final int bufferSize;
+
+    private final long minimumSplitSize;
+
+    private final boolean ordered;
+
+    /** The absolute position in the file of the first byte of the range, inclusive. */
+    private long start;
+
+    /** The absolute position in the file of the end of the range, exclusive. */
+    private final long end;
+
+    /** Whether the end of the range is a record boundary found by speculation, rather than the end of the file. */
+    private final boolean speculativeEnd;
+
+    /** Whether the first record of the range, which is the header of the file, is to be skipped. */
+    private boolean skipHeader;
+
+    /** The tokenizer of the range, created once parsing has started, after which the range may no longer split. */
+    private CsvTokenizer tokenizer;
+
+    /**
+     * Constructs a new <code>MappedCsvSpliterator</code> over the whole of a file.
+     *
+     * @param channel the channel of the file, which is closed when this spliterator is closed.
+     * @param charset the character set in which the file is encoded.
+     * @param bufferSize the initial size of the character buffer of the tokenizer of each range.
+     * @param minimumSplitSize the size, in bytes, below which a range will not split.
+     * @param ordered whether the records are reported to be ordered.
+     */
+    MappedCsvSpliterator(FileChannel channel, Charset charset, int bufferSize, long minimumSplitSize, boolean ordered) {
+        this(channel, charset, bufferSize, minimumSplitSize, ordered, 0, size(channel), false);
+    }
+
+    private MappedCsvSpliterator(FileChannel channel, Charset charset, int bufferSize, long minimumSplitSize, boolean ordered,
+                                 long start, long end, boolean speculativeEnd) {
+        this.channel = channel;
+        this.charset = charset;
+        this.bufferSize = bufferSize;
+        this.minimumSplitSize = Math.max(minimumSplitSize, 1);
+        this.ordered = ordered;
+        this.start = start;
+        this.end = end;
+        this.speculativeEnd = speculativeEnd;
+    }
+
+    /**
+     * Determines whether the records of files in a given encoding may be parsed by this spliterator: whether the
+     * delimiter, quote, carriage return and line feed are encoded as their single ASCII bytes, and no other character
+     * contains those bytes.
+     *
+     * @param charset the character set in which files are encoded.
+     * @return true if the character set is UTF-8 or a single-byte character set compatible with ASCII, false otherwise.
+     */
+    static boolean supports(Charset charset) {
+        if (charset.equals(StandardCharsets.UTF_8)) return true;
+        if (!charset.canEncode() || charset.newEncoder().maxBytesPerChar() != 1) return false;
+
+        String specialCharacters = new String(new char[] { CsvTokenizer.DEFAULT_DELIMITER, CsvTokenizer.DEFAULT_QUOTE, '\r', '\n' });
+        return Arrays.equals(specialCharacters.getBytes(charset), specialCharacters.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Skips the first record of the file, which is a header. Must be called before the spliterator is split or traversed.
+     *
+     * @return this spliterator, for method chaining.
+     */
+    MappedCsvSpliterator skipHeader() {
+        skipHeader = true;
+        return this;
+    }
+
+    private static long size(FileChannel channel) {
+        try {
+            return channel.size();
+        } catch (IOException ioEx) {
+            throw new IoException(ioEx);
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super CsvRecord> action) {
+        CsvRecord record = nextRecord();
+        if (record == null) return false;
+
+        action.accept(record);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super CsvRecord> action) {
+        for (CsvRecord record = nextRecord(); record != null; record = nextRecord()) {
+            action.accept(record);
+        }
+    }
+
+    private CsvRecord nextRecord() {
+        if (tokenizer == null) {
+            tokenizer = new CsvTokenizer(new MappedRangeReader(channel, start, end, charset), bufferSize,
+                                         CsvTokenizer.DEFAULT_DELIMITER, CsvTokenizer.DEFAULT_QUOTE);
+            if (skipHeader) tokenizer.next();
+        }
+        try {
+            return tokenizer.next();
+        } catch (ParseException parseEx) {
+            if (!speculativeEnd) throw parseEx;
+
+            throw new ParseException("The record boundary found at byte " + end + ", when splitting the file for parallel parsing, "
+                                     + "falls within a quoted field. Read the file sequentially, or ensure fields are quoted according to RFC 4180", parseEx);
+        }
+    }
+
+    /**
+     * Splits off the first half of the range, up to a record boundary near its middle, provided the range is at least
+     * twice the minimum split size, parsing has not started and a boundary can be found.
+     *
+     * @return a spliterator of the records of the first half of the range, or null if the range cannot split.
+     */
+    @Override
+    public Spliterator<CsvRecord> trySplit() {
+        if (tokenizer != null || end - start < 2 * minimumSplitSize) return null;
+
+        long middle = start + (end - start) / 2;
+        long windowEnd = Math.min(end, middle + SPECULATION_WINDOW_SIZE);
+        ByteBuffer window;
+        try {
+            window = channel.map(FileChannel.MapMode.READ_ONLY, middle, windowEnd - middle);
+        } catch (IOException ioEx) {
+            throw new IoException(ioEx);
+        }
+        int offset = findRecordBoundary(window, (byte)CsvTokenizer.DEFAULT_DELIMITER, (byte)CsvTokenizer.DEFAULT_QUOTE, windowEnd == size(channel));
+        long boundary = offset >= 0 ? middle + offset : resolveRecordBoundary(middle);
+        if (boundary < 0 || boundary >= end) return null;
+
+        MappedCsvSpliterator prefix = new MappedCsvSpliterator(channel, charset, bufferSize, minimumSplitSize, ordered, start, boundary, true);
+        prefix.skipHeader = skipHeader;
+        skipHeader = false;
+        start = boundary;
+        return prefix;
+    }
+
+    /**
+     * Finds the first record boundary within a window of bytes starting at an arbitrary position within CSV content,
+     * by speculatively parsing the window from each of the states in which the position might fall.
+     *
+     * @param bytes the window of bytes, from its position to its limit.
+     * @param delimiter the field delimiter.
+     * @param quote the quote character.
+     * @param endOfInput whether the window extends to the end of the input, where a quoted field cannot remain open.
+     * @return the offset, relative to the position of the window, of the first byte after the first record boundary,
+     *         or -1 if the window does not decide the boundary.
+     */
+    static int findRecordBoundary(ByteBuffer bytes, byte delimiter, byte quote, boolean endOfInput) {
+        int[] states = HYPOTHESES.clone();
+        int[] boundaries = { -1, -1, -1 };
+        int from = bytes.position();
+        int limit = bytes.limit();
+        for (int n = from; n < limit; n++) {
+            byte b = bytes.get(n);
+            int characterClass = b == delimiter ? DELIMITER : b == quote ? QUOTE : b == '\r' ? CR : b == '\n' ? LF : OTHER;
+            for (int h = 0; h < states.length; h++) {
+                int state = states[h];
+                if (state == CONTRADICTED) continue;
+
+                states[h] = SPECULATIVE_TRANSITIONS[state][characterClass];
+                if (characterClass == LF && state != QUOTED && boundaries[h] < 0) {
+                    boundaries[h] = n + 1 - from;
+                }
+            }
+
+            int boundary = agreedBoundary(states, boundaries);
+            if (boundary != UNDECIDED) return Math.max(boundary, -1);
+        }
+
+        if (endOfInput) {
+            // A quoted field cannot remain open at the end of the input
+            for (int h = 0; h < states.length; h++) {
+                if (states[h] == QUOTED) {
+                    states[h] = CONTRADICTED;
+                }
+            }
+            int boundary = agreedBoundary(states, boundaries);
+            if (boundary != UNDECIDED) return Math.max(boundary, -1);
+        }
+
+        return -1;
+    }
+
+    /**
+     * Finds the first record boundary after a split point by scanning the range from its start, where parsing starts
+     * at a record boundary, with the rules of the {@link CsvTokenizer}.
+     *
+     * @param splitPoint the absolute position in the file of the split point, within the range.
+     * @return the absolute position in the file of the first byte after the first record boundary at or after the split
+     *         point, or -1 if there is none within the range.
+     */
+    private long resolveRecordBoundary(long splitPoint) {
+        byte delimiter = (byte)CsvTokenizer.DEFAULT_DELIMITER;
+        byte quote = (byte)CsvTokenizer.DEFAULT_QUOTE;
+        long quotes = (quote & 0xFF) * ONES;
+        int state = START;
+        for (long windowStart = start; windowStart < end; windowStart += MappedRangeReader.MAXIMUM_WINDOW_SIZE) {
+            int windowSize = (int)Math.min(end - windowStart, MappedRangeReader.MAXIMUM_WINDOW_SIZE);
+            ByteBuffer window;
+            try {
+                window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+            } catch (IOException ioEx) {
+                throw new IoException(ioEx);
+            }
+
+            int n = 0;
+            while (n < windowSize) {
+                if (windowStart + n + Long.BYTES <= splitPoint && n + Long.BYTES <= windowSize && state != QUOTE_IN_QUOTED) {
+                    // Without a quote, a word leaves a quoted field open, and otherwise the field started by its last byte
+                    long word = window.getLong(n) ^ quotes;
+                    if (((word - ONES) & ~word & HIGH_BITS) == 0) {
+                        n += Long.BYTES;
+                        if (state != QUOTED) {
+                            byte last = window.get(n - 1);
+                            state = last == delimiter || last == '\r' || last == '\n' ? START : UNQUOTED;
+                        }
+                        continue;
+                    }
+                }
+
+                byte b = window.get(n++);
+                int characterClass = b == delimiter ? DELIMITER : b == quote ? QUOTE : b == '\r' ? CR : b == '\n' ? LF : OTHER;
+                if (characterClass == LF && state != QUOTED && windowStart + n > splitPoint) return windowStart + n;
+
+                state = LENIENT_TRANSITIONS[state][characterClass];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the boundary on which the hypotheses not yet contradicted agree.
+     *
+     * @return the agreed boundary, {@link #UNDECIDED} if the hypotheses do not yet agree, or {@link #CONTRADICTED_ALL}
+     *         if all hypotheses are contradicted.
+     */
+    private static int agreedBoundary(int[] states, int[] boundaries) {
+        int agreed = CONTRADICTED_ALL;
+        for (int h = 0; h < states.length; h++) {
+            if (states[h] == CONTRADICTED) continue;
+            if (boundaries[h] < 0 || (agreed >= 0 && boundaries[h] != agreed)) return UNDECIDED;
+
+            agreed = boundaries[h];
+        }
+        return agreed;
+    }
+
+    @Override
+    public long estimateSize() {
+        // The number of bytes remaining, as an estimate of the number of records in proportion to other ranges
+        return end - start;
+    }
+
+    @Override
+    public int characteristics() {
+        return NONNULL | (ordered ? ORDERED : 0);
+    }
+
+    /**
+     * Closes the channel of the file, shared by the spliterators of all ranges split from the file.
+     */
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException ioEx) {
+            throw new IoException(ioEx);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.csv;
+
+import org.beanplanet.core.io.IoException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * A reader of the characters encoded in a byte range of a file, decoded from successive memory-mapped windows of the
+ * range, so ranges of any length may be read without copying their bytes onto the heap.
+ */
+class MappedRangeReader extends Reader {
+    /** The maximum number of bytes mapped at once. */
+    static final int MAXIMUM_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+
+    private final long end;
+
+    private final CharsetDecoder decoder;
+
+    /** The absolute position in the file of the next byte to be decoded. */
+    private long position;
+
+    /** The window currently mapped, or null if the next window is yet to be mapped. */
+    private ByteBuffer window;
+
+    /** The absolute position in the file of the start of the current window. */
+    private long windowStart;
+
+    private boolean flushed;
+
+    /**
+     * Constructs a new <code>MappedRangeReader</code>.
+     *
+     * @param channel the channel of the file whose bytes are to be read, which the reader does not close.
+     * @param start the absolute position in the file of the first byte of the range, inclusive.
+     * @param end the absolute position in the file of the end of the range, exclusive.
+     * @param charset the character set in which the bytes of the range are encoded.
+     */
+    MappedRangeReader(FileChannel channel, long start, long end, Charset charset) {
+        this.channel = channel;
+        this.position = start;
+        this.end = end;
+        this.decoder = charset.newDecoder()
+                              .onMalformedInput(CodingErrorAction.REPLACE)
+                              .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) {
+        if (len == 0) return 0;
+        if (flushed) return -1;
+
+        CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+        while (out.position() == off) {
+            if (window == null) {
+                mapWindow();
+            }
+            boolean lastWindow = windowStart + window.limit() == end;
+            CoderResult result = decoder.decode(window, out, lastWindow);
+            position = windowStart + window.position();
+            if (result.isOverflow()) break;
+
+            if (lastWindow) {
+                if (!flushed) {
+                    decoder.flush(out);
+                    flushed = true;
+                }
+                if (out.position() == off) return -1;
+                break;
+            }
+            // Any bytes of a character split across windows are decoded from the start of the next
+            window = null;
+        }
+        return out.position() - off;
+    }
+
+    private void mapWindow() {
+        try {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(end - position, MAXIMUM_WINDOW_SIZE));
+        } catch (IOException ioEx) {
+            throw new IoException(ioEx);
+        }
+    }
+
+    /**
+     * Releases the current window. The channel is not closed, as it is shared with the readers of other ranges.
+     */
+    @Override
+    public void close() {
+        window = null;
+    }
+}
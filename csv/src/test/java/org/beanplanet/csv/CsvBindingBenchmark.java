@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.csv;
+
+import org.beanplanet.core.io.resource.StringResource;
+import org.beanplanet.core.lang.conversion.TypeConverter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.beanplanet.core.lang.conversion.SystemTypeConverter.systemTypeConverter;
+
+/**
+ * JMH benchmark of binding three of the six columns of an in-memory CSV document of about 4 MB to Java records, through a
+ * schema, against converting the fields of each record as strings through the system type converter.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvBindingBenchmark {
+    private static final int NUMBER_OF_RECORDS = 50_000;
+
+    public record Payment(int id, String customer, double amount) {}
+
+    private String csv;
+
+    private final CsvSchema<Payment> schema = new CsvSchema<>(Payment.class).withHeader();
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder = new StringBuilder("id,customer,address,amount,greeting,date\r\n");
+        for (int n = 0; n < NUMBER_OF_RECORDS; n++) {
+            builder.append(n).append(",customer-").append(n).append(",\"Street ").append(n % 97).append(", Town\",")
+                   .append(n * 1.25d).append(",\"said \"\"hello\"\"\",2024-01-").append(10 + n % 20).append("\r\n");
+        }
+        csv = builder.toString();
+    }
+
+    @Benchmark
+    public double schemaBinding() {
+        try (Stream<Payment> payments = new CsvReader().stream(new StringResource(csv), schema)) {
+            return payments.mapToDouble(Payment::amount).sum();
+        }
+    }
+
+    @Benchmark
+    public double typeConverterPerField() {
+        TypeConverter typeConverter = systemTypeConverter();
+        try (Stream<List<CharSequence>> lines = new CsvReader().streamLines(new StringResource(csv))) {
+            return lines.skip(1)
+                        .map(fields -> new Payment(typeConverter.convert(fields.get(0).toString(), Integer.class),
+                                                   fields.get(1).toString(),
+                                                   typeConverter.convert(fields.get(3).toString(), Double.class)))
+                        .mapToDouble(Payment::amount).sum();
+        }
+    }
+}
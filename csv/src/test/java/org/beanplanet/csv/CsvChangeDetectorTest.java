@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.csv;
+
+import org.beanplanet.core.io.resource.FileResource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CsvChangeDetectorTest {
+    @TempDir
+    Path tempDir;
+
+    private Path writeSource(String csv) throws IOException {
+        return Files.write(tempDir.resolve("extract.csv"), csv.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> detectChanges(CsvChangeDetector detector, Path source) {
+        try (Stream<CsvChange> changes = detector.detectChanges(new FileResource(source.toFile()))) {
+            return changes.map(CsvChange::toString).collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void firstReadInsertsEveryRecord() throws IOException {
+        // Given
+        Path source = writeSource("id,name\r\n1,one\r\n2,\"t,wo\"\r\n");
+
+        // When
+        List<String> changes = detectChanges(new CsvChangeDetector(0).withHeader(), source);
+
+        // Then
+        assertThat(changes, contains("INSERTED [1] [1, one]", "INSERTED [2] [2, t,wo]"));
+        assertThat(Files.exists(CsvChangeDetector.indexFileFor(source.toFile()).toPath()), is(true));
+    }
+
+    @Test
+    public void onlyChangesSinceLastReadAreDetected() throws IOException {
+        // Given
+        CsvChangeDetector detector = new CsvChangeDetector(0, 1).withHeader();
+        Path source = writeSource("id,region,value\r\n1,\"E,U\",10\r\n2,US,20\r\n3,US,30\r\n4,é,40\r\n");
+        detectChanges(detector, source);
+        writeSource("id,region,value\r\n1,\"E,U\",10\r\n3,US,31\r\n5,EU,50\r\n");
+
+        // When
+        List<String> changes = detectChanges(detector, source);
+
+        // Then
+        assertThat(changes, contains("CHANGED [3, US] [3, US, 31]", "INSERTED [5, EU] [5, EU, 50]", "DELETED [2, US]", "DELETED [4, é]"));
+        assertThat(detectChanges(detector, source), empty());
+    }
+
+    @Test
+    public void indexUnchangedUntilChangesAreConsumed() throws IOException {
+        // Given
+        CsvChangeDetector detector = new CsvChangeDetector(0);
+        Path source = writeSource("1,a\r\n2,b\r\n");
+
+        // When
+        try (Stream<CsvChange> changes = detector.detectChanges(new FileResource(source.toFile()))) {
+            changes.findFirst();
+        }
+
+        // Then
+        assertThat(Files.exists(CsvChangeDetector.indexFileFor(source.toFile()).toPath()), is(false));
+        assertThat(detectChanges(detector, source), hasSize(2));
+    }
+
+    @Test
+    public void indexOfOtherKeyColumnsIsRejected() throws IOException {
+        // Given
+        Path source = writeSource("1,a\r\n");
+        detectChanges(new CsvChangeDetector(0), source);
+
+        // Then
+        assertThrows(IllegalStateException.class, () -> detectChanges(new CsvChangeDetector(1), source));
+    }
+
+    @Test
+    public void recordHashes() {
+        // Given
+        CsvRecord first = new CsvTokenizer("ab,c,x".toCharArray(), 0, 6).next().copy();
+        CsvRecord second = new CsvTokenizer("a,bc,x".toCharArray(), 0, 6).next();
+
+        // Then
+        assertThat(first.hash(), not(equalTo(second.hash())));
+        assertThat(first.hash(2), equalTo(second.hash(2)));
+        assertThat(first.hash(0, 5), not(equalTo(first.hash(0))));
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.csv;
+
+import org.beanplanet.core.io.resource.FileResource;
+import org.beanplanet.core.io.resource.Resource;
+import org.beanplanet.core.io.resource.StringResource;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * JMH benchmark of parsing an in-memory CSV document of about 4 MB, through the tokenizer, with and without copying each
+ * record, against the grammar-based parser, and of parsing the same document from a memory-mapped file, sequentially
+ * and in parallel. Throughput in MB/s is the number of operations per second multiplied by the size of the document
+ * reported at setup.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvReaderBenchmark {
+    private static final int NUMBER_OF_RECORDS = 50_000;
+
+    private String csv;
+
+    private File file;
+
+    @Setup
+    public void setUp() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (int n = 0; n < NUMBER_OF_RECORDS; n++) {
+            builder.append(n).append(",customer-").append(n).append(",\"Street ").append(n % 97).append(", Town\",")
+                   .append(n * 1.25d).append(",\"said \"\"hello\"\"\",2024-01-").append(10 + n % 20).append("\r\n");
+        }
+        csv = builder.toString();
+        file = File.createTempFile("CsvReaderBenchmark", ".csv");
+        file.deleteOnExit();
+        Files.write(file.toPath(), csv.getBytes(StandardCharsets.UTF_8));
+        System.out.printf("%nDocument size: %.2f MB%n", csv.length() / (1024d * 1024d));
+    }
+
+    @Benchmark
+    public long tokenizer() {
+        long length = 0;
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(csv));
+        for (CsvRecord record = tokenizer.next(); record != null; record = tokenizer.next()) {
+            for (int n = 0; n < record.size(); n++) {
+                length += record.length(n);
+            }
+        }
+        return length;
+    }
+
+    @Benchmark
+    public long tokenizerStreamLines() {
+        return streamLines(new CsvReader());
+    }
+
+    @Benchmark
+    public long grammarParserStreamLines() {
+        CsvReader reader = new CsvReader();
+        reader.setUseGrammarParser(true);
+        return streamLines(reader);
+    }
+
+    @Benchmark
+    public long mappedFileStreamLines() {
+        return streamLines(new CsvReader(), new FileResource(file), false);
+    }
+
+    @Benchmark
+    public long mappedFileParallelStreamLines() {
+        return streamLines(new CsvReader(), new FileResource(file), true);
+    }
+
+    private long streamLines(CsvReader reader) {
+        return streamLines(reader, new StringResource(csv), false);
+    }
+
+    private long streamLines(CsvReader reader, Resource resource, boolean parallel) {
+        try (Stream<List<CharSequence>> lines = reader.streamLines(resource)) {
+            return (parallel ? lines.parallel() : lines).mapToLong(fields -> fields.get(fields.size() - 1).length()).sum();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.csv;
+
+import org.beanplanet.core.io.resource.FileResource;
+import org.beanplanet.core.io.resource.StringResource;
+import org.beanplanet.core.lang.ParseException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CsvSchemaTest {
+    @TempDir
+    Path tempDir;
+
+    public enum Side { BUY, SELL }
+
+    public static class Trade {
+        private int id;
+        private String symbol;
+        private double price;
+        private long quantity;
+        private Side side;
+        private BigDecimal commission;
+
+        public int getId() { return id; }
+        public void setId(int id) { this.id = id; }
+        public String getSymbol() { return symbol; }
+        public void setSymbol(String symbol) { this.symbol = symbol; }
+        public double getPrice() { return price; }
+        public void setPrice(double price) { this.price = price; }
+        public long getQuantity() { return quantity; }
+        public void setQuantity(long quantity) { this.quantity = quantity; }
+        public Side getSide() { return side; }
+        public void setSide(Side side) { this.side = side; }
+        public BigDecimal getCommission() { return commission; }
+        public void setCommission(BigDecimal commission) { this.commission = commission; }
+    }
+
+    public record Quote(String symbol, double bid, Integer size) {}
+
+    private static final String TRADES = "Id,Symbol,Price,Quantity,Side,Commission\r\n"
+                                          + "1,ABC,12.5,100,BUY,0.10\r\n"
+                                          + "2,\"X,Y\",-0.125,,SELL,\r\n";
+
+    private static <T> List<T> stream(CsvReader reader, String csv, CsvSchema<T> schema) {
+        try (Stream<T> objects = reader.stream(new StringResource(csv), schema)) {
+            return objects.collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void beanBoundByHeaderNames() {
+        // When
+        List<Trade> trades = stream(new CsvReader(), TRADES, new CsvSchema<>(Trade.class).withHeader());
+
+        // Then
+        assertThat(trades, hasSize(2));
+        assertThat(trades.get(0).getId(), equalTo(1));
+        assertThat(trades.get(0).getSymbol(), equalTo("ABC"));
+        assertThat(trades.get(0).getPrice(), equalTo(12.5));
+        assertThat(trades.get(0).getQuantity(), equalTo(100L));
+        assertThat(trades.get(0).getSide(), equalTo(Side.BUY));
+        assertThat(trades.get(0).getCommission(), equalTo(new BigDecimal("0.10")));
+        assertThat(trades.get(1).getSymbol(), equalTo("X,Y"));
+        assertThat(trades.get(1).getPrice(), equalTo(-0.125));
+        assertThat(trades.get(1).getQuantity(), equalTo(0L));
+        assertThat(trades.get(1).getCommission(), nullValue());
+    }
+
+    @Test
+    public void projectedColumnsOnly() {
+        // Given
+        CsvSchema<Trade> schema = new CsvSchema<>(Trade.class).withHeader().column("Symbol", "symbol").column(2, "price");
+
+        // When
+        List<Trade> trades = stream(new CsvReader(), TRADES, schema);
+
+        // Then
+        assertThat(trades.get(0).getSymbol(), equalTo("ABC"));
+        assertThat(trades.get(0).getPrice(), equalTo(12.5));
+        assertThat(trades.get(0).getId(), equalTo(0));
+        assertThat(trades.get(0).getSide(), nullValue());
+    }
+
+    @Test
+    public void recordBoundByPositionWithoutHeader() {
+        // When
+        List<Quote> quotes = stream(new CsvReader(), "ABC,1.25,10\nXYZ,,\n", new CsvSchema<>(Quote.class));
+
+        // Then
+        assertThat(quotes, contains(new Quote("ABC", 1.25, 10), new Quote("XYZ", 0d, null)));
+    }
+
+    @Test
+    public void recordBoundByHeaderFromMappedFileInParallel() throws IOException {
+        // Given
+        StringBuilder csv = new StringBuilder("size,symbol,ignored,bid\n");
+        for (int n = 0; n < 20_000; n++) {
+            csv.append(n).append(",S").append(n).append(",\"unused\n").append(n).append("\",").append(n).append(".5\n");
+        }
+        Path file = Files.write(tempDir.resolve("quotes.csv"), csv.toString().getBytes(StandardCharsets.UTF_8));
+        CsvReader reader = new CsvReader();
+        reader.setMinimumSplitSize(4096);
+
+        // When
+        List<Quote> quotes;
+        try (Stream<Quote> stream = reader.stream(new FileResource(file.toFile()), new CsvSchema<>(Quote.class).withHeader())) {
+            quotes = stream.parallel().collect(Collectors.toList());
+        }
+
+        // Then
+        assertThat(quotes, hasSize(20_000));
+        assertThat(quotes.get(0), equalTo(new Quote("S0", 0.5, 0)));
+        assertThat(quotes.get(19_999), equalTo(new Quote("S19999", 19_999.5, 19_999)));
+    }
+
+    @Test
+    public void unparseableFieldReportsColumnAndRecord() {
+        // When
+        ParseException parseEx = assertThrows(ParseException.class, () -> stream(new CsvReader(), "1,ABC\nx,DEF\n",
+                                                                            new CsvSchema<>(Trade.class).column(0, "id")));
+
+        // Then
+        assertThat(parseEx.getMessage(), containsString("field 0 of record 2 to property \"id\""));
+    }
+
+    @Test
+    public void unknownPropertyIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> stream(new CsvReader(), "1\n", new CsvSchema<>(Trade.class).column(0, "unknown")));
+    }
+
+    @Test
+    public void parseNumbersFromBuffer() {
+        // Given
+        CsvRecord record = new CsvTokenizer("-9223372036854775808,2147483647,0.1,3.14159,1e3,123456789012345678.5,TRUE,x".toCharArray(), 0, 75).next();
+
+        // Then
+        assertThat(record.parseLong(0), equalTo(Long.MIN_VALUE));
+        assertThat(record.parseInt(1), equalTo(Integer.MAX_VALUE));
+        for (int n = 2; n <= 5; n++) {
+            assertThat(record.parseDouble(n), equalTo(Double.parseDouble(record.getString(n))));
+        }
+        assertThat(record.parseBoolean(6), equalTo(true));
+        assertThrows(NumberFormatException.class, () -> record.parseInt(0));
+        assertThrows(NumberFormatException.class, () -> record.parseLong(7));
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.csv;
+
+import org.beanplanet.core.io.resource.StringResource;
+import org.beanplanet.core.lang.ParseException;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CsvTokenizerTest {
+    private static List<List<String>> tokenize(String csv, int bufferSize) {
+        List<List<String>> records = new ArrayList<>();
+        try (CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(csv), bufferSize, ',', '"')) {
+            for (CsvRecord record = tokenizer.next(); record != null; record = tokenizer.next()) {
+                List<String> fields = new ArrayList<>();
+                for (int n = 0; n < record.size(); n++) {
+                    fields.add(record.getString(n));
+                }
+                records.add(fields);
+            }
+        }
+        return records;
+    }
+
+    private static List<List<String>> parseWithGrammar(String csv) {
+        CsvReader reader = new CsvReader();
+        reader.setUseGrammarParser(true);
+        try (Stream<List<CharSequence>> lines = reader.streamLines(new StringResource(csv))) {
+            return lines.map(fields -> fields.stream().map(CharSequence::toString).collect(Collectors.toList())).collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void next_unquotedAndQuotedFields() {
+        // When
+        List<List<String>> records = tokenize("a,b,c\r\n\"d,1\",\"e\"\"2\"\"\",\"f\r\n3\"\nlast,,", 64);
+
+        // Then
+        assertThat(records, contains(asList("a", "b", "c"),
+                                     asList("d,1", "e\"2\"", "f\r\n3"),
+                                     asList("last", "", "")));
+    }
+
+    @Test
+    public void next_blankLinesAreSkipped() {
+        // When
+        List<List<String>> records = tokenize("\n\na,b\n\r\n\nc,d\n\n", 64);
+
+        // Then
+        assertThat(records, contains(asList("a", "b"), asList("c", "d")));
+    }
+
+    @Test
+    public void next_recordsLargerThanTheBufferGrowIt() {
+        // Given
+        StringBuilder csv = new StringBuilder();
+        for (int n = 0; n < 200; n++) {
+            csv.append("field").append(n).append(",\"quoted \"\"").append(n).append("\"\"\"\n");
+        }
+
+        // When
+        List<List<String>> records = tokenize(csv.toString(), 16);
+
+        // Then
+        assertThat(records, hasSize(200));
+        assertThat(records.get(199), contains("field199", "quoted \"199\""));
+    }
+
+    @Test
+    public void next_matchesTheGrammarParser() {
+        // Given
+        String csv = ",leading\nl1c1,l1c2,l1c3\r\nl2c1,\"l2,c2\",\"l2\"\"c3\"\"\"\r\n\"multi\nline\",in\"side,trailing,\r\nlast";
+
+        // Then
+        assertThat(tokenize(csv, 16), equalTo(parseWithGrammar(csv)));
+    }
+
+    @Test
+    public void next_unterminatedQuotedField() {
+        // Given
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader("a,\"unterminated\n"));
+
+        // Then
+        assertThrows(ParseException.class, tokenizer::next);
+    }
+
+    @Test
+    public void record_viewsAndCopies() {
+        // Given
+        char[] chars = "one,\"t\"\"wo\"\nthree\n".toCharArray();
+        CsvTokenizer tokenizer = new CsvTokenizer(chars, 0, chars.length);
+
+        // When
+        CsvRecord record = tokenizer.next();
+        CsvRecord copy = record.copy();
+        List<CharSequence> list = record.toList();
+        CharSequence view = record.getField(1);
+
+        // Then
+        assertThat(record.getRecordNumber(), equalTo(1L));
+        assertThat(view.toString(), equalTo("t\"wo"));
+        assertThat(record.length(1), equalTo(4));
+        assertThat(record.charAt(1, 1), equalTo('"'));
+
+        // When
+        CsvRecord next = tokenizer.next();
+
+        // Then
+        assertThat(next, sameInstance(record));
+        assertThat(next.getString(0), equalTo("three"));
+        assertThat(copy.toList(), contains("one", "t\"wo"));
+        assertThat(list, contains("one", "t\"wo"));
+        assertThat(tokenizer.next(), nullValue());
+    }
+
+    @Test
+    public void streamLines_copiesEachRecord() {
+        // When
+        List<List<CharSequence>> lines;
+        try (Stream<List<CharSequence>> stream = new CsvReader().streamLines(new StringResource("l1c1,l1c2\nl2c1,l2c2\r\n"))) {
+            lines = stream.collect(Collectors.toList());
+        }
+
+        // Then
+        assertThat(lines, contains(asList("l1c1", "l1c2"), asList("l2c1", "l2c2")));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.csv;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of writing 50,000 records, a quarter of whose fields are quoted, to a file: through a writer, directly as
+ * UTF-8 to a file channel and in parallel batches, against escaping each field by insertion into a string builder
+ * written to an unbuffered writer, as the writer once did.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvWriterBenchmark {
+    private static final int NUMBER_OF_RECORDS = 50_000;
+
+    private List<List<?>> records;
+
+    private File file;
+
+    @Setup
+    public void setUp() throws IOException {
+        records = new ArrayList<>();
+        for (int n = 0; n < NUMBER_OF_RECORDS; n++) {
+            records.add(Arrays.asList(n, "customer-" + n, "Street " + (n % 97) + ", Town", n * 1.25d, "said \"hello\"", "2024-01-" + (10 + n % 20),
+                                      "a longer unquoted description of the record", n * 7L));
+        }
+        file = File.createTempFile("CsvWriterBenchmark", ".csv");
+        file.deleteOnExit();
+    }
+
+    @Benchmark
+    public long writer() throws IOException {
+        try (CsvWriter writer = new CsvWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            records.forEach(writer::writeRecord);
+        }
+        return file.length();
+    }
+
+    @Benchmark
+    public long channel() throws IOException {
+        try (CsvWriter writer = new CsvWriter(FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))) {
+            records.forEach(writer::writeRecord);
+        }
+        return file.length();
+    }
+
+    @Benchmark
+    public long channelInParallel() throws IOException {
+        try (CsvWriter writer = new CsvWriter(FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))) {
+            writer.writeRecordsInParallel(records);
+        }
+        return file.length();
+    }
+
+    @Benchmark
+    public long insertionEscaping() throws IOException {
+        StringBuilder field = new StringBuilder();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            for (List<?> record : records) {
+                for (int n = 0; n < record.size(); n++) {
+                    if (n > 0) writer.write(",");
+                    field.setLength(0);
+                    field.append(record.get(n));
+                    boolean quoted = false;
+                    for (int i = 0; i < field.length(); i++) {
+                        char ch = field.charAt(i);
+                        quoted = quoted || ",\n\"".indexOf(ch) >= 0;
+                        if (ch == '"') field.insert(i++, '"');
+                    }
+                    if (quoted) field.insert(0, '"').append('"');
+                    writer.write(field.toString());
+                }
+                writer.write("\r\n");
+            }
+        }
+        return file.length();
+    }
+}
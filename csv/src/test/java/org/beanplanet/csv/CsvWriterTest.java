@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.csv;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class CsvWriterTest {
+    @TempDir
+    Path tempDir;
+
+    private static List<List<?>> records(int numberOfRecords) {
+        List<List<?>> records = new ArrayList<>();
+        for (int n = 0; n < numberOfRecords; n++) {
+            records.add(Arrays.asList(n, -7L * n, "plain " + n, "say \"hi\", é€😀\r\nbye", null, 1.5d * n));
+        }
+        return records;
+    }
+
+    private static String expected(List<List<?>> records) {
+        StringBuilder csv = new StringBuilder();
+        for (List<?> record : records) {
+            csv.append(record.get(0)).append(',').append(record.get(1)).append(',').append(record.get(2))
+               .append(",\"say \"\"hi\"\", é€😀\r\nbye\",,").append(record.get(5)).append("\r\n");
+        }
+        return csv.toString();
+    }
+
+    @Test
+    public void fieldsAreQuotedAndEscaped() {
+        // Given
+        StringWriter out = new StringWriter();
+
+        // When
+        try (CsvWriter writer = new CsvWriter(out)) {
+            writer.writeRecord(Arrays.asList("a", "b,c", "\"", "", null, Long.MIN_VALUE, new StringBuilder("x\ny")));
+        }
+
+        // Then
+        assertThat(out.toString(), equalTo("a,\"b,c\",\"\"\"\",,," + Long.MIN_VALUE + ",\"x\ny\"\r\n"));
+    }
+
+    @Test
+    public void overriddenQuotableCharactersAreQuoted() {
+        // Given
+        StringWriter out = new StringWriter();
+
+        // When
+        try (CsvWriter writer = new CsvWriter(out) {
+            @Override
+            protected boolean isQuotableCharacter(char ch) {
+                return ch == ' ' || super.isQuotableCharacter(ch);
+            }
+        }) {
+            writer.writeRecord(Arrays.asList("a b", "c", "d,e"));
+        }
+
+        // Then
+        assertThat(out.toString(), equalTo("\"a b\",c,\"d,e\"\r\n"));
+    }
+
+    @Test
+    public void recordsReachDelegateWhenFlushed() {
+        // Given
+        StringWriter out = new StringWriter();
+        CsvWriter writer = new CsvWriter(out);
+
+        // When
+        writer.writeRecord(Arrays.asList("a", "b"));
+
+        // Then
+        assertThat(out.toString(), equalTo(""));
+        writer.flush();
+        assertThat(out.toString(), equalTo("a,b\r\n"));
+    }
+
+    @Test
+    public void parsedRecordsRoundTrip() {
+        // Given
+        String csv = "1,\"quoted, \"\"field\"\"\",\"multi\nline\"\r\n,,plain\r\n";
+        StringWriter out = new StringWriter();
+        CsvTokenizer tokenizer = new CsvTokenizer(csv.toCharArray(), 0, csv.length());
+
+        // When
+        try (CsvWriter writer = new CsvWriter(out)) {
+            for (CsvRecord record = tokenizer.next(); record != null; record = tokenizer.next()) {
+                writer.writeRecord(record);
+            }
+        }
+
+        // Then
+        assertThat(out.toString(), equalTo(csv));
+    }
+
+    @Test
+    public void smallBufferIsWrittenInBlocks() {
+        // Given
+        List<List<?>> records = records(500);
+        StringWriter out = new StringWriter();
+
+        // When
+        try (CsvWriter writer = new CsvWriter(out, 7)) {
+            records.forEach(writer::writeRecord);
+            writer.flush();
+
+            // Then
+            assertThat(out.toString(), equalTo(expected(records)));
+        }
+    }
+
+    @Test
+    public void utf8WrittenToChannel() throws IOException {
+        // Given
+        List<List<?>> records = records(500);
+        Path file = tempDir.resolve("records.csv");
+
+        // When
+        try (CsvWriter writer = new CsvWriter(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE), 13)) {
+            records.forEach(writer::writeRecord);
+        }
+
+        // Then
+        assertThat(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), equalTo(expected(records)));
+    }
+
+    @Test
+    public void parallelBatchesWrittenInOrder() throws IOException {
+        // Given
+        List<List<?>> records = records(10_000);
+        Path file = tempDir.resolve("records.csv");
+        StringWriter out = new StringWriter();
+
+        // When
+        try (CsvWriter channelWriter = new CsvWriter(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE));
+             CsvWriter writer = new CsvWriter(out)) {
+            channelWriter.setParallelBatchSize(100);
+            writer.setParallelBatchSize(100);
+            channelWriter.writeRecord(Arrays.asList("header"));
+            writer.writeRecord(Arrays.asList("header"));
+            channelWriter.writeRecordsInParallel(records);
+            writer.writeRecordsInParallel(records);
+        }
+
+        // Then
+        assertThat(out.toString(), equalTo("header\r\n" + expected(records)));
+        assertThat(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), equalTo("header\r\n" + expected(records)));
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.csv;
+
+import org.beanplanet.core.io.resource.FileResource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class MappedCsvSpliteratorTest {
+    @TempDir
+    Path tempDir;
+
+    private static int findRecordBoundary(String csv, boolean endOfInput) {
+        return MappedCsvSpliterator.findRecordBoundary(ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8)), (byte)',', (byte)'"', endOfInput);
+    }
+
+    private Path writeCsv(int numberOfRecords) throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int n = 0; n < numberOfRecords; n++) {
+            csv.append(n).append(",\"multi\nline ").append(n).append("\",\"quote \"\"").append(n).append("\"\"\",plain text ").append(n).append("\r\n");
+        }
+        return Files.write(tempDir.resolve("records.csv"), csv.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<List<CharSequence>> streamLines(CsvReader reader, Path file, boolean parallel) {
+        try (Stream<List<CharSequence>> lines = reader.streamLines(new FileResource(file.toFile()))) {
+            return (parallel ? lines.parallel() : lines).collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void findRecordBoundary_outsideQuotedFields() {
+        assertThat(findRecordBoundary("ield,second\n\"third\",fourth\n", false), equalTo(12));
+    }
+
+    @Test
+    public void findRecordBoundary_withinQuotedField() {
+        // The line feeds within the quoted field are not record boundaries
+        assertThat(findRecordBoundary("art\nof field\",next\n\"another\",x\n", false), equalTo(19));
+    }
+
+    @Test
+    public void findRecordBoundary_withinEscapedQuote() {
+        // The split point falls between the quotes of an escaped quote
+        assertThat(findRecordBoundary("\" escaped\nquote\",x\n\"y\",z\n", false), equalTo(19));
+    }
+
+    @Test
+    public void findRecordBoundary_undecidedWithoutQuotes() {
+        // The split point may fall within a quoted field opened before the window
+        assertThat(findRecordBoundary("no quotes\nat all\n", false), equalTo(-1));
+    }
+
+    @Test
+    public void findRecordBoundary_quotedFieldsCannotRemainOpenAtTheEndOfInput() {
+        assertThat(findRecordBoundary("no quotes\nat all\n", true), equalTo(10));
+        assertThat(findRecordBoundary("no boundary", true), equalTo(-1));
+    }
+
+    @Test
+    public void trySplit_splitsAtRecordBoundaries() throws IOException {
+        // Given
+        Path file = writeCsv(2000);
+        MappedCsvSpliterator spliterator = new MappedCsvSpliterator(FileChannel.open(file, StandardOpenOption.READ), StandardCharsets.UTF_8, 1024, 1024, true);
+
+        // When
+        Spliterator<CsvRecord> prefix = spliterator.trySplit();
+
+        // Then
+        assertThat(prefix, notNullValue());
+        long[] counts = new long[2];
+        prefix.forEachRemaining(record -> { assertThat(record.size(), equalTo(4)); counts[0]++; });
+        spliterator.forEachRemaining(record -> { assertThat(record.size(), equalTo(4)); counts[1]++; });
+        assertThat(counts[0], greaterThan(0L));
+        assertThat(counts[1], greaterThan(0L));
+        assertThat(counts[0] + counts[1], equalTo(2000L));
+        assertThat(spliterator.trySplit(), nullValue());
+        spliterator.close();
+    }
+
+    @Test
+    public void streamLines_parallelMatchesSequential() throws IOException {
+        // Given
+        Path file = writeCsv(5000);
+        CsvReader sequentialReader = new CsvReader();
+        sequentialReader.setMemoryMapped(false);
+        CsvReader parallelReader = new CsvReader();
+        parallelReader.setMinimumSplitSize(4096);
+
+        // When
+        List<List<CharSequence>> sequential = streamLines(sequentialReader, file, false);
+        List<List<CharSequence>> parallel = streamLines(parallelReader, file, true);
+
+        // Then
+        assertThat(sequential, hasSize(5000));
+        assertThat(parallel, equalTo(sequential));
+    }
+
+    @Test
+    public void trySplit_quoteFreeRangeSplitsAtRecordBoundary() throws IOException {
+        // Given
+        StringBuilder csv = new StringBuilder();
+        for (int n = 0; n < 2000; n++) {
+            csv.append(n).append(",plain text ").append(n).append("\r\n");
+        }
+        Path file = Files.write(tempDir.resolve("quote-free.csv"), csv.toString().getBytes(StandardCharsets.UTF_8));
+        MappedCsvSpliterator spliterator = new MappedCsvSpliterator(FileChannel.open(file, StandardOpenOption.READ), StandardCharsets.UTF_8, 1024, 1024, true);
+
+        // When
+        Spliterator<CsvRecord> prefix = spliterator.trySplit();
+
+        // Then
+        assertThat(prefix, notNullValue());
+        long[] counts = new long[2];
+        prefix.forEachRemaining(record -> { assertThat(record.size(), equalTo(2)); counts[0]++; });
+        spliterator.forEachRemaining(record -> { assertThat(record.size(), equalTo(2)); counts[1]++; });
+        assertThat(counts[0], greaterThan(0L));
+        assertThat(counts[1], greaterThan(0L));
+        assertThat(counts[0] + counts[1], equalTo(2000L));
+        spliterator.close();
+    }
+
+    @Test
+    public void trySplit_quotedFieldSpanningSpeculationWindowIsResolved() throws IOException {
+        // Given a quoted field, without quotes, spanning the split point and more than the speculation window
+        StringBuilder csv = new StringBuilder();
+        for (int n = 0; n < 1000; n++) {
+            csv.append(n).append(",\"quoted ").append(n).append("\"\n");
+        }
+        csv.append("long,\"");
+        int fieldStart = csv.length();
+        while (csv.length() < 3 * MappedCsvSpliterator.SPECULATION_WINDOW_SIZE) {
+            csv.append("line of a very long quoted field\n");
+        }
+        csv.append("\"\n");
+        int fieldEnd = csv.length();
+        for (int n = 0; n < 1000; n++) {
+            csv.append(n).append(",plain ").append(n).append('\n');
+        }
+        Path file = Files.write(tempDir.resolve("long-field.csv"), csv.toString().getBytes(StandardCharsets.UTF_8));
+        assertThat(csv.length() / 2, allOf(greaterThan(fieldStart), lessThan(fieldEnd)));
+        MappedCsvSpliterator spliterator = new MappedCsvSpliterator(FileChannel.open(file, StandardOpenOption.READ), StandardCharsets.UTF_8, 1024, 1024, true);
+
+        // When
+        Spliterator<CsvRecord> prefix = spliterator.trySplit();
+
+        // Then the range splits after the quoted field, rather than within it
+        assertThat(prefix, notNullValue());
+        long[] counts = new long[2];
+        String[] lastOfPrefix = new String[1];
+        prefix.forEachRemaining(record -> { lastOfPrefix[0] = record.getString(0); counts[0]++; });
+        spliterator.forEachRemaining(record -> { assertThat(record.getString(1), startsWith("plain ")); counts[1]++; });
+        assertThat(lastOfPrefix[0], equalTo("long"));
+        assertThat(counts[0], equalTo(1001L));
+        assertThat(counts[1], equalTo(1000L));
+        spliterator.close();
+    }
+
+    @Test
+    public void streamLines_quotedFieldSpanningSpeculationWindowParallelMatchesSequential() throws IOException {
+        // Given a quoted field, without quotes, spanning more than the speculation window
+        StringBuilder csv = new StringBuilder();
+        for (int n = 0; n < 5000; n++) {
+            csv.append(n).append(",\"quoted ").append(n).append("\"\n");
+        }
+        csv.append("first,\"");
+        while (csv.length() < 3 * MappedCsvSpliterator.SPECULATION_WINDOW_SIZE) {
+            csv.append("line of a very long quoted field\n");
+        }
+        csv.append("\",last\n");
+        Path file = Files.write(tempDir.resolve("long-field.csv"), csv.toString().getBytes(StandardCharsets.UTF_8));
+        CsvReader sequentialReader = new CsvReader();
+        sequentialReader.setMemoryMapped(false);
+        CsvReader parallelReader = new CsvReader();
+        parallelReader.setMinimumSplitSize(4096);
+
+        // When
+        List<List<CharSequence>> sequential = streamLines(sequentialReader, file, false);
+        List<List<CharSequence>> parallel = streamLines(parallelReader, file, true);
+
+        // Then
+        assertThat(sequential, hasSize(5001));
+        assertThat(parallel, equalTo(sequential));
+    }
+}
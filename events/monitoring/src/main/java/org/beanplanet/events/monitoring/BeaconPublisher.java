@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.events.monitoring;
+
+import org.beanplanet.core.events.EventSupport;
+import org.beanplanet.core.logging.Logger;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically publishes a {@link BeaconSignalEvent}, carrying a snapshot of the metrics of a {@link MetricsRegistry},
+ * to its listeners. Signals are published on a daemon thread of the publisher between {@link #startup()} and
+ * {@link #shutdown()}, or on demand through {@link #publish()}.
+ */
+public class BeaconPublisher implements Logger {
+    /** The default interval between signals, in milliseconds. */
+    public static final long DEFAULT_INTERVAL_MILLIS = 60000;
+
+    private final MetricsRegistry registry;
+    private final EventSupport eventSupport = new EventSupport();
+
+    /** The interval between signals, in milliseconds. */
+    private long intervalMillis = DEFAULT_INTERVAL_MILLIS;
+
+    /** Publishes signals while the publisher is started, or null when stopped. */
+    private volatile ScheduledExecutorService publishingExecutor;
+
+    /**
+     * Creates a publisher of the metrics of a registry.
+     *
+     * @param registry the registry whose metrics are published.
+     */
+    public BeaconPublisher(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    public MetricsRegistry getRegistry() {
+        return registry;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * Sets the interval between signals, which takes effect when the publisher is next started.
+     *
+     * @param intervalMillis the interval between signals, in milliseconds.
+     */
+    public void setIntervalMillis(long intervalMillis) {
+        if (intervalMillis <= 0) throw new IllegalArgumentException("The beacon interval must be positive [" + intervalMillis + "]");
+        this.intervalMillis = intervalMillis;
+    }
+
+    public boolean addBeaconSignalListener(BeaconSignalListener listener) {
+        return eventSupport.addListener(BeaconSignalEvent.class, listener);
+    }
+
+    public boolean removeBeaconSignalListener(BeaconSignalListener listener) {
+        return eventSupport.removeListener(BeaconSignalEvent.class, listener);
+    }
+
+    /**
+     * Returns the event support through which signals are published, to deliver them asynchronously, for example.
+     *
+     * @return the event support of the publisher.
+     */
+    public EventSupport getEventSupport() {
+        return eventSupport;
+    }
+
+    public boolean isStarted() {
+        return publishingExecutor != null;
+    }
+
+    /**
+     * Starts publishing signals, the first after one interval.
+     */
+    public synchronized void startup() {
+        if (publishingExecutor != null) return;
+
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "beanplanet-beacon-publisher");
+            thread.setDaemon(true); // Allow for unexpected DIRECT shutdown of the VM
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::publishSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        publishingExecutor = executor;
+    }
+
+    /**
+     * Stops publishing signals.
+     */
+    public synchronized void shutdown() {
+        ScheduledExecutorService executor = publishingExecutor;
+        publishingExecutor = null;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Publishes a signal now, carrying a snapshot of the metrics of the registry.
+     *
+     * @return the signal published.
+     */
+    public BeaconSignalEvent publish() {
+        BeaconSignalEvent event = new BeaconSignalEvent(this, registry.snapshot());
+        eventSupport.dispatchEvent(event);
+        return event;
+    }
+
+    private void publishSafely() {
+        try {
+            publish();
+        } catch (RuntimeException ex) {
+            // Keep publishing: an uncaught exception would cancel all future signals
+            error(ex, "Unable to publish beacon signal");
+        }
+    }
+}
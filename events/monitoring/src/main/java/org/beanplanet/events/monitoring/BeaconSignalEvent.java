@@ -20,8 +20,36 @@ import org.beanplanet.core.events.BaseEvent;
 
 import static java.time.Instant.now;
 
+/**
+ * A periodic signal of the health of an application, carrying a snapshot of its metrics.
+ *
+ * @see BeaconPublisher
+ */
 public class BeaconSignalEvent extends BaseEvent {
+    private final MetricsSnapshot snapshot;
+
     public BeaconSignalEvent() {
         super(now(), now());
+        this.snapshot = MetricsSnapshot.EMPTY;
+    }
+
+    /**
+     * Creates a beacon signal.
+     *
+     * @param source the source of the signal.
+     * @param snapshot the metrics read for the signal.
+     */
+    public BeaconSignalEvent(Object source, MetricsSnapshot snapshot) {
+        super(source, snapshot.getTakenAt());
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Returns the metrics read for the signal.
+     *
+     * @return the snapshot of metrics carried by the signal, which is empty if none were read.
+     */
+    public MetricsSnapshot getSnapshot() {
+        return snapshot;
     }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.events.monitoring;
+
+import org.beanplanet.core.cache.*;
+
+/**
+ * Instruments a {@link ManagedCache}, recording its activity in a {@link MetricsRegistry} under the metric names
+ * <code>&lt;name&gt;.hits</code>, <code>.offHeapHits</code>, <code>.misses</code>, <code>.itemsAdded</code>,
+ * <code>.itemsRemoved</code> and <code>.clears</code>, with gauges <code>&lt;name&gt;.size</code> and
+ * <code>.hitRatio</code>.
+ * <p>
+ * The adapter listens to the cache as a {@link SelectiveCacheListener}, so the cache raises only the events recorded,
+ * and recording an event is an uncontended increment.
+ * </p>
+ *
+ * @param <K> the type of the cache keys.
+ * @param <V> the type of the cache values.
+ */
+public class CacheMetricsAdapter<K, V> implements SelectiveCacheListener<K, V> {
+    private final ManagedCache<K, V> cache;
+    private final MetricsRegistry registry;
+    private final String name;
+
+    private final Counter hits;
+    private final Counter offHeapHits;
+    private final Counter misses;
+    private final Counter itemsAdded;
+    private final Counter itemsRemoved;
+    private final Counter clears;
+
+    private CacheMetricsAdapter(ManagedCache<K, V> cache, MetricsRegistry registry, String name) {
+        this.cache = cache;
+        this.registry = registry;
+        this.name = name;
+        this.hits = registry.counter(name + ".hits");
+        this.offHeapHits = registry.counter(name + ".offHeapHits");
+        this.misses = registry.counter(name + ".misses");
+        this.itemsAdded = registry.counter(name + ".itemsAdded");
+        this.itemsRemoved = registry.counter(name + ".itemsRemoved");
+        this.clears = registry.counter(name + ".clears");
+        registry.gauge(name + ".size", cache::size);
+        registry.gauge(name + ".hitRatio", this::getHitRatio);
+    }
+
+    /**
+     * Instruments a cache, recording its activity in the given registry until uninstrumented.
+     *
+     * @param cache the cache to be instrumented.
+     * @param registry the registry in which the metrics of the cache are recorded.
+     * @param name the prefix of the names of the metrics of the cache.
+     * @return the adapter instrumenting the cache.
+     */
+    public static <K, V> CacheMetricsAdapter<K, V> instrument(ManagedCache<K, V> cache, MetricsRegistry registry, String name) {
+        CacheMetricsAdapter<K, V> adapter = new CacheMetricsAdapter<>(cache, registry, name);
+        cache.addCacheListener(adapter);
+        return adapter;
+    }
+
+    /**
+     * Stops recording the activity of the cache, and removes its metrics from the registry.
+     */
+    public void uninstrument() {
+        cache.removeCacheListener(this);
+        registry.removeAll(name + ".");
+    }
+
+    /**
+     * Returns the proportion of lookups of the cache, since it was instrumented or the registry reset, which were hits.
+     *
+     * @return the hit ratio, from 0 to 1, or 0 if there have been no lookups.
+     */
+    public double getHitRatio() {
+        long hitCount = hits.getCount();
+        long lookups = hitCount + misses.getCount();
+        return lookups == 0 ? 0 : (double)hitCount / lookups;
+    }
+
+    @Override
+    public boolean isSubscribedTo(Class<?> eventType) {
+        return eventType == CacheHitEvent.class
+               || eventType == CacheMissEvent.class
+               || eventType == CacheItemsAddedEvent.class
+               || eventType == CacheItemsRemovedEvent.class
+               || eventType == CacheClearedEvent.class;
+    }
+
+    @Override
+    public void onCacheHit(CacheHitEvent<K, V> event) {
+        hits.increment();
+        if (event.getTier() == CacheTier.OFF_HEAP) {
+            offHeapHits.increment();
+        }
+    }
+
+    @Override
+    public void onCacheMiss(CacheMissEvent<K, V> event) {
+        misses.increment();
+    }
+
+    @Override
+    public void onCacheItemsAdded(CacheItemsAddedEvent<K, V> event) {
+        itemsAdded.add(event.getEntriesAdded().size());
+    }
+
+    @Override
+    public void onCacheItemsRemoved(CacheItemsRemovedEvent<K, V> event) {
+        itemsRemoved.add(event.getEntriesRemoved().size());
+    }
+
+    @Override
+    public void onCacheCleared(CacheClearedEvent<K, V> event) {
+        clears.increment();
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.events.monitoring;
+
+/**
+ * A measurement read on demand, such as the size of a cache, when the metrics are read.
+ */
+@FunctionalInterface
+public interface Gauge {
+    /**
+     * Reads the current value of the measurement. Called on the thread reading the metrics, so must be thread-safe.
+     *
+     * @return the current value of the gauge.
+     */
+    double getValue();
+}
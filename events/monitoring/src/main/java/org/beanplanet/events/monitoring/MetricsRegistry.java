@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.events.monitoring;
+
+import org.beanplanet.core.util.LatencyHistogram;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A registry of named metrics: {@link Counter}s, {@link Gauge}s and {@link LatencyHistogram}s. All metrics of an
+ * application may be read together, in process, through {@link #snapshot()}.
+ * <p>
+ * Recording a metric takes no locks. Counters are striped across cells, so threads counting at the same time do not
+ * contend with one another. Histograms count each value with an atomic increment of its bucket, in an array shared by
+ * all threads, so threads contend only on values falling in the same bucket or on a new minimum or maximum. Look
+ * metrics up once and keep them, rather than looking them up by name on every recording.
+ * </p>
+ */
+public class MetricsRegistry {
+    private static final double[] SNAPSHOT_PERCENTILES = { 50, 90, 99, 99.9 };
+    private static final String[] SNAPSHOT_PERCENTILE_NAMES = { ".p50", ".p90", ".p99", ".p999" };
+
+    /** The metrics of the registry, by name. */
+    private final ConcurrentHashMap<String, Object> metrics = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the counter of the given name, registering a new counter if none is registered.
+     *
+     * @param name the name of the counter.
+     * @return the counter of the given name.
+     * @throws IllegalArgumentException if a metric of another type is registered under the name.
+     */
+    public Counter counter(String name) {
+        return metricOfType(name, metrics.computeIfAbsent(name, k -> new Counter()), Counter.class);
+    }
+
+    /**
+     * Returns the histogram of the given name, registering a new histogram if none is registered.
+     *
+     * @param name the name of the histogram.
+     * @return the histogram of the given name.
+     * @throws IllegalArgumentException if a metric of another type is registered under the name.
+     */
+    public LatencyHistogram histogram(String name) {
+        return metricOfType(name, metrics.computeIfAbsent(name, k -> new LatencyHistogram()), LatencyHistogram.class);
+    }
+
+    /**
+     * Registers a gauge, replacing any gauge already registered under the name.
+     *
+     * @param name the name of the gauge.
+     * @param gauge the gauge to be registered.
+     * @return the gauge registered.
+     * @throws IllegalArgumentException if a metric of another type is registered under the name.
+     */
+    public Gauge gauge(String name, Gauge gauge) {
+        Object existing = metrics.merge(name, gauge, (current, replacement) -> current instanceof Gauge ? replacement : current);
+        return metricOfType(name, existing, Gauge.class);
+    }
+
+    private static <M> M metricOfType(String name, Object metric, Class<M> metricType) {
+        if (!metricType.isInstance(metric)) {
+            throw new IllegalArgumentException("A metric of another type is already registered under the name [" + name + "]: " + metric.getClass().getSimpleName());
+        }
+        return metricType.cast(metric);
+    }
+
+    /**
+     * Returns a metric of the registry.
+     *
+     * @param name the name of the metric.
+     * @return the counter, gauge or histogram registered under the name, or null if none is registered.
+     */
+    public Object getMetric(String name) {
+        return metrics.get(name);
+    }
+
+    /**
+     * Returns the names of the metrics of the registry.
+     *
+     * @return a sorted copy of the names of all registered metrics.
+     */
+    public SortedSet<String> getMetricNames() {
+        return Collections.unmodifiableSortedSet(new TreeSet<>(metrics.keySet()));
+    }
+
+    /**
+     * Removes a metric from the registry.
+     *
+     * @param name the name of the metric to be removed.
+     * @return true if a metric was registered under the name and removed, false otherwise.
+     */
+    public boolean remove(String name) {
+        return metrics.remove(name) != null;
+    }
+
+    /**
+     * Removes all metrics whose names begin with the given prefix, such as the metrics of an instrumented component.
+     *
+     * @param prefix the prefix of the names of the metrics to be removed.
+     * @return true if any metrics were removed, false otherwise.
+     */
+    public boolean removeAll(String prefix) {
+        return metrics.keySet().removeIf(name -> name.startsWith(prefix));
+    }
+
+    /**
+     * Resets all counters and histograms of the registry. Gauges are unaffected.
+     */
+    public void reset() {
+        for (Object metric : metrics.values()) {
+            if (metric instanceof Counter) {
+                ((Counter)metric).reset();
+            } else if (metric instanceof LatencyHistogram) {
+                ((LatencyHistogram)metric).reset();
+            }
+        }
+    }
+
+    /**
+     * Reads the values of all metrics of the registry. Metrics are read one at a time, while they may still be recorded,
+     * so the values are not a consistent view of the same instant. Gauges which fail to read are omitted.
+     *
+     * @return a snapshot of the values of the metrics.
+     */
+    public MetricsSnapshot snapshot() {
+        SortedMap<String, Number> values = new TreeMap<>();
+        for (Map.Entry<String, Object> metric : metrics.entrySet()) {
+            String name = metric.getKey();
+            Object value = metric.getValue();
+            if (value instanceof Counter) {
+                values.put(name, ((Counter)value).getCount());
+            } else if (value instanceof Gauge) {
+                try {
+                    values.put(name, ((Gauge)value).getValue());
+                } catch (RuntimeException ignoreEx) {}
+            } else if (value instanceof LatencyHistogram) {
+                LatencyHistogram histogram = (LatencyHistogram)value;
+                values.put(name + ".count", histogram.getCount());
+                values.put(name + ".min", histogram.getMin());
+                values.put(name + ".max", histogram.getMax());
+                values.put(name + ".mean", histogram.getMean());
+                for (int n=0; n < SNAPSHOT_PERCENTILES.length; n++) {
+                    values.put(name + SNAPSHOT_PERCENTILE_NAMES[n], histogram.getValueAtPercentile(SNAPSHOT_PERCENTILES[n]));
+                }
+            }
+        }
+        return new MetricsSnapshot(Instant.now(), values);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[metrics=" + getMetricNames() + "]";
+    }
+}
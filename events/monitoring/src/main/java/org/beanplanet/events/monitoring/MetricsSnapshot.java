@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.events.monitoring;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * The values of all metrics of a {@link MetricsRegistry}, read at one time. Counters and gauges have a single value,
+ * under the name of the metric. Histograms have several, under the name of the histogram followed by
+ * <code>.count</code>, <code>.min</code>, <code>.max</code>, <code>.mean</code>, <code>.p50</code>,
+ * <code>.p90</code>, <code>.p99</code> and <code>.p999</code>.
+ */
+public final class MetricsSnapshot {
+    /** A snapshot of no metrics. */
+    public static final MetricsSnapshot EMPTY = new MetricsSnapshot(Instant.EPOCH, new TreeMap<>());
+
+    private final Instant takenAt;
+    private final SortedMap<String, Number> values;
+
+    /**
+     * Creates a snapshot.
+     *
+     * @param takenAt the time at which the values were read.
+     * @param values the values read, by name, which are retained by the snapshot.
+     */
+    public MetricsSnapshot(Instant takenAt, SortedMap<String, Number> values) {
+        this.takenAt = takenAt;
+        this.values = Collections.unmodifiableSortedMap(values);
+    }
+
+    public Instant getTakenAt() {
+        return takenAt;
+    }
+
+    /**
+     * Returns all values of the snapshot.
+     *
+     * @return an unmodifiable map of the values of the snapshot, in order of name.
+     */
+    public SortedMap<String, Number> getValues() {
+        return values;
+    }
+
+    /**
+     * Returns a value of the snapshot.
+     *
+     * @param name the name of the value.
+     * @return the value of the given name, or null if the snapshot has no such value.
+     */
+    public Number getValue(String name) {
+        return values.get(name);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[takenAt=" + takenAt + ", values=" + values + "]";
+    }
+}
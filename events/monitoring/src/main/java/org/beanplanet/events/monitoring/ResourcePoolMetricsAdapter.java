@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.events.monitoring;
+
+import org.beanplanet.core.pool.ManagedResourcePool;
+import org.beanplanet.core.pool.ResourcePoolMetricsSink;
+import org.beanplanet.core.util.LatencyHistogram;
+
+/**
+ * Instruments a {@link ManagedResourcePool}, recording its activity in a {@link MetricsRegistry}: histograms
+ * <code>&lt;name&gt;.loanWaitNanos</code> and <code>.loanDurationNanos</code>, counters <code>.loanTimeouts</code> and
+ * <code>.itemCreationFailures</code>, and gauges <code>.loaned</code>, <code>.available</code> and
+ * <code>.waitingBorrowers</code>.
+ * <p>
+ * The adapter is installed as the metrics sink of the pool, passing measurements on to any sink the pool already had.
+ * </p>
+ */
+public class ResourcePoolMetricsAdapter implements ResourcePoolMetricsSink {
+    private final ManagedResourcePool<?> pool;
+    private final MetricsRegistry registry;
+    private final String name;
+    private final ResourcePoolMetricsSink delegate;
+
+    private final LatencyHistogram loanWaitNanos;
+    private final LatencyHistogram loanDurationNanos;
+    private final Counter loanTimeouts;
+    private final Counter itemCreationFailures;
+
+    private ResourcePoolMetricsAdapter(ManagedResourcePool<?> pool, MetricsRegistry registry, String name) {
+        this.pool = pool;
+        this.registry = registry;
+        this.name = name;
+        this.delegate = pool.getMetricsSink();
+        this.loanWaitNanos = registry.histogram(name + ".loanWaitNanos");
+        this.loanDurationNanos = registry.histogram(name + ".loanDurationNanos");
+        this.loanTimeouts = registry.counter(name + ".loanTimeouts");
+        this.itemCreationFailures = registry.counter(name + ".itemCreationFailures");
+        registry.gauge(name + ".loaned", pool::getNumberOfLoanedItems);
+        registry.gauge(name + ".available", pool::getNumberOfAvailableItems);
+        registry.gauge(name + ".waitingBorrowers", pool::getNumberOfWaitingBorrowers);
+    }
+
+    /**
+     * Instruments a pool, recording its activity in the given registry until uninstrumented.
+     *
+     * @param pool the pool to be instrumented.
+     * @param registry the registry in which the metrics of the pool are recorded.
+     * @param name the prefix of the names of the metrics of the pool.
+     * @return the adapter instrumenting the pool.
+     */
+    public static ResourcePoolMetricsAdapter instrument(ManagedResourcePool<?> pool, MetricsRegistry registry, String name) {
+        ResourcePoolMetricsAdapter adapter = new ResourcePoolMetricsAdapter(pool, registry, name);
+        pool.setMetricsSink(adapter);
+        return adapter;
+    }
+
+    /**
+     * Stops recording the activity of the pool, restoring the sink it had before, and removes its metrics from the
+     * registry.
+     */
+    public void uninstrument() {
+        if (pool.getMetricsSink() == this) {
+            pool.setMetricsSink(delegate);
+        }
+        registry.removeAll(name + ".");
+    }
+
+    @Override
+    public void itemLoaned(long waitNanos) {
+        loanWaitNanos.record(waitNanos);
+        if (delegate != null) delegate.itemLoaned(waitNanos);
+    }
+
+    @Override
+    public void itemReturned(long loanNanos) {
+        loanDurationNanos.record(loanNanos);
+        if (delegate != null) delegate.itemReturned(loanNanos);
+    }
+
+    @Override
+    public void loanTimedOut(long waitNanos) {
+        loanTimeouts.increment();
+        if (delegate != null) delegate.loanTimedOut(waitNanos);
+    }
+
+    @Override
+    public void itemCreationFailed(Throwable cause) {
+        itemCreationFailures.increment();
+        if (delegate != null) delegate.itemCreationFailed(cause);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.events.monitoring;
+
+import org.beanplanet.core.lang.conversion.SystemTypeConverter;
+import org.beanplanet.core.lang.conversion.TypeConversionMetricsSink;
+import org.beanplanet.core.util.LatencyHistogram;
+
+/**
+ * Instruments a {@link SystemTypeConverter}, recording its conversions in a {@link MetricsRegistry}: a histogram
+ * <code>&lt;name&gt;.conversionNanos</code> of the time taken by conversions, and counters
+ * <code>.unsupportedConversions</code> and <code>.failedConversions</code>.
+ * <p>
+ * The adapter is installed as the metrics sink of the converter, passing measurements on to any sink the converter
+ * already had.
+ * </p>
+ */
+public class TypeConversionMetricsAdapter implements TypeConversionMetricsSink {
+    private final SystemTypeConverter converter;
+    private final MetricsRegistry registry;
+    private final String name;
+    private final TypeConversionMetricsSink delegate;
+
+    private final LatencyHistogram conversionNanos;
+    private final Counter unsupportedConversions;
+    private final Counter failedConversions;
+
+    private TypeConversionMetricsAdapter(SystemTypeConverter converter, MetricsRegistry registry, String name) {
+        this.converter = converter;
+        this.registry = registry;
+        this.name = name;
+        this.delegate = converter.getMetricsSink();
+        this.conversionNanos = registry.histogram(name + ".conversionNanos");
+        this.unsupportedConversions = registry.counter(name + ".unsupportedConversions");
+        this.failedConversions = registry.counter(name + ".failedConversions");
+    }
+
+    /**
+     * Instruments a type converter, recording its conversions in the given registry until uninstrumented.
+     *
+     * @param converter the converter to be instrumented.
+     * @param registry the registry in which the metrics of the converter are recorded.
+     * @param name the prefix of the names of the metrics of the converter.
+     * @return the adapter instrumenting the converter.
+     */
+    public static TypeConversionMetricsAdapter instrument(SystemTypeConverter converter, MetricsRegistry registry, String name) {
+        TypeConversionMetricsAdapter adapter = new TypeConversionMetricsAdapter(converter, registry, name);
+        converter.setMetricsSink(adapter);
+        return adapter;
+    }
+
+    /**
+     * Stops recording the conversions of the converter, restoring the sink it had before, and removes its metrics from
+     * the registry.
+     */
+    public void uninstrument() {
+        if (converter.getMetricsSink() == this) {
+            converter.setMetricsSink(delegate);
+        }
+        registry.removeAll(name + ".");
+    }
+
+    @Override
+    public void converted(Class<?> sourceType, Class<?> targetType, long elapsedNanos) {
+        conversionNanos.record(elapsedNanos);
+        if (delegate != null) delegate.converted(sourceType, targetType, elapsedNanos);
+    }
+
+    @Override
+    public void conversionUnsupported(Class<?> sourceType, Class<?> targetType) {
+        unsupportedConversions.increment();
+        if (delegate != null) delegate.conversionUnsupported(sourceType, targetType);
+    }
+
+    @Override
+    public void conversionFailed(Class<?> sourceType, Class<?> targetType, Throwable cause) {
+        failedConversions.increment();
+        if (delegate != null) delegate.conversionFailed(sourceType, targetType, cause);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.events.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class BeaconPublisherTest {
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final BeaconPublisher publisher = new BeaconPublisher(registry);
+
+    @Test
+    public void publish_signalCarriesSnapshotOfRegistry() {
+        // Given
+        List<BeaconSignalEvent> signals = new CopyOnWriteArrayList<>();
+        registry.counter("requests").add(3);
+        publisher.addBeaconSignalListener(signals::add);
+
+        // When
+        BeaconSignalEvent published = publisher.publish();
+
+        // Then
+        assertThat(signals, contains(published));
+        assertThat(published.getSource(), sameInstance(publisher));
+        assertThat(published.getSnapshot().getValue("requests"), equalTo(3L));
+    }
+
+    @Test
+    public void startup_signalsPublishedPeriodically() throws Exception {
+        // Given
+        CountDownLatch signals = new CountDownLatch(2);
+        publisher.addBeaconSignalListener(event -> signals.countDown());
+        publisher.setIntervalMillis(10);
+
+        // When
+        publisher.startup();
+        try {
+            // Then
+            assertThat(publisher.isStarted(), is(true));
+            assertThat(signals.await(10, TimeUnit.SECONDS), is(true));
+        } finally {
+            publisher.shutdown();
+        }
+        assertThat(publisher.isStarted(), is(false));
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.events.monitoring;
+
+import org.beanplanet.core.cache.ManagedCache;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class CacheMetricsAdapterTest {
+    @Test
+    public void instrument_cacheActivityRecorded() {
+        // Given
+        MetricsRegistry registry = new MetricsRegistry();
+        ManagedCache<String, String> cache = new ManagedCache<>();
+        CacheMetricsAdapter<String, String> adapter = CacheMetricsAdapter.instrument(cache, registry, "cache");
+
+        // When
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+        cache.get("c");
+        cache.remove("b");
+
+        // Then
+        MetricsSnapshot snapshot = registry.snapshot();
+        assertThat(snapshot.getValue("cache.hits"), equalTo(1L));
+        assertThat(snapshot.getValue("cache.misses"), equalTo(1L));
+        assertThat(snapshot.getValue("cache.itemsAdded"), equalTo(2L));
+        assertThat(snapshot.getValue("cache.itemsRemoved"), equalTo(1L));
+        assertThat(snapshot.getValue("cache.size"), equalTo(1d));
+        assertThat(snapshot.getValue("cache.hitRatio"), equalTo(0.5d));
+        assertThat(adapter.getHitRatio(), equalTo(0.5d));
+    }
+
+    @Test
+    public void uninstrument_metricsRemovedAndActivityNoLongerRecorded() {
+        // Given
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("other");
+        ManagedCache<String, String> cache = new ManagedCache<>();
+        CacheMetricsAdapter<String, String> adapter = CacheMetricsAdapter.instrument(cache, registry, "cache");
+        cache.get("a");
+
+        // When
+        adapter.uninstrument();
+        cache.get("a");
+
+        // Then
+        assertThat(registry.getMetricNames(), contains("other"));
+        assertThat(adapter.getHitRatio(), equalTo(0d));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.events.monitoring;
+
+import org.beanplanet.core.util.LatencyHistogram;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MetricsRegistryTest {
+    private final MetricsRegistry registry = new MetricsRegistry();
+
+    @Test
+    public void counter_sameCounterReturnedForName() {
+        // When
+        registry.counter("requests").increment();
+        registry.counter("requests").add(2);
+
+        // Then
+        assertThat(registry.counter("requests"), sameInstance(registry.counter("requests")));
+        assertThat(registry.counter("requests").getCount(), equalTo(3L));
+    }
+
+    @Test
+    public void metricOfAnotherTypeUnderSameName_throws() {
+        // Given
+        registry.counter("requests");
+
+        // Then
+        assertThrows(IllegalArgumentException.class, () -> registry.histogram("requests"));
+        assertThrows(IllegalArgumentException.class, () -> registry.gauge("requests", () -> 1));
+    }
+
+    @Test
+    public void snapshot_allMetricsRead() {
+        // Given
+        registry.counter("requests").add(5);
+        registry.gauge("size", () -> 42);
+        registry.gauge("broken", () -> { throw new IllegalStateException(); });
+        LatencyHistogram latency = registry.histogram("latency");
+        for (int n=1; n <= 100; n++) {
+            latency.record(n);
+        }
+
+        // When
+        MetricsSnapshot snapshot = registry.snapshot();
+
+        // Then
+        assertThat(snapshot.getValue("requests"), equalTo(5L));
+        assertThat(snapshot.getValue("size"), equalTo(42d));
+        assertThat(snapshot.getValue("broken"), nullValue());
+        assertThat(snapshot.getValue("latency.count"), equalTo(100L));
+        assertThat(snapshot.getValue("latency.min"), equalTo(1L));
+        assertThat(snapshot.getValue("latency.max"), equalTo(100L));
+        assertThat(snapshot.getValue("latency.p50").longValue(), equalTo(50L));
+        assertThat(snapshot.getValues().keySet(), hasItems("latency.p90", "latency.p99", "latency.p999", "latency.mean"));
+    }
+
+    @Test
+    public void removeAll_metricsWithPrefixRemoved() {
+        // Given
+        registry.counter("cache.hits");
+        registry.counter("cache.misses");
+        registry.counter("pool.loans");
+
+        // When
+        boolean removed = registry.removeAll("cache.");
+
+        // Then
+        assertThat(removed, is(true));
+        assertThat(registry.getMetricNames(), contains("pool.loans"));
+    }
+
+    @Test
+    public void reset_countersAndHistogramsCleared() {
+        // Given
+        registry.counter("requests").increment();
+        registry.histogram("latency").record(10);
+
+        // When
+        registry.reset();
+
+        // Then
+        assertThat(registry.counter("requests").getCount(), equalTo(0L));
+        assertThat(registry.histogram("latency").getCount(), equalTo(0L));
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.events.monitoring;
+
+import org.beanplanet.core.lang.conversion.SystemTypeConverter;
+import org.beanplanet.core.lang.conversion.UnsupportedTypeConversionException;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TypeConversionMetricsAdapterTest {
+    @Test
+    public void instrument_conversionsRecorded() {
+        // Given
+        MetricsRegistry registry = new MetricsRegistry();
+        SystemTypeConverter converter = new SystemTypeConverter();
+        TypeConversionMetricsAdapter adapter = TypeConversionMetricsAdapter.instrument(converter, registry, "conversion");
+
+        // When
+        converter.convert(1L, String.class);
+        converter.convert("2", Integer.class);
+        converter.convert("passed through", String.class);
+        assertThrows(UnsupportedTypeConversionException.class, () -> converter.convert(new Object(), MetricsRegistry.class));
+
+        // Then
+        MetricsSnapshot snapshot = registry.snapshot();
+        assertThat(snapshot.getValue("conversion.conversionNanos.count"), equalTo(2L));
+        assertThat(snapshot.getValue("conversion.unsupportedConversions"), equalTo(1L));
+
+        // When
+        adapter.uninstrument();
+
+        // Then
+        assertThat(converter.getMetricsSink(), nullValue());
+        assertThat(registry.getMetricNames(), empty());
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2001-present the original author or authors (see NOTICE herein).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.beanplanet.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Writes an index of the type converter classes of a compilation, so they may be loaded at runtime without scanning the
+ * classpath for them. Indexed classes are those annotated with
+ * <code>org.beanplanet.core.lang.conversion.annotations.TypeConverter</code> or implementing
+ * <code>org.beanplanet.core.lang.conversion.TypeConverter</code>, listed by binary name, one per line, in
+ * {@value #TYPE_CONVERTER_INDEX_RESOURCE}.
+ * <p>
+ * Under incremental compilation only some of the classes of a module are compiled, so the index is merged with the one
+ * written by the previous compilation: converters listed previously are kept, unless compiled again and no longer
+ * converters, or no longer found at all.
+ * </p>
+ * <p>
+ * The processor is discovered by the compiler wherever this module is on the compile classpath. It refers to the
+ * converter types by name only, so has no dependency on the core library.
+ * </p>
+ */
+@SupportedAnnotationTypes("*")
+public class TypeConverterIndexProcessor extends AbstractProcessor {
+    /** The resource to which the index is written, which the type converter loader reads. */
+    public static final String TYPE_CONVERTER_INDEX_RESOURCE = "META-INF/services/org/beanplanet/converters/type-converter-index.txt";
+
+    private static final String TYPE_CONVERTER_ANNOTATION = "org.beanplanet.core.lang.conversion.annotations.TypeConverter";
+    private static final String TYPE_CONVERTER_INTERFACE = "org.beanplanet.core.lang.conversion.TypeConverter";
+
+    private final Set<String> converterClassNames = new TreeSet<>();
+
+    /** The binary names of all classes compiled, whether converters or not. */
+    private final Set<String> compiledClassNames = new HashSet<>();
+
+    /** The converters listed in the index of the previous compilation, read in the first round. */
+    private Set<String> previousConverterClassNames;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (previousConverterClassNames == null) {
+            previousConverterClassNames = readPreviousIndex();
+        }
+        if (roundEnv.processingOver()) {
+            writeIndex();
+            return false;
+        }
+
+        TypeElement converterInterface = processingEnv.getElementUtils().getTypeElement(TYPE_CONVERTER_INTERFACE);
+        TypeMirror converterType = converterInterface == null ? null : processingEnv.getTypeUtils().erasure(converterInterface.asType());
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            collectConverters(type, converterType);
+        }
+        return false;
+    }
+
+    private void collectConverters(TypeElement type, TypeMirror converterType) {
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        compiledClassNames.add(binaryName);
+        if (isConverter(type, converterType)) {
+            converterClassNames.add(binaryName);
+        }
+        for (TypeElement memberType : ElementFilter.typesIn(type.getEnclosedElements())) {
+            collectConverters(memberType, converterType);
+        }
+    }
+
+    private boolean isConverter(TypeElement type, TypeMirror converterType) {
+        for (AnnotationMirror annotation : type.getAnnotationMirrors()) {
+            if (((TypeElement)annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(TYPE_CONVERTER_ANNOTATION)) return true;
+        }
+
+        return converterType != null
+               && type.getKind() == ElementKind.CLASS
+               && !type.getModifiers().contains(Modifier.ABSTRACT)
+               && processingEnv.getTypeUtils().isAssignable(processingEnv.getTypeUtils().erasure(type.asType()), converterType);
+    }
+
+    /**
+     * Reads the index written by the previous compilation into the class output, if any.
+     *
+     * @return the converter class names listed by the previous index, which is empty if there was none.
+     */
+    private Set<String> readPreviousIndex() {
+        Set<String> classNames = new TreeSet<>();
+        try {
+            FileObject index = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", TYPE_CONVERTER_INDEX_RESOURCE);
+            try (Reader reader = index.openReader(true); BufferedReader lineReader = new BufferedReader(reader)) {
+                for (String line = lineReader.readLine(); line != null; line = lineReader.readLine()) {
+                    line = line.trim();
+                    if (!line.isEmpty() && !line.startsWith("#")) {
+                        classNames.add(line);
+                    }
+                }
+            }
+        } catch (IOException | IllegalArgumentException noIndexEx) {
+            // There is no previous index: this is a full compilation
+        }
+        return classNames;
+    }
+
+    /**
+     * Adds the converters of the previous index not compiled again, so long as they still exist and are converters.
+     */
+    private void mergePreviousIndex() {
+        TypeElement converterInterface = processingEnv.getElementUtils().getTypeElement(TYPE_CONVERTER_INTERFACE);
+        TypeMirror converterType = converterInterface == null ? null : processingEnv.getTypeUtils().erasure(converterInterface.asType());
+        for (String previousClassName : previousConverterClassNames) {
+            if (compiledClassNames.contains(previousClassName)) continue;
+
+            TypeElement type = processingEnv.getElementUtils().getTypeElement(previousClassName.replace('$', '.'));
+            if (type != null && isConverter(type, converterType)) {
+                converterClassNames.add(previousClassName);
+            }
+        }
+    }
+
+    private void writeIndex() {
+        mergePreviousIndex();
+        if (converterClassNames.isEmpty() && previousConverterClassNames.isEmpty()) return;
+
+        try {
+            FileObject index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", TYPE_CONVERTER_INDEX_RESOURCE);
+            try (Writer writer = index.openWriter()) {
+                writer.write("# Type converter classes, indexed at compile time by " + getClass().getName() + "\n");
+                for (String converterClassName : converterClassNames) {
+                    writer.write(converterClassName);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException ioEx) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to write type converter index [" + TYPE_CONVERTER_INDEX_RESOURCE + "]: " + ioEx);
+        }
+    }
+}